@@ -50,6 +50,23 @@ public class ApiResponse<T> {
         return res;
     }
 
+    /**
+     * Wraps a controller body in the standard envelope; page and slice bodies get pagination meta.
+     */
+    public static ApiResponse<?> wrap(Object body) {
+        if (body instanceof ApiResponse<?> res) {
+            return res;
+        }
+        if (body instanceof PageResponse<?> pr) {
+            Meta meta = Meta.ofPage(pr.getPage(), pr.getSize(), pr.getTotalElements(), pr.getTotalPages());
+            return paginated(pr.getContent(), meta);
+        }
+        if (body instanceof SliceResponse<?> sr) {
+            return paginated(sr.getContent(), Meta.ofSlice(sr.getSize(), sr.isHasNext(), sr.getNextCursor()));
+        }
+        return success(body);
+    }
+
     public static <T> ApiResponse<T> paginated(T data, Meta meta) {
         ApiResponse<T> res = new ApiResponse<>();
         res.setSuccess(true);
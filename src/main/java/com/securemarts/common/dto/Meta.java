@@ -13,15 +13,29 @@ import lombok.NoArgsConstructor;
 @Schema(description = "Pagination metadata inside ApiResponse")
 public class Meta {
 
-    @Schema(description = "Current page number (0-based)")
-    private int page;
+    @Schema(description = "Current page number (0-based); absent in cursor mode")
+    private Integer page;
 
     @Schema(description = "Page size")
-    private int size;
+    private Integer size;
 
-    @Schema(description = "Total number of elements")
-    private long totalElements;
+    @Schema(description = "Total number of elements; absent in cursor mode")
+    private Long totalElements;
 
-    @Schema(description = "Total number of pages")
-    private int totalPages;
+    @Schema(description = "Total number of pages; absent in cursor mode")
+    private Integer totalPages;
+
+    @Schema(description = "Cursor mode: whether more items follow")
+    private Boolean hasNext;
+
+    @Schema(description = "Cursor mode: pass as 'after' to fetch the next slice; absent on the last slice")
+    private String nextCursor;
+
+    public static Meta ofPage(int page, int size, long totalElements, int totalPages) {
+        return new Meta(page, size, totalElements, totalPages, null, null);
+    }
+
+    public static Meta ofSlice(int size, boolean hasNext, String nextCursor) {
+        return new Meta(null, size, null, null, hasNext, nextCursor);
+    }
 }
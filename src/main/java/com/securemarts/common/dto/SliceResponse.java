@@ -0,0 +1,54 @@
+package com.securemarts.common.dto;
+
+import com.securemarts.common.util.CursorCodec;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Count-free page for keyset (cursor) pagination. Pass nextCursor back as {@code after} to fetch the next slice.
+ */
+@Schema(description = "Cursor-paginated response wrapper (no total count)")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SliceResponse<T> {
+
+    @Schema(description = "List of items for this slice")
+    private List<T> content;
+
+    @Schema(description = "Requested slice size (limit)")
+    private int size;
+
+    @Schema(description = "Whether more items follow this slice")
+    private boolean hasNext;
+
+    @Schema(description = "Opaque cursor for the next slice; null on the last slice")
+    private String nextCursor;
+
+    /**
+     * Builds a slice from rows fetched with limit + 1: the extra row only signals that a next slice exists.
+     */
+    public static <E, T> SliceResponse<T> of(List<E> rows, int limit, Function<E, Long> sortKey, Function<List<E>, List<T>> mapper) {
+        return ofCursor(rows, limit, row -> CursorCodec.encode(sortKey.apply(row)), mapper);
+    }
+
+    /** As {@link #of}, for sort keys that need their own cursor encoding (e.g. {@link CursorCodec#encode(long, long)}). */
+    public static <E, T> SliceResponse<T> ofCursor(List<E> rows, int limit, Function<E, String> cursor, Function<List<E>, List<T>> mapper) {
+        boolean hasNext = rows.size() > limit;
+        List<E> page = hasNext ? rows.subList(0, limit) : rows;
+        String next = hasNext && !page.isEmpty() ? cursor.apply(page.get(page.size() - 1)) : null;
+        return SliceResponse.<T>builder()
+                .content(mapper.apply(page))
+                .size(limit)
+                .hasNext(hasNext)
+                .nextCursor(next)
+                .build();
+    }
+}
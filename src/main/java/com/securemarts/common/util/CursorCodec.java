@@ -0,0 +1,76 @@
+package com.securemarts.common.util;
+
+import com.securemarts.common.exception.BusinessRuleException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes keyset positions as opaque, URL-safe cursors so clients never depend on the sort key.
+ */
+public final class CursorCodec {
+
+    private static final String PREFIX = "k:";
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 200;
+
+    private CursorCodec() {}
+
+    public static String encode(long key) {
+        return encode(String.valueOf(key));
+    }
+
+    /** Cursor for a two-part sort key (e.g. a tie-broken position). */
+    public static String encode(long first, long second) {
+        return encode(first + ":" + second);
+    }
+
+    /** Returns the decoded key, or null when no cursor was given (first slice). */
+    public static Long decode(String cursor) {
+        String raw = decodeRaw(cursor);
+        if (raw == null) return null;
+        try {
+            return Long.parseLong(raw);
+        } catch (NumberFormatException e) {
+            throw new BusinessRuleException("Invalid cursor");
+        }
+    }
+
+    /** Returns the decoded two-part key, or null when no cursor was given (first slice). */
+    public static long[] decodePair(String cursor) {
+        String raw = decodeRaw(cursor);
+        if (raw == null) return null;
+        int colon = raw.indexOf(':');
+        try {
+            if (colon < 0) throw new NumberFormatException();
+            return new long[]{Long.parseLong(raw.substring(0, colon)), Long.parseLong(raw.substring(colon + 1))};
+        } catch (NumberFormatException e) {
+            throw new BusinessRuleException("Invalid cursor");
+        }
+    }
+
+    /** True when the request opted into cursor mode (after and/or limit given). */
+    public static boolean isCursorRequest(String after, Integer limit) {
+        return (after != null && !after.isBlank()) || limit != null;
+    }
+
+    public static int clampLimit(Integer limit) {
+        if (limit == null || limit <= 0) return DEFAULT_LIMIT;
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    private static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((PREFIX + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeRaw(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            if (!raw.startsWith(PREFIX)) throw new BusinessRuleException("Invalid cursor");
+            return raw.substring(PREFIX.length());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessRuleException("Invalid cursor");
+        }
+    }
+}
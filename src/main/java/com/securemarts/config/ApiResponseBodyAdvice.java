@@ -1,8 +1,6 @@
 package com.securemarts.config;
 
 import com.securemarts.common.dto.ApiResponse;
-import com.securemarts.common.dto.Meta;
-import com.securemarts.common.dto.PageResponse;
 import org.springframework.core.MethodParameter;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageConverter;
@@ -23,17 +21,10 @@ public class ApiResponseBodyAdvice implements ResponseBodyAdvice<Object> {
     public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
                                   Class<? extends HttpMessageConverter<?>> selectedConverterType,
                                   ServerHttpRequest request, ServerHttpResponse response) {
-        if (body instanceof ApiResponse) {
+        if (body instanceof byte[]) {
+            // Pre-serialized envelope (storefront read model)
             return body;
         }
-        if (body == null) {
-            return ApiResponse.success(null);
-        }
-        if (body instanceof PageResponse) {
-            PageResponse<?> pr = (PageResponse<?>) body;
-            Meta meta = new Meta(pr.getPage(), pr.getSize(), pr.getTotalElements(), pr.getTotalPages());
-            return ApiResponse.paginated(pr.getContent(), meta);
-        }
-        return ApiResponse.success(body);
+        return ApiResponse.wrap(body);
     }
 }
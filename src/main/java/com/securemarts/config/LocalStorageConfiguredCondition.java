@@ -0,0 +1,23 @@
+package com.securemarts.config;
+
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.ConfigurationCondition;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * Matches when app.storage.local.base-dir is set. Used for the local filesystem storage backend
+ * (tests and local development without Spaces).
+ */
+public class LocalStorageConfiguredCondition implements ConfigurationCondition {
+
+    @Override
+    public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        String baseDir = context.getEnvironment().getProperty("app.storage.local.base-dir");
+        return baseDir != null && !baseDir.isBlank();
+    }
+
+    @Override
+    public ConfigurationPhase getConfigurationPhase() {
+        return ConfigurationPhase.REGISTER_BEAN;
+    }
+}
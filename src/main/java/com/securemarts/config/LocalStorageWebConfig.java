@@ -0,0 +1,25 @@
+package com.securemarts.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.nio.file.Path;
+
+/** Serves files written by the local storage backend under /public/media/** (already public in SecurityConfig). */
+@Configuration
+@Conditional(LocalStorageConfiguredCondition.class)
+public class LocalStorageWebConfig implements WebMvcConfigurer {
+
+    @Value("${app.storage.local.base-dir}")
+    private String baseDir;
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        String location = Path.of(baseDir).toAbsolutePath().toUri().toString();
+        registry.addResourceHandler("/public/media/**")
+                .addResourceLocations(location.endsWith("/") ? location : location + "/");
+    }
+}
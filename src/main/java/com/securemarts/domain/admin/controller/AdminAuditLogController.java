@@ -1,6 +1,6 @@
 package com.securemarts.domain.admin.controller;
 
-import com.securemarts.common.dto.PageResponse;
+import com.securemarts.common.util.CursorCodec;
 import com.securemarts.domain.audit.dto.AuditLogResponse;
 import com.securemarts.domain.audit.entity.AuditLog;
 import com.securemarts.domain.audit.service.AuditLogService;
@@ -35,16 +35,22 @@ public class AdminAuditLogController {
     private final AuditLogService auditLogService;
 
     @GetMapping
-    @Operation(summary = "List audit logs", description = "Paginated list with optional search and filters")
+    @Operation(summary = "List audit logs", description = "Paginated list with optional search and filters. "
+            + "Pass limit (and after from meta.nextCursor) for count-free cursor pagination, newest first.")
     @PreAuthorize("hasRole('SUPERUSER') or hasAuthority('SCOPE_admin:audit:read')")
-    public ResponseEntity<PageResponse<AuditLogResponse>> list(
+    public ResponseEntity<?> list(
             @Parameter(description = "Search in activity ID, action, or details") @RequestParam(required = false) String search,
             @Parameter(description = "Filter by actor public ID") @RequestParam(required = false) String user,
             @Parameter(description = "Filter by action") @RequestParam(required = false) String action,
             @Parameter(description = "Filter by module") @RequestParam(required = false) String module,
             @Parameter(description = "From timestamp (ISO-8601)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
             @Parameter(description = "To timestamp (ISO-8601)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @Parameter(description = "Cursor mode: opaque cursor from meta.nextCursor") @RequestParam(required = false) String after,
+            @Parameter(description = "Cursor mode: slice size (max 200)") @RequestParam(required = false) Integer limit,
             @PageableDefault(size = 20) Pageable pageable) {
+        if (CursorCodec.isCursorRequest(after, limit)) {
+            return ResponseEntity.ok(auditLogService.listSlice(search, user, action, module, from, to, after, limit));
+        }
         return ResponseEntity.ok(auditLogService.list(search, user, action, module, from, to, pageable));
     }
 
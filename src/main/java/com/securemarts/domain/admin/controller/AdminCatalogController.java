@@ -0,0 +1,29 @@
+package com.securemarts.domain.admin.controller;
+
+import com.securemarts.domain.catalog.service.SmartCollectionRecomputeScheduler;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin/catalog")
+@RequiredArgsConstructor
+@Tag(name = "Admin - Catalog", description = "Catalog background processing")
+@SecurityRequirement(name = "bearerAuth")
+public class AdminCatalogController {
+
+    private final SmartCollectionRecomputeScheduler smartCollectionRecomputeScheduler;
+
+    @GetMapping("/collection-recompute/stats")
+    @Operation(summary = "Smart collection recompute stats", description = "Queue depth, coalesced requests, runs, failures and run times since startup")
+    @PreAuthorize("hasRole('SUPERUSER') or hasAuthority('SCOPE_admin:reports:read')")
+    public ResponseEntity<SmartCollectionRecomputeScheduler.Stats> collectionRecomputeStats() {
+        return ResponseEntity.ok(smartCollectionRecomputeScheduler.stats());
+    }
+}
@@ -1,9 +1,17 @@
 package com.securemarts.domain.audit.service;
 
 import com.securemarts.common.dto.PageResponse;
+import com.securemarts.common.dto.SliceResponse;
+import com.securemarts.common.util.CursorCodec;
 import com.securemarts.domain.audit.dto.AuditLogResponse;
 import com.securemarts.domain.audit.entity.AuditLog;
 import com.securemarts.domain.audit.repository.AuditLogRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -13,6 +21,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.stream.Stream;
 
 @Service
@@ -21,6 +30,9 @@ public class AuditLogService {
 
     private final AuditLogRepository auditLogRepository;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Transactional
     public void record(AuditLog.ActorType actorType, String actorPublicId, String actorLabel,
                        String action, String module, String details, HttpServletRequest request) {
@@ -58,6 +70,25 @@ public class AuditLogService {
         return PageResponse.of(page.map(AuditLogResponse::from));
     }
 
+    /** Cursor mode: newest first by id, fetching limit + 1 rows and skipping the count query. */
+    @Transactional(readOnly = true)
+    public SliceResponse<AuditLogResponse> listSlice(String search, String actorPublicId, String action,
+                                                     String module, Instant fromTs, Instant toTs, String after, Integer limit) {
+        int size = CursorCodec.clampLimit(limit);
+        Long beforeId = CursorCodec.decode(after);
+        Specification<AuditLog> spec = buildSpec(search, actorPublicId, action, module, fromTs, toTs);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AuditLog> query = cb.createQuery(AuditLog.class);
+        Root<AuditLog> root = query.from(AuditLog.class);
+        Predicate where = spec.toPredicate(root, query, cb);
+        if (beforeId != null) {
+            where = cb.and(where, cb.lessThan(root.get("id"), beforeId));
+        }
+        query.where(where).orderBy(cb.desc(root.get("id")));
+        List<AuditLog> rows = entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+        return SliceResponse.of(rows, size, AuditLog::getId, list -> list.stream().map(AuditLogResponse::from).toList());
+    }
+
     @Transactional(readOnly = true)
     public Stream<AuditLog> streamForExport(String search, String actorPublicId, String action,
                                             String module, Instant fromTs, Instant toTs) {
@@ -6,7 +6,9 @@ import com.securemarts.domain.cart.entity.Cart;
 import com.securemarts.domain.cart.entity.CartItem;
 import com.securemarts.domain.cart.repository.CartRepository;
 import com.securemarts.domain.inventory.entity.Location;
+import com.securemarts.domain.inventory.service.InventoryReservationEngine;
 import com.securemarts.domain.inventory.service.InventoryService;
+import com.securemarts.domain.inventory.service.OrderAllocationService;
 import com.securemarts.domain.order.dto.OrderResponse;
 import com.securemarts.domain.order.entity.Order;
 import com.securemarts.domain.order.entity.OrderItem;
@@ -24,6 +26,7 @@ import com.securemarts.domain.payment.service.PaymentService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -42,10 +45,19 @@ public class CheckoutService {
     private final StoreRepository storeRepository;
     private final StoreChannelService storeChannelService;
     private final InventoryService inventoryService;
+    private final OrderAllocationService orderAllocationService;
     private final PaymentService paymentService;
+    private final TransactionTemplate transactionTemplate;
 
     @Transactional
     public Order createOrderFromCart(Long storeId, Long customerId, String cartPublicId, String deliveryAddress, java.math.BigDecimal deliveryLat, java.math.BigDecimal deliveryLng) {
+        Order order = placeOrder(storeId, customerId, cartPublicId, deliveryAddress, deliveryLat, deliveryLng);
+        clearCart(storeId, cartPublicId);
+        return order;
+    }
+
+    /** Creates the order, its allocations and shipments and reserves the stock; the cart is left as it is. */
+    private Order placeOrder(Long storeId, Long customerId, String cartPublicId, String deliveryAddress, java.math.BigDecimal deliveryLat, java.math.BigDecimal deliveryLng) {
         Store store = storeRepository.findById(storeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Store", String.valueOf(storeId)));
         storeChannelService.ensureOnlineEnabled(store);
@@ -53,8 +65,10 @@ public class CheckoutService {
         if (cart.getItems().isEmpty()) {
             throw new BusinessRuleException("Cart is empty");
         }
+        Map<String, Integer> availability = inventoryService.getAvailableQuantities(storeId,
+                cart.getItems().stream().map(ci -> ci.getProductVariant().getPublicId()).toList());
         for (CartItem ci : cart.getItems()) {
-            int available = inventoryService.getAvailableQuantityForVariant(storeId, ci.getProductVariant().getPublicId());
+            int available = availability.getOrDefault(ci.getProductVariant().getPublicId(), 0);
             if (ci.getQuantity() > available) {
                 throw new BusinessRuleException(
                     "Insufficient stock for " + ci.getProductVariant().getTitle() + ". Available: " + available + ", requested: " + ci.getQuantity());
@@ -87,28 +101,39 @@ public class CheckoutService {
         }
         order.setReservationExpiresAt(Instant.now().plus(30, ChronoUnit.MINUTES));
         order = orderRepository.save(order);
-        // Allocate each line to location(s) and create shipments, then reserve per allocation
+        // Allocate the whole order to location(s) and create shipments, then reserve per allocation
         List<OrderItem> sortedItems = order.getItems().stream()
                 .sorted(Comparator.comparing(oi -> oi.getProductVariant().getId()))
                 .toList();
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (OrderItem oi : sortedItems) {
+            quantities.merge(oi.getProductVariant().getPublicId(), oi.getQuantity(), Integer::sum);
+        }
+        Map<String, Deque<OrderAllocationService.LocationAllocation>> planned = new HashMap<>();
+        for (OrderAllocationService.LocationAllocation a : orderAllocationService.allocate(storeId, quantities, deliveryLat, deliveryLng)) {
+            planned.computeIfAbsent(a.getVariantPublicId(), k -> new ArrayDeque<>()).add(a);
+        }
         List<OrderItemAllocation> allocations = new ArrayList<>();
-        Set<Long> locationIds = new HashSet<>();
+        Set<Long> locationIds = new LinkedHashSet<>();
         for (OrderItem oi : sortedItems) {
-            List<com.securemarts.domain.inventory.entity.InventoryLevel> candidates = inventoryService.getAllocationCandidatesForVariant(storeId, oi.getProductVariant().getPublicId());
-            if (candidates.isEmpty()) {
+            Deque<OrderAllocationService.LocationAllocation> plan = planned.get(oi.getProductVariant().getPublicId());
+            if (plan == null) {
                 throw new BusinessRuleException("No inventory for variant " + oi.getProductVariant().getTitle());
             }
+            // Items of the same variant take the variant's planned allocations in turn
             int remaining = oi.getQuantity();
-            for (com.securemarts.domain.inventory.entity.InventoryLevel level : candidates) {
-                if (remaining <= 0) break;
-                int take = Math.min(remaining, level.getQuantityAvailable());
-                if (take <= 0) continue;
+            while (remaining > 0 && !plan.isEmpty()) {
+                OrderAllocationService.LocationAllocation head = plan.pop();
+                int take = Math.min(remaining, head.getQuantity());
+                if (take < head.getQuantity()) {
+                    plan.push(new OrderAllocationService.LocationAllocation(head.getVariantPublicId(), head.getLocation(), head.getQuantity() - take));
+                }
                 OrderItemAllocation alloc = new OrderItemAllocation();
                 alloc.setOrderItem(oi);
-                alloc.setLocation(level.getLocation());
+                alloc.setLocation(head.getLocation());
                 alloc.setQuantity(take);
                 allocations.add(alloc);
-                locationIds.add(level.getLocation().getId());
+                locationIds.add(head.getLocation().getId());
                 remaining -= take;
             }
             if (remaining > 0) {
@@ -127,19 +152,29 @@ public class CheckoutService {
             shipmentRepository.save(sh);
         }
         orderItemAllocationRepository.saveAll(allocations);
+        // One guarded update for the whole order: fails (and rolls back) if stock moved since the candidates were read
+        List<InventoryReservationEngine.LevelLine> lines = new ArrayList<>(allocations.size());
         for (OrderItemAllocation a : allocations) {
-            inventoryService.reserveAtLevel(storeId, a.getOrderItem().getProductVariant().getPublicId(), a.getLocation().getPublicId(), a.getQuantity(), "ORDER", order.getPublicId());
+            lines.add(new InventoryReservationEngine.LevelLine(a.getOrderItem().getProductVariant().getPublicId(), a.getLocation().getPublicId(), a.getQuantity()));
         }
+        inventoryService.reserveAtLevels(storeId, lines, "ORDER", order.getPublicId());
+        return order;
+    }
+
+    private void clearCart(Long storeId, String cartPublicId) {
+        Cart cart = cartService.getCart(storeId, cartPublicId);
         cart.getItems().clear();
         cartRepository.save(cart);
-        return order;
     }
 
     /**
      * Creates order from cart and initiates payment in one call. Payment is linked to the order (order_id saved).
      * If deliveryAddress and deliveryLat/deliveryLng are provided, a delivery order is created when payment succeeds.
+     * <p>
+     * Not one transaction: the order and its reservation commit first, so the inventory level rows locked by the
+     * reservation are released before the gateway call. If initiation fails the order is cancelled (reservation
+     * released) and the cart kept; it is cleared only once payment was initiated.
      */
-    @Transactional
     public com.securemarts.domain.cart.dto.CreateOrderAndPayResponse createOrderAndInitiatePayment(
             Long storeId,
             Long customerId,
@@ -150,7 +185,8 @@ public class CheckoutService {
             String deliveryAddress,
             java.math.BigDecimal deliveryLat,
             java.math.BigDecimal deliveryLng) {
-        Order order = createOrderFromCart(storeId, customerId, cartPublicId, deliveryAddress, deliveryLat, deliveryLng);
+        OrderResponse order = transactionTemplate.execute(status ->
+                OrderResponse.from(placeOrder(storeId, customerId, cartPublicId, deliveryAddress, deliveryLat, deliveryLng)));
         InitiatePaymentRequest payRequest = new InitiatePaymentRequest();
         payRequest.setEmail(email);
         payRequest.setAmount(order.getTotalAmount());
@@ -158,9 +194,21 @@ public class CheckoutService {
         payRequest.setOrderId(order.getPublicId());
         payRequest.setCallbackUrl(callbackUrl);
         payRequest.setGateway(gateway != null && !gateway.isBlank() ? gateway : "PAYSTACK");
-        PaymentResponse paymentResponse = paymentService.initiate(storeId, payRequest);
+        PaymentResponse paymentResponse;
+        try {
+            paymentResponse = paymentService.initiate(storeId, payRequest);
+        } catch (RuntimeException e) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> cancelCheckout(storeId, order.getPublicId()));
+            } catch (RuntimeException cancelFailure) {
+                // The reservation still lapses at reservationExpiresAt
+                e.addSuppressed(cancelFailure);
+            }
+            throw e;
+        }
+        transactionTemplate.executeWithoutResult(status -> clearCart(storeId, cartPublicId));
         return com.securemarts.domain.cart.dto.CreateOrderAndPayResponse.builder()
-                .order(OrderResponse.from(order))
+                .order(order)
                 .payment(paymentResponse)
                 .build();
     }
@@ -4,10 +4,11 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.securemarts.common.dto.PageResponse;
 import com.securemarts.common.dto.ApiResponse;
+import com.securemarts.common.util.CursorCodec;
 import com.securemarts.domain.catalog.dto.ProductRequest;
 import com.securemarts.domain.catalog.dto.ProductResponse;
 import com.securemarts.domain.catalog.service.CatalogService;
-import com.securemarts.domain.catalog.service.FileStorageService;
+import com.securemarts.domain.catalog.service.MediaUploadService;
 import com.securemarts.domain.onboarding.service.MerchantPermissionService;
 import com.securemarts.domain.onboarding.service.StoreAccessService;
 import com.securemarts.security.CurrentTenant;
@@ -43,24 +44,30 @@ import java.util.stream.Stream;
 public class CatalogController {
 
     private final CatalogService catalogService;
-    private final FileStorageService fileStorageService;
+    private final MediaUploadService mediaUploadService;
     private final ObjectMapper objectMapper;
     private final StoreAccessService storeAccessService;
     private final MerchantPermissionService merchantPermissionService;
 
     @GetMapping
-    @Operation(summary = "List products", description = "Paginated list with optional status and search (store catalog)")
+    @Operation(summary = "List products", description = "Paginated list with optional status and search (store catalog). "
+            + "Pass limit (and after from meta.nextCursor) for count-free cursor pagination.")
     @PreAuthorize("hasAuthority('SCOPE_products:read') or hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
-    public ResponseEntity<PageResponse<ProductResponse>> list(
+    public ResponseEntity<?> list(
             @AuthenticationPrincipal String userPublicId,
             @Parameter(description = "Store public ID (products belong to this store)") @PathVariable String storePublicId,
             @Parameter(description = "Filter by product status", schema = @Schema(allowableValues = {"DRAFT", "ACTIVE", "ARCHIVED"})) @RequestParam(required = false) String status,
             @RequestParam(required = false) String q,
+            @Parameter(description = "Cursor mode: opaque cursor from meta.nextCursor") @RequestParam(required = false) String after,
+            @Parameter(description = "Cursor mode: slice size (max 200)") @RequestParam(required = false) Integer limit,
             @PageableDefault(size = 20) Pageable pageable) {
         storeAccessService.ensureUserCanAccessStore(userPublicId, storePublicId);
         merchantPermissionService.ensureStorePermissionByPublicId(userPublicId, storePublicId, "products:read");
         Long storeId = catalogService.resolveStoreId(storePublicId);
         ensureStoreAccess(storeId);
+        if (CursorCodec.isCursorRequest(after, limit)) {
+            return ResponseEntity.ok(catalogService.listProductsSlice(storeId, status, q, after, limit));
+        }
         return ResponseEntity.ok(catalogService.listProducts(storeId, status, q, pageable));
     }
 
@@ -176,24 +183,23 @@ public class CatalogController {
         if (variants != null && !variants.isBlank()) {
             request.setVariants(objectMapper.readValue(variants, new TypeReference<List<ProductRequest.ProductVariantRequest>>() {}));
         }
+        List<MediaUploadService.UploadedMedia> media = mediaUploadService.uploadAll(storePublicId, mediaFiles);
         List<ProductRequest.ProductMediaRequest> mediaList = new ArrayList<>();
-        if (mediaFiles != null && !mediaFiles.isEmpty()) {
-            for (int i = 0; i < mediaFiles.size(); i++) {
-                MultipartFile f = mediaFiles.get(i);
-                if (f == null || f.isEmpty()) continue;
-                String url = fileStorageService.store(storePublicId, f);
-                if (url != null) {
-                    ProductRequest.ProductMediaRequest mr = new ProductRequest.ProductMediaRequest();
-                    mr.setUrl(url);
-                    mr.setAlt("");
-                    mr.setPosition(i);
-                    mr.setMediaType("image");
-                    mediaList.add(mr);
-                }
-            }
+        for (int i = 0; i < media.size(); i++) {
+            MediaUploadService.UploadedMedia uploaded = media.get(i);
+            ProductRequest.ProductMediaRequest mr = new ProductRequest.ProductMediaRequest();
+            mr.setUrl(uploaded.getUrl());
+            mr.setThumbnailUrl(uploaded.getThumbnailUrl());
+            mr.setMediumUrl(uploaded.getMediumUrl());
+            mr.setLargeUrl(uploaded.getLargeUrl());
+            mr.setAlt("");
+            mr.setPosition(i);
+            mr.setMediaType("image");
+            mediaList.add(mr);
         }
         request.setMedia(mediaList);
-        return ResponseEntity.status(HttpStatus.CREATED).body(catalogService.createProduct(storeId, request));
+        return ResponseEntity.status(HttpStatus.CREATED).body(
+                mediaUploadService.attachOrDiscard(media, () -> catalogService.createProduct(storeId, request)));
     }
 
     @PutMapping("/{productPublicId}")
@@ -239,7 +245,10 @@ public class CatalogController {
         merchantPermissionService.ensureStorePermissionByPublicId(userPublicId, storePublicId, "products:write");
         Long storeId = catalogService.resolveStoreId(storePublicId);
         ensureStoreAccess(storeId);
-        return ResponseEntity.ok(catalogService.attachMediaToVariant(storeId, productPublicId, variantPublicId, mediaFiles));
+        catalogService.ensureVariantExists(storeId, productPublicId, variantPublicId);
+        List<MediaUploadService.UploadedMedia> media = mediaUploadService.uploadAll(storePublicId, mediaFiles);
+        return ResponseEntity.ok(mediaUploadService.attachOrDiscard(media,
+                () -> catalogService.attachMediaToVariant(storeId, productPublicId, variantPublicId, media)));
     }
 
     @DeleteMapping("/{productPublicId}/variants/{variantPublicId}/media/{mediaPublicId}")
@@ -265,7 +274,7 @@ public class CatalogController {
             @AuthenticationPrincipal String userPublicId,
             @Parameter(description = "Store public ID") @PathVariable String storePublicId,
             @Parameter(description = "Product public ID") @PathVariable String productPublicId,
-            @Valid @RequestBody ProductRequest.ProductVariantRequest request) throws java.io.IOException {
+            @Valid @RequestBody ProductRequest.ProductVariantRequest request) {
         storeAccessService.ensureUserCanAccessStore(userPublicId, storePublicId);
         merchantPermissionService.ensureStorePermissionByPublicId(userPublicId, storePublicId, "products:write");
         Long storeId = catalogService.resolveStoreId(storePublicId);
@@ -335,8 +344,10 @@ public class CatalogController {
         if (position != null) {
             request.setPosition(position);
         }
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(catalogService.addVariantWithMedia(storeId, productPublicId, request, mediaFiles));
+        catalogService.ensureProductExists(storeId, productPublicId);
+        List<MediaUploadService.UploadedMedia> media = mediaUploadService.uploadAll(storePublicId, mediaFiles);
+        return ResponseEntity.status(HttpStatus.CREATED).body(mediaUploadService.attachOrDiscard(media,
+                () -> catalogService.addVariantWithMedia(storeId, productPublicId, request, media)));
     }
 
     @PutMapping("/{productPublicId}/variants/{variantPublicId}")
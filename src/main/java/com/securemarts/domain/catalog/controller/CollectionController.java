@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.securemarts.domain.catalog.dto.*;
 import com.securemarts.domain.catalog.service.CollectionService;
 import com.securemarts.domain.catalog.service.FileStorageService;
+import com.securemarts.domain.catalog.service.SmartCollectionRecomputeScheduler;
 import com.securemarts.security.CurrentTenant;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -36,15 +37,19 @@ public class CollectionController {
 
     private final CollectionService collectionService;
     private final FileStorageService fileStorageService;
+    private final SmartCollectionRecomputeScheduler smartCollectionRecomputeScheduler;
     private final ObjectMapper objectMapper;
 
     @GetMapping
-    @Operation(summary = "List collections", description = "List all collections for the store")
+    @Operation(summary = "List collections", description = "List all collections for the store, optionally with the first few products of each")
     @PreAuthorize("hasAuthority('SCOPE_products:read') or hasAuthority('SCOPE_products:write') or hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
-    public ResponseEntity<List<CollectionResponse>> list(@PathVariable String storePublicId) {
+    public ResponseEntity<List<CollectionResponse>> list(
+            @PathVariable String storePublicId,
+            @Parameter(description = "Preview products per collection, by position (0 = none, max " + CollectionService.MAX_PREVIEW_SIZE + ")")
+            @RequestParam(required = false, defaultValue = "0") int preview) {
         Long storeId = collectionService.resolveStoreId(storePublicId);
         ensureStoreAccess(storeId);
-        return ResponseEntity.ok(collectionService.listByStore(storeId));
+        return ResponseEntity.ok(collectionService.listByStore(storeId, preview));
     }
 
     @GetMapping("/{collectionPublicId}")
@@ -202,6 +207,47 @@ public class CollectionController {
         return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
     }
 
+    @PostMapping("/{collectionPublicId}/products/bulk-add")
+    @Operation(summary = "Bulk add products to manual collection",
+            description = "Adds up to 10000 products in one call, at the given position or at the end. Products already in the "
+                    + "collection are skipped and unknown product IDs are reported in the response.")
+    @PreAuthorize("hasAuthority('SCOPE_products:write') or hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
+    public ResponseEntity<BulkCollectionProductsResponse> bulkAddProducts(
+            @PathVariable String storePublicId,
+            @PathVariable String collectionPublicId,
+            @Valid @RequestBody BulkCollectionProductsRequest request) {
+        Long storeId = collectionService.resolveStoreId(storePublicId);
+        ensureStoreAccess(storeId);
+        return ResponseEntity.ok(collectionService.addProductsBulk(storeId, collectionPublicId, request));
+    }
+
+    @PostMapping("/{collectionPublicId}/products/bulk-remove")
+    @Operation(summary = "Bulk remove products from manual collection",
+            description = "Removes up to 10000 products in one call; unknown product IDs are reported in the response.")
+    @PreAuthorize("hasAuthority('SCOPE_products:write') or hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
+    public ResponseEntity<BulkCollectionProductsResponse> bulkRemoveProducts(
+            @PathVariable String storePublicId,
+            @PathVariable String collectionPublicId,
+            @Valid @RequestBody BulkCollectionProductsRequest request) {
+        Long storeId = collectionService.resolveStoreId(storePublicId);
+        ensureStoreAccess(storeId);
+        return ResponseEntity.ok(collectionService.removeProductsBulk(storeId, collectionPublicId, request));
+    }
+
+    @PutMapping("/{collectionPublicId}/products/{productPublicId}/position")
+    @Operation(summary = "Move product within collection", description = "Reorders one product; other products keep their positions relative to each other")
+    @PreAuthorize("hasAuthority('SCOPE_products:write') or hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
+    public ResponseEntity<Void> moveProduct(
+            @PathVariable String storePublicId,
+            @PathVariable String collectionPublicId,
+            @PathVariable String productPublicId,
+            @Valid @RequestBody MoveCollectionProductRequest request) {
+        Long storeId = collectionService.resolveStoreId(storePublicId);
+        ensureStoreAccess(storeId);
+        collectionService.moveProduct(storeId, collectionPublicId, productPublicId, request.getPosition());
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
+
     @DeleteMapping("/{collectionPublicId}/products/{productPublicId}")
     @Operation(summary = "Remove product from manual collection")
     @PreAuthorize("hasAuthority('SCOPE_products:write') or hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
@@ -215,6 +261,17 @@ public class CollectionController {
         return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
     }
 
+    @PostMapping("/recompute")
+    @Operation(summary = "Recompute smart collections", description = "Repair operation: rebuilds the membership of every smart collection "
+            + "in the store from its rules. Runs in the background; day-to-day product and stock changes are applied incrementally.")
+    @PreAuthorize("hasAuthority('SCOPE_products:write') or hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
+    public ResponseEntity<Void> recomputeSmartCollections(@PathVariable String storePublicId) {
+        Long storeId = collectionService.resolveStoreId(storePublicId);
+        ensureStoreAccess(storeId);
+        smartCollectionRecomputeScheduler.recomputeForStore(storeId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+    }
+
     private void ensureStoreAccess(Long storeId) {
         Long currentStore = CurrentTenant.getStoreId();
         if (currentStore != null && !currentStore.equals(storeId)) {
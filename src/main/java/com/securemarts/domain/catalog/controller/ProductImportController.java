@@ -0,0 +1,110 @@
+package com.securemarts.domain.catalog.controller;
+
+import com.securemarts.common.dto.PageResponse;
+import com.securemarts.domain.catalog.dto.ProductImportJobResponse;
+import com.securemarts.domain.catalog.service.CatalogService;
+import com.securemarts.domain.catalog.service.ProductImportService;
+import com.securemarts.domain.onboarding.service.MerchantPermissionService;
+import com.securemarts.domain.onboarding.service.StoreAccessService;
+import com.securemarts.security.CurrentTenant;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/stores/{storePublicId}/product-imports")
+@RequiredArgsConstructor
+@Tag(name = "Product Import", description = "Bulk import products, variants, options, tags and inventory from CSV or JSONL")
+@SecurityRequirement(name = "bearerAuth")
+public class ProductImportController {
+
+    private final ProductImportService productImportService;
+    private final CatalogService catalogService;
+    private final StoreAccessService storeAccessService;
+    private final MerchantPermissionService merchantPermissionService;
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Start product import",
+            description = "Upload a CSV (one row per variant, rows sharing a handle form one product; columns: handle, title, body_html, "
+                    + "vendor, product_type, status, tags, seo_title, seo_description, option1_name, option1_value .. option3_value, sku, "
+                    + "barcode, price, compare_at_price, currency, weight, weight_unit, track_inventory, requires_shipping, "
+                    + "inventory as location:qty;location:qty, image_url, image_alt) or JSONL (one product JSON per line, same shape as "
+                    + "create product). Runs in the background; poll the returned job for progress and per-row errors.")
+    @PreAuthorize("hasAuthority('SCOPE_products:write') or hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
+    public ResponseEntity<ProductImportJobResponse> start(
+            @AuthenticationPrincipal String userPublicId,
+            @PathVariable String storePublicId,
+            @RequestPart("file") MultipartFile file,
+            @Parameter(description = "File format; inferred from the file extension when omitted", schema = @Schema(allowableValues = {"csv", "jsonl"}))
+            @RequestParam(required = false) String format) throws IOException {
+        storeAccessService.ensureUserCanAccessStore(userPublicId, storePublicId);
+        merchantPermissionService.ensureStorePermissionByPublicId(userPublicId, storePublicId, "products:write");
+        Long storeId = catalogService.resolveStoreId(storePublicId);
+        ensureStoreAccess(storeId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(productImportService.startImport(storeId, userPublicId, file, format));
+    }
+
+    @GetMapping
+    @Operation(summary = "List product imports", description = "Most recent first")
+    @PreAuthorize("hasAuthority('SCOPE_products:read') or hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
+    public ResponseEntity<PageResponse<ProductImportJobResponse>> list(
+            @AuthenticationPrincipal String userPublicId,
+            @PathVariable String storePublicId,
+            @PageableDefault(size = 20) Pageable pageable) {
+        storeAccessService.ensureUserCanAccessStore(userPublicId, storePublicId);
+        merchantPermissionService.ensureStorePermissionByPublicId(userPublicId, storePublicId, "products:read");
+        Long storeId = catalogService.resolveStoreId(storePublicId);
+        ensureStoreAccess(storeId);
+        return ResponseEntity.ok(productImportService.listJobs(storeId, pageable));
+    }
+
+    @GetMapping("/{jobPublicId}")
+    @Operation(summary = "Get product import", description = "Status and counters of an import job")
+    @PreAuthorize("hasAuthority('SCOPE_products:read') or hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
+    public ResponseEntity<ProductImportJobResponse> get(
+            @AuthenticationPrincipal String userPublicId,
+            @PathVariable String storePublicId,
+            @PathVariable String jobPublicId) {
+        storeAccessService.ensureUserCanAccessStore(userPublicId, storePublicId);
+        merchantPermissionService.ensureStorePermissionByPublicId(userPublicId, storePublicId, "products:read");
+        Long storeId = catalogService.resolveStoreId(storePublicId);
+        ensureStoreAccess(storeId);
+        return ResponseEntity.ok(productImportService.getJob(storeId, jobPublicId));
+    }
+
+    @GetMapping("/{jobPublicId}/errors")
+    @Operation(summary = "List import row errors", description = "Rejected rows with the reason, ordered by row number")
+    @PreAuthorize("hasAuthority('SCOPE_products:read') or hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
+    public ResponseEntity<PageResponse<ProductImportJobResponse.RowErrorResponse>> errors(
+            @AuthenticationPrincipal String userPublicId,
+            @PathVariable String storePublicId,
+            @PathVariable String jobPublicId,
+            @PageableDefault(size = 50) Pageable pageable) {
+        storeAccessService.ensureUserCanAccessStore(userPublicId, storePublicId);
+        merchantPermissionService.ensureStorePermissionByPublicId(userPublicId, storePublicId, "products:read");
+        Long storeId = catalogService.resolveStoreId(storePublicId);
+        ensureStoreAccess(storeId);
+        return ResponseEntity.ok(productImportService.listErrors(storeId, jobPublicId, pageable));
+    }
+
+    private void ensureStoreAccess(Long storeId) {
+        Long currentStore = CurrentTenant.getStoreId();
+        if (currentStore != null && !currentStore.equals(storeId)) {
+            throw new org.springframework.security.access.AccessDeniedException("Store context mismatch");
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.securemarts.domain.catalog.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Bulk add or remove products of a manual collection")
+public class BulkCollectionProductsRequest {
+
+    @NotEmpty
+    @Size(max = 10000)
+    @Schema(description = "Product public IDs (up to 10000)", requiredMode = Schema.RequiredMode.REQUIRED)
+    private List<String> productIds;
+
+    @Schema(description = "Add only: position (0-based) to insert at, shifting later products down; appends at end if omitted")
+    private Integer position;
+}
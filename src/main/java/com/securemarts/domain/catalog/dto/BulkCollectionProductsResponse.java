@@ -0,0 +1,24 @@
+package com.securemarts.domain.catalog.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Schema(description = "Result of a bulk collection membership change")
+public class BulkCollectionProductsResponse {
+
+    @Schema(description = "Distinct product IDs in the request")
+    private int requested;
+
+    @Schema(description = "Products added to or removed from the collection")
+    private int changed;
+
+    @Schema(description = "Products already in (add) or not in (remove) the collection")
+    private int unchanged;
+
+    @Schema(description = "Product IDs that do not exist in the store")
+    private List<String> notFound = new ArrayList<>();
+}
@@ -11,14 +11,24 @@ public class CollectionProductItemResponse {
     private String productPublicId;
     private String title;
     private String handle;
+    @Schema(description = "0-based place in the collection's order")
     private int position;
+    @Schema(description = "Full product (variants, media, options)")
+    private ProductResponse product;
 
-    public static CollectionProductItemResponse from(CollectionProduct cp) {
+    public static CollectionProductItemResponse from(CollectionProduct cp, ProductResponse product, int position) {
+        CollectionProductItemResponse r = from(cp, position);
+        r.setProduct(product);
+        return r;
+    }
+
+    /** position is the item's index in display order; the stored sort key is internal. */
+    public static CollectionProductItemResponse from(CollectionProduct cp, int position) {
         CollectionProductItemResponse r = new CollectionProductItemResponse();
         r.setProductPublicId(cp.getProduct() != null ? cp.getProduct().getPublicId() : null);
         r.setTitle(cp.getProduct() != null ? cp.getProduct().getTitle() : null);
         r.setHandle(cp.getProduct() != null ? cp.getProduct().getHandle() : null);
-        r.setPosition(cp.getPosition());
+        r.setPosition(position);
         return r;
     }
 }
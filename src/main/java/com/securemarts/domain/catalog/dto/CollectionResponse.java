@@ -38,6 +38,9 @@ public class CollectionResponse {
     @Schema(description = "Product count in collection")
     private Long productCount;
 
+    @Schema(description = "First products by position; only when previews are requested")
+    private List<CollectionProductItemResponse> previewProducts;
+
     public static CollectionResponse from(Collection c) {
         return from(c, null);
     }
@@ -0,0 +1,16 @@
+package com.securemarts.domain.catalog.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+@Schema(description = "Move a product within a collection")
+public class MoveCollectionProductRequest {
+
+    @NotNull
+    @Min(0)
+    @Schema(description = "New 0-based position; past the end moves it last", requiredMode = Schema.RequiredMode.REQUIRED, example = "0")
+    private Integer position;
+}
@@ -0,0 +1,62 @@
+package com.securemarts.domain.catalog.dto;
+
+import com.securemarts.domain.catalog.entity.ProductImportJob;
+import com.securemarts.domain.catalog.entity.ProductImportRowError;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Schema(description = "Bulk product import job status")
+public class ProductImportJobResponse {
+
+    private String publicId;
+    @Schema(description = "CSV or JSONL")
+    private String format;
+    private String fileName;
+    @Schema(description = "PENDING, RUNNING, COMPLETED or FAILED")
+    private String status;
+    @Schema(description = "Data rows (CSV) or lines (JSONL) in the file; set when the job finishes")
+    private int totalRows;
+    private int importedProducts;
+    private int failedRows;
+    @Schema(description = "Set when the whole job failed (e.g. unreadable file)")
+    private String errorMessage;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private Instant createdAt;
+
+    public static ProductImportJobResponse from(ProductImportJob job) {
+        ProductImportJobResponse r = new ProductImportJobResponse();
+        r.setPublicId(job.getPublicId());
+        r.setFormat(job.getFormat().name());
+        r.setFileName(job.getFileName());
+        r.setStatus(job.getStatus().name());
+        r.setTotalRows(job.getTotalRows());
+        r.setImportedProducts(job.getImportedProducts());
+        r.setFailedRows(job.getFailedRows());
+        r.setErrorMessage(job.getErrorMessage());
+        r.setStartedAt(job.getStartedAt());
+        r.setFinishedAt(job.getFinishedAt());
+        r.setCreatedAt(job.getCreatedAt());
+        return r;
+    }
+
+    @Data
+    @Schema(description = "Import row that was rejected")
+    public static class RowErrorResponse {
+        @Schema(description = "1-based row (CSV, header is row 1) or line (JSONL) number")
+        private int rowNumber;
+        private String handle;
+        private String message;
+
+        public static RowErrorResponse from(ProductImportRowError e) {
+            RowErrorResponse r = new RowErrorResponse();
+            r.setRowNumber(e.getRowNumber());
+            r.setHandle(e.getHandle());
+            r.setMessage(e.getMessage());
+            return r;
+        }
+    }
+}
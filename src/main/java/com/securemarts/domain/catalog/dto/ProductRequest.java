@@ -103,6 +103,13 @@ public class ProductRequest {
         @NotBlank
         @Size(max = 500)
         private String url;
+        /** Set for uploaded images; optional when media is given by URL. */
+        @Size(max = 500)
+        private String thumbnailUrl;
+        @Size(max = 500)
+        private String mediumUrl;
+        @Size(max = 500)
+        private String largeUrl;
         @Size(max = 500)
         private String alt;
         private int position;
@@ -8,6 +8,9 @@ import lombok.Data;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -42,6 +45,23 @@ public class ProductResponse {
     private Instant updatedAt;
 
     public static ProductResponse from(Product p) {
+        return from(p,
+                p.getCollectionProducts() != null ? p.getCollectionProducts().stream()
+                        .map(cp -> cp.getCollection() != null ? cp.getCollection().getPublicId() : null)
+                        .filter(Objects::nonNull).distinct().toList() : List.of(),
+                p.getTags() != null ? p.getTags().stream().map(com.securemarts.domain.catalog.entity.Tag::getName).collect(Collectors.toList()) : List.of(),
+                p.getOptions() != null ? p.getOptions().stream().map(OptionResponse::from).collect(Collectors.toList()) : List.of(),
+                p.getVariants() != null ? p.getVariants().stream().map(VariantResponse::from).collect(Collectors.toList()) : List.of(),
+                p.getMedia() != null ? p.getMedia().stream().map(MediaResponse::from).collect(Collectors.toList()) : List.of());
+    }
+
+    /**
+     * Builds the response from scalar product fields plus pre-loaded associations, so callers that batch-load
+     * the graph (see ProductGraphLoader) never touch the entity's lazy collections.
+     */
+    public static ProductResponse from(Product p, List<String> collectionIds, List<String> tagNames,
+                                       List<OptionResponse> options, List<VariantResponse> variants, List<MediaResponse> media) {
+        numberPositions(variants, media);
         return ProductResponse.builder()
                 .publicId(p.getPublicId())
                 .title(p.getTitle())
@@ -53,19 +73,38 @@ public class ProductResponse {
                 .seoTitle(p.getSeoTitle())
                 .seoDescription(p.getSeoDescription())
                 .publishedAt(p.getPublishedAt())
-                .collectionIds(p.getCollectionProducts() != null ? p.getCollectionProducts().stream()
-                        .map(cp -> cp.getCollection() != null ? cp.getCollection().getPublicId() : null)
-                        .filter(Objects::nonNull).distinct().toList() : List.of())
+                .collectionIds(collectionIds)
                 .storeId(p.getStoreId())
-                .tagNames(p.getTags() != null ? p.getTags().stream().map(com.securemarts.domain.catalog.entity.Tag::getName).collect(Collectors.toList()) : List.of())
-                .options(p.getOptions() != null ? p.getOptions().stream().map(OptionResponse::from).collect(Collectors.toList()) : List.of())
-                .variants(p.getVariants() != null ? p.getVariants().stream().map(VariantResponse::from).collect(Collectors.toList()) : List.of())
-                .media(p.getMedia() != null ? p.getMedia().stream().map(MediaResponse::from).collect(Collectors.toList()) : List.of())
+                .tagNames(tagNames)
+                .options(options)
+                .variants(variants)
+                .media(media)
                 .createdAt(p.getCreatedAt())
                 .updatedAt(p.getUpdatedAt())
                 .build();
     }
 
+    /**
+     * Variants and media arrive in sort-key order; the API exposes 0-based positions instead of the sparse keys.
+     * Variant media take the position of the same media in the product's list and are sorted by it.
+     */
+    private static void numberPositions(List<VariantResponse> variants, List<MediaResponse> media) {
+        Map<String, Integer> mediaPositions = new HashMap<>();
+        for (int i = 0; i < media.size(); i++) {
+            media.get(i).setPosition(i);
+            mediaPositions.put(media.get(i).getPublicId(), i);
+        }
+        for (int i = 0; i < variants.size(); i++) {
+            VariantResponse v = variants.get(i);
+            v.setPosition(i);
+            if (v.getMedia() == null || v.getMedia().isEmpty()) continue;
+            List<MediaResponse> variantMedia = new ArrayList<>(v.getMedia());
+            for (MediaResponse m : variantMedia) m.setPosition(mediaPositions.getOrDefault(m.getPublicId(), Integer.MAX_VALUE));
+            variantMedia.sort(Comparator.comparingInt(MediaResponse::getPosition));
+            v.setMedia(variantMedia);
+        }
+    }
+
     @Data
     @Builder
     public static class OptionResponse {
@@ -75,11 +114,15 @@ public class ProductResponse {
         private List<String> values;
 
         public static OptionResponse from(com.securemarts.domain.catalog.entity.ProductOption o) {
+            return from(o, o.getValues() != null ? o.getValues().stream().map(com.securemarts.domain.catalog.entity.ProductOptionValue::getValue).collect(Collectors.toList()) : List.of());
+        }
+
+        public static OptionResponse from(com.securemarts.domain.catalog.entity.ProductOption o, List<String> values) {
             return OptionResponse.builder()
                     .publicId(o.getPublicId())
                     .name(o.getName())
                     .position(o.getPosition())
-                    .values(o.getValues() != null ? o.getValues().stream().map(com.securemarts.domain.catalog.entity.ProductOptionValue::getValue).collect(Collectors.toList()) : List.of())
+                    .values(values)
                     .build();
         }
     }
@@ -101,6 +144,7 @@ public class ProductResponse {
         private boolean requiresShipping;
         @Schema(description = "Option name → value, e.g. {\"Size\":\"M\",\"Color\":\"Black\"}")
         private Map<String, String> options;
+        @Schema(description = "0-based display order")
         private int position;
         @Schema(description = "Variant-specific media (e.g. color images). Falls back to product media if empty.")
         private List<MediaResponse> media;
@@ -112,6 +156,11 @@ public class ProductResponse {
                         .filter(ov -> ov.getOptionValue() != null && ov.getOptionValue().getOption() != null)
                         .collect(Collectors.toMap(ov -> ov.getOptionValue().getOption().getName(), ov -> ov.getOptionValue().getValue(), (a, b) -> a));
             }
+            return from(v, optionMap != null ? optionMap : Map.of(),
+                    v.getMedia() != null ? v.getMedia().stream().map(MediaResponse::from).collect(Collectors.toList()) : List.of());
+        }
+
+        public static VariantResponse from(ProductVariant v, Map<String, String> options, List<MediaResponse> media) {
             return VariantResponse.builder()
                     .publicId(v.getPublicId())
                     .sku(v.getSku())
@@ -125,9 +174,8 @@ public class ProductResponse {
                     .weightUnit(v.getWeightUnit())
                     .trackInventory(v.isTrackInventory())
                     .requiresShipping(v.isRequiresShipping())
-                    .options(optionMap != null ? optionMap : Map.of())
-                    .position(v.getPosition())
-                    .media(v.getMedia() != null ? v.getMedia().stream().map(MediaResponse::from).collect(Collectors.toList()) : List.of())
+                    .options(options)
+                    .media(media)
                     .build();
         }
     }
@@ -137,7 +185,12 @@ public class ProductResponse {
     public static class MediaResponse {
         private String publicId;
         private String url;
+        /** Resized copies (longest edge ~200 / 600 / 1200 px); fall back to url when absent. */
+        private String thumbnailUrl;
+        private String mediumUrl;
+        private String largeUrl;
         private String alt;
+        @Schema(description = "0-based display order among the product's media")
         private int position;
         private String mediaType;
 
@@ -145,8 +198,10 @@ public class ProductResponse {
             return MediaResponse.builder()
                     .publicId(m.getPublicId())
                     .url(m.getUrl())
+                    .thumbnailUrl(m.getThumbnailUrl())
+                    .mediumUrl(m.getMediumUrl())
+                    .largeUrl(m.getLargeUrl())
                     .alt(m.getAlt())
-                    .position(m.getPosition())
                     .mediaType(m.getMediaType())
                     .build();
         }
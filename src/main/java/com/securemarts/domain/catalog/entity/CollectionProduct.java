@@ -33,7 +33,7 @@ public class CollectionProduct {
     private Product product;
 
     @Column(nullable = false)
-    private int position;
+    private long position;
 
     @Column(name = "created_at", nullable = false)
     private Instant createdAt = Instant.now();
@@ -0,0 +1,68 @@
+package com.securemarts.domain.catalog.entity;
+
+import com.securemarts.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Bulk product import (CSV or JSONL). Rows are processed asynchronously in chunks; counters are updated after
+ * each chunk so clients can poll progress. Per-row failures are kept in {@link ProductImportRowError}.
+ */
+@Entity
+@Table(name = "product_import_jobs", indexes = {
+        @Index(name = "idx_product_import_jobs_store_id", columnList = "store_id, id")
+})
+@Getter
+@Setter
+public class ProductImportJob extends BaseEntity {
+
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private ImportFormat format;
+
+    @Column(name = "file_name", length = 255)
+    private String fileName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ImportStatus status = ImportStatus.PENDING;
+
+    @Column(name = "total_rows", nullable = false)
+    private int totalRows;
+
+    @Column(name = "imported_products", nullable = false)
+    private int importedProducts;
+
+    @Column(name = "failed_rows", nullable = false)
+    private int failedRows;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "created_by", length = 36)
+    private String createdBy;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    public enum ImportFormat {
+        CSV,
+        JSONL
+    }
+
+    public enum ImportStatus {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
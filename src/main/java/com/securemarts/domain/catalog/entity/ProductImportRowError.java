@@ -0,0 +1,27 @@
+package com.securemarts.domain.catalog.entity;
+
+import com.securemarts.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+@Entity
+@Table(name = "product_import_row_errors", indexes = {
+        @Index(name = "idx_product_import_row_errors_job", columnList = "job_id, row_number")
+})
+@Getter
+@Setter
+public class ProductImportRowError extends BaseEntity {
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Column(name = "row_number", nullable = false)
+    private int rowNumber;
+
+    @Column(length = 255)
+    private String handle;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String message;
+}
@@ -20,11 +20,21 @@ public class ProductMedia extends BaseEntity {
     @Column(nullable = false, length = 500)
     private String url;
 
+    /** Derivatives generated at upload time; null for media added by URL. */
+    @Column(name = "thumbnail_url", length = 500)
+    private String thumbnailUrl;
+
+    @Column(name = "medium_url", length = 500)
+    private String mediumUrl;
+
+    @Column(name = "large_url", length = 500)
+    private String largeUrl;
+
     @Column(columnDefinition = "TEXT")
     private String alt;
 
     @Column(nullable = false)
-    private int position;
+    private long position;
 
     @Column(name = "media_type", length = 20)
     private String mediaType = "image";
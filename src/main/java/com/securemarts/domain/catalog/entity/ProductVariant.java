@@ -57,7 +57,7 @@ public class ProductVariant extends BaseEntity {
     private boolean requiresShipping = true;
 
     @Column(nullable = false)
-    private int position;
+    private long position;
 
     @OneToMany(mappedBy = "variant", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<VariantOptionValue> optionValues = new ArrayList<>();
@@ -0,0 +1,32 @@
+package com.securemarts.domain.catalog.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published by catalog mutations so derived read models can invalidate. A null productPublicId means the change
+ * may touch any product of the store (e.g. collection membership, bulk import). membershipOnly marks changes to
+ * collection membership or order alone, which leave the products' own data as it was.
+ */
+@Getter
+public class CatalogChangedEvent extends ApplicationEvent {
+
+    private final Long storeId;
+    private final String productPublicId;
+    private final boolean membershipOnly;
+
+    public CatalogChangedEvent(Object source, Long storeId, String productPublicId) {
+        this(source, storeId, productPublicId, false);
+    }
+
+    public CatalogChangedEvent(Object source, Long storeId, String productPublicId, boolean membershipOnly) {
+        super(source);
+        this.storeId = storeId;
+        this.productPublicId = productPublicId;
+        this.membershipOnly = membershipOnly;
+    }
+
+    public boolean isStoreWide() {
+        return productPublicId == null;
+    }
+}
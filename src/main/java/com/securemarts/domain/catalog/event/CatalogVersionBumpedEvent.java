@@ -0,0 +1,23 @@
+package com.securemarts.domain.catalog.event;
+
+import com.securemarts.domain.catalog.service.CatalogVersionService;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published by {@link CatalogVersionService} on this instance after it bumped a store's version, with the version the
+ * bump produced. In-memory indexes that already applied the change behind the bump use it to advance the version
+ * they record by exactly one, so they are not re-read for their own instance's changes.
+ */
+@Getter
+public class CatalogVersionBumpedEvent extends ApplicationEvent {
+
+    private final Long storeId;
+    private final CatalogVersionService.CatalogVersion version;
+
+    public CatalogVersionBumpedEvent(Object source, Long storeId, CatalogVersionService.CatalogVersion version) {
+        super(source);
+        this.storeId = storeId;
+        this.version = version;
+    }
+}
@@ -29,4 +29,31 @@ public interface CollectionProductRepository extends JpaRepository<CollectionPro
     void deleteByCollectionId(@Param("collectionId") Long collectionId);
 
     long countByCollectionId(Long collectionId);
+
+    /** Rows of [collectionId, productCount]; collections without products are absent. */
+    @Query("SELECT cp.collectionId, COUNT(cp) FROM CollectionProduct cp WHERE cp.collectionId IN :collectionIds GROUP BY cp.collectionId")
+    List<Object[]> countByCollectionIdIn(@Param("collectionIds") List<Long> collectionIds);
+
+    /**
+     * Rows of [collectionId, productPublicId, title, handle, index]: the first :limit live products of each
+     * collection by position, in that order, with their 0-based index.
+     */
+    @Query(value = "SELECT r.collection_id, r.public_id, r.title, r.handle, r.rn - 1 FROM ("
+            + "SELECT cp.collection_id, p.public_id, p.title, p.handle, cp.position, "
+            + "ROW_NUMBER() OVER (PARTITION BY cp.collection_id ORDER BY cp.position, cp.product_id) AS rn "
+            + "FROM collection_products cp JOIN products p ON p.id = cp.product_id AND p.deleted_at IS NULL "
+            + "WHERE cp.collection_id IN :collectionIds) r "
+            + "WHERE r.rn <= :limit ORDER BY r.collection_id, r.rn", nativeQuery = true)
+    List<Object[]> findPreviewsByCollectionIdIn(@Param("collectionIds") List<Long> collectionIds, @Param("limit") int limit);
+
+    @Query("SELECT MAX(cp.position) FROM CollectionProduct cp WHERE cp.collectionId = :collectionId")
+    Long findMaxPositionByCollectionId(@Param("collectionId") Long collectionId);
+
+    @Modifying
+    @Query("DELETE FROM CollectionProduct cp WHERE cp.collectionId = :collectionId AND cp.productId = :productId")
+    int deleteByCollectionIdAndProductId(@Param("collectionId") Long collectionId, @Param("productId") Long productId);
+
+    /** Rows of [productId, collectionPublicId]. */
+    @Query("SELECT cp.productId, c.publicId FROM CollectionProduct cp JOIN cp.collection c WHERE cp.productId IN :productIds ORDER BY cp.position ASC")
+    List<Object[]> findCollectionPublicIdsByProductIdIn(@Param("productIds") List<Long> productIds);
 }
@@ -14,6 +14,9 @@ public interface CollectionRepository extends JpaRepository<Collection, Long> {
 
     List<Collection> findByStoreId(Long storeId);
 
+    @Query("SELECT DISTINCT c FROM Collection c LEFT JOIN FETCH c.rules WHERE c.storeId = :storeId ORDER BY c.id")
+    List<Collection> findByStoreIdWithRules(@Param("storeId") Long storeId);
+
     List<Collection> findByStoreIdAndCollectionType(Long storeId, Collection.CollectionType collectionType);
 
     @Query("SELECT c FROM Collection c LEFT JOIN FETCH c.rules WHERE c.id = :id")
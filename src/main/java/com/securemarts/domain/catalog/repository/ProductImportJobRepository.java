@@ -0,0 +1,15 @@
+package com.securemarts.domain.catalog.repository;
+
+import com.securemarts.domain.catalog.entity.ProductImportJob;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface ProductImportJobRepository extends JpaRepository<ProductImportJob, Long> {
+
+    Optional<ProductImportJob> findByPublicIdAndStoreId(String publicId, Long storeId);
+
+    Page<ProductImportJob> findByStoreIdOrderByIdDesc(Long storeId, Pageable pageable);
+}
@@ -0,0 +1,11 @@
+package com.securemarts.domain.catalog.repository;
+
+import com.securemarts.domain.catalog.entity.ProductImportRowError;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ProductImportRowErrorRepository extends JpaRepository<ProductImportRowError, Long> {
+
+    Page<ProductImportRowError> findByJobIdOrderByRowNumberAsc(Long jobId, Pageable pageable);
+}
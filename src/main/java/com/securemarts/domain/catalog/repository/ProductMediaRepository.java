@@ -2,10 +2,15 @@ package com.securemarts.domain.catalog.repository;
 
 import com.securemarts.domain.catalog.entity.ProductMedia;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface ProductMediaRepository extends JpaRepository<ProductMedia, Long> {
 
     List<ProductMedia> findByProduct_IdInOrderByPositionAsc(List<Long> productIds);
+
+    @Query("SELECT MAX(m.position) FROM ProductMedia m WHERE m.product.id = :productId")
+    Long findMaxPositionByProductId(@Param("productId") Long productId);
 }
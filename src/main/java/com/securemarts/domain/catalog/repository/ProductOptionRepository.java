@@ -8,4 +8,6 @@ import java.util.List;
 public interface ProductOptionRepository extends JpaRepository<ProductOption, Long> {
 
     List<ProductOption> findByProductIdOrderByPositionAsc(Long productId);
+
+    List<ProductOption> findByProduct_IdInOrderByPositionAsc(List<Long> productIds);
 }
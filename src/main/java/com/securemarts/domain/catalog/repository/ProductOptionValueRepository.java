@@ -11,4 +11,6 @@ public interface ProductOptionValueRepository extends JpaRepository<ProductOptio
     List<ProductOptionValue> findByOptionIdOrderByPositionAsc(Long optionId);
 
     Optional<ProductOptionValue> findByOptionIdAndValue(Long optionId, String value);
+
+    List<ProductOptionValue> findByOption_IdInOrderByPositionAsc(List<Long> optionIds);
 }
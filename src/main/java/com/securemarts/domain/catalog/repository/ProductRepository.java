@@ -5,29 +5,45 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
     Optional<Product> findByPublicIdAndStoreId(String publicId, Long storeId);
 
+    boolean existsByPublicIdAndStoreIdAndDeletedAtIsNull(String publicId, Long storeId);
+
     @Query("SELECT p FROM Product p WHERE p.storeId = :storeId AND (p.deletedAt IS NULL)")
     Page<Product> findAllByStoreId(Long storeId, Pageable pageable);
 
     @Query("SELECT p FROM Product p WHERE p.storeId = :storeId AND p.status = :status AND (p.deletedAt IS NULL)")
     Page<Product> findAllByStoreIdAndStatus(Long storeId, Product.ProductStatus status, Pageable pageable);
 
-    @Query("SELECT p FROM Product p WHERE p.storeId = :storeId AND (p.deletedAt IS NULL) AND " +
-            "(LOWER(p.title) LIKE LOWER(CONCAT('%', :q, '%')) OR :q IS NULL)")
-    Page<Product> searchByStore(Long storeId, String q, Pageable pageable);
+    /** Keyset slice ordered by id; pageable carries only the row limit (no count query). */
+    @Query("SELECT p FROM Product p WHERE p.storeId = :storeId AND p.deletedAt IS NULL AND p.id > :afterId ORDER BY p.id ASC")
+    List<Product> findSliceByStoreId(@Param("storeId") Long storeId, @Param("afterId") Long afterId, Pageable pageable);
 
-    @Query("SELECT p FROM Product p WHERE p.storeId = :storeId AND p.status = :status AND (p.deletedAt IS NULL) AND " +
-            "LOWER(p.title) LIKE LOWER(CONCAT('%', :q, '%'))")
-    Page<Product> searchByStoreAndStatus(Long storeId, Product.ProductStatus status, String q, Pageable pageable);
+    @Query("SELECT p FROM Product p WHERE p.storeId = :storeId AND p.status = :status AND p.deletedAt IS NULL AND p.id > :afterId ORDER BY p.id ASC")
+    List<Product> findSliceByStoreIdAndStatus(@Param("storeId") Long storeId, @Param("status") Product.ProductStatus status,
+                                              @Param("afterId") Long afterId, Pageable pageable);
 
     boolean existsByStoreIdAndHandle(Long storeId, String handle);
 
     @Query("SELECT COUNT(p) FROM Product p WHERE p.storeId = :storeId AND p.deletedAt IS NULL")
     long countByStoreIdAndDeletedAtIsNull(Long storeId);
+
+    /** Rows of [publicId, id] for the store's products among the given public IDs. */
+    @Query("SELECT p.publicId, p.id FROM Product p WHERE p.storeId = :storeId AND p.publicId IN :publicIds")
+    List<Object[]> findIdsByStoreIdAndPublicIdIn(@Param("storeId") Long storeId, @Param("publicIds") List<String> publicIds);
+
+    @Query("SELECT p.publicId FROM Product p WHERE p.id IN :ids")
+    List<String> findPublicIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /** Rows of [productId, tagName]. */
+    @Query("SELECT p.id, t.name FROM Product p JOIN p.tags t WHERE p.id IN :productIds")
+    List<Object[]> findTagNamesByProductIdIn(@Param("productIds") List<Long> productIds);
 }
@@ -2,6 +2,8 @@ package com.securemarts.domain.catalog.repository;
 
 import com.securemarts.domain.catalog.entity.ProductVariant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,4 +15,16 @@ public interface ProductVariantRepository extends JpaRepository<ProductVariant,
     List<ProductVariant> findByProductIdOrderByPosition(Long productId);
 
     List<ProductVariant> findByPublicIdIn(List<String> publicIds);
+
+    @Query("SELECT MAX(v.position) FROM ProductVariant v WHERE v.product.id = :productId")
+    Long findMaxPositionByProductId(@Param("productId") Long productId);
+
+    boolean existsByPublicIdAndProduct_PublicIdAndProduct_StoreIdAndProduct_DeletedAtIsNull(String publicId, String productPublicId, Long storeId);
+
+    @Query("SELECT v FROM ProductVariant v WHERE v.product.id IN :productIds ORDER BY v.product.id, v.position")
+    List<ProductVariant> findByProductIdIn(@Param("productIds") List<Long> productIds);
+
+    /** Rows of [variantId, mediaId] for variant-specific media. */
+    @Query("SELECT v.id, m.id FROM ProductVariant v JOIN v.media m WHERE v.id IN :variantIds")
+    List<Object[]> findMediaIdsByVariantIdIn(@Param("variantIds") List<Long> variantIds);
 }
@@ -2,6 +2,8 @@ package com.securemarts.domain.catalog.repository;
 
 import com.securemarts.domain.catalog.entity.VariantOptionValue;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -10,4 +12,8 @@ public interface VariantOptionValueRepository extends JpaRepository<VariantOptio
     List<VariantOptionValue> findByVariantId(Long variantId);
 
     void deleteByVariantId(Long variantId);
+
+    /** Rows of [variantId, optionName, optionValue]. */
+    @Query("SELECT vov.variant.id, o.name, ov.value FROM VariantOptionValue vov JOIN vov.optionValue ov JOIN ov.option o WHERE vov.variant.id IN :variantIds")
+    List<Object[]> findOptionNameAndValueByVariantIdIn(@Param("variantIds") List<Long> variantIds);
 }
@@ -1,26 +1,28 @@
 package com.securemarts.domain.catalog.service;
 
 import com.securemarts.common.dto.PageResponse;
+import com.securemarts.common.dto.SliceResponse;
 import com.securemarts.common.exception.BusinessRuleException;
 import com.securemarts.common.exception.ResourceNotFoundException;
+import com.securemarts.common.util.CursorCodec;
 import com.securemarts.domain.catalog.dto.ProductRequest;
 import com.securemarts.domain.catalog.dto.ProductResponse;
 import com.securemarts.domain.catalog.entity.*;
+import com.securemarts.domain.catalog.event.CatalogChangedEvent;
 import com.securemarts.domain.catalog.repository.*;
 import com.securemarts.domain.inventory.service.InventoryService;
 import com.securemarts.domain.onboarding.repository.StoreRepository;
 import com.securemarts.domain.onboarding.service.SubscriptionLimitsService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.*;
 
@@ -32,12 +34,15 @@ public class CatalogService {
     private final ProductVariantRepository productVariantRepository;
     private final ProductMediaRepository productMediaRepository;
     private final CollectionRepository collectionRepository;
-    private final FileStorageService fileStorageService;
+    private final CollectionProductRepository collectionProductRepository;
     private final TagRepository tagRepository;
     private final StoreRepository storeRepository;
     private final SubscriptionLimitsService subscriptionLimitsService;
     private final InventoryService inventoryService;
-    private final RecomputeSmartCollectionsService recomputeSmartCollectionsService;
+    private final SmartCollectionRecomputeScheduler smartCollectionRecomputeScheduler;
+    private final ProductGraphLoader productGraphLoader;
+    private final ProductSearchService productSearchService;
+    private final ApplicationEventPublisher eventPublisher;
 
     private static final Set<String> PRODUCT_SORT_FIELDS = Set.of(
             "id", "publicId", "title", "handle", "status", "createdAt", "updatedAt");
@@ -83,26 +88,61 @@ public class CatalogService {
     public PageResponse<ProductResponse> listProducts(Long storeId, String status, String q, Pageable pageable) {
         Pageable safe = sanitizeProductSort(pageable);
         Page<Product> page;
-        if (q != null && !q.isBlank() && status != null && !status.isBlank()) {
-            Product.ProductStatus s = Product.ProductStatus.valueOf(status.toUpperCase());
-            page = productRepository.searchByStoreAndStatus(storeId, s, q.trim(), safe);
-        } else if (q != null && !q.isBlank()) {
-            page = productRepository.searchByStore(storeId, q.trim(), safe);
+        if (q != null && !q.isBlank()) {
+            Product.ProductStatus s = status != null && !status.isBlank() ? Product.ProductStatus.valueOf(status.toUpperCase()) : null;
+            page = loadInOrder(productSearchService.search(storeId, s, q, safe));
         } else if (status != null && !status.isBlank()) {
             Product.ProductStatus s = Product.ProductStatus.valueOf(status.toUpperCase());
             page = productRepository.findAllByStoreIdAndStatus(storeId, s, safe);
         } else {
             page = productRepository.findAllByStoreId(storeId, safe);
         }
-        return PageResponse.of(page.map(ProductResponse::from));
+        return PageResponse.of(productGraphLoader.load(page));
+    }
+
+    /**
+     * Cursor mode for the product list: seeks on the primary key and skips the count query.
+     * Search results are relevance-ranked and stay on page/size pagination.
+     */
+    @Transactional(readOnly = true)
+    public SliceResponse<ProductResponse> listProductsSlice(Long storeId, String status, String q, String after, Integer limit) {
+        if (q != null && !q.isBlank()) {
+            throw new BusinessRuleException("Cursor pagination is not supported with search; use page and size");
+        }
+        int size = CursorCodec.clampLimit(limit);
+        Long afterId = CursorCodec.decode(after);
+        Pageable window = PageRequest.of(0, size + 1);
+        List<Product> rows = status != null && !status.isBlank()
+                ? productRepository.findSliceByStoreIdAndStatus(storeId, Product.ProductStatus.valueOf(status.toUpperCase()), afterId != null ? afterId : 0L, window)
+                : productRepository.findSliceByStoreId(storeId, afterId != null ? afterId : 0L, window);
+        return SliceResponse.of(rows, size, Product::getId, list -> productGraphLoader.load(list));
+    }
+
+    /** Product responses for the given IDs in the given order; IDs that no longer exist are skipped. */
+    @Transactional(readOnly = true)
+    public List<ProductResponse> getProductsInOrder(List<Long> productIds) {
+        if (productIds.isEmpty()) return List.of();
+        Map<Long, Product> byId = new HashMap<>();
+        for (Product p : productRepository.findAllById(productIds)) byId.put(p.getId(), p);
+        List<Product> ordered = productIds.stream().map(byId::get)
+                .filter(p -> p != null && !p.isDeleted()).toList();
+        return productGraphLoader.load(ordered);
+    }
+
+    /** Loads products for a page of ranked IDs, keeping the ranking order. */
+    private Page<Product> loadInOrder(Page<Long> ids) {
+        Map<Long, Product> byId = new HashMap<>();
+        for (Product p : productRepository.findAllById(ids.getContent())) byId.put(p.getId(), p);
+        List<Product> ordered = ids.getContent().stream().map(byId::get).filter(Objects::nonNull).toList();
+        return new PageImpl<>(ordered, ids.getPageable(), ids.getTotalElements());
     }
 
     @Transactional
-    @CacheEvict(value = "products", key = "#storeId")
     public ProductResponse createProduct(Long storeId, ProductRequest request) {
         var store = storeRepository.findById(storeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Store", String.valueOf(storeId)));
         var limits = subscriptionLimitsService.getLimitsForBusiness(store.getBusiness());
+        storeRepository.lockForProductLimit(storeId);
         if (productRepository.countByStoreIdAndDeletedAtIsNull(storeId) >= limits.getMaxProducts()) {
             throw new BusinessRuleException("Product limit reached for your plan (" + limits.getMaxProducts() + "). Upgrade to add more products.");
         }
@@ -135,7 +175,7 @@ public class CatalogService {
         if (request.getVariants() != null && !request.getVariants().isEmpty()) {
             for (int i = 0; i < request.getVariants().size(); i++) {
                 ProductRequest.ProductVariantRequest vr = request.getVariants().get(i);
-                ProductVariant v = toVariant(product, vr, i);
+                ProductVariant v = toVariant(product, vr, PositionKeys.forListItem(vr.getPosition(), i));
                 product.getVariants().add(v);
             }
         } else {
@@ -144,7 +184,7 @@ public class CatalogService {
             defaultVariant.setTitle("Default");
             defaultVariant.setPriceAmount(BigDecimal.ZERO);
             defaultVariant.setCurrency("NGN");
-            defaultVariant.setPosition(0);
+            defaultVariant.setPosition(PositionKeys.forIndex(0));
             product.getVariants().add(productVariantRepository.save(defaultVariant));
         }
         if (request.getMedia() != null) {
@@ -153,8 +193,11 @@ public class CatalogService {
                 ProductMedia m = new ProductMedia();
                 m.setProduct(product);
                 m.setUrl(mr.getUrl());
+                m.setThumbnailUrl(mr.getThumbnailUrl());
+                m.setMediumUrl(mr.getMediumUrl());
+                m.setLargeUrl(mr.getLargeUrl());
                 m.setAlt(mr.getAlt());
-                m.setPosition(mr.getPosition());
+                m.setPosition(PositionKeys.forListItem(mr.getPosition(), i));
                 m.setMediaType(mr.getMediaType() != null ? mr.getMediaType() : "image");
                 product.getMedia().add(m);
             }
@@ -169,12 +212,13 @@ public class CatalogService {
                 }
             }
         }
-        recomputeSmartCollectionsService.recomputeForStore(storeId);
+        productSearchService.reindex(product.getId());
+        smartCollectionRecomputeScheduler.recomputeForProduct(storeId, product.getId());
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, storeId, product.getPublicId()));
         return ProductResponse.from(product);
     }
 
     @Transactional
-    @CacheEvict(value = "products", key = "#storeId")
     public ProductResponse updateProduct(Long storeId, String productPublicId, ProductRequest request) {
         Product product = productRepository.findByPublicIdAndStoreId(productPublicId, storeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", productPublicId));
@@ -197,7 +241,8 @@ public class CatalogService {
         if (request.getVariants() != null) {
             product.getVariants().clear();
             for (int i = 0; i < request.getVariants().size(); i++) {
-                ProductVariant v = toVariant(product, request.getVariants().get(i), i);
+                ProductRequest.ProductVariantRequest vr = request.getVariants().get(i);
+                ProductVariant v = toVariant(product, vr, PositionKeys.forListItem(vr.getPosition(), i));
                 product.getVariants().add(v);
             }
         }
@@ -208,8 +253,11 @@ public class CatalogService {
                 ProductMedia m = new ProductMedia();
                 m.setProduct(product);
                 m.setUrl(mr.getUrl());
+                m.setThumbnailUrl(mr.getThumbnailUrl());
+                m.setMediumUrl(mr.getMediumUrl());
+                m.setLargeUrl(mr.getLargeUrl());
                 m.setAlt(mr.getAlt());
-                m.setPosition(mr.getPosition());
+                m.setPosition(PositionKeys.forListItem(mr.getPosition(), i));
                 m.setMediaType(mr.getMediaType() != null ? mr.getMediaType() : "image");
                 product.getMedia().add(m);
             }
@@ -224,24 +272,42 @@ public class CatalogService {
                 }
             }
         }
-        recomputeSmartCollectionsService.recomputeForStore(storeId);
+        productSearchService.reindex(product.getId());
+        smartCollectionRecomputeScheduler.recomputeForProduct(storeId, product.getId());
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, storeId, product.getPublicId()));
         return ProductResponse.from(product);
     }
 
     @Transactional
-    @CacheEvict(value = "products", key = "#storeId")
     public void deleteProduct(Long storeId, String productPublicId) {
         Product product = productRepository.findByPublicIdAndStoreId(productPublicId, storeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", productPublicId));
         product.setDeletedAt(java.time.Instant.now());
         productRepository.save(product);
-        recomputeSmartCollectionsService.recomputeForStore(storeId);
+        smartCollectionRecomputeScheduler.recomputeForProduct(storeId, product.getId());
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, storeId, productPublicId));
+    }
+
+    /** Fails fast (before any upload starts) when the product or variant does not exist in the store. */
+    @Transactional(readOnly = true)
+    public void ensureVariantExists(Long storeId, String productPublicId, String variantPublicId) {
+        if (!productVariantRepository.existsByPublicIdAndProduct_PublicIdAndProduct_StoreIdAndProduct_DeletedAtIsNull(
+                variantPublicId, productPublicId, storeId)) {
+            throw new ResourceNotFoundException("Product variant", variantPublicId);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void ensureProductExists(Long storeId, String productPublicId) {
+        if (!productRepository.existsByPublicIdAndStoreIdAndDeletedAtIsNull(productPublicId, storeId)) {
+            throw new ResourceNotFoundException("Product", productPublicId);
+        }
     }
 
+    /** Attaches already-uploaded media (see {@link MediaUploadService}) to a variant in one short transaction. */
     @Transactional
-    @CacheEvict(value = "products", key = "#storeId")
-    public ProductResponse attachMediaToVariant(Long storeId, String productPublicId, String variantPublicId, List<MultipartFile> mediaFiles) throws IOException {
-        if (mediaFiles == null || mediaFiles.stream().allMatch(f -> f == null || f.isEmpty())) {
+    public ProductResponse attachMediaToVariant(Long storeId, String productPublicId, String variantPublicId, List<MediaUploadService.UploadedMedia> media) {
+        if (media == null || media.isEmpty()) {
             return getProduct(storeId, productPublicId);
         }
         Product product = productRepository.findByPublicIdAndStoreId(productPublicId, storeId)
@@ -252,29 +318,14 @@ public class CatalogService {
                 .findFirst()
                 .orElseThrow(() -> new ResourceNotFoundException("Product variant", variantPublicId));
 
-        String storePublicId = storeRepository.findById(storeId).orElseThrow(() -> new ResourceNotFoundException("Store", String.valueOf(storeId))).getPublicId();
-        int startPosition = product.getMedia().stream().mapToInt(ProductMedia::getPosition).max().orElse(-1) + 1;
-        int position = startPosition;
-        for (MultipartFile file : mediaFiles) {
-            if (file == null || file.isEmpty()) continue;
-            String url = fileStorageService.store(storePublicId, file);
-            if (url == null) continue;
-            ProductMedia m = new ProductMedia();
-            m.setProduct(product);
-            m.setUrl(url);
-            m.setAlt("");
-            m.setPosition(position++);
-            m.setMediaType("image");
-            product.getMedia().add(m);
-            variant.getMedia().add(m);
-        }
+        addMedia(product, variant, media);
         product = productRepository.save(product);
         productVariantRepository.save(variant);
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, storeId, product.getPublicId()));
         return ProductResponse.from(product);
     }
 
     @Transactional
-    @CacheEvict(value = "products", key = "#storeId")
     public ProductResponse detachMediaFromVariant(Long storeId, String productPublicId, String variantPublicId, String mediaPublicId) {
         Product product = productRepository.findByPublicIdAndStoreId(productPublicId, storeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", productPublicId));
@@ -288,50 +339,36 @@ public class CatalogService {
             throw new ResourceNotFoundException("Product media", mediaPublicId);
         }
         productVariantRepository.save(variant);
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, storeId, product.getPublicId()));
         return ProductResponse.from(product);
     }
     @Transactional
-    @CacheEvict(value = "products", key = "#storeId")
-    public ProductResponse addVariant(Long storeId, String productPublicId, ProductRequest.ProductVariantRequest request) throws IOException {
-        return addVariantWithMedia(storeId, productPublicId, request, null);
+    public ProductResponse addVariant(Long storeId, String productPublicId, ProductRequest.ProductVariantRequest request) {
+        return addVariantWithMedia(storeId, productPublicId, request, List.of());
     }
 
+    /** Adds a variant and attaches already-uploaded media (see {@link MediaUploadService}). */
     @Transactional
-    @CacheEvict(value = "products", key = "#storeId")
-    public ProductResponse addVariantWithMedia(Long storeId, String productPublicId, ProductRequest.ProductVariantRequest request, List<MultipartFile> mediaFiles) throws IOException {
+    public ProductResponse addVariantWithMedia(Long storeId, String productPublicId, ProductRequest.ProductVariantRequest request, List<MediaUploadService.UploadedMedia> media) {
         Product product = productRepository.findByPublicIdAndStoreId(productPublicId, storeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", productPublicId));
         if (product.isDeleted()) throw new ResourceNotFoundException("Product", productPublicId);
-        int nextPosition = product.getVariants().stream().mapToInt(ProductVariant::getPosition).max().orElse(-1) + 1;
-        ProductVariant v = toVariant(product, request, nextPosition);
+        ProductVariant v = toVariant(product, request, PositionKeys.after(productVariantRepository.findMaxPositionByProductId(product.getId())));
+        if (request.getPosition() > 0) moveVariant(product, v, request.getPosition());
         product.getVariants().add(v);
         product = productRepository.save(product);
 
-        if (mediaFiles != null && !mediaFiles.isEmpty()) {
-            String storePublicId = storeRepository.findById(storeId).orElseThrow(() -> new ResourceNotFoundException("Store", String.valueOf(storeId))).getPublicId();
-            int startPosition = product.getMedia().stream().mapToInt(ProductMedia::getPosition).max().orElse(-1) + 1;
-            int position = startPosition;
-            for (MultipartFile file : mediaFiles) {
-                if (file == null || file.isEmpty()) continue;
-                String url = fileStorageService.store(storePublicId, file);
-                if (url == null) continue;
-                ProductMedia m = new ProductMedia();
-                m.setProduct(product);
-                m.setUrl(url);
-                m.setAlt("");
-                m.setPosition(position++);
-                m.setMediaType("image");
-                product.getMedia().add(m);
-                v.getMedia().add(m);
-            }
+        if (media != null && !media.isEmpty()) {
+            addMedia(product, v, media);
             product = productRepository.save(product);
             productVariantRepository.save(v);
         }
+        productSearchService.reindex(product.getId());
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, storeId, product.getPublicId()));
         return ProductResponse.from(product);
     }
 
     @Transactional
-    @CacheEvict(value = "products", key = "#storeId")
     public ProductResponse updateVariant(Long storeId, String productPublicId, String variantPublicId, ProductRequest.ProductVariantRequest request) {
         Product product = productRepository.findByPublicIdAndStoreId(productPublicId, storeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", productPublicId));
@@ -350,19 +387,20 @@ public class CatalogService {
         v.setWeightUnit(request.getWeightUnit());
         v.setTrackInventory(request.isTrackInventory());
         v.setRequiresShipping(request.isRequiresShipping());
-        if (request.getPosition() >= 0) v.setPosition(request.getPosition());
+        if (request.getPosition() >= 0 && request.getPosition() != indexOf(product, v)) moveVariant(product, v, request.getPosition());
         syncVariantOptionValues(v, product, request.getOptions());
         productVariantRepository.save(v);
         if (request.getInventory() != null && !request.getInventory().isEmpty()) {
             inventoryService.ensureVariantInventoryLevels(storeId, v.getPublicId(), request.getInventory());
         }
         product = productRepository.save(product);
-        recomputeSmartCollectionsService.recomputeForStore(storeId);
+        productSearchService.reindex(product.getId());
+        smartCollectionRecomputeScheduler.recomputeForProduct(storeId, product.getId());
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, storeId, product.getPublicId()));
         return ProductResponse.from(product);
     }
 
     @Transactional
-    @CacheEvict(value = "products", key = "#storeId")
     public ProductResponse deleteVariant(Long storeId, String productPublicId, String variantPublicId) {
         Product product = productRepository.findByPublicIdAndStoreId(productPublicId, storeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", productPublicId));
@@ -373,6 +411,8 @@ public class CatalogService {
         boolean removed = product.getVariants().removeIf(v -> v.getPublicId().equals(variantPublicId));
         if (!removed) throw new ResourceNotFoundException("Product variant", variantPublicId);
         product = productRepository.save(product);
+        productSearchService.reindex(product.getId());
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, storeId, product.getPublicId()));
         return ProductResponse.from(product);
     }
 
@@ -395,13 +435,14 @@ public class CatalogService {
         product.setTags(newTags);
     }
 
+    /** Collections the product stays in keep its position; new ones get it appended at the end. */
     private void syncCollections(Product product, Long storeId, List<String> collectionIds) {
+        Map<Long, Long> previousPositions = new HashMap<>();
+        for (CollectionProduct cp : product.getCollectionProducts()) previousPositions.put(cp.getCollectionId(), cp.getPosition());
         product.getCollectionProducts().clear();
         if (collectionIds != null && !collectionIds.isEmpty()) {
-            int position = 0;
             for (String publicId : collectionIds) {
                 if (publicId == null || publicId.isBlank()) continue;
-                final int pos = position;
                 collectionRepository.findByPublicIdAndStoreId(publicId.trim(), storeId)
                         .ifPresent(collection -> {
                             CollectionProduct cp = new CollectionProduct();
@@ -409,11 +450,12 @@ public class CatalogService {
                             cp.setProductId(product.getId());
                             cp.setCollection(collection);
                             cp.setProduct(product);
-                            cp.setPosition(pos);
+                            Long previous = previousPositions.get(collection.getId());
+                            cp.setPosition(previous != null ? previous
+                                    : PositionKeys.after(collectionProductRepository.findMaxPositionByCollectionId(collection.getId())));
                             product.getCollectionProducts().add(cp);
                             collection.getCollectionProducts().add(cp);
                         });
-                position++;
             }
         }
     }
@@ -471,7 +513,56 @@ public class CatalogService {
         }
     }
 
-    private ProductVariant toVariant(Product product, ProductRequest.ProductVariantRequest vr, int position) {
+    private void addMedia(Product product, ProductVariant variant, List<MediaUploadService.UploadedMedia> media) {
+        long position = PositionKeys.after(productMediaRepository.findMaxPositionByProductId(product.getId()));
+        for (MediaUploadService.UploadedMedia uploaded : media) {
+            ProductMedia m = new ProductMedia();
+            m.setProduct(product);
+            m.setUrl(uploaded.getUrl());
+            m.setThumbnailUrl(uploaded.getThumbnailUrl());
+            m.setMediumUrl(uploaded.getMediumUrl());
+            m.setLargeUrl(uploaded.getLargeUrl());
+            m.setAlt("");
+            m.setPosition(position);
+            position += PositionKeys.GAP;
+            m.setMediaType("image");
+            product.getMedia().add(m);
+            variant.getMedia().add(m);
+        }
+    }
+
+    /** 0-based place of the variant among the product's variants in display order. */
+    private int indexOf(Product product, ProductVariant variant) {
+        int index = 0;
+        for (ProductVariant other : product.getVariants()) {
+            if (other != variant && (other.getPosition() < variant.getPosition()
+                    || (other.getPosition() == variant.getPosition() && other.getId() != null && variant.getId() != null && other.getId() < variant.getId()))) {
+                index++;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Gives the variant a key at the 0-based index among its siblings, so only its row changes; the product's few
+     * variants are renumbered when the neighbours' keys are adjacent.
+     */
+    private void moveVariant(Product product, ProductVariant variant, int index) {
+        List<ProductVariant> siblings = new ArrayList<>();
+        for (ProductVariant other : product.getVariants()) {
+            if (other != variant) siblings.add(other);
+        }
+        siblings.sort(Comparator.comparingLong(ProductVariant::getPosition));
+        Long key = PositionKeys.forIndex(siblings.stream().map(ProductVariant::getPosition).toList(), index);
+        if (key != null) {
+            variant.setPosition(key);
+            return;
+        }
+        siblings.add(Math.min(index, siblings.size()), variant);
+        for (int i = 0; i < siblings.size(); i++) siblings.get(i).setPosition(PositionKeys.forIndex(i));
+    }
+
+    private ProductVariant toVariant(Product product, ProductRequest.ProductVariantRequest vr, long position) {
         ProductVariant v = new ProductVariant();
         v.setProduct(product);
         v.setSku(vr.getSku());
@@ -484,7 +575,7 @@ public class CatalogService {
         v.setWeightUnit(vr.getWeightUnit());
         v.setTrackInventory(vr.isTrackInventory());
         v.setRequiresShipping(vr.isRequiresShipping());
-        v.setPosition(vr.getPosition() >= 0 ? vr.getPosition() : position);
+        v.setPosition(position);
         v = productVariantRepository.save(v);
         syncVariantOptionValues(v, product, vr.getOptions());
         return productVariantRepository.save(v);
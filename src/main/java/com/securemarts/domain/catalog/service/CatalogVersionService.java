@@ -0,0 +1,183 @@
+package com.securemarts.domain.catalog.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.securemarts.domain.catalog.event.CatalogChangedEvent;
+import com.securemarts.domain.catalog.event.CatalogVersionBumpedEvent;
+import com.securemarts.domain.onboarding.entity.Store;
+import com.securemarts.domain.onboarding.repository.StoreRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-store catalog version that drives ETag / Last-Modified on public storefront and discovery responses.
+ * <p>
+ * The version lives in store_catalog_versions so every instance hands out the same validators. It is bumped after
+ * the mutating transaction commits, in a short transaction of its own: a rolled-back change never moves the ETag,
+ * and checkouts reserving stock never hold the version row lock for the length of their transaction. Several bumps
+ * for one store inside a transaction collapse into one. Reads are cached for a few seconds, which bounds how long
+ * another instance keeps answering 304 after a change.
+ * <p>
+ * Product changes ({@link CatalogChangedEvent}) also bump a products version, which the storefront read model keys
+ * its documents on and in-memory indexes built from product data (facets, collection rules) check themselves
+ * against; stock and rating changes do not. Every bump made here is announced with a
+ * {@link CatalogVersionBumpedEvent} before the cached version moves.
+ */
+@Service
+@Slf4j
+public class CatalogVersionService {
+
+    /** Change when the shape of public catalog responses changes so clients do not revalidate old representations. */
+    private static final int REPRESENTATION = 2;
+    private static final Object PENDING_BUMPS = new Object();
+    private static final RowMapper<CatalogVersion> MAPPER = (rs, i) ->
+            new CatalogVersion(rs.getLong("version"), rs.getLong("products_version"), rs.getTimestamp("updated_at").toInstant());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate requiresNew;
+    private final StoreRepository storeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache<Long, CatalogVersion> versions;
+    private final Cache<String, Long> storeIdsByPublicId;
+
+    public CatalogVersionService(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 StoreRepository storeRepository,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Value("${app.storefront.http.version-cache-seconds:2}") long versionCacheSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.storeRepository = storeRepository;
+        this.eventPublisher = eventPublisher;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(50_000)
+                .expireAfterWrite(versionCacheSeconds, TimeUnit.SECONDS)
+                .build();
+        this.storeIdsByPublicId = Caffeine.newBuilder()
+                .maximumSize(50_000)
+                .expireAfterWrite(1, TimeUnit.HOURS)
+                .build();
+    }
+
+    public CatalogVersion current(Long storeId) {
+        return versions.get(storeId, id -> requiresNew.execute(status -> load(id)));
+    }
+
+    /**
+     * Version read from the database in the caller's transaction, bypassing the cache; for background work that must
+     * not act on a version a few seconds old.
+     */
+    public CatalogVersion fresh(Long storeId) {
+        List<CatalogVersion> rows = jdbcTemplate.query(
+                "SELECT version, products_version, updated_at FROM store_catalog_versions WHERE store_id = ?", MAPPER, storeId);
+        CatalogVersion version = rows.isEmpty() ? requiresNew.execute(status -> load(storeId)) : rows.get(0);
+        versions.asMap().merge(storeId, version, (a, b) -> a.getVersion() >= b.getVersion() ? a : b);
+        return version;
+    }
+
+    /** Store id for a public id (cached; ids never change), or null when the store does not exist. */
+    public Long storeIdByPublicId(String storePublicId) {
+        Long id = storeIdsByPublicId.getIfPresent(storePublicId);
+        if (id == null) {
+            id = storeRepository.findByPublicId(storePublicId).map(Store::getId).orElse(null);
+            if (id != null) storeIdsByPublicId.put(storePublicId, id);
+        }
+        return id;
+    }
+
+    /**
+     * Marks the store's public catalog as changed. Inside a transaction the bump is deferred until commit (and
+     * dropped on rollback); outside one it happens immediately.
+     */
+    public void bump(Long storeId) {
+        if (storeId == null) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bumpNow(storeId, false);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Long> pending = (Set<Long>) TransactionSynchronizationManager.getResource(PENDING_BUMPS);
+        if (pending == null) {
+            Set<Long> stores = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(PENDING_BUMPS, stores);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_BUMPS);
+                    if (status == STATUS_COMMITTED) {
+                        stores.forEach(id -> bumpNow(id, false));
+                    }
+                }
+            });
+            pending = stores;
+        }
+        pending.add(storeId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        bumpNow(event.getStoreId(), true);
+    }
+
+    private void bumpNow(Long storeId, boolean products) {
+        try {
+            CatalogVersion bumped = requiresNew.execute(status -> jdbcTemplate.queryForObject(
+                    "INSERT INTO store_catalog_versions (store_id, version, products_version, updated_at) VALUES (?, 1, ?, NOW()) "
+                            + "ON CONFLICT (store_id) DO UPDATE SET version = store_catalog_versions.version + 1, "
+                            + "products_version = store_catalog_versions.products_version + EXCLUDED.products_version, updated_at = NOW() "
+                            + "RETURNING version, products_version, updated_at",
+                    MAPPER, storeId, products ? 1 : 0));
+            if (bumped != null) {
+                // Indexes advance first, so a reader of the new cached version finds them current
+                eventPublisher.publishEvent(new CatalogVersionBumpedEvent(this, storeId, bumped));
+                versions.asMap().merge(storeId, bumped, (a, b) -> a.getVersion() >= b.getVersion() ? a : b);
+            }
+        } catch (RuntimeException e) {
+            // The change itself is committed; a missed bump only delays revalidation until the next one
+            log.warn("Could not bump catalog version for store {}: {}", storeId, e.getMessage());
+            versions.invalidate(storeId);
+        }
+    }
+
+    private CatalogVersion load(Long storeId) {
+        List<CatalogVersion> rows = jdbcTemplate.query(
+                "SELECT version, products_version, updated_at FROM store_catalog_versions WHERE store_id = ?", MAPPER, storeId);
+        if (!rows.isEmpty()) return rows.get(0);
+        jdbcTemplate.update("INSERT INTO store_catalog_versions (store_id) VALUES (?) ON CONFLICT (store_id) DO NOTHING", storeId);
+        return jdbcTemplate.queryForObject(
+                "SELECT version, products_version, updated_at FROM store_catalog_versions WHERE store_id = ?", MAPPER, storeId);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class CatalogVersion {
+        private final long version;
+        /** Bumped by product changes only; never ahead of version. */
+        private final long productsVersion;
+        private final Instant updatedAt;
+
+        /** Strong validator; unique per store, version and response representation. */
+        public String etag(Long storeId) {
+            return "\"" + storeId + "-" + REPRESENTATION + "-" + version + "\"";
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.securemarts.domain.catalog.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Set-based writes to collection_products for manual collections: existing members are read with one query per
+ * chunk, new rows go in as JDBC batches with ON CONFLICT DO NOTHING, and removals are one DELETE per chunk.
+ * Positions are sparse keys ({@link PositionKeys}): inserted products take keys spread between their neighbours and
+ * a move updates one row, so the rest of the collection is only touched when there is no room left.
+ * Callers run inside their own transaction.
+ */
+@Component
+@RequiredArgsConstructor
+public class CollectionMembershipWriter {
+
+    /** Ids per IN list / JDBC batch. */
+    static final int CHUNK_SIZE = 1000;
+
+    private static final String INSERT_MEMBER =
+            "INSERT INTO collection_products (collection_id, product_id, position, created_at) VALUES (?, ?, ?, NOW()) " +
+            "ON CONFLICT (collection_id, product_id) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CollectionPositionRebalancer collectionPositionRebalancer;
+
+    /**
+     * Adds the products (in the given order) that are not yet members, at the given 0-based index or after the last
+     * member. Returns the number of rows added.
+     */
+    @Transactional
+    public int add(Long collectionId, List<Long> productIds, Integer index) {
+        collectionPositionRebalancer.lockOrdering(collectionId);
+        Set<Long> existing = existingMembers(collectionId, productIds);
+        List<Long> toAdd = new ArrayList<>(productIds.size());
+        for (Long id : productIds) {
+            if (!existing.contains(id)) toAdd.add(id);
+        }
+        if (toAdd.isEmpty()) return 0;
+        int k = toAdd.size();
+        Long before;
+        Long after = null;
+        if (index == null) {
+            before = jdbcTemplate.queryForObject("SELECT MAX(position) FROM collection_products WHERE collection_id = ?", Long.class, collectionId);
+        } else {
+            int i = Math.max(index, 0);
+            before = i > 0 ? keyAt(collectionId, null, i - 1) : null;
+            after = keyAt(collectionId, null, i);
+        }
+        long start;
+        long step;
+        if (after == null) {
+            step = PositionKeys.GAP;
+            start = PositionKeys.after(before);
+        } else if (before == null) {
+            step = PositionKeys.GAP;
+            start = after - step * k;
+        } else if (after - before > k) {
+            step = (after - before) / (k + 1);
+            start = before + step;
+            if (step < PositionKeys.MIN_GAP) collectionPositionRebalancer.requestRebalance(collectionId);
+        } else {
+            // No room between the neighbours: push the tail down far enough for GAP spacing
+            step = PositionKeys.GAP;
+            start = before + step;
+            jdbcTemplate.update("UPDATE collection_products SET position = position + ? WHERE collection_id = ? AND position >= ?",
+                    step * (k + 1), collectionId, after);
+        }
+        int added = 0;
+        for (int from = 0; from < k; from += CHUNK_SIZE) {
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = from; i < Math.min(from + CHUNK_SIZE, k); i++) {
+                rows.add(new Object[]{collectionId, toAdd.get(i), start + step * i});
+            }
+            for (int count : jdbcTemplate.batchUpdate(INSERT_MEMBER, rows)) {
+                if (count > 0) added += count;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Moves a member to the given 0-based index by giving it a key between its new neighbours: one row updated,
+     * unless the neighbours are adjacent and the collection is renumbered first. False when it is not a member.
+     */
+    @Transactional
+    public boolean move(Long collectionId, Long productId, int index) {
+        collectionPositionRebalancer.lockOrdering(collectionId);
+        Integer present = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM collection_products WHERE collection_id = ? AND product_id = ?", Integer.class, collectionId, productId);
+        if (present == null || present == 0) return false;
+        int i = Math.max(index, 0);
+        Long before = i > 0 ? keyAt(collectionId, productId, i - 1) : null;
+        Long after = keyAt(collectionId, productId, i);
+        Long key = PositionKeys.between(before, after);
+        if (key == null) {
+            collectionPositionRebalancer.rebalance(collectionId);
+            before = i > 0 ? keyAt(collectionId, productId, i - 1) : null;
+            after = keyAt(collectionId, productId, i);
+            key = PositionKeys.between(before, after);
+        }
+        jdbcTemplate.update("UPDATE collection_products SET position = ? WHERE collection_id = ? AND product_id = ?", key, collectionId, productId);
+        if (PositionKeys.isCrowded(before, key, after)) collectionPositionRebalancer.requestRebalance(collectionId);
+        return true;
+    }
+
+    /** Key of the member at the 0-based offset in display order, optionally ignoring one product; null past the end. */
+    private Long keyAt(Long collectionId, Long excludedProductId, int offset) {
+        List<Long> keys = jdbcTemplate.queryForList("SELECT position FROM collection_products WHERE collection_id = ? AND product_id <> ? "
+                + "ORDER BY position, product_id OFFSET ? LIMIT 1", Long.class, collectionId, excludedProductId != null ? excludedProductId : -1L, offset);
+        return keys.isEmpty() ? null : keys.get(0);
+    }
+
+    /** Deletes the products' membership rows; returns the number removed. Remaining positions are left as they are. */
+    @Transactional
+    public int remove(Long collectionId, List<Long> productIds) {
+        int removed = 0;
+        for (List<Long> chunk : chunks(productIds)) {
+            removed += jdbcTemplate.update("DELETE FROM collection_products WHERE collection_id = ? AND product_id IN ("
+                    + placeholders(chunk.size()) + ")", params(collectionId, chunk));
+        }
+        return removed;
+    }
+
+    private Set<Long> existingMembers(Long collectionId, List<Long> productIds) {
+        Set<Long> existing = new HashSet<>();
+        for (List<Long> chunk : chunks(productIds)) {
+            existing.addAll(jdbcTemplate.queryForList("SELECT product_id FROM collection_products WHERE collection_id = ? AND product_id IN ("
+                    + placeholders(chunk.size()) + ")", Long.class, params(collectionId, chunk)));
+        }
+        return existing;
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        if (ids.isEmpty()) return Collections.emptyList();
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(int n) {
+        return String.join(",", Collections.nCopies(n, "?"));
+    }
+
+    private static Object[] params(Long collectionId, List<Long> ids) {
+        Object[] params = new Object[ids.size() + 1];
+        params[0] = collectionId;
+        for (int i = 0; i < ids.size(); i++) params[i + 1] = ids.get(i);
+        return params;
+    }
+}
@@ -0,0 +1,91 @@
+package com.securemarts.domain.catalog.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renumbers a collection's position keys to multiples of {@link PositionKeys#GAP}, keeping the order. Done inline
+ * when a move or insert finds no room between neighbours, and in the background (once per collection at a time,
+ * after the requesting transaction commits) when a midpoint leaves a neighbour crowded. Key assignment and
+ * renumbering both hold the collection row lock ({@link #lockOrdering}), so a key is never computed from neighbours
+ * that are being renumbered.
+ */
+@Component
+@Slf4j
+public class CollectionPositionRebalancer {
+
+    private static final String RENUMBER =
+            "UPDATE collection_products cp SET position = r.rn * " + PositionKeys.GAP + " " +
+            "FROM (SELECT product_id, ROW_NUMBER() OVER (ORDER BY position, product_id) AS rn " +
+            "FROM collection_products WHERE collection_id = ?) r " +
+            "WHERE cp.collection_id = ? AND cp.product_id = r.product_id AND cp.position <> r.rn * " + PositionKeys.GAP;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor executor;
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    public CollectionPositionRebalancer(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("position-rebalance-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /** Serializes key changes for the collection until the caller's transaction ends. */
+    public void lockOrdering(Long collectionId) {
+        jdbcTemplate.queryForList("SELECT id FROM collections WHERE id = ? FOR UPDATE", Long.class, collectionId);
+    }
+
+    /** Renumbers now, in the caller's transaction (which must hold the ordering lock); returns the rows changed. */
+    public int rebalance(Long collectionId) {
+        return jdbcTemplate.update(RENUMBER, collectionId, collectionId);
+    }
+
+    public void requestRebalance(Long collectionId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(collectionId);
+                }
+            });
+        } else {
+            submit(collectionId);
+        }
+    }
+
+    private void submit(Long collectionId) {
+        if (!pending.add(collectionId)) return;
+        executor.execute(() -> {
+            pending.remove(collectionId);
+            try {
+                Integer changed = transactionTemplate.execute(status -> {
+                    lockOrdering(collectionId);
+                    return rebalance(collectionId);
+                });
+                log.debug("Rebalanced {} position keys in collection {}", changed, collectionId);
+            } catch (RuntimeException e) {
+                log.warn("Position rebalance failed for collection {}: {}", collectionId, e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,140 @@
+package com.securemarts.domain.catalog.service;
+
+import com.securemarts.domain.catalog.entity.Collection;
+import com.securemarts.domain.catalog.entity.CollectionRule;
+import jakarta.persistence.Query;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a smart collection's rules and conditions operator into one SQL predicate over {@code products p}.
+ * Product columns are compared directly; tag, variant and stock rules become correlated EXISTS / IN subqueries, and
+ * the rules are joined with AND ("all") or OR ("any"). The predicate is used as the WHERE clause of a single
+ * SELECT or INSERT ... SELECT, so membership is computed inside Postgres in one round trip.
+ * <p>
+ * Rule values are always bound as parameters; only column names, which come from a fixed list, are inlined.
+ */
+@Component
+@Slf4j
+public class CollectionRuleCompiler {
+
+    /** Base for every statement: the store's live products. Append {@code AND (predicate)}. */
+    public static final String FROM_PRODUCTS = "FROM products p WHERE p.store_id = :storeId AND p.deleted_at IS NULL ";
+
+    public CompiledRules compile(Collection collection) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        List<String> predicates = new ArrayList<>();
+        if (collection.getRules() != null) {
+            for (CollectionRule rule : collection.getRules()) {
+                String param = "r" + predicates.size();
+                predicates.add(compileRule(rule.getField(), rule.getOperator(), rule.getValue(), param, params));
+            }
+        }
+        if (predicates.isEmpty()) {
+            return new CompiledRules("FALSE", params);
+        }
+        String joiner = "any".equalsIgnoreCase(collection.getConditionsOperator()) ? " OR " : " AND ";
+        return new CompiledRules("(" + String.join(joiner, predicates) + ")", params);
+    }
+
+    private String compileRule(String field, String op, String value, String param, Map<String, Object> params) {
+        String normalizedField = field != null ? field.trim().toLowerCase() : "";
+        String normalizedOp = op != null ? op.trim().toLowerCase() : "equals";
+        switch (normalizedField) {
+            case "title":
+            case "product_type":
+            case "vendor":
+                return stringCondition("p." + normalizedField, normalizedOp, value, param, params);
+            case "tag":
+                return "EXISTS (SELECT 1 FROM product_tags pt JOIN tags t ON t.id = pt.tag_id WHERE pt.product_id = p.id AND "
+                        + stringCondition("t.name", normalizedOp, value, param, params) + ")";
+            case "price":
+                return variantCondition(numericCondition("pv.price_amount", normalizedOp, value, param, params));
+            case "compare_at_price":
+                return variantCondition(numericCondition("pv.compare_at_amount", normalizedOp, value, param, params));
+            case "weight":
+                return variantCondition(numericCondition("pv.weight", normalizedOp, value, param, params));
+            case "variant_title":
+                return variantCondition(stringCondition("pv.title", normalizedOp, value, param, params));
+            case "inventory_stock":
+                // Products without any inventory level never match, whatever the comparison
+                params.put(param, parseDecimal(value).intValue());
+                return "p.id IN (SELECT pv.product_id FROM product_variants pv "
+                        + "JOIN inventory_items ii ON ii.product_variant_id = pv.id AND ii.store_id = :storeId "
+                        + "JOIN inventory_levels il ON il.inventory_item_id = ii.id "
+                        + "WHERE pv.product_id = p.id GROUP BY pv.product_id "
+                        + "HAVING COALESCE(SUM(il.quantity_available), 0) " + numericOp(normalizedOp) + " :" + param + ")";
+            default:
+                log.warn("Unknown collection rule field: {}", field);
+                return "FALSE";
+        }
+    }
+
+    private static String variantCondition(String condition) {
+        return "EXISTS (SELECT 1 FROM product_variants pv WHERE pv.product_id = p.id AND " + condition + ")";
+    }
+
+    private static String stringCondition(String column, String op, String value, String param, Map<String, Object> params) {
+        if (value == null || value.isBlank()) return "FALSE";
+        params.put(param, value.trim());
+        String castCol = "CAST(COALESCE(" + column + ", '') AS VARCHAR)";
+        String p = ":" + param;
+        switch (op) {
+            case "not_equals":
+                return castCol + " != " + p;
+            case "contains":
+                return "LOWER(" + castCol + ") LIKE LOWER('%' || " + p + " || '%')";
+            case "starts_with":
+                return "LOWER(" + castCol + ") LIKE LOWER(" + p + " || '%')";
+            case "ends_with":
+                return "LOWER(" + castCol + ") LIKE LOWER('%' || " + p + ")";
+            default:
+                return "LOWER(" + castCol + ") = LOWER(" + p + ")";
+        }
+    }
+
+    private static String numericCondition(String column, String op, String value, String param, Map<String, Object> params) {
+        params.put(param, parseDecimal(value));
+        return "COALESCE(" + column + ", 0) " + numericOp(op) + " :" + param;
+    }
+
+    private static String numericOp(String op) {
+        if (op == null) return "=";
+        switch (op) {
+            case "not_equals": return "!=";
+            case "greater_than": return ">";
+            case "less_than": return "<";
+            default: return "=";
+        }
+    }
+
+    private static BigDecimal parseDecimal(String value) {
+        if (value == null || value.isBlank()) return BigDecimal.ZERO;
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            return BigDecimal.ZERO;
+        }
+    }
+
+    /** WHERE-clause fragment plus its parameters; {@code :storeId} is bound by the caller. */
+    @Getter
+    @RequiredArgsConstructor
+    public static class CompiledRules {
+        private final String predicate;
+        private final Map<String, Object> parameters;
+
+        public Query bind(Query query) {
+            parameters.forEach(query::setParameter);
+            return query;
+        }
+    }
+}
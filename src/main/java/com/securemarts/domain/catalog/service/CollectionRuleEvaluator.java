@@ -1,203 +1,150 @@
 package com.securemarts.domain.catalog.service;
 
 import com.securemarts.domain.catalog.entity.Collection;
-import com.securemarts.domain.catalog.entity.CollectionRule;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
-import lombok.extern.slf4j.Slf4j;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * Evaluates smart collection rules and returns matching product IDs for a store.
+ * Evaluates smart collection rules for a store. Each collection's rule set is compiled by
+ * {@link CollectionRuleCompiler} into a single statement, so evaluation is one query whatever the number of rules,
+ * and full membership rebuilds never bring the matching IDs into the JVM. When {@link CollectionRuleIndex} is
+ * enabled, {@link #evaluate} and the per-product {@link #syncMembership(Collection, Long, Set)} take their matches
+ * from memory instead, falling back to SQL for anything the index cannot answer.
  */
 @Component
-@Slf4j
+@RequiredArgsConstructor
 public class CollectionRuleEvaluator {
 
     @PersistenceContext
     private EntityManager entityManager;
 
+    private final CollectionRuleCompiler collectionRuleCompiler;
+    private final CollectionRuleIndex collectionRuleIndex;
 
     /**
      * Returns product IDs that match all or any of the collection's rules (by conditions_operator).
      */
+    @SuppressWarnings("unchecked")
     public List<Long> evaluate(Collection collection, Long storeId) {
         if (collection.getRules() == null || collection.getRules().isEmpty()) {
             return List.of();
         }
-        String operator = collection.getConditionsOperator() != null && "any".equalsIgnoreCase(collection.getConditionsOperator()) ? "any" : "all";
-        List<Set<Long>> perRule = new ArrayList<>();
-        for (CollectionRule rule : collection.getRules()) {
-            Set<Long> ids = evaluateRule(rule.getField(), rule.getOperator(), rule.getValue(), storeId);
-            perRule.add(ids);
-        }
-        if (perRule.isEmpty()) return List.of();
-        Set<Long> result = "any".equals(operator)
-                ? perRule.stream().flatMap(Set::stream).collect(Collectors.toSet())
-                : new HashSet<>(perRule.get(0));
-        if ("all".equals(operator)) {
-            for (int i = 1; i < perRule.size(); i++) {
-                result.retainAll(perRule.get(i));
-            }
-        }
-        return new ArrayList<>(result);
-    }
-
-    @SuppressWarnings("unchecked")
-    private Set<Long> evaluateRule(String field, String op, String value, Long storeId) {
-        String normalizedField = field != null ? field.trim().toLowerCase() : "";
-        String normalizedOp = op != null ? op.trim().toLowerCase() : "equals";
-
-        if ("title".equals(normalizedField)) {
-            return productIdsFromProductColumn(storeId, "title", normalizedOp, value, "VARCHAR");
-        }
-        if ("product_type".equals(normalizedField)) {
-            return productIdsFromProductColumn(storeId, "product_type", normalizedOp, value, "VARCHAR");
-        }
-        if ("vendor".equals(normalizedField)) {
-            return productIdsFromProductColumn(storeId, "vendor", normalizedOp, value, "VARCHAR");
-        }
-        if ("tag".equals(normalizedField)) {
-            return productIdsFromTag(storeId, normalizedOp, value);
-        }
-        if ("price".equals(normalizedField)) {
-            return productIdsFromVariantColumn(storeId, "price_amount", normalizedOp, value);
-        }
-        if ("compare_at_price".equals(normalizedField)) {
-            return productIdsFromVariantColumn(storeId, "compare_at_amount", normalizedOp, value);
-        }
-        if ("weight".equals(normalizedField)) {
-            return productIdsFromVariantColumn(storeId, "weight", normalizedOp, value);
-        }
-        if ("variant_title".equals(normalizedField)) {
-            return productIdsFromVariantColumn(storeId, "title", normalizedOp, value);
-        }
-        if ("inventory_stock".equals(normalizedField)) {
-            return productIdsFromInventoryStock(storeId, normalizedOp, value);
-        }
-        log.warn("Unknown collection rule field: {}", field);
-        return Set.of();
-    }
-
-    @SuppressWarnings("unchecked")
-    private Set<Long> productIdsFromProductColumn(Long storeId, String column, String op, String value, String type) {
-        String sql = "SELECT DISTINCT p.id FROM products p WHERE p.store_id = :storeId AND p.deleted_at IS NULL AND ";
-        sql += stringCondition("p." + column, op, value);
-        Query q = entityManager.createNativeQuery(sql);
+        List<Long> indexed = collectionRuleIndex.evaluate(collection, storeId);
+        if (indexed != null) return indexed;
+        CollectionRuleCompiler.CompiledRules rules = collectionRuleCompiler.compile(collection);
+        Query q = rules.bind(entityManager.createNativeQuery(
+                "SELECT p.id " + CollectionRuleCompiler.FROM_PRODUCTS + "AND " + rules.getPredicate() + " ORDER BY p.id"));
         q.setParameter("storeId", storeId);
-        if (value != null && !value.isBlank()) q.setParameter("val", value.trim());
-        return toLongSet((List<Number>) q.getResultList());
+        List<Long> ids = new ArrayList<>();
+        for (Number n : (List<Number>) q.getResultList()) ids.add(n.longValue());
+        return ids;
     }
 
-    @SuppressWarnings("unchecked")
-    private Set<Long> productIdsFromTag(Long storeId, String op, String value) {
-        if (value == null || value.isBlank()) return Set.of();
-        String sql = "SELECT DISTINCT p.id FROM products p " +
-                "JOIN product_tags pt ON pt.product_id = p.id " +
-                "JOIN tags t ON t.id = pt.tag_id " +
-                "WHERE p.store_id = :storeId AND p.deleted_at IS NULL AND ";
-        sql += stringCondition("t.name", op, value);
-        Query q = entityManager.createNativeQuery(sql);
-        q.setParameter("storeId", storeId);
-        q.setParameter("val", value.trim());
-        return toLongSet((List<Number>) q.getResultList());
+    /**
+     * Brings collection_products in line with the rules as a delta: one DELETE for members that no longer match and
+     * one INSERT ... SELECT for new matches, appended after the current last position in product id order with
+     * {@link PositionKeys#GAP} spacing. Rows that still match are not touched, so their positions are kept and no
+     * dead tuples are produced.
+     */
+    public MembershipDelta syncMembership(Collection collection, Long storeId) {
+        if (collection.getRules() == null || collection.getRules().isEmpty()) {
+            Query clear = entityManager.createNativeQuery("DELETE FROM collection_products WHERE collection_id = :collectionId");
+            clear.setParameter("collectionId", collection.getId());
+            return new MembershipDelta(0, clear.executeUpdate());
+        }
+        CollectionRuleCompiler.CompiledRules rules = collectionRuleCompiler.compile(collection);
+        Query remove = rules.bind(entityManager.createNativeQuery(
+                "DELETE FROM collection_products cp WHERE cp.collection_id = :collectionId "
+                        + "AND NOT EXISTS (SELECT 1 " + CollectionRuleCompiler.FROM_PRODUCTS
+                        + "AND p.id = cp.product_id AND " + rules.getPredicate() + ")"));
+        remove.setParameter("storeId", storeId);
+        remove.setParameter("collectionId", collection.getId());
+        int removed = remove.executeUpdate();
+
+        Query add = rules.bind(entityManager.createNativeQuery(
+                "INSERT INTO collection_products (collection_id, product_id, position, created_at) "
+                        + "SELECT :collectionId, p.id, "
+                        + "(SELECT COALESCE(MAX(cp.position), 0) FROM collection_products cp WHERE cp.collection_id = :collectionId) "
+                        + "+ ROW_NUMBER() OVER (ORDER BY p.id) * " + PositionKeys.GAP + ", NOW() "
+                        + CollectionRuleCompiler.FROM_PRODUCTS + "AND " + rules.getPredicate()
+                        + " AND NOT EXISTS (SELECT 1 FROM collection_products cp WHERE cp.collection_id = :collectionId AND cp.product_id = p.id)"
+                        + " ON CONFLICT (collection_id, product_id) DO NOTHING"));
+        add.setParameter("storeId", storeId);
+        add.setParameter("collectionId", collection.getId());
+        int added = add.executeUpdate();
+        return new MembershipDelta(added, removed);
     }
 
+    /**
+     * {@link #syncMembership(Collection, Long)} pinned to the given products: one DELETE for those of them that no
+     * longer match and one INSERT ... SELECT for their new matches, whatever the number of products. Matches come
+     * from {@link CollectionRuleIndex} when it is synced for the store, otherwise from the compiled predicate.
+     * Returns the products whose membership changed.
+     */
     @SuppressWarnings("unchecked")
-    private Set<Long> productIdsFromVariantColumn(Long storeId, String column, String op, String value) {
-        String sql = "SELECT DISTINCT p.id FROM products p " +
-                "JOIN product_variants pv ON pv.product_id = p.id " +
-                "WHERE p.store_id = :storeId AND p.deleted_at IS NULL AND ";
-        boolean isNumeric = "price_amount".equals(column) || "compare_at_amount".equals(column) || "weight".equals(column);
-        if (isNumeric) {
-            BigDecimal num = parseDecimal(value);
-            sql += numericCondition("pv." + column, op, num);
+    public Set<Long> syncMembership(Collection collection, Long storeId, Set<Long> productIds) {
+        if (productIds.isEmpty()) return Set.of();
+        CollectionRuleCompiler.CompiledRules rules;
+        Set<Long> indexed = collection.getRules() == null || collection.getRules().isEmpty()
+                ? Set.of() : collectionRuleIndex.matching(collection, storeId, productIds);
+        if (indexed == null) {
+            rules = collectionRuleCompiler.compile(collection);
+        } else if (indexed.isEmpty()) {
+            rules = new CollectionRuleCompiler.CompiledRules("FALSE", Map.of());
         } else {
-            sql += stringCondition("pv." + column, op, value);
-        }
-        Query q = entityManager.createNativeQuery(sql);
-        q.setParameter("storeId", storeId);
-        if (isNumeric) {
-            q.setParameter("numVal", parseDecimal(value));
-        } else if (value != null && !value.isBlank()) {
-            q.setParameter("val", value.trim());
-        }
-        return toLongSet((List<Number>) q.getResultList());
-    }
-
-    @SuppressWarnings("unchecked")
-    private Set<Long> productIdsFromInventoryStock(Long storeId, String op, String value) {
-        BigDecimal num = parseDecimal(value);
-        String sql = "SELECT p.id FROM products p " +
-                "JOIN product_variants pv ON pv.product_id = p.id " +
-                "JOIN inventory_items ii ON ii.product_variant_id = pv.id AND ii.store_id = :storeId " +
-                "JOIN inventory_levels il ON il.inventory_item_id = ii.id " +
-                "WHERE p.store_id = :storeId AND p.deleted_at IS NULL " +
-                "GROUP BY p.id HAVING COALESCE(SUM(il.quantity_available), 0) " + numericOp(op) + " :numVal";
-        Query q = entityManager.createNativeQuery(sql);
-        q.setParameter("storeId", storeId);
-        q.setParameter("numVal", num != null ? num.intValue() : 0);
-        return toLongSet((List<Number>) q.getResultList());
-    }
-
-    private static Set<Long> toLongSet(List<Number> list) {
-        Set<Long> set = new HashSet<>();
-        for (Number n : list) set.add(n != null ? n.longValue() : 0L);
-        return set;
-    }
-
-    private String stringCondition(String column, String op, String value) {
-        if (value == null || value.isBlank()) return "1=0";
-        String castCol = "CAST(COALESCE(" + column + ", '') AS VARCHAR)";
-        switch (op) {
-            case "not_equals":
-                return castCol + " != :val";
-            case "contains":
-                return "LOWER(" + castCol + ") LIKE LOWER('%' || :val || '%')";
-            case "starts_with":
-                return "LOWER(" + castCol + ") LIKE LOWER(:val || '%')";
-            case "ends_with":
-                return "LOWER(" + castCol + ") LIKE LOWER('%' || :val)";
-            default:
-                return "LOWER(" + castCol + ") = LOWER(:val)";
-        }
+            rules = new CollectionRuleCompiler.CompiledRules("p.id IN (:matching)", Map.of("matching", List.copyOf(indexed)));
+        }
+        List<Long> ids = List.copyOf(productIds);
+        Set<Long> changed = new LinkedHashSet<>();
+        Query remove = rules.bind(entityManager.createNativeQuery(
+                "DELETE FROM collection_products cp WHERE cp.collection_id = :collectionId AND cp.product_id IN (:productIds) "
+                        + "AND NOT EXISTS (SELECT 1 " + CollectionRuleCompiler.FROM_PRODUCTS
+                        + "AND p.id = cp.product_id AND " + rules.getPredicate() + ") RETURNING cp.product_id"));
+        remove.setParameter("storeId", storeId);
+        remove.setParameter("collectionId", collection.getId());
+        remove.setParameter("productIds", ids);
+        for (Number n : (List<Number>) remove.getResultList()) changed.add(n.longValue());
+
+        Query add = rules.bind(entityManager.createNativeQuery(
+                "INSERT INTO collection_products (collection_id, product_id, position, created_at) "
+                        + "SELECT :collectionId, p.id, "
+                        + "(SELECT COALESCE(MAX(cp.position), 0) FROM collection_products cp WHERE cp.collection_id = :collectionId) "
+                        + "+ ROW_NUMBER() OVER (ORDER BY p.id) * " + PositionKeys.GAP + ", NOW() "
+                        + CollectionRuleCompiler.FROM_PRODUCTS + "AND p.id IN (:productIds) AND " + rules.getPredicate()
+                        + " AND NOT EXISTS (SELECT 1 FROM collection_products cp WHERE cp.collection_id = :collectionId AND cp.product_id = p.id)"
+                        + " ON CONFLICT (collection_id, product_id) DO NOTHING RETURNING product_id"));
+        add.setParameter("storeId", storeId);
+        add.setParameter("collectionId", collection.getId());
+        add.setParameter("productIds", ids);
+        for (Number n : (List<Number>) add.getResultList()) changed.add(n.longValue());
+        return changed;
     }
 
-    private String numericCondition(String column, String op, BigDecimal num) {
-        if (num == null) return "1=0";
-        switch (op) {
-            case "not_equals":
-                return "COALESCE(" + column + ", 0) != :numVal";
-            case "greater_than":
-                return "COALESCE(" + column + ", 0) > :numVal";
-            case "less_than":
-                return "COALESCE(" + column + ", 0) < :numVal";
-            default:
-                return "COALESCE(" + column + ", 0) = :numVal";
-        }
+    /** True when membership can depend on stock levels, so stock changes need to re-check this collection. */
+    public static boolean dependsOnStock(Collection collection) {
+        if (collection.getRules() == null) return false;
+        return collection.getRules().stream()
+                .anyMatch(r -> r.getField() != null && "inventory_stock".equalsIgnoreCase(r.getField().trim()));
     }
 
-    private String numericOp(String op) {
-        if (op == null) return "=";
-        switch (op) {
-            case "not_equals": return "!=";
-            case "greater_than": return ">";
-            case "less_than": return "<";
-            default: return "=";
-        }
-    }
+    @Getter
+    @RequiredArgsConstructor
+    public static class MembershipDelta {
+        private final int added;
+        private final int removed;
 
-    private BigDecimal parseDecimal(String value) {
-        if (value == null || value.isBlank()) return BigDecimal.ZERO;
-        try {
-            return new BigDecimal(value.trim());
-        } catch (NumberFormatException e) {
-            return BigDecimal.ZERO;
+        public boolean isEmpty() {
+            return added == 0 && removed == 0;
         }
     }
 }
@@ -0,0 +1,631 @@
+package com.securemarts.domain.catalog.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.securemarts.domain.catalog.entity.Collection;
+import com.securemarts.domain.catalog.entity.CollectionRule;
+import com.securemarts.domain.catalog.event.CatalogChangedEvent;
+import com.securemarts.domain.catalog.event.CatalogVersionBumpedEvent;
+import com.securemarts.domain.inventory.event.InventoryChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional in-memory attribute index for smart collection rules ({@code app.collections.rule-index.enabled}).
+ * Per store, live products get ordinals; vendor, product type and tag values map to bitmaps of ordinals, and
+ * price, compare-at price, weight and stock are held as value-sorted primitive arrays, so a rule is a few bitmap
+ * ORs or a binary search and a rule set is an AND / OR of those bitmaps. Comparisons follow
+ * {@link CollectionRuleCompiler} exactly (case-insensitive equals and LIKE, case-sensitive not_equals, NULL as
+ * empty string or zero, variant rules match when any variant does, stock only for products with inventory levels).
+ * <p>
+ * Numeric values are compared as {@link BigDecimal}, like the NUMERIC comparison of the SQL path.
+ * <p>
+ * Indexes are kept current in place: a {@link CatalogChangedEvent} for one product re-reads that product, an
+ * {@link InventoryChangedEvent} re-reads the stock sums of the products it names, and store-wide changes drop the
+ * index (products) or mark the stock sums stale. Each {@link CatalogVersionBumpedEvent} of this instance then
+ * advances the catalog version the index records. A recompute calls {@link #sync} once per batch, which compares
+ * that version with the one in the database and rebuilds or re-reads stock only for changes made on other
+ * instances; {@link #evaluate} and {@link #matching} answer from the synced index. Callers fall back to SQL whenever
+ * they return null.
+ */
+@Component
+public class CollectionRuleIndex {
+
+    private static final String LIVE = "p.store_id = ? AND p.deleted_at IS NULL";
+    private static final String ONE_PRODUCT = LIVE + " AND p.id = ?";
+    /** Larger stock changes (bulk adjustments) mark the stock sums stale instead of binding every product id. */
+    private static final int MAX_STOCK_DELTA = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogVersionService catalogVersionService;
+    private final boolean enabled;
+    private final Cache<Long, Slot> stores;
+
+    public CollectionRuleIndex(JdbcTemplate jdbcTemplate,
+                               CatalogVersionService catalogVersionService,
+                               @Value("${app.collections.rule-index.enabled:false}") boolean enabled,
+                               @Value("${app.collections.rule-index.max-stores:200}") long maxStores) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalogVersionService = catalogVersionService;
+        this.enabled = enabled;
+        this.stores = Caffeine.newBuilder()
+                .maximumSize(maxStores)
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Brings the store's index up to the catalog version in the database: built on first use, rebuilt when the
+     * products version moved past it, stock re-read when only the catalog version did. One version read per call,
+     * so recomputes call it once per batch before {@link #evaluate} / {@link #matching}.
+     */
+    public void sync(Long storeId) {
+        if (!enabled) return;
+        CatalogVersionService.CatalogVersion version = catalogVersionService.fresh(storeId);
+        Slot slot = stores.get(storeId, id -> new Slot());
+        synchronized (slot) {
+            StoreRules index = slot.index;
+            if (index == null || index.productsVersion < version.getProductsVersion()) {
+                slot.index = build(storeId, version);
+            } else if (index.stockStale || index.version < version.getVersion()) {
+                Map<Long, Integer> stock = loadStock(LIVE, storeId);
+                index.lock.writeLock().lock();
+                try {
+                    index.setStock(stock);
+                } finally {
+                    index.lock.writeLock().unlock();
+                }
+                index.version = Math.max(index.version, version.getVersion());
+                index.stockStale = false;
+            }
+        }
+    }
+
+    /** Matching product ids in ascending order, or null when the index is disabled or not synced for the store. */
+    public List<Long> evaluate(Collection collection, Long storeId) {
+        StoreRules index = synced(storeId);
+        if (index == null) return null;
+        index.lock.readLock().lock();
+        try {
+            BitSet bits = index.evaluate(collection);
+            List<Long> ids = new ArrayList<>(bits.cardinality());
+            for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) ids.add(index.productIds.get(i));
+            return ids;
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The given products that satisfy the rules, or null when the index is disabled or not synced. A synced index
+     * holds every live product, so products it does not hold (deleted, unpublished from the store) do not match.
+     */
+    public Set<Long> matching(Collection collection, Long storeId, Set<Long> productIds) {
+        StoreRules index = synced(storeId);
+        if (index == null) return null;
+        index.lock.readLock().lock();
+        try {
+            Set<Long> matching = new LinkedHashSet<>();
+            for (Long productId : productIds) {
+                Integer ordinal = index.ordinals.get(productId);
+                if (ordinal != null && index.live.get(ordinal) && index.test(collection, ordinal)) matching.add(productId);
+            }
+            return matching;
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    /** Runs before the catalog version bump, so the bump can advance the index past this change. */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!enabled || event.isMembershipOnly()) return;
+        Slot slot = stores.getIfPresent(event.getStoreId());
+        if (slot == null) return;
+        if (event.isStoreWide()) {
+            stores.invalidate(event.getStoreId());
+            return;
+        }
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM products WHERE public_id = ? AND store_id = ?", Long.class,
+                event.getProductPublicId(), event.getStoreId());
+        if (ids.isEmpty()) return;
+        Long productId = ids.get(0);
+        synchronized (slot) {
+            StoreRules index = slot.index;
+            if (index == null) return;
+            Doc doc = loadDocs(ONE_PRODUCT, event.getStoreId(), productId).get(productId);
+            index.lock.writeLock().lock();
+            try {
+                if (!(doc == null ? index.remove(productId) : index.put(productId, doc))) slot.index = null;
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (!enabled) return;
+        Slot slot = stores.getIfPresent(event.getStoreId());
+        if (slot == null) return;
+        synchronized (slot) {
+            StoreRules index = slot.index;
+            if (index == null) return;
+            if (event.isStoreWide() || event.getProductIds().size() > MAX_STOCK_DELTA) {
+                index.stockStale = true;
+                return;
+            }
+            List<Object> args = new ArrayList<>();
+            args.add(event.getStoreId());
+            args.addAll(event.getProductIds());
+            Map<Long, Integer> stock = loadStock(LIVE + " AND p.id IN ("
+                    + String.join(", ", Collections.nCopies(event.getProductIds().size(), "?")) + ")", args.toArray());
+            index.lock.writeLock().lock();
+            try {
+                for (Long productId : event.getProductIds()) index.setStock(productId, stock.get(productId));
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /** Advances the recorded versions past a bump of this instance when they are exactly one behind. */
+    @EventListener
+    public void onVersionBumped(CatalogVersionBumpedEvent event) {
+        if (!enabled) return;
+        Slot slot = stores.getIfPresent(event.getStoreId());
+        if (slot == null) return;
+        CatalogVersionService.CatalogVersion bumped = event.getVersion();
+        synchronized (slot) {
+            StoreRules index = slot.index;
+            if (index == null) return;
+            if (index.productsVersion == bumped.getProductsVersion() - 1) index.productsVersion = bumped.getProductsVersion();
+            if (index.version == bumped.getVersion() - 1 && !index.stockStale) index.version = bumped.getVersion();
+        }
+    }
+
+    /** The store's index with its sorted columns current, or null when there is none to answer from. */
+    private StoreRules synced(Long storeId) {
+        if (!enabled) return null;
+        Slot slot = stores.getIfPresent(storeId);
+        StoreRules index = slot != null ? slot.index : null;
+        if (index == null || !index.columnsStale) return index;
+        synchronized (slot) {
+            index.lock.writeLock().lock();
+            try {
+                if (index.columnsStale) index.rebuildColumns();
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        }
+        return index;
+    }
+
+    private StoreRules build(Long storeId, CatalogVersionService.CatalogVersion version) {
+        StoreRules index = new StoreRules(version.getProductsVersion(), version.getVersion());
+        loadDocs(LIVE, storeId).forEach(index::put);
+        index.rebuildColumns();
+        return index;
+    }
+
+    private Map<Long, Doc> loadDocs(String where, Object... args) {
+        Map<Long, Doc> docs = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT p.id, p.title, p.vendor, p.product_type FROM products p WHERE " + where + " ORDER BY p.id", rs -> {
+            docs.put(rs.getLong(1), new Doc(rs.getString(2), rs.getString(3), rs.getString(4)));
+        }, args);
+        if (docs.isEmpty()) return docs;
+        jdbcTemplate.query("SELECT pt.product_id, t.name FROM product_tags pt JOIN tags t ON t.id = pt.tag_id "
+                + "JOIN products p ON p.id = pt.product_id WHERE " + where, rs -> {
+            Doc doc = docs.get(rs.getLong(1));
+            if (doc != null) doc.tags.add(nullToEmpty(rs.getString(2)));
+        }, args);
+        jdbcTemplate.query("SELECT pv.product_id, pv.title, pv.price_amount, pv.compare_at_amount, pv.weight FROM product_variants pv "
+                + "JOIN products p ON p.id = pv.product_id WHERE " + where, rs -> {
+            Doc doc = docs.get(rs.getLong(1));
+            if (doc != null) {
+                doc.variants.add(new VariantDoc(nullToEmpty(rs.getString(2)),
+                        zeroIfNull(rs.getBigDecimal(3)), zeroIfNull(rs.getBigDecimal(4)), zeroIfNull(rs.getBigDecimal(5))));
+            }
+        }, args);
+        Map<Long, Integer> stock = loadStock(where, args);
+        stock.forEach((id, sum) -> {
+            Doc doc = docs.get(id);
+            if (doc != null) doc.stock = sum;
+        });
+        return docs;
+    }
+
+    /** Summed available quantity per product; products without inventory levels are absent. */
+    private Map<Long, Integer> loadStock(String where, Object... args) {
+        Map<Long, Integer> stock = new HashMap<>();
+        jdbcTemplate.query("SELECT pv.product_id, COALESCE(SUM(il.quantity_available), 0) FROM product_variants pv "
+                + "JOIN products p ON p.id = pv.product_id "
+                + "JOIN inventory_items ii ON ii.product_variant_id = pv.id AND ii.store_id = p.store_id "
+                + "JOIN inventory_levels il ON il.inventory_item_id = ii.id "
+                + "WHERE " + where + " GROUP BY pv.product_id", rs -> {
+            stock.put(rs.getLong(1), rs.getInt(2));
+        }, args);
+        return stock;
+    }
+
+    private static BigDecimal zeroIfNull(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    // --- rule semantics, shared by the bitmap and the single-product paths ---
+
+    private static String field(CollectionRule rule) {
+        return rule.getField() != null ? rule.getField().trim().toLowerCase() : "";
+    }
+
+    private static String op(CollectionRule rule) {
+        return rule.getOperator() != null ? rule.getOperator().trim().toLowerCase() : "equals";
+    }
+
+    /** Same as the SQL string condition; a blank rule value never matches. */
+    private static boolean stringMatches(String op, String actual, String value) {
+        if (value == null || value.isBlank()) return false;
+        String v = value.trim();
+        String a = actual != null ? actual : "";
+        switch (op) {
+            case "not_equals":
+                return !a.equals(v);
+            case "contains":
+                return a.toLowerCase(Locale.ROOT).contains(v.toLowerCase(Locale.ROOT));
+            case "starts_with":
+                return a.toLowerCase(Locale.ROOT).startsWith(v.toLowerCase(Locale.ROOT));
+            case "ends_with":
+                return a.toLowerCase(Locale.ROOT).endsWith(v.toLowerCase(Locale.ROOT));
+            default:
+                return a.equalsIgnoreCase(v);
+        }
+    }
+
+    /** compareTo, not equals: NUMERIC 10 and 10.00 are the same value. */
+    private static boolean numericMatches(String op, BigDecimal actual, BigDecimal value) {
+        int cmp = actual.compareTo(value);
+        switch (op) {
+            case "not_equals": return cmp != 0;
+            case "greater_than": return cmp > 0;
+            case "less_than": return cmp < 0;
+            default: return cmp == 0;
+        }
+    }
+
+    /** Rule value as the SQL path binds it (CollectionRuleCompiler#parseDecimal, truncated for stock). */
+    private static BigDecimal parseNumber(String value, boolean integer) {
+        if (value == null || value.isBlank()) return BigDecimal.ZERO;
+        try {
+            BigDecimal parsed = new BigDecimal(value.trim());
+            return integer ? BigDecimal.valueOf(parsed.intValue()) : parsed;
+        } catch (NumberFormatException e) {
+            return BigDecimal.ZERO;
+        }
+    }
+
+    private static class VariantDoc {
+        private final String title;
+        private final BigDecimal price;
+        private final BigDecimal compareAt;
+        private final BigDecimal weight;
+
+        VariantDoc(String title, BigDecimal price, BigDecimal compareAt, BigDecimal weight) {
+            this.title = title;
+            this.price = price;
+            this.compareAt = compareAt;
+            this.weight = weight;
+        }
+
+        BigDecimal get(String field) {
+            switch (field) {
+                case "price": return price;
+                case "compare_at_price": return compareAt;
+                default: return weight;
+            }
+        }
+    }
+
+    private static class Doc {
+        private final String title;
+        private final String vendor;
+        private final String productType;
+        private final List<String> tags = new ArrayList<>();
+        private final List<VariantDoc> variants = new ArrayList<>();
+        /** Summed available stock; null when the product has no inventory levels. */
+        private Integer stock;
+
+        Doc(String title, String vendor, String productType) {
+            this.title = nullToEmpty(title);
+            this.vendor = nullToEmpty(vendor);
+            this.productType = nullToEmpty(productType);
+        }
+    }
+
+    /** Values of one numeric attribute sorted ascending, with the ordinal each value belongs to. */
+    private static class SortedColumn {
+        private final BigDecimal[] values;
+        private final int[] ordinals;
+
+        SortedColumn(List<ColumnEntry> entries) {
+            entries.sort((a, b) -> a.value.compareTo(b.value));
+            values = new BigDecimal[entries.size()];
+            ordinals = new int[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                values[i] = entries.get(i).value;
+                ordinals[i] = entries.get(i).ordinal;
+            }
+        }
+
+        BitSet select(String op, BigDecimal value) {
+            int lo = lowerBound(value);
+            int hi = upperBound(value);
+            BitSet bits = new BitSet();
+            switch (op) {
+                case "greater_than" -> set(bits, hi, values.length);
+                case "less_than" -> set(bits, 0, lo);
+                case "not_equals" -> {
+                    set(bits, 0, lo);
+                    set(bits, hi, values.length);
+                }
+                default -> set(bits, lo, hi);
+            }
+            return bits;
+        }
+
+        private void set(BitSet bits, int from, int to) {
+            for (int i = from; i < to; i++) bits.set(ordinals[i]);
+        }
+
+        private int lowerBound(BigDecimal value) {
+            int lo = 0, hi = values.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid].compareTo(value) < 0) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+
+        private int upperBound(BigDecimal value) {
+            int lo = 0, hi = values.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid].compareTo(value) <= 0) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    private static class ColumnEntry {
+        private final BigDecimal value;
+        private final int ordinal;
+
+        ColumnEntry(BigDecimal value, int ordinal) {
+            this.value = value;
+            this.ordinal = ordinal;
+        }
+    }
+
+    /** Cache entry for a store: cheap to create, so the index itself is built under the slot's monitor. */
+    private static class Slot {
+        private volatile StoreRules index;
+    }
+
+    /**
+     * One store's index and the catalog versions it reflects. Bitmaps are updated in place when products are
+     * reloaded; the sorted numeric columns are rebuilt lazily (one sort per column) the next time rules are evaluated
+     * after a change. Versions and the stale flag change under the slot's monitor.
+     */
+    private static class StoreRules {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final List<Long> productIds = new ArrayList<>();
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private final List<Doc> docs = new ArrayList<>();
+        private final BitSet live = new BitSet();
+        private final Map<String, BitSet> vendors = new HashMap<>();
+        private final Map<String, BitSet> productTypes = new HashMap<>();
+        private final Map<String, BitSet> tags = new HashMap<>();
+        private final Map<String, SortedColumn> columns = new HashMap<>();
+        private volatile long productsVersion;
+        private volatile long version;
+        /** A store-wide stock change was not applied; the sums are re-read on the next sync. */
+        private volatile boolean stockStale;
+        private volatile boolean columnsStale = true;
+        private int dead;
+
+        StoreRules(long productsVersion, long version) {
+            this.productsVersion = productsVersion;
+            this.version = version;
+        }
+
+        boolean put(Long productId, Doc doc) {
+            Integer ordinal = ordinals.get(productId);
+            if (ordinal == null) {
+                if (!productIds.isEmpty() && productId < productIds.get(productIds.size() - 1)) return false;
+                ordinal = productIds.size();
+                productIds.add(productId);
+                docs.add(null);
+                ordinals.put(productId, ordinal);
+            } else if (docs.get(ordinal) != null) {
+                clear(ordinal, docs.get(ordinal));
+            } else {
+                dead--;
+            }
+            int ord = ordinal;
+            docs.set(ord, doc);
+            live.set(ord);
+            vendors.computeIfAbsent(doc.vendor, k -> new BitSet()).set(ord);
+            productTypes.computeIfAbsent(doc.productType, k -> new BitSet()).set(ord);
+            for (String tag : doc.tags) tags.computeIfAbsent(tag, k -> new BitSet()).set(ord);
+            columnsStale = true;
+            return true;
+        }
+
+        boolean remove(Long productId) {
+            Integer ordinal = ordinals.get(productId);
+            if (ordinal == null || docs.get(ordinal) == null) return true;
+            clear(ordinal, docs.get(ordinal));
+            docs.set(ordinal, null);
+            live.clear(ordinal);
+            dead++;
+            columnsStale = true;
+            return dead < 1000 || dead < productIds.size() / 2;
+        }
+
+        private void clear(int ordinal, Doc doc) {
+            clear(vendors, doc.vendor, ordinal);
+            clear(productTypes, doc.productType, ordinal);
+            for (String tag : doc.tags) clear(tags, tag, ordinal);
+        }
+
+        private static void clear(Map<String, BitSet> bitmaps, String key, int ordinal) {
+            BitSet bits = bitmaps.get(key);
+            if (bits == null) return;
+            bits.clear(ordinal);
+            if (bits.isEmpty()) bitmaps.remove(key);
+        }
+
+        void setStock(Map<Long, Integer> stock) {
+            for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1)) {
+                docs.get(i).stock = stock.get(productIds.get(i));
+            }
+            columnsStale = true;
+        }
+
+        void setStock(Long productId, Integer stock) {
+            Integer ordinal = ordinals.get(productId);
+            if (ordinal == null || !live.get(ordinal)) return;
+            docs.get(ordinal).stock = stock;
+            columnsStale = true;
+        }
+
+        void rebuildColumns() {
+            Map<String, List<ColumnEntry>> entries = new HashMap<>();
+            for (String f : List.of("price", "compare_at_price", "weight", "inventory_stock")) entries.put(f, new ArrayList<>());
+            for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1)) {
+                Doc doc = docs.get(i);
+                for (VariantDoc v : doc.variants) {
+                    entries.get("price").add(new ColumnEntry(v.price, i));
+                    entries.get("compare_at_price").add(new ColumnEntry(v.compareAt, i));
+                    entries.get("weight").add(new ColumnEntry(v.weight, i));
+                }
+                if (doc.stock != null) entries.get("inventory_stock").add(new ColumnEntry(BigDecimal.valueOf(doc.stock), i));
+            }
+            entries.forEach((f, e) -> columns.put(f, new SortedColumn(e)));
+            columnsStale = false;
+        }
+
+        BitSet evaluate(Collection collection) {
+            if (collection.getRules() == null || collection.getRules().isEmpty()) return new BitSet();
+            boolean any = "any".equalsIgnoreCase(collection.getConditionsOperator());
+            BitSet result = any ? new BitSet() : (BitSet) live.clone();
+            for (CollectionRule rule : collection.getRules()) {
+                BitSet bits = evaluate(rule);
+                if (any) result.or(bits); else result.and(bits);
+            }
+            result.and(live);
+            return result;
+        }
+
+        private BitSet evaluate(CollectionRule rule) {
+            String field = field(rule);
+            String op = op(rule);
+            String value = rule.getValue();
+            BitSet bits = new BitSet();
+            switch (field) {
+                case "vendor" -> orMatching(bits, vendors, op, value);
+                case "product_type" -> orMatching(bits, productTypes, op, value);
+                case "tag" -> orMatching(bits, tags, op, value);
+                case "title" -> {
+                    for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1)) {
+                        if (stringMatches(op, docs.get(i).title, value)) bits.set(i);
+                    }
+                }
+                case "variant_title" -> {
+                    for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1)) {
+                        for (VariantDoc v : docs.get(i).variants) {
+                            if (stringMatches(op, v.title, value)) {
+                                bits.set(i);
+                                break;
+                            }
+                        }
+                    }
+                }
+                case "price", "compare_at_price", "weight" -> bits = columns.get(field).select(op, parseNumber(value, false));
+                case "inventory_stock" -> bits = columns.get(field).select(op, parseNumber(value, true));
+                default -> { }
+            }
+            return bits;
+        }
+
+        /** Distinct values are few, so each is compared once and its whole bitmap ORed in. */
+        private static void orMatching(BitSet bits, Map<String, BitSet> bitmaps, String op, String value) {
+            bitmaps.forEach((key, ordinals) -> {
+                if (stringMatches(op, key, value)) bits.or(ordinals);
+            });
+        }
+
+        boolean test(Collection collection, int ordinal) {
+            if (collection.getRules() == null || collection.getRules().isEmpty()) return false;
+            boolean any = "any".equalsIgnoreCase(collection.getConditionsOperator());
+            Doc doc = docs.get(ordinal);
+            for (CollectionRule rule : collection.getRules()) {
+                boolean match = test(rule, doc);
+                if (any && match) return true;
+                if (!any && !match) return false;
+            }
+            return !any;
+        }
+
+        private static boolean test(CollectionRule rule, Doc doc) {
+            String field = field(rule);
+            String op = op(rule);
+            String value = rule.getValue();
+            switch (field) {
+                case "vendor": return stringMatches(op, doc.vendor, value);
+                case "product_type": return stringMatches(op, doc.productType, value);
+                case "title": return stringMatches(op, doc.title, value);
+                case "tag": return doc.tags.stream().anyMatch(t -> stringMatches(op, t, value));
+                case "variant_title": return doc.variants.stream().anyMatch(v -> stringMatches(op, v.title, value));
+                case "price":
+                case "compare_at_price":
+                case "weight":
+                    BigDecimal number = parseNumber(value, false);
+                    return doc.variants.stream().anyMatch(v -> numericMatches(op, v.get(field), number));
+                case "inventory_stock":
+                    return doc.stock != null && numericMatches(op, BigDecimal.valueOf(doc.stock), parseNumber(value, true));
+                default:
+                    return false;
+            }
+        }
+    }
+}
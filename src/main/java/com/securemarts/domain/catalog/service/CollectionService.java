@@ -7,32 +7,41 @@ import com.securemarts.domain.catalog.entity.Collection;
 import com.securemarts.domain.catalog.entity.CollectionProduct;
 import com.securemarts.domain.catalog.entity.CollectionRule;
 import com.securemarts.domain.catalog.entity.Product;
+import com.securemarts.domain.catalog.event.CatalogChangedEvent;
 import com.securemarts.domain.catalog.repository.CollectionProductRepository;
 import com.securemarts.domain.catalog.repository.CollectionRepository;
 import com.securemarts.domain.catalog.repository.CollectionRuleRepository;
 import com.securemarts.domain.catalog.repository.ProductRepository;
 import com.securemarts.domain.onboarding.repository.StoreRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class CollectionService {
 
+    /** Upper bound for preview products per collection in listings. */
+    public static final int MAX_PREVIEW_SIZE = 20;
+
     private final CollectionRepository collectionRepository;
     private final CollectionRuleRepository collectionRuleRepository;
     private final CollectionProductRepository collectionProductRepository;
     private final ProductRepository productRepository;
     private final StoreRepository storeRepository;
     private final CollectionRuleEvaluator collectionRuleEvaluator;
+    private final ProductGraphLoader productGraphLoader;
+    private final CollectionMembershipWriter collectionMembershipWriter;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Long resolveStoreId(String storePublicId) {
         return storeRepository.findByPublicId(storePublicId)
@@ -46,20 +55,20 @@ public class CollectionService {
                 .orElseThrow(() -> new ResourceNotFoundException("Store", storePublicId));
     }
 
+    /**
+     * All collections of the store, with rules fetched in the same query, product counts from one grouped query and,
+     * when previewSize is positive, the first previewSize products of every collection from one windowed query.
+     */
     @Transactional(readOnly = true)
-    public List<CollectionResponse> listByStore(Long storeId) {
-        List<Collection> list = collectionRepository.findByStoreId(storeId);
-        return list.stream()
-                .map(c -> CollectionResponse.from(c, collectionProductRepository.countByCollectionId(c.getId())))
-                .collect(Collectors.toList());
+    public List<CollectionResponse> listByStore(Long storeId, int previewSize) {
+        return toResponses(collectionRepository.findByStoreIdWithRules(storeId), Math.min(Math.max(previewSize, 0), MAX_PREVIEW_SIZE));
     }
 
     @Transactional(readOnly = true)
     public CollectionResponse get(Long storeId, String collectionPublicId) {
         Collection c = collectionRepository.findByPublicIdAndStoreId(collectionPublicId, storeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Collection", collectionPublicId));
-        Long productCount = collectionProductRepository.countByCollectionId(c.getId());
-        return CollectionResponse.from(c, productCount);
+        return toResponse(c);
     }
 
     @Transactional
@@ -90,9 +99,10 @@ public class CollectionService {
             c = collectionRepository.save(c);
             recomputeSmartCollection(c);
         } else if (c.getCollectionType() == Collection.CollectionType.MANUAL && request.getProductIds() != null && !request.getProductIds().isEmpty()) {
-            addProductsToCollection(c, storeId, request.getProductIds(), 0);
+            addProductsToCollection(c, storeId, request.getProductIds(), null);
+            eventPublisher.publishEvent(new CatalogChangedEvent(this, storeId, null, true));
         }
-        return CollectionResponse.from(c, collectionProductRepository.countByCollectionId(c.getId()));
+        return toResponse(c);
     }
 
     @Transactional
@@ -114,30 +124,74 @@ public class CollectionService {
         } else if (c.getCollectionType() == Collection.CollectionType.MANUAL && request.getProductIds() != null) {
             collectionProductRepository.deleteByCollectionId(c.getId());
             if (!request.getProductIds().isEmpty()) {
-                addProductsToCollection(c, storeId, request.getProductIds(), 0);
+                addProductsToCollection(c, storeId, request.getProductIds(), null);
             }
+            eventPublisher.publishEvent(new CatalogChangedEvent(this, storeId, null, true));
         }
         c = collectionRepository.save(c);
-        return CollectionResponse.from(c, collectionProductRepository.countByCollectionId(c.getId()));
+        return toResponse(c);
     }
 
     @Transactional(readOnly = true)
     public Page<CollectionProductItemResponse> listCollectionProducts(Long storeId, String collectionPublicId, Pageable pageable) {
         Collection c = collectionRepository.findByPublicIdAndStoreId(collectionPublicId, storeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Collection", collectionPublicId));
-        return collectionProductRepository.findByCollectionIdOrderByPositionAscProductIdAsc(c.getId(), pageable)
-                .map(CollectionProductItemResponse::from);
+        Page<CollectionProduct> page = collectionProductRepository.findByCollectionIdOrderByPositionAscProductIdAsc(c.getId(), pageable);
+        List<ProductResponse> products = productGraphLoader.load(page.getContent().stream().map(CollectionProduct::getProduct).toList());
+        int offset = page.getPageable().isPaged() ? (int) page.getPageable().getOffset() : 0;
+        List<CollectionProductItemResponse> items = new ArrayList<>(products.size());
+        for (int i = 0; i < products.size(); i++) {
+            items.add(CollectionProductItemResponse.from(page.getContent().get(i), products.get(i), offset + i));
+        }
+        return new PageImpl<>(items, page.getPageable(), page.getTotalElements());
     }
 
     @Transactional
     public void addProducts(Long storeId, String collectionPublicId, AddCollectionProductsRequest request) {
+        Collection c = manualCollection(storeId, collectionPublicId, "Cannot add products to a smart collection; update rules instead.");
+        addProductsToCollection(c, storeId, request.getProductIds(), request.getPosition());
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, storeId, null, true));
+    }
+
+    /**
+     * Adds up to thousands of products to a manual collection: public IDs are resolved in chunked IN queries and
+     * rows are written by {@link CollectionMembershipWriter}. Unknown IDs are reported rather than failing the call.
+     */
+    @Transactional
+    public BulkCollectionProductsResponse addProductsBulk(Long storeId, String collectionPublicId, BulkCollectionProductsRequest request) {
+        Collection c = manualCollection(storeId, collectionPublicId, "Cannot add products to a smart collection; update rules instead.");
+        BulkCollectionProductsResponse response = new BulkCollectionProductsResponse();
+        List<Long> productIds = resolveProductIds(storeId, request.getProductIds(), response);
+        int added = productIds.isEmpty() ? 0 : collectionMembershipWriter.add(c.getId(), productIds, request.getPosition());
+        response.setChanged(added);
+        response.setUnchanged(productIds.size() - added);
+        if (added > 0) eventPublisher.publishEvent(new CatalogChangedEvent(this, storeId, null, true));
+        return response;
+    }
+
+    @Transactional
+    public BulkCollectionProductsResponse removeProductsBulk(Long storeId, String collectionPublicId, BulkCollectionProductsRequest request) {
+        Collection c = manualCollection(storeId, collectionPublicId, "Cannot remove products from a smart collection; update rules instead.");
+        BulkCollectionProductsResponse response = new BulkCollectionProductsResponse();
+        List<Long> productIds = resolveProductIds(storeId, request.getProductIds(), response);
+        int removed = productIds.isEmpty() ? 0 : collectionMembershipWriter.remove(c.getId(), productIds);
+        response.setChanged(removed);
+        response.setUnchanged(productIds.size() - removed);
+        if (removed > 0) eventPublisher.publishEvent(new CatalogChangedEvent(this, storeId, null, true));
+        return response;
+    }
+
+    /** Moves a product to a 0-based index in the collection's order; works for manual and smart collections. */
+    @Transactional
+    public void moveProduct(Long storeId, String collectionPublicId, String productPublicId, int position) {
         Collection c = collectionRepository.findByPublicIdAndStoreId(collectionPublicId, storeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Collection", collectionPublicId));
-        if (c.getCollectionType() == Collection.CollectionType.SMART) {
-            throw new BusinessRuleException("Cannot add products to a smart collection; update rules instead.");
+        Product product = productRepository.findByPublicIdAndStoreId(productPublicId, storeId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", productPublicId));
+        if (!collectionMembershipWriter.move(c.getId(), product.getId(), position)) {
+            throw new ResourceNotFoundException("Collection product", productPublicId);
         }
-        int startPosition = request.getPosition() != null ? request.getPosition() : (int) collectionProductRepository.countByCollectionId(c.getId());
-        addProductsToCollection(c, storeId, request.getProductIds(), startPosition);
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, storeId, null, true));
     }
 
     @Transactional
@@ -146,7 +200,7 @@ public class CollectionService {
                 .orElseThrow(() -> new ResourceNotFoundException("Collection", collectionPublicId));
         c.setImageUrl(imageUrl);
         c = collectionRepository.save(c);
-        return CollectionResponse.from(c, collectionProductRepository.countByCollectionId(c.getId()));
+        return toResponse(c);
     }
 
     @Transactional
@@ -160,30 +214,51 @@ public class CollectionService {
                 .orElseThrow(() -> new ResourceNotFoundException("Product", productPublicId));
         collectionProductRepository.findByCollectionIdAndProductId(c.getId(), product.getId())
                 .ifPresent(collectionProductRepository::delete);
+        eventPublisher.publishEvent(new CatalogChangedEvent(this, storeId, productPublicId, true));
     }
 
     /**
-     * Recomputes membership for a smart collection from its rules and writes to collection_products.
+     * Recomputes membership for a smart collection from its rules and applies only the difference to
+     * collection_products; existing members keep their rows and positions.
      */
     @Transactional
     public void recomputeSmartCollection(Collection collection) {
         if (collection.getCollectionType() != Collection.CollectionType.SMART) return;
-        collectionProductRepository.deleteByCollectionId(collection.getId());
-        List<Long> productIds = collectionRuleEvaluator.evaluate(collection, collection.getStoreId());
-        if (productIds.isEmpty()) return;
-        List<CollectionProduct> toSave = new ArrayList<>();
-        for (int i = 0; i < productIds.size(); i++) {
-            Long productId = productIds.get(i);
-            CollectionProduct cp = new CollectionProduct();
-            cp.setCollectionId(collection.getId());
-            cp.setProductId(productId);
-            cp.setCollection(collection);
-            cp.setProduct(productRepository.getReferenceById(productId));
-            cp.setPosition(i);
-            cp.setCreatedAt(Instant.now());
-            toSave.add(cp);
-        }
-        collectionProductRepository.saveAll(toSave);
+        CollectionRuleEvaluator.MembershipDelta delta = collectionRuleEvaluator.syncMembership(collection, collection.getStoreId());
+        if (!delta.isEmpty()) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(this, collection.getStoreId(), null, true));
+        }
+    }
+
+    private CollectionResponse toResponse(Collection collection) {
+        return toResponses(List.of(collection), 0).get(0);
+    }
+
+    private List<CollectionResponse> toResponses(List<Collection> collections, int previewSize) {
+        if (collections.isEmpty()) return List.of();
+        List<Long> ids = collections.stream().map(Collection::getId).toList();
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : collectionProductRepository.countByCollectionIdIn(ids)) {
+            counts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        Map<Long, List<CollectionProductItemResponse>> previews = new HashMap<>();
+        if (previewSize > 0) {
+            for (Object[] row : collectionProductRepository.findPreviewsByCollectionIdIn(ids, previewSize)) {
+                CollectionProductItemResponse item = new CollectionProductItemResponse();
+                item.setProductPublicId((String) row[1]);
+                item.setTitle((String) row[2]);
+                item.setHandle((String) row[3]);
+                item.setPosition(((Number) row[4]).intValue());
+                previews.computeIfAbsent(((Number) row[0]).longValue(), k -> new ArrayList<>()).add(item);
+            }
+        }
+        List<CollectionResponse> responses = new ArrayList<>(collections.size());
+        for (Collection c : collections) {
+            CollectionResponse r = CollectionResponse.from(c, counts.getOrDefault(c.getId(), 0L));
+            if (previewSize > 0) r.setPreviewProducts(previews.getOrDefault(c.getId(), List.of()));
+            responses.add(r);
+        }
+        return responses;
     }
 
     private void syncRules(Collection collection, List<CollectionRuleRequest> ruleRequests) {
@@ -204,24 +279,44 @@ public class CollectionService {
         }
     }
 
-    private void addProductsToCollection(Collection collection, Long storeId, List<String> productPublicIds, int startPosition) {
+    private void addProductsToCollection(Collection collection, Long storeId, List<String> productPublicIds, Integer position) {
         if (productPublicIds == null) return;
-        int[] index = { startPosition };
-        for (String publicId : productPublicIds) {
-            if (publicId == null || publicId.isBlank()) continue;
-            final int pos = index[0];
-            productRepository.findByPublicIdAndStoreId(publicId.trim(), storeId).ifPresent(product -> {
-                if (collectionProductRepository.existsByCollectionIdAndProductId(collection.getId(), product.getId())) return;
-                CollectionProduct cp = new CollectionProduct();
-                cp.setCollectionId(collection.getId());
-                cp.setProductId(product.getId());
-                cp.setCollection(collection);
-                cp.setProduct(product);
-                cp.setPosition(pos);
-                cp.setCreatedAt(Instant.now());
-                collectionProductRepository.save(cp);
-            });
-            index[0]++;
+        List<Long> productIds = resolveProductIds(storeId, productPublicIds, new BulkCollectionProductsResponse());
+        if (!productIds.isEmpty()) collectionMembershipWriter.add(collection.getId(), productIds, position);
+    }
+
+    private Collection manualCollection(Long storeId, String collectionPublicId, String smartMessage) {
+        Collection c = collectionRepository.findByPublicIdAndStoreId(collectionPublicId, storeId)
+                .orElseThrow(() -> new ResourceNotFoundException("Collection", collectionPublicId));
+        if (c.getCollectionType() == Collection.CollectionType.SMART) {
+            throw new BusinessRuleException(smartMessage);
+        }
+        return c;
+    }
+
+    /**
+     * Maps public IDs to product ids in request order, dropping blanks and duplicates; fills in the requested count
+     * and the IDs not found in the store.
+     */
+    private List<Long> resolveProductIds(Long storeId, List<String> productPublicIds, BulkCollectionProductsResponse response) {
+        List<String> publicIds = productPublicIds.stream()
+                .filter(id -> id != null && !id.isBlank())
+                .map(String::trim)
+                .distinct()
+                .toList();
+        response.setRequested(publicIds.size());
+        Map<String, Long> ids = new HashMap<>();
+        for (int from = 0; from < publicIds.size(); from += CollectionMembershipWriter.CHUNK_SIZE) {
+            List<String> chunk = publicIds.subList(from, Math.min(from + CollectionMembershipWriter.CHUNK_SIZE, publicIds.size()));
+            for (Object[] row : productRepository.findIdsByStoreIdAndPublicIdIn(storeId, chunk)) {
+                ids.put((String) row[0], ((Number) row[1]).longValue());
+            }
+        }
+        List<Long> resolved = new ArrayList<>(ids.size());
+        for (String publicId : publicIds) {
+            Long id = ids.get(publicId);
+            if (id != null) resolved.add(id); else response.getNotFound().add(publicId);
         }
+        return resolved;
     }
 }
@@ -20,4 +20,10 @@ public interface FileStorageService {
     String storePod(String deliveryOrderPublicId, MultipartFile file) throws IOException;
 
     String storeCollectionImage(String storePublicId, MultipartFile file) throws IOException;
+
+    /** Stores a generated image derivative (see {@link ImageDerivativeService}) next to product media. */
+    String storeImageDerivative(String storePublicId, String fileName, byte[] data, String contentType) throws IOException;
+
+    /** Deletes an object previously returned by one of the store methods; unknown URLs are ignored. */
+    void delete(String url);
 }
@@ -0,0 +1,267 @@
+package com.securemarts.domain.catalog.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Renders the sized copies of an uploaded product image that storefront and discovery clients actually download.
+ * Each size is scaled down (never up) from the next larger one, re-encoded as progressive JPEG and written without
+ * the source metadata, so EXIF, GPS tags and embedded thumbnails never reach the CDN. The EXIF orientation is
+ * applied first so phone photos are not served sideways.
+ * <p>
+ * Decoding is CPU and memory heavy, so it runs on its own small pool, separate from the I/O-bound upload pool.
+ * Files that are not decodable images (or are larger than {@link #MAX_PIXELS}) simply get no derivatives and are
+ * served from the original.
+ */
+@Service
+@Slf4j
+public class ImageDerivativeService {
+
+    /** Longest edge in pixels for each derivative. */
+    @Getter
+    @RequiredArgsConstructor
+    public enum Size {
+        LARGE("large", 1200),
+        MEDIUM("medium", 600),
+        THUMBNAIL("thumb", 200);
+
+        private final String suffix;
+        private final int maxEdge;
+    }
+
+    public static final String CONTENT_TYPE = "image/jpeg";
+    private static final long MAX_PIXELS = 40_000_000L;
+    private static final float JPEG_QUALITY = 0.8f;
+
+    private final ThreadPoolTaskExecutor processingExecutor;
+
+    public ImageDerivativeService(@Value("${app.storage.images.threads:2}") int threads,
+                                  @Value("${app.storage.images.queue-capacity:32}") int queueCapacity) {
+        this.processingExecutor = new ThreadPoolTaskExecutor();
+        processingExecutor.setCorePoolSize(threads);
+        processingExecutor.setMaxPoolSize(threads);
+        processingExecutor.setQueueCapacity(queueCapacity);
+        processingExecutor.setThreadNamePrefix("image-derivatives-");
+        processingExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        processingExecutor.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        processingExecutor.shutdown();
+    }
+
+    /** Encoded derivatives by size; empty when the file is not an image this service can decode. */
+    public CompletableFuture<Map<Size, byte[]>> render(MultipartFile file) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return renderNow(file.getBytes());
+            } catch (IOException | RuntimeException e) {
+                log.debug("No derivatives for {}: {}", file.getOriginalFilename(), e.getMessage());
+                return Collections.emptyMap();
+            }
+        }, processingExecutor);
+    }
+
+    /** Derivative object name: original base name plus the size suffix, always .jpg. */
+    public static String derivativeFileName(String originalFilename, Size size) {
+        String name = originalFilename != null && !originalFilename.isBlank() ? originalFilename : "image";
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) name = name.substring(0, dot);
+        return name + "_" + size.getSuffix() + ".jpg";
+    }
+
+    private Map<Size, byte[]> renderNow(byte[] data) throws IOException {
+        BufferedImage source = decode(data);
+        if (source == null) return Collections.emptyMap();
+        BufferedImage current = orient(toRgb(source), exifOrientation(data));
+        Map<Size, byte[]> out = new EnumMap<>(Size.class);
+        for (Size size : Size.values()) {
+            current = scaleDown(current, size.getMaxEdge());
+            out.put(size, encodeJpeg(current));
+        }
+        return out;
+    }
+
+    private static BufferedImage decode(byte[] data) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            if (in == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_PIXELS) return null;
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /** Opaque RGB copy; transparent areas are flattened onto white since JPEG has no alpha. */
+    private static BufferedImage toRgb(BufferedImage src) {
+        if (src.getType() == BufferedImage.TYPE_INT_RGB) return src;
+        BufferedImage rgb = new BufferedImage(src.getWidth(), src.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, src.getWidth(), src.getHeight());
+            g.drawImage(src, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+
+    /** Halves repeatedly, then one bilinear step to the exact size; cheap and avoids the aliasing of a single big step. */
+    private static BufferedImage scaleDown(BufferedImage src, int maxEdge) {
+        int w = src.getWidth();
+        int h = src.getHeight();
+        double ratio = Math.min(1.0, (double) maxEdge / Math.max(w, h));
+        int targetW = Math.max(1, (int) Math.round(w * ratio));
+        int targetH = Math.max(1, (int) Math.round(h * ratio));
+        BufferedImage current = src;
+        while (current.getWidth() / 2 >= targetW && current.getHeight() / 2 >= targetH) {
+            current = resize(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        if (current.getWidth() != targetW || current.getHeight() != targetH) {
+            current = resize(current, targetW, targetH);
+        }
+        return current;
+    }
+
+    private static BufferedImage resize(BufferedImage src, int w, int h) {
+        BufferedImage dst = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = dst.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(src, 0, 0, w, h, null);
+        } finally {
+            g.dispose();
+        }
+        return dst;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Rotations for EXIF orientations 3, 6 and 8; mirrored orientations are rare and left as they are. */
+    private static BufferedImage orient(BufferedImage src, int orientation) {
+        int w = src.getWidth();
+        int h = src.getHeight();
+        AffineTransform t = new AffineTransform();
+        BufferedImage dst;
+        switch (orientation) {
+            case 3 -> {
+                t.translate(w, h);
+                t.rotate(Math.PI);
+                dst = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            }
+            case 6 -> {
+                t.translate(h, 0);
+                t.rotate(Math.PI / 2);
+                dst = new BufferedImage(h, w, BufferedImage.TYPE_INT_RGB);
+            }
+            case 8 -> {
+                t.translate(0, w);
+                t.rotate(-Math.PI / 2);
+                dst = new BufferedImage(h, w, BufferedImage.TYPE_INT_RGB);
+            }
+            default -> {
+                return src;
+            }
+        }
+        Graphics2D g = dst.createGraphics();
+        try {
+            g.drawImage(src, t, null);
+        } finally {
+            g.dispose();
+        }
+        return dst;
+    }
+
+    /** EXIF orientation tag (0x0112) from a JPEG's APP1 segment; 1 when absent or not a JPEG. */
+    static int exifOrientation(byte[] d) {
+        if (d.length < 4 || (d[0] & 0xFF) != 0xFF || (d[1] & 0xFF) != 0xD8) return 1;
+        int pos = 2;
+        while (pos + 4 <= d.length && (d[pos] & 0xFF) == 0xFF) {
+            int marker = d[pos + 1] & 0xFF;
+            int length = ((d[pos + 2] & 0xFF) << 8) | (d[pos + 3] & 0xFF);
+            if (marker == 0xDA || length < 2) break;
+            int seg = pos + 4;
+            if (marker == 0xE1 && seg + 14 <= d.length
+                    && d[seg] == 'E' && d[seg + 1] == 'x' && d[seg + 2] == 'i' && d[seg + 3] == 'f') {
+                int tiff = seg + 6;
+                boolean little = d[tiff] == 'I';
+                int ifd = tiff + readInt(d, tiff + 4, little);
+                if (ifd < tiff || ifd + 2 > d.length) return 1;
+                int entries = readShort(d, ifd, little);
+                for (int i = 0; i < entries; i++) {
+                    int entry = ifd + 2 + i * 12;
+                    if (entry + 12 > d.length) return 1;
+                    if (readShort(d, entry, little) == 0x0112) {
+                        return readShort(d, entry + 8, little);
+                    }
+                }
+                return 1;
+            }
+            pos += 2 + length;
+        }
+        return 1;
+    }
+
+    private static int readShort(byte[] d, int i, boolean little) {
+        return little
+                ? (d[i] & 0xFF) | ((d[i + 1] & 0xFF) << 8)
+                : ((d[i] & 0xFF) << 8) | (d[i + 1] & 0xFF);
+    }
+
+    private static int readInt(byte[] d, int i, boolean little) {
+        return little
+                ? (d[i] & 0xFF) | ((d[i + 1] & 0xFF) << 8) | ((d[i + 2] & 0xFF) << 16) | ((d[i + 3] & 0xFF) << 24)
+                : ((d[i] & 0xFF) << 24) | ((d[i + 1] & 0xFF) << 16) | ((d[i + 2] & 0xFF) << 8) | (d[i + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,107 @@
+package com.securemarts.domain.catalog.service;
+
+import com.securemarts.config.LocalStorageConfiguredCondition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Filesystem implementation for tests and local development: enabled when Spaces is not configured and
+ * app.storage.local.base-dir is set. Takes precedence over the no-op backend; files are served by
+ * {@link com.securemarts.config.LocalStorageWebConfig}.
+ */
+@Service
+@Primary
+@ConditionalOnMissingBean(S3Client.class)
+@Conditional(LocalStorageConfiguredCondition.class)
+@Slf4j
+public class LocalFileStorageService implements FileStorageService {
+
+    private final Path baseDir;
+    private final String publicBaseUrl;
+
+    public LocalFileStorageService(@Value("${app.storage.local.base-dir}") String baseDir,
+                                   @Value("${app.storage.local.public-base-url:/api/v1/public/media/}") String publicBaseUrl) {
+        this.baseDir = Path.of(baseDir).toAbsolutePath().normalize();
+        this.publicBaseUrl = publicBaseUrl.endsWith("/") ? publicBaseUrl : publicBaseUrl + "/";
+    }
+
+    @Override
+    public String store(String storePublicId, MultipartFile file) throws IOException {
+        return write("products", storePublicId, file);
+    }
+
+    @Override
+    public String storeBusinessDocument(String businessPublicId, MultipartFile file) throws IOException {
+        return write("compliance", businessPublicId, file);
+    }
+
+    @Override
+    public String storeBusinessLogo(String businessPublicId, MultipartFile file) throws IOException {
+        return write("business-logos", businessPublicId, file);
+    }
+
+    @Override
+    public String storeRiderDocument(String riderPublicId, MultipartFile file) throws IOException {
+        return write("riders", riderPublicId, file);
+    }
+
+    @Override
+    public String storePod(String deliveryOrderPublicId, MultipartFile file) throws IOException {
+        return write("pod", deliveryOrderPublicId, file);
+    }
+
+    @Override
+    public String storeCollectionImage(String storePublicId, MultipartFile file) throws IOException {
+        return write("collections", storePublicId, file);
+    }
+
+    @Override
+    public String storeImageDerivative(String storePublicId, String fileName, byte[] data, String contentType) throws IOException {
+        String key = StorageKeys.build("products", storePublicId, fileName);
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Files.write(target, data);
+        return publicBaseUrl + key;
+    }
+
+    @Override
+    public void delete(String url) {
+        if (url == null || !url.startsWith(publicBaseUrl)) return;
+        try {
+            Files.deleteIfExists(resolve(url.substring(publicBaseUrl.length())));
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Could not delete local media {}: {}", url, e.getMessage());
+        }
+    }
+
+    private String write(String namespace, String entityId, MultipartFile file) throws IOException {
+        if (file == null || file.isEmpty()) return null;
+        String key = StorageKeys.build(namespace, entityId, file.getOriginalFilename());
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try (InputStream in = file.getInputStream()) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return publicBaseUrl + key;
+    }
+
+    private Path resolve(String key) {
+        Path target = baseDir.resolve(key).normalize();
+        if (!target.startsWith(baseDir)) {
+            throw new IllegalArgumentException("Invalid storage key");
+        }
+        return target;
+    }
+}
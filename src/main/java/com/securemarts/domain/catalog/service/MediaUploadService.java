@@ -0,0 +1,215 @@
+package com.securemarts.domain.catalog.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Product and variant media uploads. Files and their resized derivatives ({@link ImageDerivativeService}) are
+ * pushed to object storage concurrently on a bounded pool, before any database transaction is opened, so a batch of
+ * images costs roughly one upload's latency and never holds a pooled connection. Uploads are all-or-nothing: if one
+ * file fails, or the short transaction that attaches the URLs fails, the objects already written are deleted again.
+ * <p>
+ * The pool is private to this service (an Executor bean would displace the application task executor used by
+ * {@code @Async}); when it is saturated the request thread uploads the file itself, which throttles callers instead
+ * of queueing multipart data without bound.
+ */
+@Service
+@Slf4j
+public class MediaUploadService {
+
+    private final FileStorageService fileStorageService;
+    private final ImageDerivativeService imageDerivativeService;
+    private final ThreadPoolTaskExecutor uploadExecutor;
+    private final long timeoutSeconds;
+
+    public MediaUploadService(FileStorageService fileStorageService,
+                              ImageDerivativeService imageDerivativeService,
+                              @Value("${app.storage.upload.threads:8}") int threads,
+                              @Value("${app.storage.upload.queue-capacity:64}") int queueCapacity,
+                              @Value("${app.storage.upload.timeout-seconds:60}") long timeoutSeconds) {
+        this.fileStorageService = fileStorageService;
+        this.imageDerivativeService = imageDerivativeService;
+        this.timeoutSeconds = timeoutSeconds;
+        this.uploadExecutor = new ThreadPoolTaskExecutor();
+        uploadExecutor.setCorePoolSize(threads);
+        uploadExecutor.setMaxPoolSize(threads);
+        uploadExecutor.setQueueCapacity(queueCapacity);
+        uploadExecutor.setThreadNamePrefix("media-upload-");
+        uploadExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        uploadExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        uploadExecutor.setAwaitTerminationSeconds(30);
+        uploadExecutor.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        uploadExecutor.shutdown();
+    }
+
+    /**
+     * Uploads the non-empty files and their image derivatives in parallel and returns them in request order.
+     * Files the storage backend ignores (no storage configured) are left out.
+     */
+    public List<UploadedMedia> uploadAll(String storePublicId, List<MultipartFile> files) throws IOException {
+        UploadBatch batch = new UploadBatch();
+        List<CompletableFuture<UploadedMedia>> uploads = new ArrayList<>();
+        if (files != null) {
+            for (MultipartFile file : files) {
+                if (file == null || file.isEmpty()) continue;
+                uploads.add(upload(storePublicId, file, batch));
+            }
+        }
+        if (uploads.isEmpty()) return List.of();
+        try {
+            CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new)).get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            deleteQuietly(batch.fail());
+            throw new IOException("Media upload failed: " + rootMessage(e), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            deleteQuietly(batch.fail());
+            throw new IOException("Media upload interrupted", e);
+        }
+        List<UploadedMedia> uploaded = new ArrayList<>(uploads.size());
+        for (CompletableFuture<UploadedMedia> upload : uploads) {
+            UploadedMedia media = upload.join();
+            if (media != null) uploaded.add(media);
+        }
+        return uploaded;
+    }
+
+    /** Runs the attaching transaction; when it fails the uploaded objects are deleted so they do not leak. */
+    public <T> T attachOrDiscard(List<UploadedMedia> media, Supplier<T> attach) {
+        try {
+            return attach.get();
+        } catch (RuntimeException e) {
+            for (UploadedMedia m : media) {
+                deleteQuietly(m.allUrls());
+            }
+            throw e;
+        }
+    }
+
+    public void deleteQuietly(List<String> urls) {
+        for (String url : urls) {
+            try {
+                fileStorageService.delete(url);
+            } catch (RuntimeException e) {
+                log.warn("Could not delete orphaned media {}: {}", url, e.getMessage());
+            }
+        }
+    }
+
+    /** Original and derivatives of one file: the original upload runs while the image is being resized. */
+    private CompletableFuture<UploadedMedia> upload(String storePublicId, MultipartFile file, UploadBatch batch) {
+        CompletableFuture<String> original = CompletableFuture.supplyAsync(
+                () -> batch.track(storeOrThrow(() -> fileStorageService.store(storePublicId, file))), uploadExecutor);
+        CompletableFuture<Map<ImageDerivativeService.Size, String>> derived = imageDerivativeService.render(file)
+                .thenCompose(images -> uploadDerivatives(storePublicId, file.getOriginalFilename(), images, batch));
+        return original.thenCombine(derived, (url, sizes) -> url == null ? null : new UploadedMedia(url,
+                sizes.get(ImageDerivativeService.Size.THUMBNAIL),
+                sizes.get(ImageDerivativeService.Size.MEDIUM),
+                sizes.get(ImageDerivativeService.Size.LARGE)));
+    }
+
+    private CompletableFuture<Map<ImageDerivativeService.Size, String>> uploadDerivatives(
+            String storePublicId, String originalFilename, Map<ImageDerivativeService.Size, byte[]> images, UploadBatch batch) {
+        Map<ImageDerivativeService.Size, CompletableFuture<String>> pending = new EnumMap<>(ImageDerivativeService.Size.class);
+        images.forEach((size, bytes) -> pending.put(size, CompletableFuture.supplyAsync(() -> batch.track(storeOrThrow(
+                () -> fileStorageService.storeImageDerivative(storePublicId,
+                        ImageDerivativeService.derivativeFileName(originalFilename, size), bytes,
+                        ImageDerivativeService.CONTENT_TYPE))), uploadExecutor)));
+        return CompletableFuture.allOf(pending.values().toArray(CompletableFuture[]::new)).thenApply(done -> {
+            Map<ImageDerivativeService.Size, String> urls = new EnumMap<>(ImageDerivativeService.Size.class);
+            pending.forEach((size, upload) -> {
+                String url = upload.join();
+                if (url != null) urls.put(size, url);
+            });
+            return urls;
+        });
+    }
+
+    private static String storeOrThrow(StorageCall call) {
+        try {
+            return call.store();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface StorageCall {
+        String store() throws IOException;
+    }
+
+    /**
+     * URLs stored so far for one request. Once the request has failed, uploads that finish late are deleted as
+     * soon as they land instead of being recorded.
+     */
+    private class UploadBatch {
+        private final List<String> stored = new ArrayList<>();
+        private boolean failed;
+
+        String track(String url) {
+            if (url == null) return null;
+            boolean orphan;
+            synchronized (this) {
+                orphan = failed;
+                if (!orphan) stored.add(url);
+            }
+            if (orphan) deleteQuietly(List.of(url));
+            return url;
+        }
+
+        synchronized List<String> fail() {
+            failed = true;
+            return new ArrayList<>(stored);
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class UploadedMedia {
+        private final String url;
+        private final String thumbnailUrl;
+        private final String mediumUrl;
+        private final String largeUrl;
+
+        public List<String> allUrls() {
+            List<String> urls = new ArrayList<>(4);
+            for (String u : new String[]{url, thumbnailUrl, mediumUrl, largeUrl}) {
+                if (u != null) urls.add(u);
+            }
+            return urls;
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable t = e;
+        while ((t instanceof ExecutionException || t instanceof CompletionException || t instanceof UncheckedIOException)
+                && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t.getMessage() != null ? t.getMessage() : t.getClass().getSimpleName();
+    }
+}
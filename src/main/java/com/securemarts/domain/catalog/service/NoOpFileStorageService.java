@@ -53,4 +53,14 @@ public class NoOpFileStorageService implements FileStorageService {
         log.warn("Storage not configured; collection image upload ignored");
         return null;
     }
+
+    @Override
+    public String storeImageDerivative(String storePublicId, String fileName, byte[] data, String contentType) {
+        return null;
+    }
+
+    @Override
+    public void delete(String url) {
+        // nothing was stored
+    }
 }
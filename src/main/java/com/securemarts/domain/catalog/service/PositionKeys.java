@@ -0,0 +1,64 @@
+package com.securemarts.domain.catalog.service;
+
+import java.util.List;
+
+/**
+ * Sparse sort keys for ordered children (collection members, product media, variants). Keys are spaced
+ * {@link #GAP} apart when assigned in bulk, and an item inserted or moved between two neighbours takes the midpoint,
+ * so ordering changes touch one row. The API still speaks 0-based indexes; keys never leave the service layer.
+ * When neighbours are adjacent the siblings are renumbered (rebalanced) first.
+ */
+public final class PositionKeys {
+
+    public static final long GAP = 65536;
+
+    /** A midpoint leaving less room than this on either side asks for a background rebalance. */
+    public static final long MIN_GAP = 16;
+
+    private PositionKeys() {
+    }
+
+    /** Key for the index-th item of a freshly numbered list. */
+    public static long forIndex(int index) {
+        return (Math.max(index, 0) + 1L) * GAP;
+    }
+
+    /**
+     * Key for the listIndex-th item of a submitted list whose items carry a requested 0-based position: requested
+     * positions order the list and list order breaks ties between equal ones.
+     */
+    public static long forListItem(int requestedPosition, int listIndex) {
+        return forIndex(requestedPosition) + listIndex;
+    }
+
+    /** Key after the current last key (null when there are no siblings). */
+    public static long after(Long last) {
+        return last != null ? last + GAP : GAP;
+    }
+
+    /**
+     * Key between two neighbours, either of which may be null (insert at the start or end). Returns null when the
+     * neighbours are adjacent and the siblings need renumbering first.
+     */
+    public static Long between(Long before, Long after) {
+        if (before == null && after == null) return GAP;
+        if (before == null) return after - GAP;
+        if (after == null) return before + GAP;
+        if (after - before < 2) return null;
+        return before + (after - before) / 2;
+    }
+
+    /** True when a key from {@link #between} left little room next to a neighbour. */
+    public static boolean isCrowded(Long before, long key, Long after) {
+        return (before != null && key - before < MIN_GAP) || (after != null && after - key < MIN_GAP);
+    }
+
+    /**
+     * Key placing an item at the given 0-based index among siblings' keys (sorted ascending, the item itself
+     * excluded); null when there is no room there.
+     */
+    public static Long forIndex(List<Long> siblingKeys, int index) {
+        int i = Math.min(Math.max(index, 0), siblingKeys.size());
+        return between(i > 0 ? siblingKeys.get(i - 1) : null, i < siblingKeys.size() ? siblingKeys.get(i) : null);
+    }
+}
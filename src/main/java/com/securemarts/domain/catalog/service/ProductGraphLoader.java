@@ -0,0 +1,119 @@
+package com.securemarts.domain.catalog.service;
+
+import com.securemarts.domain.catalog.dto.ProductResponse;
+import com.securemarts.domain.catalog.entity.*;
+import com.securemarts.domain.catalog.repository.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Loads the full product graph (variants, media, options, tags, collections) for a page of products
+ * with one set-based query per association instead of walking lazy collections per product.
+ * Query count is fixed regardless of page size.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductGraphLoader {
+
+    private final ProductRepository productRepository;
+    private final ProductVariantRepository productVariantRepository;
+    private final ProductMediaRepository productMediaRepository;
+    private final ProductOptionRepository productOptionRepository;
+    private final ProductOptionValueRepository productOptionValueRepository;
+    private final VariantOptionValueRepository variantOptionValueRepository;
+    private final CollectionProductRepository collectionProductRepository;
+
+    @Transactional(readOnly = true)
+    public Page<ProductResponse> load(Page<Product> page) {
+        return new PageImpl<>(load(page.getContent()), page.getPageable(), page.getTotalElements());
+    }
+
+    /** Returns responses in the same order as the given products. */
+    @Transactional(readOnly = true)
+    public List<ProductResponse> load(List<Product> products) {
+        if (products == null || products.isEmpty()) return List.of();
+        List<Long> productIds = products.stream().map(Product::getId).toList();
+
+        Map<Long, List<ProductVariant>> variantsByProduct = new HashMap<>();
+        List<ProductVariant> variants = productVariantRepository.findByProductIdIn(productIds);
+        for (ProductVariant v : variants) {
+            variantsByProduct.computeIfAbsent(v.getProduct().getId(), k -> new ArrayList<>()).add(v);
+        }
+
+        Map<Long, List<ProductMedia>> mediaByProduct = new HashMap<>();
+        Map<Long, ProductMedia> mediaById = new HashMap<>();
+        for (ProductMedia m : productMediaRepository.findByProduct_IdInOrderByPositionAsc(productIds)) {
+            mediaByProduct.computeIfAbsent(m.getProduct().getId(), k -> new ArrayList<>()).add(m);
+            mediaById.put(m.getId(), m);
+        }
+
+        Map<Long, List<ProductOption>> optionsByProduct = new HashMap<>();
+        List<ProductOption> options = productOptionRepository.findByProduct_IdInOrderByPositionAsc(productIds);
+        for (ProductOption o : options) {
+            optionsByProduct.computeIfAbsent(o.getProduct().getId(), k -> new ArrayList<>()).add(o);
+        }
+        Map<Long, List<String>> valuesByOption = new HashMap<>();
+        if (!options.isEmpty()) {
+            List<Long> optionIds = options.stream().map(ProductOption::getId).toList();
+            for (ProductOptionValue ov : productOptionValueRepository.findByOption_IdInOrderByPositionAsc(optionIds)) {
+                valuesByOption.computeIfAbsent(ov.getOption().getId(), k -> new ArrayList<>()).add(ov.getValue());
+            }
+        }
+
+        Map<Long, Map<String, String>> optionMapByVariant = new HashMap<>();
+        Map<Long, Set<Long>> mediaIdsByVariant = new HashMap<>();
+        if (!variants.isEmpty()) {
+            List<Long> variantIds = variants.stream().map(ProductVariant::getId).toList();
+            for (Object[] row : variantOptionValueRepository.findOptionNameAndValueByVariantIdIn(variantIds)) {
+                optionMapByVariant.computeIfAbsent((Long) row[0], k -> new LinkedHashMap<>())
+                        .putIfAbsent((String) row[1], (String) row[2]);
+            }
+            for (Object[] row : productVariantRepository.findMediaIdsByVariantIdIn(variantIds)) {
+                mediaIdsByVariant.computeIfAbsent((Long) row[0], k -> new HashSet<>()).add((Long) row[1]);
+            }
+        }
+
+        Map<Long, List<String>> tagsByProduct = new HashMap<>();
+        for (Object[] row : productRepository.findTagNamesByProductIdIn(productIds)) {
+            tagsByProduct.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((String) row[1]);
+        }
+
+        Map<Long, List<String>> collectionsByProduct = new HashMap<>();
+        for (Object[] row : collectionProductRepository.findCollectionPublicIdsByProductIdIn(productIds)) {
+            List<String> ids = collectionsByProduct.computeIfAbsent((Long) row[0], k -> new ArrayList<>());
+            if (!ids.contains((String) row[1])) ids.add((String) row[1]);
+        }
+
+        List<ProductResponse> result = new ArrayList<>(products.size());
+        for (Product p : products) {
+            List<ProductMedia> productMedia = mediaByProduct.getOrDefault(p.getId(), List.of());
+            List<ProductResponse.VariantResponse> variantResponses = new ArrayList<>();
+            for (ProductVariant v : variantsByProduct.getOrDefault(p.getId(), List.of())) {
+                Set<Long> variantMediaIds = mediaIdsByVariant.getOrDefault(v.getId(), Set.of());
+                List<ProductResponse.MediaResponse> variantMedia = new ArrayList<>();
+                for (Long mediaId : variantMediaIds) {
+                    ProductMedia m = mediaById.get(mediaId);
+                    if (m != null) variantMedia.add(ProductResponse.MediaResponse.from(m));
+                }
+                variantResponses.add(ProductResponse.VariantResponse.from(v,
+                        optionMapByVariant.getOrDefault(v.getId(), Map.of()), variantMedia));
+            }
+            List<ProductResponse.OptionResponse> optionResponses = new ArrayList<>();
+            for (ProductOption o : optionsByProduct.getOrDefault(p.getId(), List.of())) {
+                optionResponses.add(ProductResponse.OptionResponse.from(o, valuesByOption.getOrDefault(o.getId(), List.of())));
+            }
+            result.add(ProductResponse.from(p,
+                    collectionsByProduct.getOrDefault(p.getId(), List.of()),
+                    tagsByProduct.getOrDefault(p.getId(), List.of()),
+                    optionResponses,
+                    variantResponses,
+                    productMedia.stream().map(ProductResponse.MediaResponse::from).toList()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,270 @@
+package com.securemarts.domain.catalog.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securemarts.common.exception.BusinessRuleException;
+import com.securemarts.domain.catalog.dto.ProductOptionRequest;
+import com.securemarts.domain.catalog.dto.ProductRequest;
+import com.securemarts.domain.catalog.dto.VariantInventoryRequest;
+import com.securemarts.domain.catalog.entity.ProductImportJob;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Streams an import file into one {@link ImportRecord} per product without loading the file into memory.
+ * <p>
+ * JSONL: one {@link ProductRequest} JSON object per line.
+ * CSV: one row per variant; consecutive rows sharing a handle form one product (product columns are read from
+ * the first row). Columns: handle, title, body_html, vendor, product_type, status, tags (comma-separated),
+ * seo_title, seo_description, option1_name/option1_value .. option3_name/option3_value, sku, barcode, price,
+ * compare_at_price, currency, weight, weight_unit, track_inventory, requires_shipping,
+ * inventory ("location:qty;location:qty", location by public ID or name), image_url, image_alt.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductImportParser {
+
+    private static final int MAX_OPTIONS = 3;
+
+    private final ObjectMapper objectMapper;
+
+    /** Returns the number of rows (CSV data rows or JSONL lines) read. */
+    public int parse(Reader reader, ProductImportJob.ImportFormat format, Consumer<ImportRecord> sink) throws IOException {
+        BufferedReader in = reader instanceof BufferedReader b ? b : new BufferedReader(reader);
+        return format == ProductImportJob.ImportFormat.JSONL ? parseJsonLines(in, sink) : parseCsv(in, sink);
+    }
+
+    private int parseJsonLines(BufferedReader in, Consumer<ImportRecord> sink) throws IOException {
+        int lineNumber = 0;
+        int rows = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) continue;
+            rows++;
+            try {
+                ProductRequest request = objectMapper.readValue(line, ProductRequest.class);
+                sink.accept(new ImportRecord(lineNumber, request.getHandle(), request, null));
+            } catch (JsonProcessingException e) {
+                sink.accept(new ImportRecord(lineNumber, null, null, "Invalid JSON: " + e.getOriginalMessage()));
+            }
+        }
+        return rows;
+    }
+
+    private int parseCsv(BufferedReader in, Consumer<ImportRecord> sink) throws IOException {
+        List<String> header = readCsvRecord(in);
+        if (header == null) return 0;
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT).replace(' ', '_'), i);
+        }
+        if (!columns.containsKey("title")) {
+            throw new BusinessRuleException("CSV header must contain a 'title' column");
+        }
+        int rowNumber = 1;
+        int rows = 0;
+        CsvProduct current = null;
+        List<String> fields;
+        while ((fields = readCsvRecord(in)) != null) {
+            rowNumber++;
+            if (fields.size() == 1 && fields.get(0).isBlank()) continue;
+            rows++;
+            CsvRow row = new CsvRow(columns, fields);
+            String handle = row.get("handle");
+            boolean continuation = current != null && handle != null && handle.equals(current.handle)
+                    || current != null && handle == null && row.get("title") == null;
+            if (!continuation) {
+                if (current != null) sink.accept(current.toRecord());
+                current = new CsvProduct(rowNumber, handle, row);
+            }
+            current.addVariantRow(rowNumber, row);
+        }
+        if (current != null) sink.accept(current.toRecord());
+        return rows;
+    }
+
+    /** Reads one RFC 4180 record (quoted fields may contain commas, quotes and line breaks); null at end of input. */
+    static List<String> readCsvRecord(BufferedReader in) throws IOException {
+        int c = in.read();
+        if (c == -1) return null;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    in.mark(1);
+                    int next = in.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) in.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /** One product parsed from the file, or the reason it could not be parsed. */
+    @Getter
+    @RequiredArgsConstructor
+    public static class ImportRecord {
+        private final int rowNumber;
+        private final String handle;
+        private final ProductRequest request;
+        private final String error;
+    }
+
+    private static class CsvRow {
+        private final Map<String, Integer> columns;
+        private final List<String> fields;
+
+        CsvRow(Map<String, Integer> columns, List<String> fields) {
+            this.columns = columns;
+            this.fields = fields;
+        }
+
+        /** Trimmed value, or null when the column is missing or blank. */
+        String get(String column) {
+            Integer i = columns.get(column);
+            if (i == null || i >= fields.size()) return null;
+            String v = fields.get(i).trim();
+            return v.isEmpty() ? null : v;
+        }
+    }
+
+    private static class CsvProduct {
+        private final int rowNumber;
+        private final String handle;
+        private final ProductRequest request = new ProductRequest();
+        private final List<String> optionNames = new ArrayList<>();
+        private final Map<String, LinkedHashSet<String>> optionValues = new LinkedHashMap<>();
+        private String error;
+
+        CsvProduct(int rowNumber, String handle, CsvRow row) {
+            this.rowNumber = rowNumber;
+            this.handle = handle;
+            request.setHandle(handle);
+            request.setTitle(row.get("title"));
+            request.setBodyHtml(row.get("body_html"));
+            if (row.get("status") != null) request.setStatus(row.get("status").toUpperCase(Locale.ROOT));
+            request.setVendor(row.get("vendor"));
+            request.setProductType(row.get("product_type"));
+            request.setSeoTitle(row.get("seo_title"));
+            request.setSeoDescription(row.get("seo_description"));
+            String tags = row.get("tags");
+            if (tags != null) {
+                Set<String> names = new LinkedHashSet<>();
+                for (String t : tags.split(",")) {
+                    if (!t.isBlank()) names.add(t.trim());
+                }
+                request.setTagNames(names);
+            }
+            for (int i = 1; i <= MAX_OPTIONS; i++) {
+                String name = row.get("option" + i + "_name");
+                if (name != null) {
+                    optionNames.add(name);
+                    optionValues.put(name, new LinkedHashSet<>());
+                }
+            }
+            request.setVariants(new ArrayList<>());
+            request.setMedia(new ArrayList<>());
+        }
+
+        void addVariantRow(int rowNumber, CsvRow row) {
+            if (error != null) return;
+            try {
+                String imageUrl = row.get("image_url");
+                if (imageUrl != null) {
+                    ProductRequest.ProductMediaRequest m = new ProductRequest.ProductMediaRequest();
+                    m.setUrl(imageUrl);
+                    m.setAlt(row.get("image_alt"));
+                    m.setPosition(request.getMedia().size());
+                    request.getMedia().add(m);
+                }
+                String price = row.get("price");
+                if (price == null && row.get("sku") == null && row.get("option1_value") == null) {
+                    return;
+                }
+                ProductRequest.ProductVariantRequest v = new ProductRequest.ProductVariantRequest();
+                v.setSku(row.get("sku"));
+                v.setBarcode(row.get("barcode"));
+                v.setPriceAmount(price != null ? new BigDecimal(price) : null);
+                v.setCompareAtAmount(row.get("compare_at_price") != null ? new BigDecimal(row.get("compare_at_price")) : null);
+                if (row.get("currency") != null) v.setCurrency(row.get("currency").toUpperCase(Locale.ROOT));
+                v.setWeight(row.get("weight") != null ? new BigDecimal(row.get("weight")) : null);
+                v.setWeightUnit(row.get("weight_unit"));
+                if (row.get("track_inventory") != null) v.setTrackInventory(Boolean.parseBoolean(row.get("track_inventory")));
+                if (row.get("requires_shipping") != null) v.setRequiresShipping(Boolean.parseBoolean(row.get("requires_shipping")));
+                v.setPosition(request.getVariants().size());
+                Map<String, String> options = new LinkedHashMap<>();
+                List<String> titleParts = new ArrayList<>();
+                for (int i = 0; i < optionNames.size(); i++) {
+                    String value = row.get("option" + (i + 1) + "_value");
+                    if (value == null) continue;
+                    options.put(optionNames.get(i), value);
+                    optionValues.get(optionNames.get(i)).add(value);
+                    titleParts.add(value);
+                }
+                v.setOptions(options);
+                v.setTitle(titleParts.isEmpty() ? "Default" : String.join(" / ", titleParts));
+                v.setInventory(parseInventory(row.get("inventory")));
+                request.getVariants().add(v);
+            } catch (NumberFormatException e) {
+                error = "Row " + rowNumber + ": invalid number";
+            }
+        }
+
+        ImportRecord toRecord() {
+            if (error != null) return new ImportRecord(rowNumber, handle, null, error);
+            List<ProductOptionRequest> options = new ArrayList<>();
+            for (String name : optionNames) {
+                ProductOptionRequest o = new ProductOptionRequest();
+                o.setName(name);
+                o.setValues(new ArrayList<>(optionValues.get(name)));
+                options.add(o);
+            }
+            request.setOptions(options);
+            return new ImportRecord(rowNumber, handle, request, null);
+        }
+
+        private static List<VariantInventoryRequest> parseInventory(String value) {
+            if (value == null) return null;
+            List<VariantInventoryRequest> result = new ArrayList<>();
+            for (String part : value.split(";")) {
+                if (part.isBlank()) continue;
+                int sep = part.lastIndexOf(':');
+                if (sep <= 0) throw new NumberFormatException(part);
+                VariantInventoryRequest inv = new VariantInventoryRequest();
+                inv.setLocationId(part.substring(0, sep).trim());
+                inv.setQuantity(Integer.parseInt(part.substring(sep + 1).trim()));
+                result.add(inv);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.securemarts.domain.catalog.service;
+
+import com.securemarts.common.exception.BusinessRuleException;
+import com.securemarts.domain.catalog.entity.ProductImportJob;
+import com.securemarts.domain.catalog.entity.ProductImportRowError;
+import com.securemarts.domain.catalog.event.CatalogChangedEvent;
+import com.securemarts.domain.catalog.repository.ProductImportJobRepository;
+import com.securemarts.domain.catalog.repository.ProductImportRowErrorRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs an import job in the background: streams the spooled file through {@link ProductImportParser}, hands
+ * chunks to {@link ProductImportWriter} (one transaction each) and records progress after every chunk. A chunk that
+ * fails as a whole is retried row by row so one bad row does not drop its neighbours. Only business rule and parse
+ * messages reach the job and its row errors; anything else is logged and recorded generically. Smart collections are
+ * recomputed once when the job finishes instead of once per product.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImportRunner {
+
+    static final int CHUNK_SIZE = 500;
+    private static final int MAX_STORED_ERRORS = 1000;
+
+    private final ProductImportJobRepository productImportJobRepository;
+    private final ProductImportRowErrorRepository productImportRowErrorRepository;
+    private final ProductImportParser productImportParser;
+    private final ProductImportWriter productImportWriter;
+    private final SmartCollectionRecomputeScheduler smartCollectionRecomputeScheduler;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Async
+    public void run(Long jobId, Path file, ProductImportWriter.ImportContext ctx) {
+        try {
+            ProductImportJob job = productImportJobRepository.findById(jobId).orElse(null);
+            if (job != null) process(job, file, ctx);
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+
+    private void process(ProductImportJob job, Path file, ProductImportWriter.ImportContext ctx) {
+        job.setStatus(ProductImportJob.ImportStatus.RUNNING);
+        job.setStartedAt(Instant.now());
+        productImportJobRepository.save(job);
+
+        Progress progress = new Progress();
+        List<ProductImportParser.ImportRecord> chunk = new ArrayList<>(CHUNK_SIZE);
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            int rows = productImportParser.parse(reader, job.getFormat(), record -> {
+                chunk.add(record);
+                if (chunk.size() >= CHUNK_SIZE) flush(job, ctx, chunk, progress);
+            });
+            flush(job, ctx, chunk, progress);
+            job.setTotalRows(rows);
+            job.setStatus(ProductImportJob.ImportStatus.COMPLETED);
+        } catch (BusinessRuleException e) {
+            log.warn("Product import {} failed: {}", job.getPublicId(), e.getMessage());
+            job.setStatus(ProductImportJob.ImportStatus.FAILED);
+            job.setErrorMessage(e.getMessage());
+        } catch (Exception e) {
+            log.error("Product import {} failed", job.getPublicId(), e);
+            job.setStatus(ProductImportJob.ImportStatus.FAILED);
+            job.setErrorMessage("Import failed");
+        } finally {
+            job.setImportedProducts(progress.imported);
+            job.setFailedRows(progress.failed);
+            job.setFinishedAt(Instant.now());
+            productImportJobRepository.save(job);
+        }
+        if (progress.imported > 0) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(this, job.getStoreId(), null));
+            smartCollectionRecomputeScheduler.recomputeForStore(job.getStoreId());
+        }
+    }
+
+    private void flush(ProductImportJob job, ProductImportWriter.ImportContext ctx,
+                       List<ProductImportParser.ImportRecord> chunk, Progress progress) {
+        if (chunk.isEmpty()) return;
+        List<ProductImportWriter.RowError> errors = new ArrayList<>();
+        try {
+            ProductImportWriter.ChunkResult result = productImportWriter.writeChunk(ctx, new ArrayList<>(chunk));
+            progress.imported += result.getProductIds().size();
+            errors.addAll(result.getErrors());
+        } catch (RuntimeException chunkFailure) {
+            ctx.undoChunk();
+            for (ProductImportParser.ImportRecord record : chunk) {
+                try {
+                    ProductImportWriter.ChunkResult result = productImportWriter.writeChunk(ctx, List.of(record));
+                    progress.imported += result.getProductIds().size();
+                    errors.addAll(result.getErrors());
+                } catch (BusinessRuleException e) {
+                    ctx.undoChunk();
+                    errors.add(new ProductImportWriter.RowError(record.getRowNumber(), record.getHandle(), e.getMessage()));
+                } catch (RuntimeException e) {
+                    ctx.undoChunk();
+                    log.error("Product import {} could not write row {}", job.getPublicId(), record.getRowNumber(), e);
+                    errors.add(new ProductImportWriter.RowError(record.getRowNumber(), record.getHandle(), "Row could not be written"));
+                }
+            }
+        }
+        chunk.clear();
+        progress.failed += errors.size();
+        storeErrors(job.getId(), errors, progress);
+        job.setImportedProducts(progress.imported);
+        job.setFailedRows(progress.failed);
+        productImportJobRepository.save(job);
+    }
+
+    private void storeErrors(Long jobId, List<ProductImportWriter.RowError> errors, Progress progress) {
+        List<ProductImportRowError> rows = new ArrayList<>();
+        for (ProductImportWriter.RowError e : errors) {
+            if (progress.storedErrors >= MAX_STORED_ERRORS) break;
+            ProductImportRowError row = new ProductImportRowError();
+            row.setJobId(jobId);
+            row.setRowNumber(e.getRowNumber());
+            row.setHandle(e.getHandle() != null && e.getHandle().length() > 255 ? e.getHandle().substring(0, 255) : e.getHandle());
+            row.setMessage(e.getMessage() != null ? e.getMessage() : "Import failed");
+            rows.add(row);
+            progress.storedErrors++;
+        }
+        if (!rows.isEmpty()) productImportRowErrorRepository.saveAll(rows);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static class Progress {
+        private int imported;
+        private int failed;
+        private int storedErrors;
+    }
+}
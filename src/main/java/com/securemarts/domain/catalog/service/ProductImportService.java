@@ -0,0 +1,156 @@
+package com.securemarts.domain.catalog.service;
+
+import com.securemarts.common.dto.PageResponse;
+import com.securemarts.common.exception.BusinessRuleException;
+import com.securemarts.common.exception.ResourceNotFoundException;
+import com.securemarts.domain.catalog.dto.ProductImportJobResponse;
+import com.securemarts.domain.catalog.entity.ProductImportJob;
+import com.securemarts.domain.catalog.repository.ProductImportJobRepository;
+import com.securemarts.domain.catalog.repository.ProductImportRowErrorRepository;
+import com.securemarts.domain.catalog.repository.ProductRepository;
+import com.securemarts.domain.inventory.entity.Location;
+import com.securemarts.domain.inventory.repository.LocationRepository;
+import com.securemarts.domain.onboarding.entity.Store;
+import com.securemarts.domain.onboarding.repository.StoreRepository;
+import com.securemarts.domain.onboarding.service.SubscriptionLimitsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImportService {
+
+    private final ProductImportJobRepository productImportJobRepository;
+    private final ProductImportRowErrorRepository productImportRowErrorRepository;
+    private final ProductRepository productRepository;
+    private final StoreRepository storeRepository;
+    private final LocationRepository locationRepository;
+    private final SubscriptionLimitsService subscriptionLimitsService;
+    private final ProductImportRunner productImportRunner;
+
+    /**
+     * Spools the upload to a temp file, creates the job and starts it once the job row is committed. Locations are
+     * resolved here once for the whole file; plan slots are only pre-checked, each chunk re-counts them under the
+     * store's product-limit lock. The spool is deleted here unless the runner has taken it over.
+     */
+    @Transactional
+    public ProductImportJobResponse startImport(Long storeId, String userPublicId, MultipartFile file, String format) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new BusinessRuleException("Import file is required");
+        }
+        ProductImportJob.ImportFormat importFormat = resolveFormat(file.getOriginalFilename(), format);
+        Store store = storeRepository.findById(storeId)
+                .orElseThrow(() -> new ResourceNotFoundException("Store", String.valueOf(storeId)));
+        var limits = subscriptionLimitsService.getLimitsForBusiness(store.getBusiness());
+        if (productRepository.countByStoreIdAndDeletedAtIsNull(storeId) >= limits.getMaxProducts()) {
+            throw new BusinessRuleException("Product limit reached for your plan (" + limits.getMaxProducts() + "). Upgrade to add more products.");
+        }
+        Map<String, Long> locationsByPublicId = new HashMap<>();
+        Map<String, Long> locationsByName = new HashMap<>();
+        for (Location loc : locationRepository.findByStoreId(storeId)) {
+            locationsByPublicId.put(loc.getPublicId(), loc.getId());
+            locationsByName.putIfAbsent(loc.getName().trim().toLowerCase(Locale.ROOT), loc.getId());
+        }
+        ProductImportWriter.ImportContext ctx = new ProductImportWriter.ImportContext(
+                storeId, store.getBusiness().getId(), locationsByPublicId, locationsByName, limits.getMaxProducts());
+
+        Path spool = Files.createTempFile("product-import-", "." + importFormat.name().toLowerCase(Locale.ROOT));
+        boolean handedOver = false;
+        try {
+            file.transferTo(spool);
+
+            ProductImportJob job = new ProductImportJob();
+            job.setStoreId(storeId);
+            job.setFormat(importFormat);
+            job.setFileName(file.getOriginalFilename());
+            job.setCreatedBy(userPublicId);
+            job = productImportJobRepository.save(job);
+
+            Long jobId = job.getId();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        deleteQuietly(spool);
+                        return;
+                    }
+                    try {
+                        productImportRunner.run(jobId, spool, ctx);
+                    } catch (RuntimeException e) {
+                        // Not started (executor rejected it); the job stays pending
+                        deleteQuietly(spool);
+                        throw e;
+                    }
+                }
+            });
+            handedOver = true;
+            return ProductImportJobResponse.from(job);
+        } finally {
+            if (!handedOver) deleteQuietly(spool);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponse<ProductImportJobResponse> listJobs(Long storeId, Pageable pageable) {
+        return PageResponse.of(productImportJobRepository.findByStoreIdOrderByIdDesc(storeId, pageable)
+                .map(ProductImportJobResponse::from));
+    }
+
+    @Transactional(readOnly = true)
+    public ProductImportJobResponse getJob(Long storeId, String jobPublicId) {
+        return ProductImportJobResponse.from(findJob(storeId, jobPublicId));
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponse<ProductImportJobResponse.RowErrorResponse> listErrors(Long storeId, String jobPublicId, Pageable pageable) {
+        ProductImportJob job = findJob(storeId, jobPublicId);
+        return PageResponse.of(productImportRowErrorRepository.findByJobIdOrderByRowNumberAsc(job.getId(), pageable)
+                .map(ProductImportJobResponse.RowErrorResponse::from));
+    }
+
+    private ProductImportJob findJob(Long storeId, String jobPublicId) {
+        return productImportJobRepository.findByPublicIdAndStoreId(jobPublicId, storeId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product import", jobPublicId));
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static ProductImportJob.ImportFormat resolveFormat(String fileName, String format) {
+        String f = format;
+        if ((f == null || f.isBlank()) && fileName != null && fileName.contains(".")) {
+            f = fileName.substring(fileName.lastIndexOf('.') + 1);
+        }
+        if (f != null) {
+            switch (f.trim().toLowerCase(Locale.ROOT)) {
+                case "csv":
+                    return ProductImportJob.ImportFormat.CSV;
+                case "jsonl":
+                case "ndjson":
+                    return ProductImportJob.ImportFormat.JSONL;
+                default:
+                    break;
+            }
+        }
+        throw new BusinessRuleException("Unsupported import format; use csv or jsonl");
+    }
+}
@@ -0,0 +1,519 @@
+package com.securemarts.domain.catalog.service;
+
+import com.securemarts.domain.catalog.dto.ProductOptionRequest;
+import com.securemarts.domain.catalog.dto.ProductRequest;
+import com.securemarts.domain.catalog.dto.VariantInventoryRequest;
+import com.securemarts.domain.catalog.entity.Product;
+import com.securemarts.domain.catalog.repository.ProductRepository;
+import com.securemarts.domain.inventory.entity.InventoryMovement;
+import com.securemarts.domain.inventory.service.InventoryMovementWriter;
+import com.securemarts.domain.onboarding.repository.StoreRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Writes one chunk of imported products with set-based SQL: every table gets one JDBC batch per chunk and
+ * generated ids are read back with one query per table (IDENTITY ids rule out Hibernate insert batching).
+ * Invalid products are rejected up front and reported per row; the rest of the chunk is written in one transaction.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductImportWriter {
+
+    private static final String INSERT_PRODUCT =
+            "INSERT INTO products (public_id, store_id, title, handle, body_html, status, vendor, product_type, " +
+            "seo_title, seo_description, published_at, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW())";
+    private static final int[] PRODUCT_TYPES = {Types.VARCHAR, Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP};
+
+    private static final String INSERT_OPTION =
+            "INSERT INTO product_options (public_id, product_id, name, position, created_at, updated_at) VALUES (?, ?, ?, ?, NOW(), NOW())";
+    private static final String INSERT_OPTION_VALUE =
+            "INSERT INTO product_option_values (public_id, option_id, value, position, created_at, updated_at) VALUES (?, ?, ?, ?, NOW(), NOW())";
+
+    private static final String INSERT_VARIANT =
+            "INSERT INTO product_variants (public_id, product_id, sku, title, barcode, price_amount, compare_at_amount, currency, " +
+            "weight, weight_unit, track_inventory, requires_shipping, position, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW())";
+    private static final int[] VARIANT_TYPES = {Types.VARCHAR, Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.NUMERIC, Types.NUMERIC, Types.VARCHAR, Types.NUMERIC, Types.VARCHAR, Types.BOOLEAN, Types.BOOLEAN, Types.BIGINT};
+
+    private static final String INSERT_VARIANT_OPTION_VALUE =
+            "INSERT INTO variant_option_values (public_id, variant_id, option_value_id, created_at, updated_at) VALUES (?, ?, ?, NOW(), NOW()) " +
+            "ON CONFLICT DO NOTHING";
+
+    private static final String INSERT_MEDIA =
+            "INSERT INTO product_media (public_id, product_id, url, alt, position, media_type, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, NOW(), NOW())";
+    private static final int[] MEDIA_TYPES = {Types.VARCHAR, Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.BIGINT, Types.VARCHAR};
+
+    private static final String INSERT_TAG =
+            "INSERT INTO tags (public_id, business_id, name, created_at, updated_at) VALUES (?, ?, ?, NOW(), NOW())";
+    private static final String INSERT_PRODUCT_TAG =
+            "INSERT INTO product_tags (product_id, tag_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String INSERT_INVENTORY_ITEM =
+            "INSERT INTO inventory_items (public_id, store_id, product_variant_id, tracked, requires_shipping, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, NOW(), NOW())";
+    private static final String INSERT_INVENTORY_LEVEL =
+            "INSERT INTO inventory_levels (public_id, inventory_item_id, location_id, quantity_available, quantity_reserved, " +
+            "quantity_incoming, created_at, updated_at) VALUES (?, ?, ?, ?, 0, 0, NOW(), NOW())";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final Validator validator;
+    private final ProductSearchService productSearchService;
+    private final ProductRepository productRepository;
+    private final StoreRepository storeRepository;
+    private final InventoryMovementWriter inventoryMovementWriter;
+
+    /**
+     * Validates and writes one chunk. Returns the ids of the products written and the rows that were rejected.
+     */
+    @Transactional
+    public ChunkResult writeChunk(ImportContext ctx, List<ProductImportParser.ImportRecord> records) {
+        ctx.beginChunk();
+        List<RowError> errors = new ArrayList<>();
+        List<PendingProduct> pending = validate(ctx, records, errors);
+        if (pending.isEmpty()) return new ChunkResult(List.of(), errors);
+
+        insertProducts(ctx, pending);
+        insertOptions(pending);
+        insertVariants(pending);
+        insertMedia(pending);
+        insertTags(ctx, pending);
+        insertInventory(ctx, pending);
+
+        List<Long> productIds = pending.stream().map(p -> p.id).toList();
+        productSearchService.reindex(productIds);
+        return new ChunkResult(productIds, errors);
+    }
+
+    private List<PendingProduct> validate(ImportContext ctx, List<ProductImportParser.ImportRecord> records, List<RowError> errors) {
+        List<PendingProduct> candidates = new ArrayList<>();
+        for (ProductImportParser.ImportRecord record : records) {
+            if (record.getError() != null) {
+                errors.add(new RowError(record.getRowNumber(), record.getHandle(), record.getError()));
+                continue;
+            }
+            ProductRequest request = record.getRequest();
+            String problem = firstViolation(request);
+            if (problem == null) problem = validateValues(ctx, request);
+            if (problem != null) {
+                errors.add(new RowError(record.getRowNumber(), record.getHandle(), problem));
+                continue;
+            }
+            String handle = request.getHandle() != null ? request.getHandle().trim().toLowerCase().replace(' ', '-') : null;
+            if (handle == null || handle.isEmpty()) {
+                handle = UUID.randomUUID().toString().substring(0, 8);
+            }
+            if (!ctx.claimHandle(handle)) {
+                errors.add(new RowError(record.getRowNumber(), handle, "Duplicate handle in file"));
+                continue;
+            }
+            candidates.add(new PendingProduct(record.getRowNumber(), handle, request));
+        }
+        if (candidates.isEmpty()) return candidates;
+
+        // Slots left now, under the store's product-limit lock: concurrent imports and creates count each other
+        storeRepository.lockForProductLimit(ctx.storeId);
+        long remaining = ctx.maxProducts - productRepository.countByStoreIdAndDeletedAtIsNull(ctx.storeId);
+
+        Set<String> existing = new HashSet<>(namedJdbcTemplate.queryForList(
+                "SELECT handle FROM products WHERE store_id = :storeId AND handle IN (:handles)",
+                new MapSqlParameterSource("storeId", ctx.storeId)
+                        .addValue("handles", candidates.stream().map(p -> p.handle).toList()),
+                String.class));
+        List<PendingProduct> accepted = new ArrayList<>();
+        for (PendingProduct p : candidates) {
+            if (existing.contains(p.handle)) {
+                errors.add(new RowError(p.rowNumber, p.handle, "Product handle already exists"));
+            } else if (remaining <= 0) {
+                errors.add(new RowError(p.rowNumber, p.handle, "Product limit reached for your plan. Upgrade to add more products."));
+            } else {
+                remaining--;
+                accepted.add(p);
+            }
+        }
+        return accepted;
+    }
+
+    private String firstViolation(ProductRequest request) {
+        Set<ConstraintViolation<ProductRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) return null;
+        ConstraintViolation<ProductRequest> v = violations.iterator().next();
+        return v.getPropertyPath() + ": " + v.getMessage();
+    }
+
+    private static String validateValues(ImportContext ctx, ProductRequest request) {
+        if (request.getStatus() != null) {
+            try {
+                Product.ProductStatus.valueOf(request.getStatus());
+            } catch (IllegalArgumentException e) {
+                return "Invalid status: " + request.getStatus();
+            }
+        }
+        if (request.getVariants() != null) {
+            for (ProductRequest.ProductVariantRequest v : request.getVariants()) {
+                if (v.getInventory() == null) continue;
+                for (VariantInventoryRequest inv : v.getInventory()) {
+                    if (inv.getLocationId() == null || inv.getLocationId().isBlank()) continue;
+                    if (ctx.resolveLocation(inv.getLocationId()) == null) {
+                        return "Unknown location: " + inv.getLocationId();
+                    }
+                    if (inv.getQuantity() != null && inv.getQuantity() < 0) {
+                        return "Inventory quantity must not be negative";
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private void insertProducts(ImportContext ctx, List<PendingProduct> pending) {
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(pending.size());
+        for (PendingProduct p : pending) {
+            ProductRequest r = p.request;
+            String status = r.getStatus() != null ? r.getStatus() : Product.ProductStatus.DRAFT.name();
+            rows.add(new Object[]{p.publicId, ctx.storeId, r.getTitle().trim(), p.handle, r.getBodyHtml(), status,
+                    r.getVendor(), r.getProductType(), r.getSeoTitle(), r.getSeoDescription(),
+                    Product.ProductStatus.ACTIVE.name().equals(status) ? now : null});
+        }
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT, rows, PRODUCT_TYPES);
+        Map<String, Long> ids = idsByPublicId("products", pending.stream().map(p -> p.publicId).toList());
+        for (PendingProduct p : pending) p.id = ids.get(p.publicId);
+    }
+
+    private void insertOptions(List<PendingProduct> pending) {
+        List<Object[]> optionRows = new ArrayList<>();
+        for (PendingProduct p : pending) {
+            List<ProductOptionRequest> options = p.request.getOptions();
+            if (options == null) continue;
+            for (int i = 0; i < options.size(); i++) {
+                ProductOptionRequest o = options.get(i);
+                if (o == null || o.getName() == null || o.getName().isBlank()) continue;
+                PendingOption option = new PendingOption(o.getName().trim());
+                p.options.add(option);
+                optionRows.add(new Object[]{option.publicId, p.id, option.name, i});
+            }
+        }
+        if (optionRows.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_OPTION, optionRows);
+        Map<String, Long> optionIds = idsByPublicId("product_options",
+                pending.stream().flatMap(p -> p.options.stream()).map(o -> o.publicId).toList());
+
+        List<Object[]> valueRows = new ArrayList<>();
+        List<String> valuePublicIds = new ArrayList<>();
+        for (PendingProduct p : pending) {
+            if (p.options.isEmpty()) continue;
+            int index = 0;
+            for (ProductOptionRequest o : p.request.getOptions()) {
+                if (o == null || o.getName() == null || o.getName().isBlank()) continue;
+                PendingOption option = p.options.get(index++);
+                option.id = optionIds.get(option.publicId);
+                if (o.getValues() == null) continue;
+                for (int j = 0; j < o.getValues().size(); j++) {
+                    String value = o.getValues().get(j);
+                    if (value == null || value.isBlank()) continue;
+                    String publicId = UUID.randomUUID().toString();
+                    valueRows.add(new Object[]{publicId, option.id, value.trim(), j});
+                    valuePublicIds.add(publicId);
+                    option.valuePublicIds.put(value.trim(), publicId);
+                }
+            }
+        }
+        if (valueRows.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_OPTION_VALUE, valueRows);
+        Map<String, Long> valueIds = idsByPublicId("product_option_values", valuePublicIds);
+        for (PendingProduct p : pending) {
+            for (PendingOption option : p.options) {
+                option.valuePublicIds.forEach((value, publicId) -> option.valueIds.put(value, valueIds.get(publicId)));
+            }
+        }
+    }
+
+    private void insertVariants(List<PendingProduct> pending) {
+        List<Object[]> rows = new ArrayList<>();
+        for (PendingProduct p : pending) {
+            List<ProductRequest.ProductVariantRequest> requests = p.request.getVariants();
+            if (requests == null || requests.isEmpty()) {
+                PendingVariant v = new PendingVariant(null);
+                p.variants.add(v);
+                rows.add(new Object[]{v.publicId, p.id, null, "Default", null, BigDecimal.ZERO, null, "NGN",
+                        null, null, true, true, 0});
+                continue;
+            }
+            for (int i = 0; i < requests.size(); i++) {
+                ProductRequest.ProductVariantRequest vr = requests.get(i);
+                PendingVariant v = new PendingVariant(vr);
+                p.variants.add(v);
+                rows.add(new Object[]{v.publicId, p.id, vr.getSku(), vr.getTitle(), vr.getBarcode(),
+                        vr.getPriceAmount() != null ? vr.getPriceAmount() : BigDecimal.ZERO, vr.getCompareAtAmount(),
+                        vr.getCurrency() != null ? vr.getCurrency() : "NGN", vr.getWeight(), vr.getWeightUnit(),
+                        vr.isTrackInventory(), vr.isRequiresShipping(), PositionKeys.forListItem(vr.getPosition(), i)});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_VARIANT, rows, VARIANT_TYPES);
+        Map<String, Long> ids = idsByPublicId("product_variants",
+                pending.stream().flatMap(p -> p.variants.stream()).map(v -> v.publicId).toList());
+
+        List<Object[]> optionValueRows = new ArrayList<>();
+        for (PendingProduct p : pending) {
+            for (PendingVariant v : p.variants) {
+                v.id = ids.get(v.publicId);
+                if (v.request == null || v.request.getOptions() == null) continue;
+                for (Map.Entry<String, String> e : v.request.getOptions().entrySet()) {
+                    Long valueId = p.optionValueId(e.getKey(), e.getValue());
+                    if (valueId != null) {
+                        optionValueRows.add(new Object[]{UUID.randomUUID().toString(), v.id, valueId});
+                    }
+                }
+            }
+        }
+        if (!optionValueRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_VARIANT_OPTION_VALUE, optionValueRows);
+        }
+    }
+
+    private void insertMedia(List<PendingProduct> pending) {
+        List<Object[]> rows = new ArrayList<>();
+        for (PendingProduct p : pending) {
+            if (p.request.getMedia() == null) continue;
+            for (int i = 0; i < p.request.getMedia().size(); i++) {
+                ProductRequest.ProductMediaRequest m = p.request.getMedia().get(i);
+                if (m == null || m.getUrl() == null || m.getUrl().isBlank()) continue;
+                rows.add(new Object[]{UUID.randomUUID().toString(), p.id, m.getUrl().trim(), m.getAlt(), PositionKeys.forListItem(m.getPosition(), i),
+                        m.getMediaType() != null ? m.getMediaType() : "image"});
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_MEDIA, rows, MEDIA_TYPES);
+        }
+    }
+
+    /** Resolves tag names against the business once per name per import; missing tags are created in one batch. */
+    private void insertTags(ImportContext ctx, List<PendingProduct> pending) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (PendingProduct p : pending) {
+            if (p.request.getTagNames() == null) continue;
+            for (String name : p.request.getTagNames()) {
+                if (name != null && !name.isBlank() && !ctx.tagIds.containsKey(name.trim())) missing.add(name.trim());
+            }
+        }
+        if (!missing.isEmpty()) {
+            loadTagIds(ctx, missing);
+            List<Object[]> newTags = missing.stream()
+                    .filter(name -> !ctx.tagIds.containsKey(name))
+                    .map(name -> new Object[]{UUID.randomUUID().toString(), ctx.businessId, name})
+                    .toList();
+            if (!newTags.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_TAG, newTags);
+                newTags.forEach(row -> ctx.chunkTags.add((String) row[2]));
+                loadTagIds(ctx, missing);
+            }
+        }
+        List<Object[]> links = new ArrayList<>();
+        for (PendingProduct p : pending) {
+            if (p.request.getTagNames() == null) continue;
+            Set<Long> tagIds = new HashSet<>();
+            for (String name : p.request.getTagNames()) {
+                if (name == null || name.isBlank()) continue;
+                Long tagId = ctx.tagIds.get(name.trim());
+                if (tagId != null && tagIds.add(tagId)) links.add(new Object[]{p.id, tagId});
+            }
+        }
+        if (!links.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_PRODUCT_TAG, links);
+        }
+    }
+
+    private void loadTagIds(ImportContext ctx, Collection<String> names) {
+        namedJdbcTemplate.query("SELECT name, MIN(id) FROM tags WHERE business_id = :businessId AND name IN (:names) GROUP BY name",
+                new MapSqlParameterSource("businessId", ctx.businessId).addValue("names", names),
+                rs -> {
+                    ctx.tagIds.put(rs.getString(1), rs.getLong(2));
+                });
+    }
+
+    private void insertInventory(ImportContext ctx, List<PendingProduct> pending) {
+        List<PendingVariant> stocked = new ArrayList<>();
+        List<Object[]> itemRows = new ArrayList<>();
+        for (PendingProduct p : pending) {
+            for (PendingVariant v : p.variants) {
+                if (v.request == null || v.request.getInventory() == null || v.request.getInventory().isEmpty()) continue;
+                stocked.add(v);
+                itemRows.add(new Object[]{UUID.randomUUID().toString(), ctx.storeId, v.id,
+                        v.request.isTrackInventory(), v.request.isRequiresShipping()});
+            }
+        }
+        if (stocked.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_INVENTORY_ITEM, itemRows);
+        Map<Long, Long> itemIdByVariant = new HashMap<>();
+        namedJdbcTemplate.query("SELECT product_variant_id, id FROM inventory_items WHERE store_id = :storeId AND product_variant_id IN (:variantIds)",
+                new MapSqlParameterSource("storeId", ctx.storeId)
+                        .addValue("variantIds", stocked.stream().map(v -> v.id).toList()),
+                rs -> {
+                    itemIdByVariant.put(rs.getLong(1), rs.getLong(2));
+                });
+
+        List<Object[]> levelRows = new ArrayList<>();
+        for (PendingVariant v : stocked) {
+            Map<Long, Integer> quantityByLocation = new LinkedHashMap<>();
+            for (VariantInventoryRequest inv : v.request.getInventory()) {
+                if (inv.getLocationId() == null || inv.getLocationId().isBlank()) continue;
+                quantityByLocation.put(ctx.resolveLocation(inv.getLocationId()), inv.getQuantity() != null ? inv.getQuantity() : 0);
+            }
+            Long itemId = itemIdByVariant.get(v.id);
+            quantityByLocation.forEach((locationId, qty) ->
+                    levelRows.add(new Object[]{UUID.randomUUID().toString(), itemId, locationId, qty}));
+        }
+        if (levelRows.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_INVENTORY_LEVEL, levelRows);
+        // Opening stock goes into the ledger like any other change to stock on hand
+        List<InventoryMovementWriter.Movement> movements = new ArrayList<>();
+        namedJdbcTemplate.query("SELECT id, inventory_item_id, quantity_available FROM inventory_levels "
+                        + "WHERE inventory_item_id IN (:itemIds) AND quantity_available <> 0",
+                new MapSqlParameterSource("itemIds", itemIdByVariant.values()),
+                rs -> {
+                    movements.add(new InventoryMovementWriter.Movement(ctx.storeId, rs.getLong(2), rs.getLong(1), rs.getInt(3),
+                            InventoryMovement.MovementType.ADJUSTMENT.name(), null, null));
+                });
+        inventoryMovementWriter.append(movements);
+    }
+
+    private Map<String, Long> idsByPublicId(String table, List<String> publicIds) {
+        Map<String, Long> ids = new HashMap<>();
+        if (publicIds.isEmpty()) return ids;
+        namedJdbcTemplate.query("SELECT public_id, id FROM " + table + " WHERE public_id IN (:publicIds)",
+                new MapSqlParameterSource("publicIds", publicIds),
+                rs -> {
+                    ids.put(rs.getString(1), rs.getLong(2));
+                });
+        return ids;
+    }
+
+    /** Per-import state shared across chunks: store scope, resolved locations and tags, handles seen so far. */
+    public static class ImportContext {
+        private final Long storeId;
+        private final Long businessId;
+        private final Map<String, Long> locationIdsByPublicId;
+        private final Map<String, Long> locationIdsByName;
+        private final Map<String, Long> tagIds = new HashMap<>();
+        private final Set<String> seenHandles = new HashSet<>();
+        private final List<String> chunkHandles = new ArrayList<>();
+        private final List<String> chunkTags = new ArrayList<>();
+        private final int maxProducts;
+
+        public ImportContext(Long storeId, Long businessId, Map<String, Long> locationIdsByPublicId,
+                             Map<String, Long> locationIdsByName, int maxProducts) {
+            this.storeId = storeId;
+            this.businessId = businessId;
+            this.locationIdsByPublicId = locationIdsByPublicId;
+            this.locationIdsByName = locationIdsByName;
+            this.maxProducts = maxProducts;
+        }
+
+        /**
+         * Reverts what the last chunk claimed (handles, tags created in its transaction)
+         * after that chunk rolled back, so its rows can be retried one by one.
+         */
+        public void undoChunk() {
+            chunkHandles.forEach(seenHandles::remove);
+            chunkTags.forEach(tagIds::remove);
+            beginChunk();
+        }
+
+        void beginChunk() {
+            chunkHandles.clear();
+            chunkTags.clear();
+        }
+
+        boolean claimHandle(String handle) {
+            if (!seenHandles.add(handle)) return false;
+            chunkHandles.add(handle);
+            return true;
+        }
+
+        /** Location by public ID, falling back to case-insensitive name. */
+        Long resolveLocation(String ref) {
+            String key = ref.trim();
+            Long id = locationIdsByPublicId.get(key);
+            return id != null ? id : locationIdsByName.get(key.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class ChunkResult {
+        private final List<Long> productIds;
+        private final List<RowError> errors;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class RowError {
+        private final int rowNumber;
+        private final String handle;
+        private final String message;
+    }
+
+    private static class PendingProduct {
+        private final int rowNumber;
+        private final String handle;
+        private final ProductRequest request;
+        private final String publicId = UUID.randomUUID().toString();
+        private final List<PendingOption> options = new ArrayList<>();
+        private final List<PendingVariant> variants = new ArrayList<>();
+        private Long id;
+
+        PendingProduct(int rowNumber, String handle, ProductRequest request) {
+            this.rowNumber = rowNumber;
+            this.handle = handle;
+            this.request = request;
+        }
+
+        Long optionValueId(String optionName, String value) {
+            if (optionName == null || value == null) return null;
+            for (PendingOption o : options) {
+                if (o.name.equals(optionName.trim())) return o.valueIds.get(value.trim());
+            }
+            return null;
+        }
+    }
+
+    private static class PendingOption {
+        private final String publicId = UUID.randomUUID().toString();
+        private final String name;
+        private final Map<String, String> valuePublicIds = new HashMap<>();
+        private final Map<String, Long> valueIds = new HashMap<>();
+        private Long id;
+
+        PendingOption(String name) {
+            this.name = name;
+        }
+    }
+
+    private static class PendingVariant {
+        private final String publicId = UUID.randomUUID().toString();
+        private final ProductRequest.ProductVariantRequest request;
+        private Long id;
+
+        PendingVariant(ProductRequest.ProductVariantRequest request) {
+            this.request = request;
+        }
+    }
+}
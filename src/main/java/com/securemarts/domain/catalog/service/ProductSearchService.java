@@ -0,0 +1,132 @@
+package com.securemarts.domain.catalog.service;
+
+import com.securemarts.domain.catalog.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Ranked product search over product_search_documents (Postgres tsvector + pg_trgm).
+ * Matches title, vendor, product type, tags, variant SKUs/barcodes and body text; prefix-aware via tsquery
+ * prefix terms and typo-tolerant via trigram word similarity. Documents are refreshed on every catalog write.
+ */
+@Service
+public class ProductSearchService {
+
+    private static final String DOCUMENT_UPSERT =
+            "INSERT INTO product_search_documents (product_id, store_id, document, search_vector, updated_at) " +
+            "SELECT p.id, p.store_id, " +
+            "lower(concat_ws(' ', p.title, p.vendor, p.product_type, t.names, v.codes)), " +
+            "setweight(to_tsvector('simple', coalesce(p.title, '')), 'A') " +
+            "|| setweight(to_tsvector('simple', coalesce(v.codes, '')), 'A') " +
+            "|| setweight(to_tsvector('simple', concat_ws(' ', p.vendor, p.product_type, t.names)), 'B') " +
+            "|| setweight(to_tsvector('simple', coalesce(regexp_replace(p.body_html, '<[^>]*>', ' ', 'g'), '')), 'D'), " +
+            "NOW() " +
+            "FROM products p " +
+            "LEFT JOIN LATERAL (SELECT string_agg(tg.name, ' ') AS names FROM product_tags pt JOIN tags tg ON tg.id = pt.tag_id WHERE pt.product_id = p.id) t ON TRUE " +
+            "LEFT JOIN LATERAL (SELECT string_agg(concat_ws(' ', pv.sku, pv.barcode), ' ') AS codes FROM product_variants pv WHERE pv.product_id = p.id) v ON TRUE " +
+            "WHERE p.id IN (:productIds) " +
+            "ON CONFLICT (product_id) DO UPDATE SET store_id = EXCLUDED.store_id, document = EXCLUDED.document, " +
+            "search_vector = EXCLUDED.search_vector, updated_at = EXCLUDED.updated_at";
+
+    private static final String MATCH =
+            "FROM product_search_documents d JOIN products p ON p.id = d.product_id " +
+            "WHERE d.store_id = :storeId AND p.deleted_at IS NULL " +
+            "AND (d.search_vector @@ to_tsquery('simple', :tsq) OR :q <% d.document OR d.document LIKE :like) ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Returns matching product IDs for one page, most relevant first (full-text rank plus trigram similarity).
+     */
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public Page<Long> search(Long storeId, Product.ProductStatus status, String q, Pageable pageable) {
+        String normalized = q != null ? q.trim().toLowerCase(Locale.ROOT) : "";
+        String tsq = toPrefixTsQuery(normalized);
+        if (tsq.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        String match = status != null ? MATCH + "AND p.status = :status " : MATCH;
+        Query select = entityManager.createNativeQuery("SELECT p.id " + match +
+                "ORDER BY ts_rank_cd(d.search_vector, to_tsquery('simple', :tsq)) + word_similarity(:q, d.document) DESC, p.id DESC");
+        bind(select, storeId, status, normalized, tsq);
+        select.setFirstResult((int) pageable.getOffset());
+        select.setMaxResults(pageable.getPageSize());
+        List<Long> ids = new ArrayList<>();
+        for (Number n : (List<Number>) select.getResultList()) ids.add(n.longValue());
+
+        Query count = entityManager.createNativeQuery("SELECT COUNT(*) " + match);
+        bind(count, storeId, status, normalized, tsq);
+        long total = ((Number) count.getSingleResult()).longValue();
+        return new PageImpl<>(ids, pageable, total);
+    }
+
+    /**
+     * Up to {@code limit} matching product IDs, most relevant first, without a count query; for callers that narrow
+     * the ranking further in memory (storefront facets).
+     */
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public List<Long> rankedIds(Long storeId, Product.ProductStatus status, String q, int limit) {
+        String normalized = q != null ? q.trim().toLowerCase(Locale.ROOT) : "";
+        String tsq = toPrefixTsQuery(normalized);
+        if (tsq.isEmpty()) {
+            return List.of();
+        }
+        String match = status != null ? MATCH + "AND p.status = :status " : MATCH;
+        Query select = entityManager.createNativeQuery("SELECT p.id " + match +
+                "ORDER BY ts_rank_cd(d.search_vector, to_tsquery('simple', :tsq)) + word_similarity(:q, d.document) DESC, p.id DESC");
+        bind(select, storeId, status, normalized, tsq);
+        select.setMaxResults(limit);
+        List<Long> ids = new ArrayList<>();
+        for (Number n : (List<Number>) select.getResultList()) ids.add(n.longValue());
+        return ids;
+    }
+
+    /** Rebuilds the search document for a product from its current title, tags and variants. */
+    @Transactional
+    public void reindex(Long productId) {
+        reindex(List.of(productId));
+    }
+
+    @Transactional
+    public void reindex(List<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) return;
+        entityManager.flush();
+        entityManager.createNativeQuery(DOCUMENT_UPSERT)
+                .setParameter("productIds", productIds)
+                .executeUpdate();
+    }
+
+    private static void bind(Query query, Long storeId, Product.ProductStatus status, String q, String tsq) {
+        query.setParameter("storeId", storeId);
+        if (status != null) query.setParameter("status", status.name());
+        query.setParameter("tsq", tsq);
+        query.setParameter("q", q);
+        query.setParameter("like", "%" + escapeLike(q) + "%");
+    }
+
+    /** "cotton shi" becomes "cotton:* & shi:*" so every term matches as a prefix. */
+    static String toPrefixTsQuery(String q) {
+        List<String> terms = new ArrayList<>();
+        for (String token : q.split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) terms.add(token + ":*");
+        }
+        return String.join(" & ", terms);
+    }
+
+    private static String escapeLike(String q) {
+        return q.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -1,17 +1,27 @@
 package com.securemarts.domain.catalog.service;
 
 import com.securemarts.domain.catalog.entity.Collection;
+import com.securemarts.domain.catalog.event.CatalogChangedEvent;
 import com.securemarts.domain.catalog.repository.CollectionRepository;
+import com.securemarts.domain.catalog.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
- * Recomputes smart collection membership asynchronously when catalog or inventory changes.
+ * Keeps smart collection membership in sync with the catalog. Product, variant and stock changes are applied
+ * incrementally: each smart collection's rules are evaluated once for the whole set of changed products, and only
+ * their collection_products rows are inserted or deleted, set-wise. Stock changes re-check only collections with stock rules.
+ * The full per-store recompute remains as a repair operation and for bulk changes such as imports.
+ * <p>
+ * Runs synchronously in its own transaction; callers request work through {@link SmartCollectionRecomputeScheduler},
+ * which coalesces and serializes it per store.
  */
 @Service
 @RequiredArgsConstructor
@@ -19,9 +29,13 @@ import java.util.List;
 public class RecomputeSmartCollectionsService {
 
     private final CollectionRepository collectionRepository;
+    private final ProductRepository productRepository;
     private final CollectionService collectionService;
+    private final CollectionRuleEvaluator collectionRuleEvaluator;
+    private final CollectionRuleIndex collectionRuleIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @Async
+    /** Full recompute of every smart collection in the store (repair, bulk import). */
     @Transactional
     public void recomputeForStore(Long storeId) {
         List<Collection> smart = collectionRepository.findByStoreIdAndCollectionTypeWithRules(storeId, Collection.CollectionType.SMART);
@@ -34,11 +48,35 @@ public class RecomputeSmartCollectionsService {
         }
     }
 
-    @Async
     @Transactional
     public void recomputeForCollection(Long collectionId) {
         collectionRepository.findByIdWithRules(collectionId)
                 .filter(c -> c.getCollectionType() == Collection.CollectionType.SMART)
                 .ifPresent(collectionService::recomputeSmartCollection);
     }
+
+    /**
+     * Re-evaluates the products (created, edited, deleted) against every smart collection of the store; with
+     * stockOnly, only against collections that have stock rules. Each collection is one DELETE and one INSERT pinned
+     * to the products, and one change event is published per product whose membership changed.
+     */
+    @Transactional
+    public void recomputeForProducts(Long storeId, Set<Long> productIds, boolean stockOnly) {
+        List<Collection> smart = collectionRepository.findByStoreIdAndCollectionTypeWithRules(storeId, Collection.CollectionType.SMART);
+        if (stockOnly) smart = smart.stream().filter(CollectionRuleEvaluator::dependsOnStock).toList();
+        if (smart.isEmpty() || productIds.isEmpty()) return;
+        collectionRuleIndex.sync(storeId);
+        Set<Long> changed = new LinkedHashSet<>();
+        for (Collection c : smart) {
+            try {
+                changed.addAll(collectionRuleEvaluator.syncMembership(c, storeId, productIds));
+            } catch (Exception e) {
+                log.warn("Membership update failed for collection {} and {} products: {}", c.getPublicId(), productIds.size(), e.getMessage());
+            }
+        }
+        if (changed.isEmpty()) return;
+        for (String publicId : productRepository.findPublicIdsByIdIn(changed)) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(this, storeId, publicId, true));
+        }
+    }
 }
@@ -0,0 +1,238 @@
+package com.securemarts.domain.catalog.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Front door for smart collection maintenance. Requests are queued per store and merged: a burst of edits becomes
+ * one run after a short debounce, product-level requests collapse into one set, and a full recompute absorbs
+ * everything else queued for the store. At most one run per store is in flight (so recomputes never race on the
+ * same collection_products rows), runs use a small private pool, and a store has at most one queued task, so the
+ * backlog is bounded by the number of stores with pending work.
+ * <p>
+ * Requests made inside a transaction are queued after it commits (and dropped on rollback), so runs always see
+ * the change that triggered them.
+ */
+@Component
+@Slf4j
+public class SmartCollectionRecomputeScheduler {
+
+    private final RecomputeSmartCollectionsService recomputeSmartCollectionsService;
+    private final ThreadPoolTaskScheduler scheduler;
+    private final Duration debounce;
+    private final ConcurrentMap<Long, StoreQueue> stores = new ConcurrentHashMap<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong totalRunMillis = new AtomicLong();
+    private final AtomicLong maxRunMillis = new AtomicLong();
+    private volatile long lastRunMillis;
+
+    public SmartCollectionRecomputeScheduler(RecomputeSmartCollectionsService recomputeSmartCollectionsService,
+                                             @Value("${app.collections.recompute.threads:2}") int threads,
+                                             @Value("${app.collections.recompute.debounce-millis:500}") long debounceMillis) {
+        this.recomputeSmartCollectionsService = recomputeSmartCollectionsService;
+        this.debounce = Duration.ofMillis(debounceMillis);
+        this.scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(threads);
+        scheduler.setThreadNamePrefix("collection-recompute-");
+        scheduler.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    /** Full recompute of every smart collection in the store (repair, bulk import). */
+    public void recomputeForStore(Long storeId) {
+        request(storeId, work -> work.full = true);
+    }
+
+    public void recomputeForCollection(Long storeId, Long collectionId) {
+        request(storeId, work -> work.collections.add(collectionId));
+    }
+
+    /** The product was created, edited or deleted. */
+    public void recomputeForProduct(Long storeId, Long productId) {
+        if (productId == null) return;
+        request(storeId, work -> work.products.add(productId));
+    }
+
+    /** The product's stock changed; only collections with stock rules are re-checked. */
+    public void recomputeForStockChange(Long storeId, Long productId) {
+        if (productId == null) return;
+        request(storeId, work -> work.stockProducts.add(productId));
+    }
+
+    /** Stock changed for many products at once (bulk adjustment); queued as one request. */
+    public void recomputeForStockChange(Long storeId, Collection<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) return;
+        List<Long> ids = List.copyOf(productIds);
+        request(storeId, work -> work.stockProducts.addAll(ids));
+    }
+
+    public Stats stats() {
+        long completed = runs.get();
+        return Stats.builder()
+                .queueDepth(queued.get())
+                .running(running.get())
+                .requested(requested.get())
+                .coalesced(coalesced.get())
+                .runs(completed)
+                .failures(failures.get())
+                .lastRunMillis(lastRunMillis)
+                .maxRunMillis(maxRunMillis.get())
+                .averageRunMillis(completed > 0 ? totalRunMillis.get() / completed : 0)
+                .build();
+    }
+
+    private void request(Long storeId, Consumer<Work> change) {
+        if (storeId == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(storeId, change);
+                }
+            });
+        } else {
+            enqueue(storeId, change);
+        }
+    }
+
+    private void enqueue(Long storeId, Consumer<Work> change) {
+        requested.incrementAndGet();
+        while (true) {
+            StoreQueue queue = stores.computeIfAbsent(storeId, id -> new StoreQueue());
+            synchronized (queue) {
+                if (queue.detached) continue;
+                if (!queue.pending.isEmpty()) coalesced.incrementAndGet();
+                change.accept(queue.pending);
+                if (!queue.scheduled && !queue.running) scheduleRun(storeId, queue);
+                return;
+            }
+        }
+    }
+
+    /** Caller holds the queue's monitor. */
+    private void scheduleRun(Long storeId, StoreQueue queue) {
+        queue.scheduled = true;
+        queued.incrementAndGet();
+        scheduler.schedule(() -> run(storeId, queue), Instant.now().plus(debounce));
+    }
+
+    private void run(Long storeId, StoreQueue queue) {
+        Work work;
+        synchronized (queue) {
+            work = queue.pending;
+            queue.pending = new Work();
+            queue.scheduled = false;
+            queue.running = true;
+        }
+        queued.decrementAndGet();
+        running.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            execute(storeId, work);
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            log.warn("Smart collection recompute failed for store {}: {}", storeId, e.getMessage());
+        } finally {
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            runs.incrementAndGet();
+            totalRunMillis.addAndGet(millis);
+            maxRunMillis.accumulateAndGet(millis, Math::max);
+            lastRunMillis = millis;
+            running.decrementAndGet();
+            synchronized (queue) {
+                queue.running = false;
+                if (!queue.pending.isEmpty()) {
+                    scheduleRun(storeId, queue);
+                } else {
+                    queue.detached = true;
+                    stores.remove(storeId, queue);
+                }
+            }
+        }
+    }
+
+    private void execute(Long storeId, Work work) {
+        if (work.full) {
+            recomputeSmartCollectionsService.recomputeForStore(storeId);
+            return;
+        }
+        for (Long collectionId : work.collections) {
+            recomputeSmartCollectionsService.recomputeForCollection(collectionId);
+        }
+        if (!work.products.isEmpty()) {
+            recomputeSmartCollectionsService.recomputeForProducts(storeId, work.products, false);
+        }
+        work.stockProducts.removeAll(work.products);
+        if (!work.stockProducts.isEmpty()) {
+            recomputeSmartCollectionsService.recomputeForProducts(storeId, work.stockProducts, true);
+        }
+    }
+
+    /**
+     * Pending work and run state for one store. A queue is removed from the map once it is idle; a request that
+     * raced with the removal still holds the old queue, so enqueue re-reads the map when it finds one detached.
+     */
+    private static class StoreQueue {
+        private Work pending = new Work();
+        private boolean scheduled;
+        private boolean running;
+        private boolean detached;
+    }
+
+    /** Merged requests for one store. */
+    private static class Work {
+        private boolean full;
+        private final Set<Long> collections = new LinkedHashSet<>();
+        private final Set<Long> products = new LinkedHashSet<>();
+        private final Set<Long> stockProducts = new LinkedHashSet<>();
+
+        boolean isEmpty() {
+            return !full && collections.isEmpty() && products.isEmpty() && stockProducts.isEmpty();
+        }
+    }
+
+    @Getter
+    @Builder
+    public static class Stats {
+        /** Stores waiting for their debounced run. */
+        private final int queueDepth;
+        private final int running;
+        private final long requested;
+        /** Requests merged into work that was already queued. */
+        private final long coalesced;
+        private final long runs;
+        private final long failures;
+        private final long lastRunMillis;
+        private final long maxRunMillis;
+        private final long averageRunMillis;
+    }
+}
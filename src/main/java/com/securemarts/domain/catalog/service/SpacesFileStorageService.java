@@ -8,12 +8,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.ObjectCannedACL;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
 import java.io.IOException;
-import java.util.UUID;
-import java.util.regex.Pattern;
 
 @Service
 @ConditionalOnBean(S3Client.class)
@@ -21,15 +20,13 @@ import java.util.regex.Pattern;
 @Slf4j
 public class SpacesFileStorageService implements FileStorageService {
 
-    private static final Pattern SAFE_FILENAME = Pattern.compile("^[a-zA-Z0-9._-]+$");
-
     private final S3Client s3Client;
     private final SpacesStorageProperties spacesProperties;
 
     @Override
     public String store(String storePublicId, MultipartFile file) throws IOException {
         if (file == null || file.isEmpty()) return null;
-        String key = buildKey("products", storePublicId, file.getOriginalFilename());
+        String key = StorageKeys.build("products", storePublicId, file.getOriginalFilename());
         upload(key, file);
         return spacesProperties.getPublicUrlForKey(key);
     }
@@ -37,7 +34,7 @@ public class SpacesFileStorageService implements FileStorageService {
     @Override
     public String storeBusinessDocument(String businessPublicId, MultipartFile file) throws IOException {
         if (file == null || file.isEmpty()) return null;
-        String key = buildKey("compliance", businessPublicId, file.getOriginalFilename());
+        String key = StorageKeys.build("compliance", businessPublicId, file.getOriginalFilename());
         upload(key, file);
         return spacesProperties.getPublicUrlForKey(key);
     }
@@ -45,7 +42,7 @@ public class SpacesFileStorageService implements FileStorageService {
     @Override
     public String storeBusinessLogo(String businessPublicId, MultipartFile file) throws IOException {
         if (file == null || file.isEmpty()) return null;
-        String key = buildKey("business-logos", businessPublicId, file.getOriginalFilename());
+        String key = StorageKeys.build("business-logos", businessPublicId, file.getOriginalFilename());
         upload(key, file);
         return spacesProperties.getPublicUrlForKey(key);
     }
@@ -53,7 +50,7 @@ public class SpacesFileStorageService implements FileStorageService {
     @Override
     public String storeRiderDocument(String riderPublicId, MultipartFile file) throws IOException {
         if (file == null || file.isEmpty()) return null;
-        String key = buildKey("riders", riderPublicId, file.getOriginalFilename());
+        String key = StorageKeys.build("riders", riderPublicId, file.getOriginalFilename());
         upload(key, file);
         return spacesProperties.getPublicUrlForKey(key);
     }
@@ -61,7 +58,7 @@ public class SpacesFileStorageService implements FileStorageService {
     @Override
     public String storePod(String deliveryOrderPublicId, MultipartFile file) throws IOException {
         if (file == null || file.isEmpty()) return null;
-        String key = buildKey("pod", deliveryOrderPublicId, file.getOriginalFilename());
+        String key = StorageKeys.build("pod", deliveryOrderPublicId, file.getOriginalFilename());
         upload(key, file);
         return spacesProperties.getPublicUrlForKey(key);
     }
@@ -69,16 +66,34 @@ public class SpacesFileStorageService implements FileStorageService {
     @Override
     public String storeCollectionImage(String storePublicId, MultipartFile file) throws IOException {
         if (file == null || file.isEmpty()) return null;
-        String key = buildKey("collections", storePublicId, file.getOriginalFilename());
+        String key = StorageKeys.build("collections", storePublicId, file.getOriginalFilename());
         upload(key, file);
         return spacesProperties.getPublicUrlForKey(key);
     }
 
-    private String buildKey(String namespace, String entityId, String originalFilename) {
-        String name = originalFilename != null && !originalFilename.isBlank() ? originalFilename : "file";
-        String sanitized = sanitizeFilename(name);
-        String unique = UUID.randomUUID().toString().replace("-", "").substring(0, 12);
-        return namespace + "/" + entityId + "/" + unique + "_" + sanitized;
+    /** Derivative keys are unique per upload, so CDNs and browsers may cache them forever. */
+    @Override
+    public String storeImageDerivative(String storePublicId, String fileName, byte[] data, String contentType) {
+        String key = StorageKeys.build("products", storePublicId, fileName);
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(spacesProperties.getBucket())
+                .key(key)
+                .contentType(contentType)
+                .cacheControl("public, max-age=31536000, immutable")
+                .acl(ObjectCannedACL.PUBLIC_READ)
+                .build();
+        s3Client.putObject(request, RequestBody.fromBytes(data));
+        return spacesProperties.getPublicUrlForKey(key);
+    }
+
+    @Override
+    public void delete(String url) {
+        String base = spacesProperties.getPublicUrlForKey("");
+        if (url == null || !url.startsWith(base) || url.length() == base.length()) return;
+        s3Client.deleteObject(DeleteObjectRequest.builder()
+                .bucket(spacesProperties.getBucket())
+                .key(url.substring(base.length()))
+                .build());
     }
 
     private void upload(String key, MultipartFile file) throws IOException {
@@ -91,18 +106,4 @@ public class SpacesFileStorageService implements FileStorageService {
                 .build();
         s3Client.putObject(request, RequestBody.fromInputStream(file.getInputStream(), file.getSize()));
     }
-
-    private static String sanitizeFilename(String name) {
-        int last = Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\'));
-        if (last >= 0) name = name.substring(last + 1);
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < name.length(); i++) {
-            char c = name.charAt(i);
-            if (SAFE_FILENAME.matcher(String.valueOf(c)).matches() || c == ' ') {
-                sb.append(c == ' ' ? '-' : c);
-            }
-        }
-        if (sb.length() == 0) sb.append("file");
-        return sb.toString();
-    }
 }
@@ -0,0 +1,34 @@
+package com.securemarts.domain.catalog.service;
+
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/** Object keys shared by the storage backends: namespace/entityId/uniquePrefix_sanitizedName. */
+final class StorageKeys {
+
+    private static final Pattern SAFE_FILENAME = Pattern.compile("^[a-zA-Z0-9._-]+$");
+
+    private StorageKeys() {
+    }
+
+    static String build(String namespace, String entityId, String originalFilename) {
+        String name = originalFilename != null && !originalFilename.isBlank() ? originalFilename : "file";
+        String sanitized = sanitizeFilename(name);
+        String unique = UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        return namespace + "/" + entityId + "/" + unique + "_" + sanitized;
+    }
+
+    private static String sanitizeFilename(String name) {
+        int last = Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\'));
+        if (last >= 0) name = name.substring(last + 1);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (SAFE_FILENAME.matcher(String.valueOf(c)).matches() || c == ' ') {
+                sb.append(c == ' ' ? '-' : c);
+            }
+        }
+        if (sb.length() == 0) sb.append("file");
+        return sb.toString();
+    }
+}
@@ -6,6 +6,7 @@ import com.securemarts.domain.discovery.dto.LocationAvailabilityResponse;
 import com.securemarts.domain.discovery.dto.LocationSummaryResponse;
 import com.securemarts.domain.discovery.dto.StoreDiscoveryResponse;
 import com.securemarts.domain.discovery.service.DiscoveryService;
+import com.securemarts.domain.storefront.service.CatalogHttpCaching;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -13,6 +14,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -24,6 +26,7 @@ import java.util.List;
 public class DiscoveryController {
 
     private final DiscoveryService discoveryService;
+    private final CatalogHttpCaching catalogHttpCaching;
 
     @GetMapping("/stores")
     @Operation(summary = "Search stores", description = "By name/brand (q), city/state, or geo (lat, lng, radiusKm). Sort by distance when lat/lng provided; use sort=rating for highest-rated first. Use includeLocations=true to embed location list (publicId, name, address) per store.")
@@ -42,18 +45,21 @@ public class DiscoveryController {
     }
 
     @GetMapping("/stores/{storePublicId}/locations")
-    @Operation(summary = "List locations for store", description = "Public list of locations (pick-up points, branches). Use locationPublicId in the availability endpoint.")
-    public ResponseEntity<List<LocationSummaryResponse>> listLocationsForStore(@PathVariable String storePublicId) {
-        return ResponseEntity.ok(discoveryService.listLocationsForStore(storePublicId));
+    @Operation(summary = "List locations for store", description = "Public list of locations (pick-up points, branches). Use locationPublicId in the availability endpoint. Supports conditional GET.")
+    public ResponseEntity<List<LocationSummaryResponse>> listLocationsForStore(@PathVariable String storePublicId, WebRequest request) {
+        return catalogHttpCaching.respondByStorePublicId(storePublicId, request,
+                () -> discoveryService.listLocationsForStore(storePublicId));
     }
 
     @GetMapping("/stores/{storePublicId}/locations/{locationPublicId}/availability")
-    @Operation(summary = "Inventory availability by location", description = "Returns variants with quantity and product details (title, price, image) for UI. Pass variantIds for specific variants, or omit for all at location.")
+    @Operation(summary = "Inventory availability by location", description = "Returns variants with quantity and product details (title, price, image) for UI. Pass variantIds for specific variants, or omit for all at location. Supports conditional GET.")
     public ResponseEntity<LocationAvailabilityResponse> getLocationAvailability(
             @PathVariable String storePublicId,
             @PathVariable String locationPublicId,
-            @Parameter(description = "Filter by variant public IDs (comma-separated). Omit for all variants at this location.") @RequestParam(required = false) List<String> variantIds) {
-        return ResponseEntity.ok(discoveryService.getLocationAvailability(storePublicId, locationPublicId, variantIds));
+            @Parameter(description = "Filter by variant public IDs (comma-separated). Omit for all variants at this location.") @RequestParam(required = false) List<String> variantIds,
+            WebRequest request) {
+        return catalogHttpCaching.respondByStorePublicId(storePublicId, request,
+                () -> discoveryService.getLocationAvailability(storePublicId, locationPublicId, variantIds));
     }
 
     @GetMapping("/stores/{storePublicId}/delivery-eta")
@@ -121,7 +121,8 @@ public class DiscoveryService {
         Map<Long, String> productIdToFirstImageUrl = new HashMap<>();
         if (!productIds.isEmpty()) {
             for (var pm : productMediaRepository.findByProduct_IdInOrderByPositionAsc(productIds)) {
-                productIdToFirstImageUrl.putIfAbsent(pm.getProduct().getId(), pm.getUrl());
+                String thumbnail = pm.getThumbnailUrl() != null ? pm.getThumbnailUrl() : pm.getUrl();
+                productIdToFirstImageUrl.putIfAbsent(pm.getProduct().getId(), thumbnail);
             }
         }
         Map<Long, String> finalImageMap = productIdToFirstImageUrl;
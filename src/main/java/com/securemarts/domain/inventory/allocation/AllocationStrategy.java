@@ -0,0 +1,38 @@
+package com.securemarts.domain.inventory.allocation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which locations fulfil an order. Implementations work in memory on the candidate levels read for the
+ * whole order (the reservation re-checks every level when it is applied) and are selected by name with
+ * {@code app.inventory.allocation.strategy}.
+ * Implementations: ConsolidatingAllocationStrategy (fewest shipments, then nearest), AvailableFirstAllocationStrategy.
+ */
+public interface AllocationStrategy {
+
+    String name();
+
+    /**
+     * Allocates every variant's quantity to candidate locations. A variant its candidates cannot cover is allocated
+     * as far as they go; the caller reports the shortage.
+     */
+    List<Allocation> allocate(Map<String, Integer> quantities, Map<String, List<Candidate>> candidates);
+
+    /** Stock of a variant at a location; distanceKm to the customer is null when either side has no coordinates. */
+    @lombok.Getter
+    @lombok.RequiredArgsConstructor
+    class Candidate {
+        private final Long locationId;
+        private final int available;
+        private final Double distanceKm;
+    }
+
+    @lombok.Getter
+    @lombok.RequiredArgsConstructor
+    class Allocation {
+        private final String variantPublicId;
+        private final Long locationId;
+        private final int quantity;
+    }
+}
@@ -0,0 +1,39 @@
+package com.securemarts.domain.inventory.allocation;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Allocates each variant on its own to the locations with the most available first. Ignores the other lines of the
+ * order and the customer's position, so an order can split across many locations.
+ */
+@Component
+public class AvailableFirstAllocationStrategy implements AllocationStrategy {
+
+    @Override
+    public String name() {
+        return "AVAILABLE_FIRST";
+    }
+
+    @Override
+    public List<Allocation> allocate(Map<String, Integer> quantities, Map<String, List<Candidate>> candidates) {
+        List<Allocation> allocations = new ArrayList<>();
+        quantities.forEach((variant, quantity) -> {
+            int remaining = quantity;
+            List<Candidate> levels = new ArrayList<>(candidates.getOrDefault(variant, List.of()));
+            levels.sort(Comparator.comparingInt(Candidate::getAvailable).reversed().thenComparing(Candidate::getLocationId));
+            for (Candidate c : levels) {
+                if (remaining <= 0) break;
+                int take = Math.min(remaining, c.getAvailable());
+                if (take <= 0) continue;
+                allocations.add(new Allocation(variant, c.getLocationId(), take));
+                remaining -= take;
+            }
+        });
+        return allocations;
+    }
+}
@@ -0,0 +1,176 @@
+package com.securemarts.domain.inventory.allocation;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Allocates all lines of the order together: the fewest locations (shipments) that can cover every line, and among
+ * those the set closest to the customer (sum of location distances). The search enumerates location sets by size,
+ * nearest locations first and pruned on distance, over at most {@link #MAX_SEARCH_LOCATIONS} locations and
+ * {@link #MAX_SUBSETS} sets; past that bound it falls back to a greedy cover (the location covering most of what is
+ * left, nearest on ties). Within the chosen locations each line is taken from the nearest first.
+ * <p>
+ * Locations without coordinates (or all locations, when the customer has none) count as the farthest known one, so
+ * without any distances the best-stocked locations win.
+ */
+@Component
+public class ConsolidatingAllocationStrategy implements AllocationStrategy {
+
+    static final int MAX_SEARCH_LOCATIONS = 24;
+    static final int MAX_SUBSETS = 50_000;
+
+    @Override
+    public String name() {
+        return "CONSOLIDATE";
+    }
+
+    @Override
+    public List<Allocation> allocate(Map<String, Integer> quantities, Map<String, List<Candidate>> candidates) {
+        List<String> variants = new ArrayList<>();
+        quantities.forEach((variant, quantity) -> {
+            if (quantity != null && quantity > 0) variants.add(variant);
+        });
+        Map<Long, Integer> index = new HashMap<>();
+        List<Long> locationIds = new ArrayList<>();
+        List<int[]> stock = new ArrayList<>();
+        List<Double> distances = new ArrayList<>();
+        for (int v = 0; v < variants.size(); v++) {
+            for (Candidate c : candidates.getOrDefault(variants.get(v), List.of())) {
+                if (c.getAvailable() <= 0) continue;
+                Integer l = index.get(c.getLocationId());
+                if (l == null) {
+                    l = locationIds.size();
+                    index.put(c.getLocationId(), l);
+                    locationIds.add(c.getLocationId());
+                    stock.add(new int[variants.size()]);
+                    distances.add(c.getDistanceKm());
+                }
+                stock.get(l)[v] += c.getAvailable();
+            }
+        }
+        if (locationIds.isEmpty()) return List.of();
+
+        int[][] avail = stock.toArray(new int[0][]);
+        int[] need = new int[variants.size()];
+        for (int v = 0; v < need.length; v++) need[v] = quantities.get(variants.get(v));
+        double farthest = distances.stream().filter(d -> d != null).mapToDouble(Double::doubleValue).max().orElse(0);
+        double[] cost = new double[avail.length];
+        int[] covered = new int[avail.length];
+        for (int l = 0; l < avail.length; l++) {
+            cost[l] = distances.get(l) != null ? distances.get(l) : farthest;
+            for (int v = 0; v < need.length; v++) covered[l] += Math.min(avail[l][v], need[v]);
+        }
+        Integer[] order = new Integer[avail.length];
+        for (int l = 0; l < order.length; l++) order[l] = l;
+        Arrays.sort(order, Comparator.<Integer>comparingDouble(l -> cost[l])
+                .thenComparing(l -> -covered[l])
+                .thenComparing(locationIds::get));
+
+        int[] chosen = new Search(avail, need, cost, order).run();
+        if (chosen == null) chosen = greedyCover(avail, need, order);
+        return fill(variants, need, avail, chosen, cost, locationIds);
+    }
+
+    /** Each line from the chosen locations, nearest first. */
+    private static List<Allocation> fill(List<String> variants, int[] need, int[][] avail, int[] chosen, double[] cost, List<Long> locationIds) {
+        Integer[] byCost = Arrays.stream(chosen).boxed().sorted(Comparator.comparingDouble(l -> cost[l])).toArray(Integer[]::new);
+        List<Allocation> allocations = new ArrayList<>();
+        for (int v = 0; v < need.length; v++) {
+            int remaining = need[v];
+            for (int l : byCost) {
+                if (remaining <= 0) break;
+                int take = Math.min(remaining, avail[l][v]);
+                if (take <= 0) continue;
+                allocations.add(new Allocation(variants.get(v), locationIds.get(l), take));
+                remaining -= take;
+            }
+        }
+        return allocations;
+    }
+
+    /** Repeatedly adds the location covering most of the remaining units; may end short when stock does not cover. */
+    private static int[] greedyCover(int[][] avail, int[] need, Integer[] order) {
+        int[] remaining = need.clone();
+        boolean[] used = new boolean[avail.length];
+        List<Integer> chosen = new ArrayList<>();
+        while (true) {
+            int best = -1;
+            int bestCovered = 0;
+            for (int l : order) {
+                if (used[l]) continue;
+                int c = 0;
+                for (int v = 0; v < remaining.length; v++) c += Math.min(avail[l][v], remaining[v]);
+                if (c > bestCovered) {
+                    best = l;
+                    bestCovered = c;
+                }
+            }
+            if (best < 0) break;
+            used[best] = true;
+            chosen.add(best);
+            for (int v = 0; v < remaining.length; v++) remaining[v] -= Math.min(avail[best][v], remaining[v]);
+        }
+        return chosen.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /** Smallest covering location set of minimum cost, by increasing set size; null when none is found within bounds. */
+    private static class Search {
+        private final int[][] avail;
+        private final int[] need;
+        private final double[] cost;
+        private final int[] order;
+        private final int[] pick;
+        private int evaluated;
+        private double bestCost = Double.MAX_VALUE;
+        private int[] best;
+
+        Search(int[][] avail, int[] need, double[] cost, Integer[] order) {
+            this.avail = avail;
+            this.need = need;
+            this.cost = cost;
+            this.order = Arrays.stream(order).limit(MAX_SEARCH_LOCATIONS).mapToInt(Integer::intValue).toArray();
+            this.pick = new int[this.order.length];
+        }
+
+        int[] run() {
+            for (int k = 1; k <= order.length && evaluated < MAX_SUBSETS; k++) {
+                combinations(0, 0, k, 0);
+                if (best != null) return best;
+            }
+            return null;
+        }
+
+        private void combinations(int start, int depth, int k, double costSoFar) {
+            if (depth == k) {
+                evaluated++;
+                if (covers(k)) {
+                    bestCost = costSoFar;
+                    best = Arrays.copyOf(pick, k);
+                }
+                return;
+            }
+            for (int i = start; i <= order.length - (k - depth) && evaluated < MAX_SUBSETS; i++) {
+                double c = costSoFar + cost[order[i]];
+                // Locations are in increasing cost, so no later one can beat the best set either
+                if (c >= bestCost) break;
+                pick[depth] = order[i];
+                combinations(i + 1, depth + 1, k, c);
+            }
+        }
+
+        private boolean covers(int k) {
+            for (int v = 0; v < need.length; v++) {
+                int sum = 0;
+                for (int p = 0; p < k && sum < need[v]; p++) sum += avail[pick[p]][v];
+                if (sum < need[v]) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -1,25 +1,39 @@
 package com.securemarts.domain.inventory.controller;
 
+import com.securemarts.domain.inventory.dto.BulkInventoryAdjustmentRequest;
+import com.securemarts.domain.inventory.dto.BulkInventoryAdjustmentResponse;
 import com.securemarts.domain.inventory.dto.CreateInventoryItemRequest;
+import com.securemarts.domain.inventory.dto.FlashSaleRequest;
 import com.securemarts.domain.inventory.dto.InventoryAdjustmentRequest;
 import com.securemarts.domain.inventory.dto.InventoryItemResponse;
+import com.securemarts.domain.inventory.dto.InventoryValuationResponse;
 import com.securemarts.domain.inventory.dto.LocationRequest;
+import com.securemarts.domain.inventory.dto.ReorderThresholdRequest;
+import com.securemarts.domain.inventory.dto.StockAlertResponse;
 import com.securemarts.domain.inventory.entity.Location;
 import com.securemarts.domain.inventory.service.InventoryService;
+import com.securemarts.domain.inventory.service.InventorySnapshotService;
 import com.securemarts.domain.onboarding.repository.StoreRepository;
 import com.securemarts.domain.onboarding.service.MerchantPermissionService;
 import com.securemarts.domain.onboarding.service.StoreAccessService;
+import com.securemarts.common.dto.SliceResponse;
+import com.securemarts.common.util.CursorCodec;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -32,6 +46,7 @@ import java.util.stream.Collectors;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final InventorySnapshotService inventorySnapshotService;
     private final StoreRepository storeRepository;
     private final StoreAccessService storeAccessService;
     private final MerchantPermissionService merchantPermissionService;
@@ -76,20 +91,41 @@ public class InventoryController {
         return ResponseEntity.ok(InventoryItemResponse.from(inventoryService.getOrCreateLevel(storeId, request.getVariantPublicId(), request.getLocationPublicId())));
     }
 
+    @PutMapping("/items/{inventoryItemPublicId}/flash-sale")
+    @Operation(summary = "Set flash-sale mode", description = "For variants expecting a burst of concurrent checkouts: reservations are granted from stock "
+            + "allotted to each server in blocks instead of locking the level row per checkout. Takes effect within a few seconds.")
+    @PreAuthorize("hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
+    public ResponseEntity<InventoryItemResponse> setFlashSale(
+            @AuthenticationPrincipal String userPublicId,
+            @PathVariable String storePublicId,
+            @PathVariable String inventoryItemPublicId,
+            @Valid @RequestBody FlashSaleRequest request) {
+        storeAccessService.ensureUserCanAccessStore(userPublicId, storePublicId);
+        merchantPermissionService.ensureStorePermissionByPublicId(userPublicId, storePublicId, "inventory:write");
+        Long storeId = resolveStoreId(storePublicId);
+        return ResponseEntity.ok(inventoryService.setFlashSale(storeId, inventoryItemPublicId, request.getEnabled()));
+    }
+
     @GetMapping("/items")
-    @Operation(summary = "List inventory levels", description = "Per-location inventory for store (one row per variant+location)")
+    @Operation(summary = "List inventory levels", description = "Per-location inventory for store (one row per variant+location). "
+            + "Pass limit (and after from meta.nextCursor) for cursor pagination instead of the full list.")
     @PreAuthorize("hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
-    public ResponseEntity<List<InventoryItemResponse>> listItems(
+    public ResponseEntity<?> listItems(
             @AuthenticationPrincipal String userPublicId,
-            @PathVariable String storePublicId) {
+            @PathVariable String storePublicId,
+            @Parameter(description = "Cursor mode: opaque cursor from meta.nextCursor") @RequestParam(required = false) String after,
+            @Parameter(description = "Cursor mode: slice size (max 200)") @RequestParam(required = false) Integer limit) {
         storeAccessService.ensureUserCanAccessStore(userPublicId, storePublicId);
         merchantPermissionService.ensureStorePermissionByPublicId(userPublicId, storePublicId, "inventory:read");
         Long storeId = resolveStoreId(storePublicId);
+        if (CursorCodec.isCursorRequest(after, limit)) {
+            return ResponseEntity.ok(inventoryService.listInventoryByStoreSlice(storeId, after, limit));
+        }
         return ResponseEntity.ok(inventoryService.listInventoryByStore(storeId));
     }
 
     @GetMapping("/items/low-stock")
-    @Operation(summary = "Low stock alerts")
+    @Operation(summary = "Low stock levels", description = "Levels whose quantity available is at or below their reorder threshold (default 0).")
     @PreAuthorize("hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
     public ResponseEntity<List<InventoryItemResponse>> lowStock(
             @AuthenticationPrincipal String userPublicId,
@@ -100,6 +136,41 @@ public class InventoryController {
         return ResponseEntity.ok(inventoryService.listLowStock(storeId));
     }
 
+    @GetMapping("/alerts")
+    @Operation(summary = "Stock alerts", description = "LOW_STOCK / RESTOCKED events raised when a level crosses its reorder threshold, oldest first. "
+            + "Poll with after = meta.nextCursor of the last slice (or the last seen cursor) to receive only new alerts.")
+    @PreAuthorize("hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
+    public ResponseEntity<SliceResponse<StockAlertResponse>> alerts(
+            @AuthenticationPrincipal String userPublicId,
+            @PathVariable String storePublicId,
+            @Parameter(description = "Opaque cursor from meta.nextCursor") @RequestParam(required = false) String after,
+            @Parameter(description = "Slice size (max 200)") @RequestParam(required = false) Integer limit) {
+        storeAccessService.ensureUserCanAccessStore(userPublicId, storePublicId);
+        merchantPermissionService.ensureStorePermissionByPublicId(userPublicId, storePublicId, "inventory:read");
+        Long storeId = resolveStoreId(storePublicId);
+        return ResponseEntity.ok(inventoryService.listStockAlerts(storeId, after, limit));
+    }
+
+    @GetMapping("/valuation")
+    @Operation(summary = "Stock on hand at a point in time", description = "Stock on hand (available + reserved) per variant and location, valued at unit cost, "
+            + "at the end of a day (date, UTC) or at an instant (at). Answered from the nearest daily snapshot plus the ledger movements in between.")
+    @PreAuthorize("hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
+    public ResponseEntity<InventoryValuationResponse> valuation(
+            @AuthenticationPrincipal String userPublicId,
+            @PathVariable String storePublicId,
+            @Parameter(description = "End of this day (UTC), e.g. 2024-06-30") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @Parameter(description = "Instant, e.g. 2024-06-30T18:00:00Z (instead of date)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant at,
+            @Parameter(description = "Limit to one location (public ID)") @RequestParam(required = false) String locationId) {
+        storeAccessService.ensureUserCanAccessStore(userPublicId, storePublicId);
+        merchantPermissionService.ensureStorePermissionByPublicId(userPublicId, storePublicId, "inventory:read");
+        Long storeId = resolveStoreId(storePublicId);
+        if ((date == null) == (at == null)) {
+            throw new com.securemarts.common.exception.BusinessRuleException("Pass either date or at");
+        }
+        Instant asOf = at != null ? at : date.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        return ResponseEntity.ok(inventorySnapshotService.stockAt(storeId, asOf, locationId));
+    }
+
     @PostMapping("/items/levels/{inventoryLevelPublicId}/adjust")
     @Operation(summary = "Adjust stock at a level", description = "Positive delta = add, negative = deduct. Use level publicId from list.")
     @PreAuthorize("hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
@@ -114,6 +185,34 @@ public class InventoryController {
         return ResponseEntity.ok(inventoryService.adjustStock(storeId, inventoryLevelPublicId, request));
     }
 
+    @PutMapping("/items/levels/{inventoryLevelPublicId}/reorder-threshold")
+    @Operation(summary = "Set reorder threshold", description = "The level is low on stock (and raises a LOW_STOCK alert) when quantity available falls to or below this value.")
+    @PreAuthorize("hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
+    public ResponseEntity<InventoryItemResponse> setReorderThreshold(
+            @AuthenticationPrincipal String userPublicId,
+            @PathVariable String storePublicId,
+            @PathVariable String inventoryLevelPublicId,
+            @Valid @RequestBody ReorderThresholdRequest request) {
+        storeAccessService.ensureUserCanAccessStore(userPublicId, storePublicId);
+        merchantPermissionService.ensureStorePermissionByPublicId(userPublicId, storePublicId, "inventory:write");
+        Long storeId = resolveStoreId(storePublicId);
+        return ResponseEntity.ok(inventoryService.setReorderThreshold(storeId, inventoryLevelPublicId, request.getReorderThreshold()));
+    }
+
+    @PostMapping("/items/levels/bulk-adjust")
+    @Operation(summary = "Bulk adjust stock", description = "Stock-take or receiving: up to 50000 lines, each addressing a level (inventoryLevelId, or variantId + locationId) "
+            + "with a delta or an absolute quantity. Valid lines are applied; failed lines are returned with their index and reason.")
+    @PreAuthorize("hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
+    public ResponseEntity<BulkInventoryAdjustmentResponse> bulkAdjust(
+            @AuthenticationPrincipal String userPublicId,
+            @PathVariable String storePublicId,
+            @Valid @RequestBody BulkInventoryAdjustmentRequest request) {
+        storeAccessService.ensureUserCanAccessStore(userPublicId, storePublicId);
+        merchantPermissionService.ensureStorePermissionByPublicId(userPublicId, storePublicId, "inventory:write");
+        Long storeId = resolveStoreId(storePublicId);
+        return ResponseEntity.ok(inventoryService.bulkAdjustStock(storeId, request));
+    }
+
     @PostMapping("/items/levels/{inventoryLevelPublicId}/reserve")
     @Operation(summary = "Reserve quantity at a level")
     @PreAuthorize("hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
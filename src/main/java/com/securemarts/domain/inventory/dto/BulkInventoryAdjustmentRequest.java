@@ -0,0 +1,42 @@
+package com.securemarts.domain.inventory.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Adjust many inventory levels at once (stock-take, supplier receiving). Lines that cannot be applied are reported, the rest are applied")
+public class BulkInventoryAdjustmentRequest {
+
+    @NotEmpty
+    @Size(max = 50000)
+    @Schema(description = "Adjustments (up to 50000)", requiredMode = Schema.RequiredMode.REQUIRED)
+    private List<Line> adjustments;
+
+    @Schema(description = "Inventory movement type recorded for quantityDelta lines; absolute quantity lines are recorded as ADJUSTMENT", allowableValues = {"ADJUSTMENT", "RESTOCK", "RETURN", "TRANSFER_IN", "TRANSFER_OUT"}, example = "ADJUSTMENT")
+    private String movementType = "ADJUSTMENT";
+
+    @Schema(description = "Reference type (e.g. STOCK_TAKE, PURCHASE_ORDER)", example = "STOCK_TAKE")
+    private String referenceType;
+
+    @Schema(description = "Reference ID", example = "count-2024-06")
+    private String referenceId;
+
+    @Data
+    @Schema(description = "One level, addressed by inventoryLevelId or by variantId + locationId, with either quantityDelta or quantity")
+    public static class Line {
+        @Schema(description = "Inventory level public ID")
+        private String inventoryLevelId;
+        @Schema(description = "Product variant public ID (with locationId)")
+        private String variantId;
+        @Schema(description = "Location public ID (with variantId)")
+        private String locationId;
+        @Schema(description = "Change to quantity available (positive to add, negative to deduct)", example = "24")
+        private Integer quantityDelta;
+        @Schema(description = "New absolute quantity available (stock-take count)", example = "120")
+        private Integer quantity;
+    }
+}
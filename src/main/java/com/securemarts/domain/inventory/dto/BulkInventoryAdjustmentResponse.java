@@ -0,0 +1,37 @@
+package com.securemarts.domain.inventory.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Schema(description = "Result of a bulk inventory adjustment")
+public class BulkInventoryAdjustmentResponse {
+
+    @Schema(description = "Lines in the request")
+    private int requested;
+
+    @Schema(description = "Levels whose quantity changed")
+    private int applied;
+
+    @Schema(description = "Lines that left the quantity as it was (zero delta or same count)")
+    private int unchanged;
+
+    @Schema(description = "Lines that were not applied, with the reason")
+    private List<Failure> failures = new ArrayList<>();
+
+    @Data
+    @Schema(description = "A line that was not applied")
+    public static class Failure {
+        @Schema(description = "0-based index of the line in the request")
+        private int index;
+        private String reason;
+
+        public Failure(int index, String reason) {
+            this.index = index;
+            this.reason = reason;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.securemarts.domain.inventory.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+@Schema(description = "Flash-sale mode of an inventory item")
+public class FlashSaleRequest {
+
+    @NotNull
+    @Schema(description = "Grant reservations for this variant from in-memory allotments", requiredMode = Schema.RequiredMode.REQUIRED, example = "true")
+    private Boolean enabled;
+}
@@ -20,8 +20,12 @@ public class InventoryItemResponse {
     private String locationName;
     private int quantityAvailable;
     private int quantityReserved;
-    @Schema(description = "True when quantity available is 0 or less")
+    @Schema(description = "Low on stock when quantity available is at or below this")
+    private int reorderThreshold;
+    @Schema(description = "True when quantity available is at or below the reorder threshold")
     private boolean lowStock;
+    @Schema(description = "Variant is in flash-sale mode (reservations granted from in-memory allotments)")
+    private boolean flashSale;
 
     public static InventoryItemResponse from(InventoryLevel level) {
         if (level == null) return null;
@@ -35,7 +39,9 @@ public class InventoryItemResponse {
                 .locationName(level.getLocation() != null ? level.getLocation().getName() : null)
                 .quantityAvailable(level.getQuantityAvailable())
                 .quantityReserved(level.getQuantityReserved())
-                .lowStock(level.getQuantityAvailable() <= 0)
+                .reorderThreshold(level.getReorderThreshold())
+                .lowStock(level.isLowStock())
+                .flashSale(item != null && item.isFlashSale())
                 .build();
     }
 
@@ -54,6 +60,7 @@ public class InventoryItemResponse {
                 .quantityAvailable(0)
                 .quantityReserved(0)
                 .lowStock(true)
+                .flashSale(item.isFlashSale())
                 .build();
     }
 }
@@ -0,0 +1,41 @@
+package com.securemarts.domain.inventory.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@Schema(description = "Stock on hand (available + reserved) and its value at a point in time")
+public class InventoryValuationResponse {
+
+    private Instant asOf;
+    @Schema(description = "Day of the snapshot the answer was derived from")
+    private LocalDate snapshotDate;
+    private Instant snapshotTakenAt;
+    @Schema(description = "Ledger movements replayed between the snapshot and asOf")
+    private int replayedMovements;
+    private long totalQuantity;
+    @Schema(description = "Sum of quantity × unit cost over lines with a known cost")
+    private BigDecimal totalValue;
+    private List<Line> lines;
+
+    @Data
+    @Builder
+    @Schema(description = "Stock of one variant at one location")
+    public static class Line {
+        private String productVariantId;
+        private String variantSku;
+        private String locationId;
+        private String locationName;
+        private int quantityOnHand;
+        @Schema(description = "Item cost when the snapshot was taken (current cost for levels created since)")
+        private BigDecimal unitCost;
+        private BigDecimal value;
+    }
+}
@@ -0,0 +1,16 @@
+package com.securemarts.domain.inventory.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+@Schema(description = "Reorder threshold of an inventory level")
+public class ReorderThresholdRequest {
+
+    @NotNull
+    @Min(0)
+    @Schema(description = "Level is low on stock when quantity available is at or below this value", requiredMode = Schema.RequiredMode.REQUIRED, example = "5")
+    private Integer reorderThreshold;
+}
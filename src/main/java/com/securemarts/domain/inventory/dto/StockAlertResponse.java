@@ -0,0 +1,25 @@
+package com.securemarts.domain.inventory.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@Schema(description = "A level crossing its reorder threshold (LOW_STOCK when it falls to or below it, RESTOCKED when it rises above)")
+public class StockAlertResponse {
+
+    private String alertType;
+    @Schema(description = "Inventory level public ID; null when the level has since been deleted")
+    private String inventoryLevelId;
+    private String productVariantId;
+    private String variantSku;
+    private String locationId;
+    private String locationName;
+    @Schema(description = "Quantity available right after the crossing")
+    private int quantityAvailable;
+    private int reorderThreshold;
+    private Instant createdAt;
+}
@@ -0,0 +1,18 @@
+package com.securemarts.domain.inventory.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+@Schema(description = "Available quantity of a variant summed across all locations")
+public class VariantAvailabilityResponse {
+
+    private String variantPublicId;
+    @Schema(description = "False when the variant has no inventory levels (stock not tracked, always purchasable)")
+    private boolean tracked;
+    @Schema(description = "Sum of quantity available across locations; null when not tracked")
+    private Integer quantityAvailable;
+    private boolean inStock;
+}
@@ -36,6 +36,10 @@ public class InventoryItem extends BaseEntity {
     @Column(name = "cost_amount", precision = 12, scale = 2)
     private BigDecimal costAmount;
 
+    /** Hot variant: reservations are granted from in-memory allotments (see FlashSaleReservations). */
+    @Column(name = "flash_sale", nullable = false)
+    private boolean flashSale;
+
     @OneToMany(mappedBy = "inventoryItem", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<InventoryLevel> levels = new ArrayList<>();
 }
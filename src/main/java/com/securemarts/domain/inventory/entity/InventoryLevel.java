@@ -22,6 +22,10 @@ public class InventoryLevel extends BaseEntity {
     @JoinColumn(name = "location_id", nullable = false)
     private Location location;
 
+    /** Copy of the item's store for store-scoped keyset pages; set by trigger on insert (see V58), read-only here. */
+    @Column(name = "store_id", insertable = false, updatable = false)
+    private Long storeId;
+
     @Column(name = "quantity_available", nullable = false)
     private int quantityAvailable;
 
@@ -31,6 +35,14 @@ public class InventoryLevel extends BaseEntity {
     @Column(name = "quantity_incoming", nullable = false)
     private int quantityIncoming;
 
+    /** Low on stock when quantity available is at or below this (0 = only when out of stock). */
+    @Column(name = "reorder_threshold", nullable = false)
+    private int reorderThreshold;
+
+    public boolean isLowStock() {
+        return quantityAvailable <= reorderThreshold;
+    }
+
     public int getQuantityOnHand() {
         return quantityAvailable + quantityReserved;
     }
@@ -4,15 +4,27 @@ import com.securemarts.common.entity.BaseEntity;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Immutable;
 
+/**
+ * Ledger row. The table is partitioned by month on created_at and append-only (a trigger rejects UPDATE/DELETE);
+ * bulk writers append through InventoryMovementWriter. Items and levels may be gone for old rows.
+ */
 @Entity
+@Immutable
 @Table(name = "inventory_movements", indexes = {
-        @Index(name = "idx_inventory_movements_item_id", columnList = "inventory_item_id")
+        @Index(name = "idx_inventory_movements_reference", columnList = "store_id, reference_type, reference_id, movement_type"),
+        @Index(name = "idx_inventory_movements_item_created", columnList = "inventory_item_id, created_at"),
+        @Index(name = "idx_inventory_movements_level_id", columnList = "inventory_level_id"),
+        @Index(name = "idx_inventory_movements_store_created", columnList = "store_id, created_at")
 })
 @Getter
 @Setter
 public class InventoryMovement extends BaseEntity {
 
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "inventory_item_id", nullable = false)
     private InventoryItem inventoryItem;
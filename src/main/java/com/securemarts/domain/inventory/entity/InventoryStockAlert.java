@@ -0,0 +1,53 @@
+package com.securemarts.domain.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+
+/**
+ * A level crossing its reorder threshold, written by the inventory_levels trigger (never by the application).
+ * The level may have been deleted since. {@code xid} is the writing transaction's id (xid8), read as a number; the feed
+ * is ordered by (xid, id).
+ */
+@Entity
+@Immutable
+@Table(name = "inventory_stock_alerts", indexes = {
+        @Index(name = "idx_inventory_stock_alerts_store_xid", columnList = "store_id, xid, id")
+})
+@Getter
+@Setter
+public class InventoryStockAlert {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
+    @Column(name = "inventory_level_id", nullable = false)
+    private Long inventoryLevelId;
+
+    @Column(name = "alert_type", nullable = false, length = 20)
+    private String alertType;
+
+    @Column(name = "quantity_available", nullable = false)
+    private int quantityAvailable;
+
+    @Column(name = "reorder_threshold", nullable = false)
+    private int reorderThreshold;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "xid", nullable = false, insertable = false, updatable = false, columnDefinition = "xid8")
+    private Long xid;
+
+    public enum AlertType {
+        LOW_STOCK,
+        RESTOCKED
+    }
+}
@@ -0,0 +1,32 @@
+package com.securemarts.domain.inventory.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Set;
+
+/**
+ * Published by stock mutations (adjustments, reservations, sales, new locations) so derived views of availability,
+ * such as storefront in-stock filters, can refresh. Carries the products whose stock changed; null productIds means
+ * the change may touch any product of the store (e.g. flash-sale flushes).
+ */
+@Getter
+public class InventoryChangedEvent extends ApplicationEvent {
+
+    private final Long storeId;
+    private final Set<Long> productIds;
+
+    public InventoryChangedEvent(Object source, Long storeId) {
+        this(source, storeId, null);
+    }
+
+    public InventoryChangedEvent(Object source, Long storeId, Set<Long> productIds) {
+        super(source);
+        this.storeId = storeId;
+        this.productIds = productIds != null ? Set.copyOf(productIds) : null;
+    }
+
+    public boolean isStoreWide() {
+        return productIds == null;
+    }
+}
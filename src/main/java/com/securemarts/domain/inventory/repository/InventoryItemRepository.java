@@ -2,7 +2,10 @@ package com.securemarts.domain.inventory.repository;
 
 import com.securemarts.domain.inventory.entity.InventoryItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +16,17 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, Lo
     Optional<InventoryItem> findByStoreIdAndProductVariantId(Long storeId, Long productVariantId);
 
     List<InventoryItem> findByStoreId(Long storeId);
+
+    /**
+     * Rows of [variantPublicId, inStore, quantityAvailable, levelCount] summed from the variant's levels (one indexed
+     * lookup per variant); one row per known variant, with a null quantity and zero count when it has no levels.
+     */
+    @Query(value = "SELECT pv.public_id, p.store_id = :storeId, va.quantity_available, va.level_count "
+            + "FROM product_variants pv JOIN products p ON p.id = pv.product_id "
+            + "LEFT JOIN LATERAL (SELECT SUM(il.quantity_available) AS quantity_available, COUNT(*) AS level_count "
+            + "FROM inventory_items ii JOIN inventory_levels il ON il.inventory_item_id = ii.id "
+            + "WHERE ii.store_id = :storeId AND ii.product_variant_id = pv.id) va ON TRUE "
+            + "WHERE pv.public_id IN (:variantPublicIds)", nativeQuery = true)
+    List<Object[]> findAvailabilityByVariantPublicIdIn(@Param("storeId") Long storeId,
+                                                      @Param("variantPublicIds") Collection<String> variantPublicIds);
 }
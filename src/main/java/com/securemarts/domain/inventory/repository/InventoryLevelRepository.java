@@ -1,12 +1,12 @@
 package com.securemarts.domain.inventory.repository;
 
 import com.securemarts.domain.inventory.entity.InventoryLevel;
-import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,9 +21,19 @@ public interface InventoryLevelRepository extends JpaRepository<InventoryLevel,
     @Query("SELECT il FROM InventoryLevel il JOIN FETCH il.inventoryItem i JOIN FETCH i.productVariant v JOIN FETCH il.location WHERE i.storeId = :storeId ORDER BY i.id, il.location.id")
     List<InventoryLevel> findByInventoryItem_StoreId(@Param("storeId") Long storeId);
 
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("SELECT il FROM InventoryLevel il WHERE il.inventoryItem.storeId = :storeId AND il.inventoryItem.productVariant.id = :variantId AND il.quantityAvailable > 0 ORDER BY il.quantityAvailable DESC")
-    List<InventoryLevel> findByStoreIdAndVariantIdForUpdate(@Param("storeId") Long storeId, @Param("variantId") Long variantId);
+    /**
+     * Keyset slice ordered by level id, seeking on the level's own store_id (index on store_id, id); pageable carries
+     * only the row limit (no count query).
+     */
+    @Query("SELECT il FROM InventoryLevel il JOIN FETCH il.inventoryItem i JOIN FETCH i.productVariant v JOIN FETCH il.location WHERE il.storeId = :storeId AND il.id > :afterId ORDER BY il.id ASC")
+    List<InventoryLevel> findSliceByStoreId(@Param("storeId") Long storeId, @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Unlocked read of every level of the variants, for allocation planning; the reservation itself re-checks
+     * availability in a guarded update.
+     */
+    @Query("SELECT il FROM InventoryLevel il JOIN FETCH il.inventoryItem i JOIN FETCH i.productVariant v JOIN FETCH il.location WHERE i.storeId = :storeId AND v.publicId IN :variantPublicIds ORDER BY il.id")
+    List<InventoryLevel> findAllocationCandidates(@Param("storeId") Long storeId, @Param("variantPublicIds") Collection<String> variantPublicIds);
 
     @Query("SELECT il FROM InventoryLevel il JOIN FETCH il.inventoryItem i JOIN FETCH i.productVariant v JOIN FETCH v.product WHERE il.location.id = :locationId")
     List<InventoryLevel> findByLocationIdWithVariantAndProduct(@Param("locationId") Long locationId);
@@ -32,4 +42,11 @@ public interface InventoryLevelRepository extends JpaRepository<InventoryLevel,
     List<InventoryLevel> findByLocationIdAndVariantIdInWithVariantAndProduct(@Param("locationId") Long locationId, @Param("variantIds") List<Long> variantIds);
 
     List<InventoryLevel> findByLocation_IdAndInventoryItem_ProductVariant_IdIn(Long locationId, List<Long> variantIds);
+
+    /** Levels currently at or below their reorder threshold, from the trigger-maintained inventory_low_stock set. */
+    @Query(value = "SELECT ls.inventory_level_id FROM inventory_low_stock ls WHERE ls.store_id = :storeId ORDER BY ls.inventory_level_id", nativeQuery = true)
+    List<Long> findLowStockLevelIds(@Param("storeId") Long storeId);
+
+    @Query("SELECT il FROM InventoryLevel il JOIN FETCH il.inventoryItem i JOIN FETCH i.productVariant v JOIN FETCH il.location WHERE il.id IN :ids ORDER BY il.id")
+    List<InventoryLevel> findByIdInWithItemAndLocation(@Param("ids") Collection<Long> ids);
 }
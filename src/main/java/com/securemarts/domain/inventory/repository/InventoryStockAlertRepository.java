@@ -0,0 +1,24 @@
+package com.securemarts.domain.inventory.repository;
+
+import com.securemarts.domain.inventory.entity.InventoryStockAlert;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface InventoryStockAlertRepository extends JpaRepository<InventoryStockAlert, Long> {
+
+    /**
+     * Keyset slice of the store's alert feed after position (afterXid, afterId), in (xid, id) order. Only alerts of
+     * transactions older than every running one are returned: none can still appear before them, so a cursor past
+     * them never skips an alert. Pageable carries only the row limit.
+     */
+    @Query(value = "SELECT a.id, a.store_id, a.inventory_level_id, a.alert_type, a.quantity_available, a.reorder_threshold, a.created_at, "
+            + "CAST(CAST(a.xid AS TEXT) AS BIGINT) AS xid FROM inventory_stock_alerts a "
+            + "WHERE a.store_id = :storeId AND a.xid < pg_snapshot_xmin(pg_current_snapshot()) "
+            + "AND (a.xid, a.id) > (CAST(CAST(:afterXid AS TEXT) AS XID8), :afterId) ORDER BY a.xid, a.id", nativeQuery = true)
+    List<InventoryStockAlert> findCommittedAfter(@Param("storeId") Long storeId, @Param("afterXid") long afterXid,
+                                                 @Param("afterId") long afterId, Pageable pageable);
+}
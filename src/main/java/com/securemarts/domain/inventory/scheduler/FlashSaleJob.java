@@ -0,0 +1,99 @@
+package com.securemarts.domain.inventory.scheduler;
+
+import com.securemarts.domain.catalog.service.CatalogVersionService;
+import com.securemarts.domain.inventory.event.InventoryChangedEvent;
+import com.securemarts.domain.inventory.service.FlashSaleAllotmentStore;
+import com.securemarts.domain.inventory.service.FlashSaleReservations;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Background side of flash-sale mode: the write-behind flush of grants into the ledger (every instance flushes any
+ * instance's grants), top-up of hot counters, and maintenance (heartbeat of this instance's allotments, flag refresh,
+ * return of idle stock, recovery of allotments left by instances that died). Inventory change notifications for
+ * flash-sale reservations are sent here, once per store and flush, instead of once per checkout.
+ */
+@Component
+@Slf4j
+public class FlashSaleJob {
+
+    private static final int FLUSH_BATCH = 5000;
+    private static final int MAX_BATCHES_PER_RUN = 20;
+
+    private final FlashSaleReservations flashSaleReservations;
+    private final FlashSaleAllotmentStore allotmentStore;
+    private final CatalogVersionService catalogVersionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long idleReturnSeconds;
+    private final long leaseSeconds;
+
+    public FlashSaleJob(FlashSaleReservations flashSaleReservations,
+                        FlashSaleAllotmentStore allotmentStore,
+                        CatalogVersionService catalogVersionService,
+                        ApplicationEventPublisher eventPublisher,
+                        @Value("${app.inventory.flash-sale.idle-return-seconds:30}") long idleReturnSeconds,
+                        @Value("${app.inventory.flash-sale.lease-seconds:60}") long leaseSeconds) {
+        this.flashSaleReservations = flashSaleReservations;
+        this.allotmentStore = allotmentStore;
+        this.catalogVersionService = catalogVersionService;
+        this.eventPublisher = eventPublisher;
+        this.idleReturnSeconds = idleReturnSeconds;
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.flash-sale.flush-interval-ms:250}")
+    public void flush() {
+        Set<Long> stores = new LinkedHashSet<>();
+        try {
+            for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+                Set<Long> flushed = allotmentStore.flushPending(FLUSH_BATCH);
+                if (flushed.isEmpty()) break;
+                stores.addAll(flushed);
+            }
+            flashSaleReservations.topUp(idleReturnSeconds);
+        } catch (Exception e) {
+            log.warn("Flash-sale flush failed: {}", e.getMessage());
+        }
+        for (Long storeId : stores) {
+            eventPublisher.publishEvent(new InventoryChangedEvent(this, storeId));
+            catalogVersionService.bump(storeId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.inventory.flash-sale.maintenance-interval-ms:5000}")
+    public void maintain() {
+        try {
+            allotmentStore.heartbeat(flashSaleReservations.instanceId());
+            flashSaleReservations.refreshFlags();
+            flashSaleReservations.returnIdle(idleReturnSeconds);
+            int recovered = allotmentStore.recoverExpired(leaseSeconds);
+            if (recovered > 0) log.info("Recovered {} flash-sale allotments of stopped instances", recovered);
+        } catch (Exception e) {
+            log.warn("Flash-sale maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        try {
+            // Flush first so allotments emptied by the return can be removed
+            Set<Long> flushed;
+            do {
+                flushed = allotmentStore.flushPending(FLUSH_BATCH);
+            } while (!flushed.isEmpty());
+            flashSaleReservations.returnAll();
+        } catch (Exception e) {
+            log.warn("Flash-sale shutdown return failed, stock is recovered after the lease expires: {}", e.getMessage());
+        }
+    }
+}
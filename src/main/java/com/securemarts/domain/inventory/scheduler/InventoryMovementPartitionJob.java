@@ -0,0 +1,122 @@
+package com.securemarts.domain.inventory.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Maintains the monthly partitions of inventory_movements: creates the coming months ahead of time (so rows never
+ * land in the default partition; any that did, because the job had not run, are moved into their month) and applies the retention policy to months older than the configured window,
+ * either detaching them as standalone archive tables (inventory_movements_archive_YYYYMM, for export or cold
+ * storage) or dropping them. Runs at startup and daily; an advisory lock keeps instances from running it together.
+ */
+@Component
+@Slf4j
+public class InventoryMovementPartitionJob {
+
+    private static final String PARENT = "inventory_movements";
+    private static final String PARTITION_PREFIX = "inventory_movements_p";
+    private static final String DEFAULT_PARTITION = "inventory_movements_default";
+    private static final String ARCHIVE_PREFIX = "inventory_movements_archive_";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final long LOCK_KEY = 0x1A7E_0001L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final boolean dropExpired;
+
+    public InventoryMovementPartitionJob(JdbcTemplate jdbcTemplate,
+                                         @Value("${app.inventory.movements.months-ahead:3}") int monthsAhead,
+                                         @Value("${app.inventory.movements.retention-months:0}") int retentionMonths,
+                                         @Value("${app.inventory.movements.drop-expired:false}") boolean dropExpired) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = Math.max(1, monthsAhead);
+        this.retentionMonths = retentionMonths;
+        this.dropExpired = dropExpired;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.inventory.movements.maintenance-cron:0 30 3 * * *}")
+    @Transactional
+    public void maintainPartitions() {
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) return;
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(current.plusMonths(i));
+        }
+        if (retentionMonths > 0) {
+            expirePartitionsBefore(current.minusMonths(retentionMonths));
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = PARTITION_PREFIX + month.format(SUFFIX);
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name))) return;
+        String from = start(month);
+        String to = start(month.plusMonths(1));
+        Boolean inDefault = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE created_at >= CAST(? AS TIMESTAMPTZ) AND created_at < CAST(? AS TIMESTAMPTZ))",
+                Boolean.class, from, to);
+        if (Boolean.TRUE.equals(inDefault)) {
+            moveOutOfDefault(name, from, to);
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF " + PARENT
+                + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        log.info("Created inventory movement partition {}", name);
+    }
+
+    /**
+     * A month's partition cannot be created while the default partition holds rows of that month (the job did not run
+     * in time). The default partition is detached, the month created, its rows moved over and the default reattached,
+     * all in this transaction: writers wait on the parent's lock until it commits, and nothing is lost if it fails.
+     */
+    private void moveOutOfDefault(String name, String from, String to) {
+        jdbcTemplate.execute("ALTER TABLE " + PARENT + " DETACH PARTITION " + DEFAULT_PARTITION);
+        jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF " + PARENT
+                + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                + " WHERE created_at >= CAST(? AS TIMESTAMPTZ) AND created_at < CAST(? AS TIMESTAMPTZ) RETURNING *) "
+                + "INSERT INTO " + name + " SELECT * FROM moved", from, to);
+        jdbcTemplate.execute("ALTER TABLE " + PARENT + " ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT");
+        log.warn("Created inventory movement partition {} and moved {} movements into it from the default partition", name, moved);
+    }
+
+    /** Detaches (archive) or drops monthly partitions that end on or before the cutoff month's start. */
+    private void expirePartitionsBefore(YearMonth cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent "
+                        + "WHERE p.relname = ? AND c.relname ~ '^inventory_movements_p[0-9]{6}$' ORDER BY c.relname",
+                String.class, PARENT);
+        for (String name : partitions) {
+            YearMonth month = YearMonth.parse(name.substring(PARTITION_PREFIX.length()), SUFFIX);
+            if (!month.isBefore(cutoff)) continue;
+            if (dropExpired) {
+                jdbcTemplate.execute("DROP TABLE " + name);
+                log.info("Dropped inventory movement partition {}", name);
+            } else {
+                jdbcTemplate.execute("ALTER TABLE " + PARENT + " DETACH PARTITION " + name);
+                jdbcTemplate.execute("ALTER TABLE " + name + " RENAME TO " + ARCHIVE_PREFIX + month.format(SUFFIX));
+                log.info("Archived inventory movement partition {}", name);
+            }
+        }
+    }
+
+    private static String start(YearMonth month) {
+        LocalDate first = month.atDay(1);
+        return first.atStartOfDay().atOffset(ZoneOffset.UTC).toString();
+    }
+}
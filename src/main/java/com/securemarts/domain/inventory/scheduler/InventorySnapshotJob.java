@@ -0,0 +1,36 @@
+package com.securemarts.domain.inventory.scheduler;
+
+import com.securemarts.domain.inventory.service.InventorySnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Takes the end-of-day inventory snapshot of every store shortly after midnight UTC. Each store is one transaction;
+ * a day that already has a snapshot (another instance, or a rerun) is skipped.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InventorySnapshotJob {
+
+    private final InventorySnapshotService inventorySnapshotService;
+
+    @Scheduled(cron = "${app.inventory.snapshots.cron:0 5 0 * * *}", zone = "UTC")
+    public void snapshotPreviousDay() {
+        LocalDate day = LocalDate.now(ZoneOffset.UTC).minusDays(1);
+        int taken = 0;
+        for (Long storeId : inventorySnapshotService.storesWithInventory()) {
+            try {
+                if (inventorySnapshotService.takeSnapshot(storeId, day)) taken++;
+            } catch (Exception e) {
+                log.warn("Inventory snapshot failed for store {} on {}: {}", storeId, day, e.getMessage());
+            }
+        }
+        log.info("Inventory snapshots for {}: {} stores", day, taken);
+    }
+}
@@ -0,0 +1,338 @@
+package com.securemarts.domain.inventory.service;
+
+import com.securemarts.domain.inventory.entity.InventoryMovement;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Database side of flash-sale mode (see V67): allotments of stock per (level, instance), the grants recorded against
+ * them by checkouts, and the batched write-behind that folds grants into the movement ledger.
+ * <p>
+ * Allotted units sit in the level's quantity_reserved from the moment they are taken (RESERVE movement under
+ * reference FLASH_ALLOTMENT / instance id). Flushing a grant moves them from the allotment to the order: a RESERVE
+ * movement under the order's reference and a matching RELEASE under the allotment's, so the level row itself is not
+ * touched and {@link InventoryReservationEngine#settleReservation} later settles the order as usual.
+ */
+@Component
+public class FlashSaleAllotmentStore {
+
+    public static final String ALLOTMENT_REFERENCE = "FLASH_ALLOTMENT";
+    private static final String FLUSHED_COLUMNS = "RETURNING g.store_id, g.inventory_item_id, g.inventory_level_id, g.instance_id, "
+            + "g.quantity, g.reference_type, g.reference_id";
+    private static final RowMapper<Flushed> FLUSHED_MAPPER = (rs, i) -> new Flushed(
+            rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getString(4), rs.getInt(5), rs.getString(6), rs.getString(7));
+
+    /** Units taken from a level into an allotment. */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Refill {
+        private final long levelId;
+        private final long itemId;
+        private final int taken;
+    }
+
+    /** Refill result when the allotment being refilled was recovered from this instance. */
+    public static final Refill LOST = new Refill(0, 0, 0);
+
+    /** One reservation line granted from memory, to be recorded with the checkout. */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Grant {
+        private final long levelId;
+        private final long itemId;
+        private final int quantity;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final InventoryMovementWriter inventoryMovementWriter;
+    private final TransactionTemplate requiresNew;
+    private final TransactionTemplate required;
+
+    public FlashSaleAllotmentStore(JdbcTemplate jdbcTemplate,
+                                   NamedParameterJdbcTemplate namedJdbcTemplate,
+                                   InventoryMovementWriter inventoryMovementWriter,
+                                   PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.inventoryMovementWriter = inventoryMovementWriter;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.required = new TransactionTemplate(transactionManager);
+    }
+
+    /** Flash-sale variant public ids per store. */
+    public Map<Long, Set<String>> flaggedVariants() {
+        Map<Long, Set<String>> flagged = new HashMap<>();
+        jdbcTemplate.query("SELECT ii.store_id, pv.public_id FROM inventory_items ii "
+                        + "JOIN product_variants pv ON pv.id = ii.product_variant_id WHERE ii.flash_sale",
+                rs -> {
+                    flagged.computeIfAbsent(rs.getLong(1), k -> new HashSet<>()).add(rs.getString(2));
+                });
+        return flagged;
+    }
+
+    /**
+     * Moves up to {@code block} units of the (variant, location) level into this instance's allotment, in its own
+     * transaction so the units stay allotted whatever happens to the checkout that asked. Returns null when the level
+     * does not exist or has nothing available, and {@link #LOST} when {@code heldLevelId} (the level a counter is
+     * already granting from) no longer has this instance's allotment: it was recovered, and a new one must not be
+     * topped up onto units the instance still holds in memory.
+     */
+    public Refill refill(String instanceId, Long storeId, String variantPublicId, String locationPublicId, int block, Long heldLevelId) {
+        return requiresNew.execute(status -> {
+            if (heldLevelId != null && jdbcTemplate.queryForList("SELECT 1 FROM inventory_flash_allotments "
+                    + "WHERE inventory_level_id = ? AND instance_id = ? FOR UPDATE", Integer.class, heldLevelId, instanceId).isEmpty()) {
+                return LOST;
+            }
+            List<Refill> taken = jdbcTemplate.query(
+                    "WITH target AS (SELECT il.id, il.inventory_item_id, LEAST(il.quantity_available, ?) AS take FROM inventory_levels il "
+                            + "JOIN inventory_items ii ON ii.id = il.inventory_item_id "
+                            + "JOIN product_variants pv ON pv.id = ii.product_variant_id "
+                            + "JOIN locations l ON l.id = il.location_id "
+                            + "WHERE ii.store_id = ? AND pv.public_id = ? AND l.public_id = ? AND il.quantity_available > 0 FOR UPDATE OF il) "
+                            + "UPDATE inventory_levels il SET quantity_available = il.quantity_available - t.take, "
+                            + "quantity_reserved = il.quantity_reserved + t.take, updated_at = NOW() FROM target t WHERE il.id = t.id "
+                            + "RETURNING il.id, il.inventory_item_id, t.take",
+                    (rs, i) -> new Refill(rs.getLong(1), rs.getLong(2), rs.getInt(3)),
+                    block, storeId, variantPublicId, locationPublicId);
+            if (taken.isEmpty()) return null;
+            Refill refill = taken.get(0);
+            jdbcTemplate.update("INSERT INTO inventory_flash_allotments (inventory_level_id, instance_id, store_id, inventory_item_id, quantity) "
+                            + "VALUES (?, ?, ?, ?, ?) ON CONFLICT (inventory_level_id, instance_id) DO UPDATE SET "
+                            + "quantity = inventory_flash_allotments.quantity + EXCLUDED.quantity, heartbeat_at = NOW()",
+                    refill.levelId, instanceId, storeId, refill.itemId, refill.taken);
+            inventoryMovementWriter.append(List.of(new InventoryMovementWriter.Movement(storeId, refill.itemId, refill.levelId,
+                    -refill.taken, InventoryMovement.MovementType.RESERVE.name(), ALLOTMENT_REFERENCE, instanceId)));
+            return refill;
+        });
+    }
+
+    /**
+     * Records grants in the caller's (checkout) transaction. Each row key-share locks its allotment, so an allotment
+     * recovered from this instance (lease expired) cannot vanish underneath; the returned level ids are those whose
+     * allotment still exists, and grants for any other level were not recorded.
+     */
+    public Set<Long> recordGrants(String instanceId, Long storeId, List<Grant> grants, String referenceType, String referenceId) {
+        Set<Long> recorded = new HashSet<>();
+        if (grants.isEmpty()) return recorded;
+        List<Object> params = new ArrayList<>(grants.size() * 3 + 5);
+        for (Grant g : grants) {
+            params.add(g.levelId);
+            params.add(g.itemId);
+            params.add(g.quantity);
+        }
+        params.add(instanceId);
+        params.add(instanceId);
+        params.add(storeId);
+        params.add(referenceType);
+        params.add(referenceId);
+        String sql = "WITH req(level_id, item_id, qty) AS (VALUES "
+                + String.join(", ", Collections.nCopies(grants.size(), "(CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS INT))")) + "), "
+                + "held AS (SELECT a.inventory_level_id FROM inventory_flash_allotments a JOIN req ON req.level_id = a.inventory_level_id "
+                + "WHERE a.instance_id = ? FOR KEY SHARE OF a) "
+                + "INSERT INTO inventory_flash_grants (inventory_level_id, instance_id, store_id, inventory_item_id, quantity, reference_type, reference_id) "
+                + "SELECT req.level_id, ?, ?, req.item_id, req.qty, ?, ? FROM req JOIN held ON held.inventory_level_id = req.level_id "
+                + "RETURNING inventory_level_id";
+        recorded.addAll(jdbcTemplate.queryForList(sql, Long.class, params.toArray()));
+        return recorded;
+    }
+
+    /**
+     * Flushes up to {@code max} pending grants of any instance in one transaction (rows locked by another flusher are
+     * skipped). Returns the stores whose grants were flushed.
+     */
+    public Set<Long> flushPending(int max) {
+        return required.execute(status -> applyFlushed(jdbcTemplate.query(
+                "WITH batch AS (SELECT id FROM inventory_flash_grants ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) "
+                        + "DELETE FROM inventory_flash_grants g USING batch b WHERE g.id = b.id " + FLUSHED_COLUMNS,
+                FLUSHED_MAPPER, max)));
+    }
+
+    /**
+     * Flushes the grants of one reference in the caller's transaction, so settling (release / sale) of that reference
+     * sees all of its reservations in the ledger.
+     */
+    public void flushReference(Long storeId, String referenceType, String referenceId) {
+        applyFlushed(jdbcTemplate.query(
+                "DELETE FROM inventory_flash_grants g WHERE g.store_id = ? AND g.reference_type = ? AND g.reference_id = ? " + FLUSHED_COLUMNS,
+                FLUSHED_MAPPER, storeId, referenceType, referenceId));
+    }
+
+    /**
+     * Returns units held in memory by this instance to the level (available again) and shrinks the allotment. Nothing
+     * is returned when the allotment no longer exists, i.e. it was already recovered.
+     */
+    public void returnToLevel(String instanceId, long levelId, int quantity) {
+        if (quantity <= 0) return;
+        requiresNew.executeWithoutResult(status -> {
+            List<Map<String, Object>> shrunk = jdbcTemplate.queryForList(
+                    "UPDATE inventory_flash_allotments SET quantity = quantity - ?, heartbeat_at = NOW() "
+                            + "WHERE inventory_level_id = ? AND instance_id = ? AND quantity >= ? RETURNING store_id, inventory_item_id",
+                    quantity, levelId, instanceId, quantity);
+            if (shrunk.isEmpty()) return;
+            Long storeId = ((Number) shrunk.get(0).get("store_id")).longValue();
+            Long itemId = ((Number) shrunk.get(0).get("inventory_item_id")).longValue();
+            releaseToLevels(List.of(new Released(storeId, itemId, levelId, instanceId, quantity)));
+        });
+    }
+
+    /** Keeps this instance's allotments from being recovered as abandoned. */
+    public void heartbeat(String instanceId) {
+        jdbcTemplate.update("UPDATE inventory_flash_allotments SET heartbeat_at = NOW() WHERE instance_id = ?", instanceId);
+    }
+
+    /** Deletes this instance's empty allotments that have nothing left to flush (shutdown). */
+    public void removeEmpty(String instanceId) {
+        jdbcTemplate.update("DELETE FROM inventory_flash_allotments a WHERE a.instance_id = ? AND a.quantity = 0 "
+                + "AND NOT EXISTS (SELECT 1 FROM inventory_flash_grants g WHERE g.inventory_level_id = a.inventory_level_id "
+                + "AND g.instance_id = a.instance_id)", instanceId);
+    }
+
+    /**
+     * Crash recovery: allotments whose instance stopped heart-beating for {@code leaseSeconds} and whose grants are all
+     * flushed hold only the units that instance had in memory; they go back to available and the allotment is
+     * deleted. Allotments with grants still pending (or locked by a checkout) wait for the next pass. Returns the
+     * number of allotments recovered.
+     */
+    public int recoverExpired(long leaseSeconds) {
+        Integer recovered = required.execute(status -> {
+            List<Released> released = jdbcTemplate.query(
+                    "WITH expired AS (SELECT a.inventory_level_id, a.instance_id FROM inventory_flash_allotments a "
+                            + "WHERE a.heartbeat_at < NOW() - make_interval(secs => ?) AND NOT EXISTS (SELECT 1 FROM inventory_flash_grants g "
+                            + "WHERE g.inventory_level_id = a.inventory_level_id AND g.instance_id = a.instance_id) "
+                            + "ORDER BY a.inventory_level_id, a.instance_id LIMIT 500 FOR UPDATE OF a SKIP LOCKED) "
+                            + "DELETE FROM inventory_flash_allotments a USING expired e "
+                            + "WHERE a.inventory_level_id = e.inventory_level_id AND a.instance_id = e.instance_id "
+                            + "RETURNING a.store_id, a.inventory_item_id, a.inventory_level_id, a.instance_id, a.quantity",
+                    (rs, i) -> new Released(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getString(4), rs.getInt(5)),
+                    (double) leaseSeconds);
+            releaseToLevels(released);
+            return released.size();
+        });
+        return recovered != null ? recovered : 0;
+    }
+
+    /**
+     * Units of flash-sale allotments not yet granted, per variant of the store (all instances). Added to the level
+     * availability, which no longer counts them.
+     */
+    public Map<String, Integer> unsoldByVariant(Long storeId, Collection<String> variantPublicIds) {
+        Map<String, Integer> unsold = new HashMap<>();
+        if (variantPublicIds.isEmpty()) return unsold;
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("storeId", storeId)
+                .addValue("variants", new LinkedHashSet<>(variantPublicIds));
+        namedJdbcTemplate.query(
+                "SELECT pv.public_id, SUM(a.quantity - COALESCE(p.pending, 0)) FROM inventory_flash_allotments a "
+                        + "JOIN inventory_items ii ON ii.id = a.inventory_item_id JOIN product_variants pv ON pv.id = ii.product_variant_id "
+                        + "LEFT JOIN LATERAL (SELECT SUM(g.quantity) AS pending FROM inventory_flash_grants g "
+                        + "WHERE g.inventory_level_id = a.inventory_level_id AND g.instance_id = a.instance_id) p ON TRUE "
+                        + "WHERE a.store_id = :storeId AND pv.public_id IN (:variants) GROUP BY pv.public_id",
+                params, rs -> {
+                    unsold.put(rs.getString(1), (int) Math.max(0, Math.min(Integer.MAX_VALUE, rs.getLong(2))));
+                });
+        return unsold;
+    }
+
+    /** Moves flushed grants from their allotments to their references in the ledger. */
+    private Set<Long> applyFlushed(List<Flushed> flushed) {
+        Set<Long> stores = new LinkedHashSet<>();
+        if (flushed.isEmpty()) return stores;
+        // Sorted so concurrent flushers update allotment rows in the same order
+        Map<String, Released> perAllotment = new TreeMap<>();
+        List<InventoryMovementWriter.Movement> movements = new ArrayList<>(flushed.size() + 16);
+        for (Flushed f : flushed) {
+            stores.add(f.storeId);
+            movements.add(new InventoryMovementWriter.Movement(f.storeId, f.itemId, f.levelId, -f.quantity,
+                    InventoryMovement.MovementType.RESERVE.name(), f.referenceType, f.referenceId));
+            perAllotment.merge(String.format("%019d|%s", f.levelId, f.instanceId),
+                    new Released(f.storeId, f.itemId, f.levelId, f.instanceId, f.quantity),
+                    (a, b) -> new Released(a.storeId, a.itemId, a.levelId, a.instanceId, a.quantity + b.quantity));
+        }
+        List<Object[]> shrink = new ArrayList<>(perAllotment.size());
+        for (Released r : perAllotment.values()) {
+            shrink.add(new Object[]{r.quantity, r.levelId, r.instanceId});
+            movements.add(new InventoryMovementWriter.Movement(r.storeId, r.itemId, r.levelId, r.quantity,
+                    InventoryMovement.MovementType.RELEASE.name(), ALLOTMENT_REFERENCE, r.instanceId));
+        }
+        jdbcTemplate.batchUpdate("UPDATE inventory_flash_allotments SET quantity = quantity - ? "
+                + "WHERE inventory_level_id = ? AND instance_id = ?", shrink);
+        inventoryMovementWriter.append(movements);
+        return stores;
+    }
+
+    /** Moves returned allotment units from reserved back to available, with RELEASE movements on the allotment. */
+    private void releaseToLevels(List<Released> released) {
+        released = new ArrayList<>(released);
+        released.sort(Comparator.comparingLong(r -> r.levelId));
+        List<Object[]> levels = new ArrayList<>(released.size());
+        List<InventoryMovementWriter.Movement> movements = new ArrayList<>(released.size());
+        for (Released r : released) {
+            if (r.quantity <= 0) continue;
+            levels.add(new Object[]{r.quantity, r.quantity, r.levelId});
+            movements.add(new InventoryMovementWriter.Movement(r.storeId, r.itemId, r.levelId, r.quantity,
+                    InventoryMovement.MovementType.RELEASE.name(), ALLOTMENT_REFERENCE, r.instanceId));
+        }
+        if (levels.isEmpty()) return;
+        jdbcTemplate.batchUpdate("UPDATE inventory_levels SET quantity_available = quantity_available + ?, "
+                + "quantity_reserved = GREATEST(quantity_reserved - ?, 0), updated_at = NOW() WHERE id = ?", levels);
+        inventoryMovementWriter.append(movements);
+    }
+
+    private static class Flushed {
+        private final long storeId;
+        private final long itemId;
+        private final long levelId;
+        private final String instanceId;
+        private final int quantity;
+        private final String referenceType;
+        private final String referenceId;
+
+        Flushed(long storeId, long itemId, long levelId, String instanceId, int quantity, String referenceType, String referenceId) {
+            this.storeId = storeId;
+            this.itemId = itemId;
+            this.levelId = levelId;
+            this.instanceId = instanceId;
+            this.quantity = quantity;
+            this.referenceType = referenceType;
+            this.referenceId = referenceId;
+        }
+    }
+
+    private static class Released {
+        private final long storeId;
+        private final long itemId;
+        private final long levelId;
+        private final String instanceId;
+        private final int quantity;
+
+        Released(long storeId, long itemId, long levelId, String instanceId, int quantity) {
+            this.storeId = storeId;
+            this.itemId = itemId;
+            this.levelId = levelId;
+            this.instanceId = instanceId;
+            this.quantity = quantity;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.securemarts.domain.inventory.service;
+
+import com.securemarts.common.exception.BusinessRuleException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flash-sale mode for hot variants: reservations at their levels are granted from {@link StripedStockCounter}s held
+ * by this instance instead of by a guarded update on the level row, which every checkout for the variant would
+ * otherwise queue on. Counters are filled in blocks taken from the level ({@link FlashSaleAllotmentStore#refill}),
+ * so no more can be granted than was available; each checkout records its grants in its own transaction (an INSERT,
+ * no level lock) and a rolled-back checkout puts its units back. Grants reach the ledger through the write-behind
+ * flush, and units idle in memory go back to the level after a while or on shutdown.
+ * <p>
+ * Variants are flagged per inventory item; the flags are cached and refreshed by {@link
+ * com.securemarts.domain.inventory.scheduler.FlashSaleJob}, so a change takes effect within one maintenance interval.
+ */
+@Service
+@Slf4j
+public class FlashSaleReservations {
+
+    private static final String REBALANCED = "Stock for this item was being rebalanced, please try again";
+
+    private final FlashSaleAllotmentStore allotmentStore;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final int blockSize;
+    private final int stripes;
+    private final long refillWaitMillis;
+    private final Map<String, StripedStockCounter> counters = new ConcurrentHashMap<>();
+    private volatile Map<Long, Set<String>> flagged = Map.of();
+
+    public FlashSaleReservations(FlashSaleAllotmentStore allotmentStore,
+                                 @Value("${app.inventory.flash-sale.block-size:50}") int blockSize,
+                                 @Value("${app.inventory.flash-sale.stripes:8}") int stripes,
+                                 @Value("${app.inventory.flash-sale.refill-wait-ms:500}") long refillWaitMillis) {
+        this.allotmentStore = allotmentStore;
+        this.blockSize = Math.max(1, blockSize);
+        this.stripes = Math.max(1, stripes);
+        this.refillWaitMillis = Math.max(0, refillWaitMillis);
+    }
+
+    public String instanceId() {
+        return instanceId;
+    }
+
+    public boolean isFlashSale(Long storeId, String variantPublicId) {
+        Set<String> variants = flagged.get(storeId);
+        return variants != null && variants.contains(variantPublicId);
+    }
+
+    public boolean hasFlashSale(Long storeId, Collection<String> variantPublicIds) {
+        Set<String> variants = flagged.get(storeId);
+        if (variants == null) return false;
+        for (String variantPublicId : variantPublicIds) {
+            if (variants.contains(variantPublicId)) return true;
+        }
+        return false;
+    }
+
+    /** Units this instance holds in memory for the level, on top of its quantity available. */
+    public int heldAt(Long storeId, String variantPublicId, String locationPublicId) {
+        StripedStockCounter counter = counters.get(key(storeId, variantPublicId, locationPublicId));
+        return counter != null ? counter.total() : 0;
+    }
+
+    /** Reloads the flash-sale flags; counters of variants no longer flagged are returned to their levels. */
+    public void refreshFlags() {
+        flagged = allotmentStore.flaggedVariants();
+        counters.forEach((key, counter) -> {
+            String[] parts = key.split("\\|", 3);
+            if (!isFlashSale(Long.valueOf(parts[0]), parts[1])) returnCounter(counter);
+        });
+    }
+
+    /**
+     * Reserves every line from memory, refilling counters from their levels as needed, and records the grants in the
+     * caller's transaction. Lines for the same level are summed. Throws, with nothing reserved, when any level cannot
+     * cover its quantity.
+     */
+    public void reserve(Long storeId, List<InventoryReservationEngine.LevelLine> lines, String referenceType, String referenceId) {
+        Map<String, Integer> wanted = new LinkedHashMap<>();
+        for (InventoryReservationEngine.LevelLine line : lines) {
+            if (line.getQuantity() <= 0) continue;
+            wanted.merge(key(storeId, line.getVariantPublicId(), line.getLocationPublicId()), line.getQuantity(), Integer::sum);
+        }
+        if (wanted.isEmpty()) return;
+        List<Taken> taken = new ArrayList<>(wanted.size());
+        try {
+            for (Map.Entry<String, Integer> e : wanted.entrySet()) {
+                StripedStockCounter counter = counters.computeIfAbsent(e.getKey(), k -> new StripedStockCounter(stripes));
+                take(storeId, e.getKey(), counter, e.getValue());
+                taken.add(new Taken(e.getKey(), counter, e.getValue()));
+            }
+            List<FlashSaleAllotmentStore.Grant> grants = new ArrayList<>(taken.size());
+            for (Taken t : taken) grants.add(new FlashSaleAllotmentStore.Grant(t.counter.levelId(), t.counter.itemId(), t.quantity));
+            Set<Long> recorded = allotmentStore.recordGrants(instanceId, storeId, grants, referenceType, referenceId);
+            for (Taken t : taken) {
+                if (recorded.contains(t.counter.levelId())) continue;
+                discard(t.key, t.counter);
+                throw new BusinessRuleException(REBALANCED);
+            }
+        } catch (RuntimeException ex) {
+            for (Taken t : taken) t.counter.add(t.quantity);
+            throw ex;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        for (Taken t : taken) t.counter.add(t.quantity);
+                    }
+                }
+            });
+        }
+    }
+
+    /** Returns units that sat unused for {@code idleSeconds} to their levels. */
+    public void returnIdle(long idleSeconds) {
+        long idleNanos = TimeUnit.SECONDS.toNanos(idleSeconds);
+        counters.forEach((key, counter) -> {
+            if (counter.idleNanos() >= idleNanos && counter.total() > 0) returnCounter(counter);
+        });
+    }
+
+    /** Returns every counter to its level and drops this instance's empty allotments (shutdown). */
+    public void returnAll() {
+        counters.values().forEach(this::returnCounter);
+        allotmentStore.removeEmpty(instanceId);
+    }
+
+    /**
+     * Tops up counters in use that are below half a block, so checkouts rarely refill on their own path (which needs a
+     * second connection while holding their own). Counters busy with another transfer are skipped.
+     */
+    public void topUp(long idleSeconds) {
+        long idleNanos = TimeUnit.SECONDS.toNanos(idleSeconds);
+        counters.forEach((key, counter) -> {
+            if (!counter.isBound() || counter.idleNanos() >= idleNanos || counter.total() >= blockSize / 2) return;
+            String[] parts = key.split("\\|", 3);
+            if (!isFlashSale(Long.valueOf(parts[0]), parts[1]) || !counter.transferLock().tryLock()) return;
+            try {
+                int missing = blockSize - counter.total();
+                if (missing <= 0) return;
+                FlashSaleAllotmentStore.Refill refill = allotmentStore.refill(instanceId, Long.valueOf(parts[0]), parts[1], parts[2],
+                        missing, counter.levelId());
+                if (refill == FlashSaleAllotmentStore.LOST) {
+                    discard(key, counter);
+                } else if (refill != null) {
+                    counter.add(refill.getTaken());
+                }
+            } finally {
+                counter.transferLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Takes from the counter, refilling it from the level when short. One thread refills at a time; the others wait
+     * at most the refill timeout, so a saturated connection pool turns into quick failures rather than a pile-up.
+     */
+    private void take(Long storeId, String key, StripedStockCounter counter, int quantity) {
+        while (!counter.tryTake(quantity)) {
+            boolean locked;
+            try {
+                locked = counter.transferLock().tryLock(refillWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                locked = false;
+            }
+            if (!locked) {
+                throw new BusinessRuleException("This item is in high demand, please try again");
+            }
+            try {
+                if (counter.tryTake(quantity)) return;
+                String[] parts = key.split("\\|", 3);
+                FlashSaleAllotmentStore.Refill refill = allotmentStore.refill(instanceId, storeId, parts[1], parts[2],
+                        Math.max(blockSize, quantity - counter.total()), counter.isBound() ? counter.levelId() : null);
+                if (refill == FlashSaleAllotmentStore.LOST) {
+                    discard(key, counter);
+                    throw new BusinessRuleException(REBALANCED);
+                }
+                if (refill == null) {
+                    throw new BusinessRuleException("Insufficient stock at this location for variant " + parts[1]
+                            + ". Available: " + counter.total() + ", requested: " + quantity);
+                }
+                counter.bind(refill.getLevelId(), refill.getItemId());
+                counter.add(refill.getTaken());
+            } finally {
+                counter.transferLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Drains the counter back to its level. The counter stays registered: units of checkouts that roll back later
+     * land in it again and go back on the next pass.
+     */
+    private void returnCounter(StripedStockCounter counter) {
+        counter.transferLock().lock();
+        try {
+            int drained = counter.drain();
+            if (drained <= 0) return;
+            try {
+                allotmentStore.returnToLevel(instanceId, counter.levelId(), drained);
+            } catch (RuntimeException e) {
+                // Still in the allotment: keep granting from it (on shutdown, lease recovery returns it)
+                counter.add(drained);
+                log.warn("Could not return flash-sale stock of level {}: {}", counter.levelId(), e.getMessage());
+            }
+        } finally {
+            counter.transferLock().unlock();
+        }
+    }
+
+    /**
+     * Drops a counter whose allotment was recovered while this instance looked dead: its units are already back on the
+     * level, so the ones still in memory must not be granted. The next checkout starts a fresh counter.
+     */
+    private void discard(String key, StripedStockCounter counter) {
+        counters.remove(key, counter);
+        counter.drain();
+    }
+
+    private static String key(Long storeId, String variantPublicId, String locationPublicId) {
+        return storeId + "|" + variantPublicId + "|" + locationPublicId;
+    }
+
+    private static class Taken {
+        private final String key;
+        private final StripedStockCounter counter;
+        private final int quantity;
+
+        Taken(String key, StripedStockCounter counter, int quantity) {
+            this.key = key;
+            this.counter = counter;
+            this.quantity = quantity;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.securemarts.domain.inventory.service;
+
+import com.securemarts.domain.inventory.dto.BulkInventoryAdjustmentResponse;
+import com.securemarts.domain.inventory.entity.InventoryMovement;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies one chunk of a bulk stock adjustment with a single statement: the lines are sent as a VALUES list,
+ * resolved to levels, locked in id order and updated where the new quantity is valid; the same statement reports
+ * every resolved line with its before/after quantity, so failures are classified without further queries.
+ * Movements for the changed levels are appended as one JDBC batch; an absolute quantity is recorded as an ADJUSTMENT
+ * of the difference whatever movement type the request names. Each chunk commits on its own.
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryAdjustmentWriter {
+
+    /** Lines per statement / JDBC batch (6 parameters each, well below the driver's bind limit). */
+    static final int CHUNK_SIZE = 1000;
+
+    /** A validated request line; exactly one of delta / quantity is set. */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Line {
+        private final int index;
+        private final String levelPublicId;
+        private final String variantPublicId;
+        private final String locationPublicId;
+        private final Integer delta;
+        private final Integer quantity;
+    }
+
+    @Getter
+    public static class ChunkResult {
+        private int applied;
+        private int unchanged;
+        private final List<BulkInventoryAdjustmentResponse.Failure> failures = new ArrayList<>();
+        private final Set<Long> productIds = new LinkedHashSet<>();
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryMovementWriter inventoryMovementWriter;
+
+    @Transactional
+    public ChunkResult applyChunk(Long storeId, List<Line> lines, String movementType, String referenceType, String referenceId) {
+        ChunkResult result = new ChunkResult();
+        if (lines.isEmpty()) return result;
+        List<Object> params = new ArrayList<>(lines.size() * 6 + 3);
+        for (Line line : lines) {
+            params.add(line.getIndex());
+            params.add(line.getLevelPublicId());
+            params.add(line.getVariantPublicId());
+            params.add(line.getLocationPublicId());
+            params.add(line.getDelta());
+            params.add(line.getQuantity());
+        }
+        params.add(storeId);
+        params.add(storeId);
+        params.add(storeId);
+        String sql = "WITH req(idx, level_public_id, variant_public_id, location_public_id, delta, target) AS (VALUES "
+                + String.join(", ", Collections.nCopies(lines.size(),
+                "(CAST(? AS INT), CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS INT), CAST(? AS INT))")) + "), "
+                + "resolved AS ("
+                + "SELECT req.idx, il.id AS level_id FROM req JOIN inventory_levels il ON il.public_id = req.level_public_id "
+                + "JOIN inventory_items ii ON ii.id = il.inventory_item_id AND ii.store_id = ? "
+                + "UNION ALL "
+                + "SELECT req.idx, il.id FROM req JOIN product_variants pv ON pv.public_id = req.variant_public_id "
+                + "JOIN locations l ON l.public_id = req.location_public_id AND l.store_id = ? "
+                + "JOIN inventory_items ii ON ii.product_variant_id = pv.id AND ii.store_id = ? "
+                + "JOIN inventory_levels il ON il.inventory_item_id = ii.id AND il.location_id = l.id "
+                + "WHERE req.level_public_id IS NULL), "
+                + "winner AS (SELECT DISTINCT ON (level_id) idx, level_id FROM resolved ORDER BY level_id, idx), "
+                + "target AS (SELECT il.id, il.inventory_item_id, pv.product_id, f.idx, il.quantity_available AS qty_before, "
+                + "COALESCE(CAST(req.target AS BIGINT), CAST(il.quantity_available AS BIGINT) + req.delta) AS qty_after "
+                + "FROM winner f JOIN req ON req.idx = f.idx JOIN inventory_levels il ON il.id = f.level_id "
+                + "JOIN inventory_items ii ON ii.id = il.inventory_item_id JOIN product_variants pv ON pv.id = ii.product_variant_id "
+                + "ORDER BY il.id FOR UPDATE OF il), "
+                + "upd AS (UPDATE inventory_levels il SET quantity_available = CAST(t.qty_after AS INT), updated_at = NOW() FROM target t "
+                + "WHERE il.id = t.id AND t.qty_after >= 0 AND t.qty_after <= 2147483647 AND t.qty_after <> t.qty_before RETURNING il.id) "
+                + "SELECT r.idx, t.id, t.inventory_item_id, t.product_id, t.qty_before, t.qty_after, upd.id IS NOT NULL "
+                + "FROM resolved r LEFT JOIN target t ON t.idx = r.idx LEFT JOIN upd ON upd.id = t.id";
+
+        Map<Integer, Line> byIndex = new HashMap<>();
+        for (Line line : lines) byIndex.put(line.getIndex(), line);
+        List<InventoryMovementWriter.Movement> movements = new ArrayList<>();
+        jdbcTemplate.query(sql, rs -> {
+            int idx = rs.getInt(1);
+            Line line = byIndex.remove(idx);
+            long levelId = rs.getLong(2);
+            if (rs.wasNull()) {
+                result.failures.add(new BulkInventoryAdjustmentResponse.Failure(idx, "Level already adjusted by an earlier line"));
+                return;
+            }
+            int before = rs.getInt(5);
+            long after = rs.getLong(6);
+            if (rs.getBoolean(7)) {
+                result.applied++;
+                result.productIds.add(rs.getLong(4));
+                String type = line != null && line.getQuantity() != null
+                        ? InventoryMovement.MovementType.ADJUSTMENT.name() : movementType;
+                movements.add(new InventoryMovementWriter.Movement(storeId, rs.getLong(3), levelId, (int) (after - before),
+                        type, referenceType, referenceId));
+            } else if (after == before) {
+                result.unchanged++;
+            } else if (after < 0) {
+                result.failures.add(new BulkInventoryAdjustmentResponse.Failure(idx, "Insufficient quantity. Available: " + before));
+            } else {
+                result.failures.add(new BulkInventoryAdjustmentResponse.Failure(idx, "Quantity out of range"));
+            }
+        }, params.toArray());
+        for (Integer idx : byIndex.keySet()) {
+            result.failures.add(new BulkInventoryAdjustmentResponse.Failure(idx, "Inventory level not found"));
+        }
+        inventoryMovementWriter.append(movements);
+        return result;
+    }
+}
@@ -0,0 +1,51 @@
+package com.securemarts.domain.inventory.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Appends rows to the inventory_movements ledger as one JDBC batch. The table is partitioned and append-only, so
+ * this is the only way movements are written besides single JPA saves; callers run inside their own transaction.
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryMovementWriter {
+
+    private static final String INSERT_MOVEMENT =
+            "INSERT INTO inventory_movements (public_id, store_id, inventory_item_id, inventory_level_id, quantity_delta, " +
+            "movement_type, reference_type, reference_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW())";
+    private static final int[] MOVEMENT_TYPES = {Types.VARCHAR, Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.INTEGER,
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR};
+
+    /** One ledger row; levelId may be null. */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Movement {
+        private final Long storeId;
+        private final Long inventoryItemId;
+        private final Long inventoryLevelId;
+        private final int quantityDelta;
+        private final String movementType;
+        private final String referenceType;
+        private final String referenceId;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void append(List<Movement> movements) {
+        if (movements.isEmpty()) return;
+        List<Object[]> rows = new ArrayList<>(movements.size());
+        for (Movement m : movements) {
+            rows.add(new Object[]{UUID.randomUUID().toString(), m.getStoreId(), m.getInventoryItemId(), m.getInventoryLevelId(),
+                    m.getQuantityDelta(), m.getMovementType(), m.getReferenceType(), m.getReferenceId()});
+        }
+        jdbcTemplate.batchUpdate(INSERT_MOVEMENT, rows, MOVEMENT_TYPES);
+    }
+}
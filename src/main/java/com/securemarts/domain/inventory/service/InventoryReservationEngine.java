@@ -0,0 +1,246 @@
+package com.securemarts.domain.inventory.service;
+
+import com.securemarts.common.exception.BusinessRuleException;
+import com.securemarts.domain.inventory.entity.InventoryMovement;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reserves or deducts stock with guarded single-statement updates instead of locking and mutating
+ * {@link com.securemarts.domain.inventory.entity.InventoryLevel} entities. All lines of a request go to Postgres in
+ * one statement: the target rows are locked in id order (so concurrent orders cannot deadlock), decremented only
+ * where {@code quantity_available} still covers the quantity, and the rows actually changed come back through
+ * RETURNING. Movements for them are written as one JDBC batch. Row locks are taken by that statement rather than
+ * at the start of checkout, and any shortfall throws so the caller's transaction rolls the whole request back.
+ * <p>
+ * Entities already loaded in the persistence context are not refreshed; callers read quantities afresh afterwards.
+ * Each operation returns the ids of the products whose stock it changed, for the caller's change notification.
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryReservationEngine {
+
+    /** How a guarded update changes a level and which movement records it. */
+    public enum Operation {
+        /** available → reserved, RESERVE movement. */
+        RESERVE("quantity_reserved = il.quantity_reserved + %s, ", InventoryMovement.MovementType.RESERVE),
+        /** available is sold directly, SALE movement. */
+        DEDUCT("", InventoryMovement.MovementType.SALE);
+
+        private final String reservedSet;
+        private final InventoryMovement.MovementType movementType;
+
+        Operation(String reservedSet, InventoryMovement.MovementType movementType) {
+            this.reservedSet = reservedSet;
+            this.movementType = movementType;
+        }
+
+        private String set(String quantity) {
+            return "quantity_available = il.quantity_available - " + quantity + ", " + reservedSet.formatted(quantity) + "updated_at = NOW()";
+        }
+    }
+
+    /** Quantity at a specific (variant, location) level. */
+    @Getter
+    @RequiredArgsConstructor
+    public static class LevelLine {
+        private final String variantPublicId;
+        private final String locationPublicId;
+        private final int quantity;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryMovementWriter inventoryMovementWriter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Applies every line at its (variant, location) level in one statement. Lines for the same level are summed.
+     * Throws when any level is missing or has less available than requested.
+     */
+    @Transactional
+    public Set<Long> applyAtLevels(Operation operation, Long storeId, List<LevelLine> lines, String referenceType, String referenceId) {
+        Map<List<String>, Integer> wanted = new LinkedHashMap<>();
+        for (LevelLine line : lines) {
+            if (line.getQuantity() <= 0) continue;
+            wanted.merge(List.of(line.getVariantPublicId(), line.getLocationPublicId()), line.getQuantity(), Integer::sum);
+        }
+        if (wanted.isEmpty()) return Set.of();
+        entityManager.flush();
+
+        List<Object> params = new ArrayList<>();
+        for (Map.Entry<List<String>, Integer> e : wanted.entrySet()) {
+            params.add(e.getKey().get(0));
+            params.add(e.getKey().get(1));
+            params.add(e.getValue());
+        }
+        params.add(storeId);
+        String sql = "WITH req(variant_public_id, location_public_id, qty) AS (VALUES " + rows(wanted.size(), "(?, ?, CAST(? AS INT))") + "), "
+                + "target AS (SELECT il.id, pv.product_id, req.variant_public_id, req.location_public_id, req.qty FROM inventory_levels il "
+                + "JOIN inventory_items ii ON ii.id = il.inventory_item_id "
+                + "JOIN product_variants pv ON pv.id = ii.product_variant_id "
+                + "JOIN locations l ON l.id = il.location_id "
+                + "JOIN req ON req.variant_public_id = pv.public_id AND req.location_public_id = l.public_id "
+                + "WHERE ii.store_id = ? ORDER BY il.id FOR UPDATE OF il) "
+                + "UPDATE inventory_levels il SET " + operation.set("t.qty") + " FROM target t "
+                + "WHERE il.id = t.id AND il.quantity_available >= t.qty "
+                + "RETURNING il.id, il.inventory_item_id, t.product_id, t.qty, t.variant_public_id, t.location_public_id";
+        List<Applied> applied = jdbcTemplate.query(sql, (rs, i) -> new Applied(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                rs.getInt(4), rs.getString(5) + "|" + rs.getString(6)), params.toArray());
+
+        if (applied.size() < wanted.size()) {
+            Map<String, Boolean> done = new HashMap<>();
+            for (Applied a : applied) done.put(a.key, true);
+            for (Map.Entry<List<String>, Integer> e : wanted.entrySet()) {
+                String key = e.getKey().get(0) + "|" + e.getKey().get(1);
+                if (done.containsKey(key)) continue;
+                throw new BusinessRuleException("Insufficient stock at this location for variant " + e.getKey().get(0)
+                        + ". Available: " + availableAt(storeId, e.getKey().get(0), e.getKey().get(1)) + ", requested: " + e.getValue());
+            }
+        }
+        writeMovements(storeId, operation.movementType, applied, referenceType, referenceId);
+        return productIds(applied);
+    }
+
+    /**
+     * Spreads each variant's quantity over its levels, highest available first, in one statement. Throws when a
+     * variant's levels do not cover its quantity; a variant with nothing available anywhere is skipped for
+     * {@link Operation#DEDUCT} (untracked stock) and rejected for {@link Operation#RESERVE}.
+     */
+    @Transactional
+    public Set<Long> applyToVariants(Operation operation, Long storeId, Map<String, Integer> quantities, String referenceType, String referenceId) {
+        Map<String, Integer> wanted = new LinkedHashMap<>();
+        quantities.forEach((variant, qty) -> {
+            if (qty != null && qty > 0) wanted.merge(variant, qty, Integer::sum);
+        });
+        if (wanted.isEmpty()) return Set.of();
+        entityManager.flush();
+
+        List<Object> params = new ArrayList<>();
+        wanted.forEach((variant, qty) -> {
+            params.add(variant);
+            params.add(qty);
+        });
+        params.add(storeId);
+        String sql = "WITH req(variant_public_id, qty) AS (VALUES " + rows(wanted.size(), "(?, CAST(? AS INT))") + "), "
+                + "locked AS (SELECT il.id, il.quantity_available, pv.product_id, pv.public_id AS variant_public_id "
+                + "FROM inventory_levels il JOIN inventory_items ii ON ii.id = il.inventory_item_id "
+                + "JOIN product_variants pv ON pv.id = ii.product_variant_id "
+                + "WHERE ii.store_id = ? AND il.quantity_available > 0 AND pv.public_id IN (SELECT variant_public_id FROM req) "
+                + "ORDER BY il.id FOR UPDATE OF il), "
+                + "plan AS (SELECT l.id, l.product_id, l.variant_public_id, LEAST(l.quantity_available, req.qty - "
+                + "(SUM(l.quantity_available) OVER (PARTITION BY l.variant_public_id ORDER BY l.quantity_available DESC, l.id "
+                + "ROWS UNBOUNDED PRECEDING) - l.quantity_available)) AS take "
+                + "FROM locked l JOIN req ON req.variant_public_id = l.variant_public_id) "
+                + "UPDATE inventory_levels il SET " + operation.set("p.take") + " FROM plan p "
+                + "WHERE il.id = p.id AND p.take > 0 AND il.quantity_available >= p.take "
+                + "RETURNING il.id, il.inventory_item_id, p.product_id, p.take, p.variant_public_id";
+        List<Applied> applied = jdbcTemplate.query(sql, (rs, i) -> new Applied(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                rs.getInt(4), rs.getString(5)), params.toArray());
+
+        Map<String, Integer> taken = new HashMap<>();
+        for (Applied a : applied) taken.merge(a.key, a.quantity, Integer::sum);
+        for (Map.Entry<String, Integer> e : wanted.entrySet()) {
+            int got = taken.getOrDefault(e.getKey(), 0);
+            if (got >= e.getValue()) continue;
+            if (got == 0 && operation == Operation.DEDUCT) continue;
+            if (got == 0) throw new BusinessRuleException("No inventory for variant " + e.getKey());
+            throw new BusinessRuleException("Insufficient stock for variant " + e.getKey() + ". Requested: " + e.getValue());
+        }
+        writeMovements(storeId, operation.movementType, applied, referenceType, referenceId);
+        return productIds(applied);
+    }
+
+    /**
+     * Settles what is still reserved under a reference: per level, its RESERVE movements less the RELEASE and SALE
+     * movements of earlier settles are summed (one lookup on the ledger's reference index) and, capped at what is
+     * still reserved there, moved back to available (release) or out of reserved (sale) in one guarded update, with
+     * RELEASE or SALE movements. Settling a reference again is a no-op; concurrent settles of one reference are
+     * serialized on a transaction-scoped advisory lock, so the second one reads the first one's movements.
+     */
+    @Transactional
+    public Set<Long> settleReservation(Long storeId, String referenceType, String referenceId, boolean toSale) {
+        entityManager.flush();
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(hashtext(?))", Object.class,
+                "inventory-settle:" + storeId + ":" + referenceType + ":" + referenceId);
+        String sql = "WITH reserved AS (SELECT m.inventory_level_id, "
+                + "SUM(CASE WHEN m.movement_type = ? THEN m.quantity_delta ELSE -m.quantity_delta END) AS qty FROM inventory_movements m "
+                + "WHERE m.store_id = ? AND m.reference_type = ? AND m.reference_id = ? AND m.movement_type IN (?, ?, ?) "
+                + "AND m.inventory_level_id IS NOT NULL GROUP BY m.inventory_level_id), "
+                + "target AS (SELECT il.id, pv.product_id, LEAST(r.qty, il.quantity_reserved) AS qty FROM reserved r "
+                + "JOIN inventory_levels il ON il.id = r.inventory_level_id "
+                + "JOIN inventory_items ii ON ii.id = il.inventory_item_id "
+                + "JOIN product_variants pv ON pv.id = ii.product_variant_id WHERE r.qty > 0 ORDER BY il.id FOR UPDATE OF il) "
+                + "UPDATE inventory_levels il SET quantity_reserved = il.quantity_reserved - t.qty, "
+                + (toSale ? "" : "quantity_available = il.quantity_available + t.qty, ")
+                + "updated_at = NOW() FROM target t WHERE il.id = t.id AND t.qty > 0 "
+                + "RETURNING il.id, il.inventory_item_id, t.product_id, CAST(t.qty AS INT)";
+        List<Applied> applied = jdbcTemplate.query(sql, (rs, i) -> new Applied(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getInt(4), null),
+                InventoryMovement.MovementType.SALE.name(), storeId, referenceType, referenceId,
+                InventoryMovement.MovementType.RESERVE.name(), InventoryMovement.MovementType.RELEASE.name(),
+                InventoryMovement.MovementType.SALE.name());
+        writeMovements(storeId, toSale ? InventoryMovement.MovementType.SALE : InventoryMovement.MovementType.RELEASE,
+                applied, referenceType, referenceId);
+        return productIds(applied);
+    }
+
+    private static Set<Long> productIds(List<Applied> applied) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Applied a : applied) ids.add(a.productId);
+        return ids;
+    }
+
+    private void writeMovements(Long storeId, InventoryMovement.MovementType type, List<Applied> applied,
+                                String referenceType, String referenceId) {
+        List<InventoryMovementWriter.Movement> movements = new ArrayList<>(applied.size());
+        for (Applied a : applied) {
+            int delta = type == InventoryMovement.MovementType.RELEASE ? a.quantity : -a.quantity;
+            movements.add(new InventoryMovementWriter.Movement(storeId, a.itemId, a.levelId, delta, type.name(), referenceType, referenceId));
+        }
+        inventoryMovementWriter.append(movements);
+    }
+
+    private int availableAt(Long storeId, String variantPublicId, String locationPublicId) {
+        List<Integer> available = jdbcTemplate.queryForList("SELECT il.quantity_available FROM inventory_levels il "
+                + "JOIN inventory_items ii ON ii.id = il.inventory_item_id JOIN product_variants pv ON pv.id = ii.product_variant_id "
+                + "JOIN locations l ON l.id = il.location_id WHERE ii.store_id = ? AND pv.public_id = ? AND l.public_id = ?",
+                Integer.class, storeId, variantPublicId, locationPublicId);
+        return available.isEmpty() ? 0 : available.get(0);
+    }
+
+    private static String rows(int n, String row) {
+        return String.join(", ", Collections.nCopies(n, row));
+    }
+
+    /** One level changed by a guarded update; key identifies the request line it satisfied. */
+    private static class Applied {
+        private final long levelId;
+        private final long itemId;
+        private final long productId;
+        private final int quantity;
+        private final String key;
+
+        Applied(long levelId, long itemId, long productId, int quantity, String key) {
+            this.levelId = levelId;
+            this.itemId = itemId;
+            this.productId = productId;
+            this.quantity = quantity;
+            this.key = key;
+        }
+    }
+}
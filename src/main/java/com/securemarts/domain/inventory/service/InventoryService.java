@@ -1,43 +1,73 @@
 package com.securemarts.domain.inventory.service;
 
+import com.securemarts.common.dto.SliceResponse;
 import com.securemarts.common.exception.BusinessRuleException;
 import com.securemarts.common.exception.ResourceNotFoundException;
+import com.securemarts.common.util.CursorCodec;
 import com.securemarts.domain.catalog.repository.ProductVariantRepository;
+import com.securemarts.domain.inventory.dto.BulkInventoryAdjustmentRequest;
+import com.securemarts.domain.inventory.dto.BulkInventoryAdjustmentResponse;
 import com.securemarts.domain.inventory.dto.InventoryAdjustmentRequest;
 import com.securemarts.domain.inventory.dto.InventoryItemResponse;
 import com.securemarts.domain.inventory.dto.LocationRequest;
+import com.securemarts.domain.inventory.dto.StockAlertResponse;
+import com.securemarts.domain.inventory.dto.VariantAvailabilityResponse;
 import com.securemarts.domain.inventory.entity.InventoryItem;
 import com.securemarts.domain.inventory.entity.InventoryLevel;
 import com.securemarts.domain.inventory.entity.InventoryMovement;
+import com.securemarts.domain.inventory.entity.InventoryStockAlert;
 import com.securemarts.domain.inventory.entity.Location;
+import com.securemarts.domain.inventory.event.InventoryChangedEvent;
 import com.securemarts.domain.inventory.repository.InventoryItemRepository;
 import com.securemarts.domain.inventory.repository.InventoryLevelRepository;
 import com.securemarts.domain.inventory.repository.InventoryMovementRepository;
+import com.securemarts.domain.inventory.repository.InventoryStockAlertRepository;
 import com.securemarts.domain.inventory.repository.LocationRepository;
 import com.securemarts.domain.onboarding.entity.Business;
 import com.securemarts.domain.onboarding.entity.Store;
 import com.securemarts.domain.onboarding.repository.StoreRepository;
 import com.securemarts.domain.onboarding.service.SubscriptionLimitsService;
 import com.securemarts.domain.catalog.dto.VariantInventoryRequest;
-import com.securemarts.domain.catalog.service.RecomputeSmartCollectionsService;
+import com.securemarts.domain.catalog.service.CatalogVersionService;
+import com.securemarts.domain.catalog.service.SmartCollectionRecomputeScheduler;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class InventoryService {
 
+    public static final int MAX_AVAILABILITY_BATCH = 250;
+
     private final LocationRepository locationRepository;
     private final InventoryItemRepository inventoryItemRepository;
     private final InventoryLevelRepository inventoryLevelRepository;
     private final InventoryMovementRepository inventoryMovementRepository;
+    private final InventoryStockAlertRepository inventoryStockAlertRepository;
     private final ProductVariantRepository productVariantRepository;
     private final StoreRepository storeRepository;
     private final SubscriptionLimitsService subscriptionLimitsService;
-    private final RecomputeSmartCollectionsService recomputeSmartCollectionsService;
+    private final SmartCollectionRecomputeScheduler smartCollectionRecomputeScheduler;
+    private final CatalogVersionService catalogVersionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InventoryReservationEngine inventoryReservationEngine;
+    private final InventoryAdjustmentWriter inventoryAdjustmentWriter;
+    private final FlashSaleReservations flashSaleReservations;
+    private final FlashSaleAllotmentStore flashSaleAllotmentStore;
 
     @Transactional(readOnly = true)
     public List<Location> listLocations(Long storeId) {
@@ -59,7 +89,9 @@ public class InventoryService {
         loc.setStoreId(storeId);
         loc.setName(request.getName().trim());
         loc.setAddress(request.getAddress());
-        return locationRepository.save(loc);
+        loc = locationRepository.save(loc);
+        stockChanged(storeId, null);
+        return loc;
     }
 
     @Transactional(readOnly = true)
@@ -76,6 +108,16 @@ public class InventoryService {
                 .toList();
     }
 
+    /** Cursor mode for the inventory list: seeks on level id instead of returning the whole store. */
+    @Transactional(readOnly = true)
+    public SliceResponse<InventoryItemResponse> listInventoryByStoreSlice(Long storeId, String after, Integer limit) {
+        ensureStoreExists(storeId);
+        int size = CursorCodec.clampLimit(limit);
+        Long afterId = CursorCodec.decode(after);
+        List<InventoryLevel> rows = inventoryLevelRepository.findSliceByStoreId(storeId, afterId != null ? afterId : 0L, PageRequest.of(0, size + 1));
+        return SliceResponse.of(rows, size, InventoryLevel::getId, list -> list.stream().map(InventoryItemResponse::from).toList());
+    }
+
     @Transactional(readOnly = true)
     public InventoryItem getInventoryItem(Long storeId, String inventoryItemPublicId) {
         InventoryItem item = inventoryItemRepository.findByPublicId(inventoryItemPublicId)
@@ -139,7 +181,10 @@ public class InventoryService {
         return getOrCreateInventoryLevel(item, loc);
     }
 
-    /** Sets inventory quantities per location for a variant from product create/update. Creates item and levels as needed. */
+    /**
+     * Sets inventory quantities per location for a variant from product create/update. Creates item and levels as needed.
+     * Each change to stock on hand is recorded as an ADJUSTMENT movement, so point-in-time queries can replay it.
+     */
     @Transactional
     public void ensureVariantInventoryLevels(Long storeId, String variantPublicId, List<VariantInventoryRequest> inventory) {
         if (inventory == null || inventory.isEmpty()) return;
@@ -148,16 +193,30 @@ public class InventoryService {
             if (req.getLocationId() == null || req.getLocationId().isBlank()) continue;
             Location loc = getLocation(storeId, req.getLocationId());
             InventoryLevel level = getOrCreateInventoryLevel(item, loc);
+            int onHandBefore = level.getQuantityAvailable() + level.getQuantityReserved();
             level.setQuantityAvailable(req.getQuantity() != null ? req.getQuantity() : 0);
             level.setQuantityReserved(0);
             level.setQuantityIncoming(0);
             inventoryLevelRepository.save(level);
+            int delta = level.getQuantityAvailable() - onHandBefore;
+            if (delta != 0) {
+                InventoryMovement movement = new InventoryMovement();
+                movement.setStoreId(storeId);
+                movement.setInventoryItem(item);
+                movement.setInventoryLevel(level);
+                movement.setQuantityDelta(delta);
+                movement.setMovementType(InventoryMovement.MovementType.ADJUSTMENT.name());
+                inventoryMovementRepository.save(movement);
+            }
         }
-        recomputeSmartCollectionsService.recomputeForStore(storeId);
+        Long productId = item.getProductVariant().getProduct().getId();
+        stockChanged(storeId, Set.of(productId));
+        smartCollectionRecomputeScheduler.recomputeForStockChange(storeId, productId);
     }
 
     @Transactional
     public InventoryItemResponse adjustStock(Long storeId, String inventoryLevelPublicId, InventoryAdjustmentRequest request) {
+        String movementType = adjustmentMovementType(request.getMovementType());
         InventoryLevel level = getInventoryLevel(storeId, inventoryLevelPublicId);
         int delta = request.getQuantityDelta();
         if (delta == 0) return InventoryItemResponse.from(level);
@@ -167,17 +226,108 @@ public class InventoryService {
         level.setQuantityAvailable(level.getQuantityAvailable() + delta);
         inventoryLevelRepository.save(level);
         InventoryMovement movement = new InventoryMovement();
+        movement.setStoreId(storeId);
         movement.setInventoryItem(level.getInventoryItem());
         movement.setInventoryLevel(level);
         movement.setQuantityDelta(delta);
-        movement.setMovementType(request.getMovementType() != null ? request.getMovementType() : "ADJUSTMENT");
+        movement.setMovementType(movementType);
         movement.setReferenceType(request.getReferenceType());
         movement.setReferenceId(request.getReferenceId());
         inventoryMovementRepository.save(movement);
-        recomputeSmartCollectionsService.recomputeForStore(storeId);
+        Long productId = level.getInventoryItem().getProductVariant().getProduct().getId();
+        stockChanged(storeId, Set.of(productId));
+        smartCollectionRecomputeScheduler.recomputeForStockChange(storeId, productId);
         return InventoryItemResponse.from(level);
     }
 
+    /**
+     * Applies many adjustments (delta or absolute count) in chunks of {@link InventoryAdjustmentWriter#CHUNK_SIZE},
+     * each one statement plus one movement batch committed on its own. Lines that cannot be applied are reported and
+     * do not stop the rest; a chunk that fails as a whole is logged and reported line by line, with the reason only for
+     * business rule failures. Catalog version, stock event and collection recompute are triggered once for the request.
+     */
+    public BulkInventoryAdjustmentResponse bulkAdjustStock(Long storeId, BulkInventoryAdjustmentRequest request) {
+        ensureStoreExists(storeId);
+        String movementType = adjustmentMovementType(request.getMovementType());
+        BulkInventoryAdjustmentResponse response = new BulkInventoryAdjustmentResponse();
+        List<BulkInventoryAdjustmentRequest.Line> adjustments = request.getAdjustments();
+        response.setRequested(adjustments.size());
+        List<InventoryAdjustmentWriter.Line> valid = new ArrayList<>(adjustments.size());
+        for (int i = 0; i < adjustments.size(); i++) {
+            BulkInventoryAdjustmentRequest.Line line = adjustments.get(i);
+            String problem = validateAdjustment(line);
+            if (problem != null) {
+                response.getFailures().add(new BulkInventoryAdjustmentResponse.Failure(i, problem));
+                continue;
+            }
+            boolean byLevel = line.getInventoryLevelId() != null && !line.getInventoryLevelId().isBlank();
+            valid.add(new InventoryAdjustmentWriter.Line(i, byLevel ? line.getInventoryLevelId() : null,
+                    byLevel ? null : line.getVariantId(), byLevel ? null : line.getLocationId(),
+                    line.getQuantity() == null ? line.getQuantityDelta() : null, line.getQuantity()));
+        }
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (int from = 0; from < valid.size(); from += InventoryAdjustmentWriter.CHUNK_SIZE) {
+            List<InventoryAdjustmentWriter.Line> chunk = valid.subList(from, Math.min(valid.size(), from + InventoryAdjustmentWriter.CHUNK_SIZE));
+            try {
+                InventoryAdjustmentWriter.ChunkResult result = inventoryAdjustmentWriter.applyChunk(storeId, chunk, movementType,
+                        request.getReferenceType(), request.getReferenceId());
+                response.setApplied(response.getApplied() + result.getApplied());
+                response.setUnchanged(response.getUnchanged() + result.getUnchanged());
+                response.getFailures().addAll(result.getFailures());
+                productIds.addAll(result.getProductIds());
+            } catch (RuntimeException e) {
+                int first = chunk.get(0).getIndex();
+                int last = chunk.get(chunk.size() - 1).getIndex();
+                String reason;
+                if (e instanceof BusinessRuleException) {
+                    log.warn("Bulk stock adjustment for store {} lines {}-{} not applied: {}", storeId, first, last, e.getMessage());
+                    reason = "Not applied: " + e.getMessage();
+                } else {
+                    log.error("Bulk stock adjustment for store {} lines {}-{} failed", storeId, first, last, e);
+                    reason = "Could not be applied, retry";
+                }
+                for (InventoryAdjustmentWriter.Line line : chunk) {
+                    response.getFailures().add(new BulkInventoryAdjustmentResponse.Failure(line.getIndex(), reason));
+                }
+            }
+        }
+        response.getFailures().sort(Comparator.comparingInt(BulkInventoryAdjustmentResponse.Failure::getIndex));
+        if (!productIds.isEmpty()) {
+            stockChanged(storeId, productIds);
+            smartCollectionRecomputeScheduler.recomputeForStockChange(storeId, productIds);
+        }
+        return response;
+    }
+
+    /**
+     * Movement type recorded for a stock adjustment (ADJUSTMENT by default). RESERVE and RELEASE are rejected: they only
+     * move stock between available and reserved, and an adjustment changes stock on hand.
+     */
+    private static String adjustmentMovementType(String requested) {
+        if (requested == null) return InventoryMovement.MovementType.ADJUSTMENT.name();
+        InventoryMovement.MovementType type;
+        try {
+            type = InventoryMovement.MovementType.valueOf(requested);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessRuleException("Unknown movement type: " + requested);
+        }
+        if (type == InventoryMovement.MovementType.RESERVE || type == InventoryMovement.MovementType.RELEASE) {
+            throw new BusinessRuleException("Movement type " + requested + " cannot be used for a stock adjustment");
+        }
+        return type.name();
+    }
+
+    private static String validateAdjustment(BulkInventoryAdjustmentRequest.Line line) {
+        if (line == null) return "Empty line";
+        boolean byLevel = line.getInventoryLevelId() != null && !line.getInventoryLevelId().isBlank();
+        boolean byVariant = line.getVariantId() != null && !line.getVariantId().isBlank()
+                && line.getLocationId() != null && !line.getLocationId().isBlank();
+        if (!byLevel && !byVariant) return "inventoryLevelId or variantId and locationId required";
+        if ((line.getQuantity() == null) == (line.getQuantityDelta() == null)) return "Exactly one of quantity or quantityDelta required";
+        if (line.getQuantity() != null && line.getQuantity() < 0) return "quantity must not be negative";
+        return null;
+    }
+
     @Transactional
     public InventoryItemResponse reserve(Long storeId, String inventoryLevelPublicId, int quantity) {
         return reserve(storeId, inventoryLevelPublicId, quantity, null, null);
@@ -193,6 +343,7 @@ public class InventoryService {
         level.setQuantityReserved(level.getQuantityReserved() + quantity);
         inventoryLevelRepository.save(level);
         InventoryMovement movement = new InventoryMovement();
+        movement.setStoreId(storeId);
         movement.setInventoryItem(level.getInventoryItem());
         movement.setInventoryLevel(level);
         movement.setQuantityDelta(-quantity);
@@ -200,28 +351,37 @@ public class InventoryService {
         movement.setReferenceType(referenceType);
         movement.setReferenceId(referenceId);
         inventoryMovementRepository.save(movement);
+        stockChanged(storeId, Set.of(level.getInventoryItem().getProductVariant().getProduct().getId()));
         return InventoryItemResponse.from(level);
     }
 
     /** Reserve quantity at a specific (variant, location). Used by checkout when allocating to a location. */
     @Transactional
     public void reserveAtLevel(Long storeId, String variantPublicId, String locationPublicId, int quantity, String referenceType, String referenceId) {
-        if (quantity <= 0) return;
-        InventoryLevel level = getOrCreateLevel(storeId, variantPublicId, locationPublicId);
-        if (level.getQuantityAvailable() < quantity) {
-            throw new BusinessRuleException("Insufficient quantity to reserve at this location. Available: " + level.getQuantityAvailable());
+        reserveAtLevels(storeId, List.of(new InventoryReservationEngine.LevelLine(variantPublicId, locationPublicId, quantity)), referenceType, referenceId);
+    }
+
+    /**
+     * Reserves every (variant, location) line in one guarded update; nothing is reserved unless all lines fit.
+     * Used by checkout to reserve a whole order's allocations at once. Lines of flash-sale variants are granted from
+     * memory by {@link FlashSaleReservations} (first, so a shortfall there fails before any level is locked) and
+     * notified in batches by its flush.
+     */
+    @Transactional
+    public void reserveAtLevels(Long storeId, List<InventoryReservationEngine.LevelLine> lines, String referenceType, String referenceId) {
+        if (lines.isEmpty()) return;
+        List<InventoryReservationEngine.LevelLine> flashLines = new ArrayList<>();
+        List<InventoryReservationEngine.LevelLine> levelLines = new ArrayList<>(lines.size());
+        for (InventoryReservationEngine.LevelLine line : lines) {
+            (flashSaleReservations.isFlashSale(storeId, line.getVariantPublicId()) ? flashLines : levelLines).add(line);
+        }
+        if (!flashLines.isEmpty()) {
+            flashSaleReservations.reserve(storeId, flashLines, referenceType, referenceId);
+        }
+        if (!levelLines.isEmpty()) {
+            stockChanged(storeId, inventoryReservationEngine.applyAtLevels(InventoryReservationEngine.Operation.RESERVE, storeId,
+                    levelLines, referenceType, referenceId));
         }
-        level.setQuantityAvailable(level.getQuantityAvailable() - quantity);
-        level.setQuantityReserved(level.getQuantityReserved() + quantity);
-        inventoryLevelRepository.save(level);
-        InventoryMovement movement = new InventoryMovement();
-        movement.setInventoryItem(level.getInventoryItem());
-        movement.setInventoryLevel(level);
-        movement.setQuantityDelta(-quantity);
-        movement.setMovementType(InventoryMovement.MovementType.RESERVE.name());
-        movement.setReferenceType(referenceType);
-        movement.setReferenceId(referenceId);
-        inventoryMovementRepository.save(movement);
     }
 
     @Transactional
@@ -233,51 +393,26 @@ public class InventoryService {
         level.setQuantityAvailable(level.getQuantityAvailable() + toRelease);
         inventoryLevelRepository.save(level);
         InventoryMovement movement = new InventoryMovement();
+        movement.setStoreId(storeId);
         movement.setInventoryItem(level.getInventoryItem());
         movement.setInventoryLevel(level);
         movement.setQuantityDelta(toRelease);
         movement.setMovementType(InventoryMovement.MovementType.RELEASE.name());
         inventoryMovementRepository.save(movement);
+        stockChanged(storeId, Set.of(level.getInventoryItem().getProductVariant().getProduct().getId()));
         return InventoryItemResponse.from(level);
     }
 
     /**
-     * Reserve quantity for a variant across locations (highest available first). Uses pessimistic lock to avoid races.
+     * Reserve quantity for a variant across locations (highest available first), as one guarded update.
      * referenceType e.g. "ORDER", referenceId e.g. order publicId.
      */
     @Transactional
     public void reserveVariantQuantity(Long storeId, String variantPublicId, int quantity, String referenceType, String referenceId) {
         if (quantity <= 0) return;
-        var variant = productVariantRepository.findByPublicId(variantPublicId)
-                .orElseThrow(() -> new ResourceNotFoundException("ProductVariant", variantPublicId));
-        if (!variant.getProduct().getStoreId().equals(storeId)) {
-            throw new BusinessRuleException("Variant does not belong to this store");
-        }
-        var levels = inventoryLevelRepository.findByStoreIdAndVariantIdForUpdate(storeId, variant.getId());
-        if (levels.isEmpty()) {
-            throw new BusinessRuleException("No inventory for variant " + variantPublicId);
-        }
-        int remaining = quantity;
-        for (InventoryLevel level : levels) {
-            if (remaining <= 0) break;
-            int take = Math.min(remaining, level.getQuantityAvailable());
-            if (take <= 0) continue;
-            level.setQuantityAvailable(level.getQuantityAvailable() - take);
-            level.setQuantityReserved(level.getQuantityReserved() + take);
-            inventoryLevelRepository.save(level);
-            InventoryMovement movement = new InventoryMovement();
-            movement.setInventoryItem(level.getInventoryItem());
-            movement.setInventoryLevel(level);
-            movement.setQuantityDelta(-take);
-            movement.setMovementType(InventoryMovement.MovementType.RESERVE.name());
-            movement.setReferenceType(referenceType);
-            movement.setReferenceId(referenceId);
-            inventoryMovementRepository.save(movement);
-            remaining -= take;
-        }
-        if (remaining > 0) {
-            throw new BusinessRuleException("Insufficient stock for variant " + variantPublicId + ". Requested: " + quantity);
-        }
+        requireStoreVariant(storeId, variantPublicId);
+        stockChanged(storeId, inventoryReservationEngine.applyToVariants(InventoryReservationEngine.Operation.RESERVE, storeId,
+                Map.of(variantPublicId, quantity), referenceType, referenceId));
     }
 
     /**
@@ -285,26 +420,8 @@ public class InventoryService {
      */
     @Transactional
     public void releaseByReference(Long storeId, String referenceType, String referenceId) {
-        var movements = inventoryMovementRepository.findByInventoryItem_StoreIdAndReferenceTypeAndReferenceIdAndMovementType(
-                storeId, referenceType, referenceId, InventoryMovement.MovementType.RESERVE.name());
-        for (InventoryMovement m : movements) {
-            int qty = Math.abs(m.getQuantityDelta());
-            InventoryLevel level = m.getInventoryLevel();
-            if (level == null) continue;
-            int toRelease = Math.min(qty, level.getQuantityReserved());
-            if (toRelease <= 0) continue;
-            level.setQuantityReserved(level.getQuantityReserved() - toRelease);
-            level.setQuantityAvailable(level.getQuantityAvailable() + toRelease);
-            inventoryLevelRepository.save(level);
-            InventoryMovement releaseMovement = new InventoryMovement();
-            releaseMovement.setInventoryItem(level.getInventoryItem());
-            releaseMovement.setInventoryLevel(level);
-            releaseMovement.setQuantityDelta(toRelease);
-            releaseMovement.setMovementType(InventoryMovement.MovementType.RELEASE.name());
-            releaseMovement.setReferenceType(referenceType);
-            releaseMovement.setReferenceId(referenceId);
-            inventoryMovementRepository.save(releaseMovement);
-        }
+        flashSaleAllotmentStore.flushReference(storeId, referenceType, referenceId);
+        stockChanged(storeId, inventoryReservationEngine.settleReservation(storeId, referenceType, referenceId, false));
     }
 
     /**
@@ -312,116 +429,189 @@ public class InventoryService {
      */
     @Transactional
     public void convertReservationToSale(Long storeId, String referenceType, String referenceId) {
-        var movements = inventoryMovementRepository.findByInventoryItem_StoreIdAndReferenceTypeAndReferenceIdAndMovementType(
-                storeId, referenceType, referenceId, InventoryMovement.MovementType.RESERVE.name());
-        for (InventoryMovement m : movements) {
-            int qty = Math.abs(m.getQuantityDelta());
-            InventoryLevel level = m.getInventoryLevel();
-            if (level == null) continue;
-            int toConvert = Math.min(qty, level.getQuantityReserved());
-            if (toConvert <= 0) continue;
-            level.setQuantityReserved(level.getQuantityReserved() - toConvert);
-            inventoryLevelRepository.save(level);
-            InventoryMovement saleMovement = new InventoryMovement();
-            saleMovement.setInventoryItem(level.getInventoryItem());
-            saleMovement.setInventoryLevel(level);
-            saleMovement.setQuantityDelta(-toConvert);
-            saleMovement.setMovementType(InventoryMovement.MovementType.SALE.name());
-            saleMovement.setReferenceType(referenceType);
-            saleMovement.setReferenceId(referenceId);
-            inventoryMovementRepository.save(saleMovement);
-        }
+        flashSaleAllotmentStore.flushReference(storeId, referenceType, referenceId);
+        stockChanged(storeId, inventoryReservationEngine.settleReservation(storeId, referenceType, referenceId, true));
     }
 
+    /** Levels at or below their reorder threshold, read from the trigger-maintained low-stock set. */
     @Transactional(readOnly = true)
     public List<InventoryItemResponse> listLowStock(Long storeId) {
         ensureStoreExists(storeId);
-        return inventoryLevelRepository.findByInventoryItem_StoreId(storeId).stream()
-                .filter(l -> l.getQuantityAvailable() <= 0)
+        List<Long> levelIds = inventoryLevelRepository.findLowStockLevelIds(storeId);
+        if (levelIds.isEmpty()) return List.of();
+        return inventoryLevelRepository.findByIdInWithItemAndLocation(levelIds).stream()
                 .map(InventoryItemResponse::from)
                 .toList();
     }
 
+    @Transactional
+    public InventoryItemResponse setReorderThreshold(Long storeId, String inventoryLevelPublicId, int reorderThreshold) {
+        if (reorderThreshold < 0) {
+            throw new BusinessRuleException("Reorder threshold cannot be negative");
+        }
+        InventoryLevel level = getInventoryLevel(storeId, inventoryLevelPublicId);
+        level.setReorderThreshold(reorderThreshold);
+        level = inventoryLevelRepository.save(level);
+        return InventoryItemResponse.from(level);
+    }
+
     /**
-     * Returns inventory levels for a variant with quantity available > 0, sorted by quantity desc (for allocation).
+     * Turns flash-sale mode on or off for the item's variant. Instances pick the change up on their next flash-sale
+     * maintenance pass; when turned off, stock they still hold goes back to the levels then.
      */
     @Transactional
-    public List<InventoryLevel> getAllocationCandidatesForVariant(Long storeId, String variantPublicId) {
-        var variant = productVariantRepository.findByPublicId(variantPublicId)
-                .orElseThrow(() -> new ResourceNotFoundException("ProductVariant", variantPublicId));
-        if (!variant.getProduct().getStoreId().equals(storeId)) {
-            return List.of();
+    public InventoryItemResponse setFlashSale(Long storeId, String inventoryItemPublicId, boolean enabled) {
+        InventoryItem item = getInventoryItem(storeId, inventoryItemPublicId);
+        if (enabled && !item.isTracked()) {
+            throw new BusinessRuleException("Flash-sale mode needs tracked inventory");
+        }
+        item.setFlashSale(enabled);
+        return InventoryItemResponse.from(inventoryItemRepository.save(item));
+    }
+
+    /**
+     * Low-stock / restocked alerts in the order their transactions wrote them. Alerts are written by the database
+     * whenever a level's available quantity crosses its threshold, whichever path changed it; poll with the returned
+     * cursor. An alert is listed once no transaction that started before it is still running, so alerts committed out
+     * of id order are not skipped; a long-running transaction holds back newer alerts until it ends.
+     */
+    @Transactional(readOnly = true)
+    public SliceResponse<StockAlertResponse> listStockAlerts(Long storeId, String after, Integer limit) {
+        ensureStoreExists(storeId);
+        int size = CursorCodec.clampLimit(limit);
+        long[] position = CursorCodec.decodePair(after);
+        List<InventoryStockAlert> rows = inventoryStockAlertRepository.findCommittedAfter(storeId,
+                position != null ? position[0] : 0L, position != null ? position[1] : 0L, PageRequest.of(0, size + 1));
+        return SliceResponse.ofCursor(rows, size, alert -> CursorCodec.encode(alert.getXid(), alert.getId()), this::toStockAlertResponses);
+    }
+
+    private List<StockAlertResponse> toStockAlertResponses(List<InventoryStockAlert> alerts) {
+        if (alerts.isEmpty()) return List.of();
+        Set<Long> levelIds = new LinkedHashSet<>();
+        for (InventoryStockAlert alert : alerts) levelIds.add(alert.getInventoryLevelId());
+        Map<Long, InventoryLevel> levels = new LinkedHashMap<>();
+        for (InventoryLevel level : inventoryLevelRepository.findByIdInWithItemAndLocation(levelIds)) {
+            levels.put(level.getId(), level);
         }
-        return inventoryLevelRepository.findByStoreIdAndVariantIdForUpdate(storeId, variant.getId());
+        List<StockAlertResponse> out = new ArrayList<>(alerts.size());
+        for (InventoryStockAlert alert : alerts) {
+            InventoryLevel level = levels.get(alert.getInventoryLevelId());
+            StockAlertResponse.StockAlertResponseBuilder b = StockAlertResponse.builder()
+                    .alertType(alert.getAlertType())
+                    .quantityAvailable(alert.getQuantityAvailable())
+                    .reorderThreshold(alert.getReorderThreshold())
+                    .createdAt(alert.getCreatedAt());
+            if (level != null) {
+                b.inventoryLevelId(level.getPublicId())
+                        .productVariantId(level.getInventoryItem().getProductVariant().getPublicId())
+                        .variantSku(level.getInventoryItem().getProductVariant().getSku())
+                        .locationId(level.getLocation().getPublicId())
+                        .locationName(level.getLocation().getName());
+            }
+            out.add(b.build());
+        }
+        return out;
+    }
+
+    /**
+     * Levels of the store's variants (with location) for allocation planning, in one query; levels of another store's
+     * variants are not returned. Not locked: the reservation re-checks each level when it is applied.
+     */
+    @Transactional(readOnly = true)
+    public List<InventoryLevel> getAllocationCandidates(Long storeId, Collection<String> variantPublicIds) {
+        if (variantPublicIds.isEmpty()) return List.of();
+        return inventoryLevelRepository.findAllocationCandidates(storeId, new LinkedHashSet<>(variantPublicIds));
     }
 
+    /** Available across locations; Integer.MAX_VALUE when the variant has no levels (untracked), 0 for another store's variant. */
     @Transactional(readOnly = true)
     public int getAvailableQuantityForVariant(Long storeId, String variantPublicId) {
-        var variant = productVariantRepository.findByPublicId(variantPublicId)
-                .orElseThrow(() -> new ResourceNotFoundException("ProductVariant", variantPublicId));
-        if (!variant.getProduct().getStoreId().equals(storeId)) {
-            return 0;
+        Integer available = getAvailableQuantities(storeId, List.of(variantPublicId)).get(variantPublicId);
+        if (available == null) {
+            throw new ResourceNotFoundException("ProductVariant", variantPublicId);
         }
-        var levels = inventoryLevelRepository.findByInventoryItem_StoreId(storeId).stream()
-                .filter(l -> l.getInventoryItem().getProductVariant().getId().equals(variant.getId()))
-                .toList();
-        if (levels.isEmpty()) {
-            return Integer.MAX_VALUE;
+        return available;
+    }
+
+    /**
+     * Available quantity per variant summed from its levels, in one query for all variants. Same convention as
+     * {@link #getAvailableQuantityForVariant}; unknown variant IDs are absent from the map.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Integer> getAvailableQuantities(Long storeId, Collection<String> variantPublicIds) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        if (variantPublicIds == null || variantPublicIds.isEmpty()) return result;
+        Map<String, Integer> allotted = unsoldFlashSaleStock(storeId, variantPublicIds);
+        for (Object[] row : inventoryItemRepository.findAvailabilityByVariantPublicIdIn(storeId, new LinkedHashSet<>(variantPublicIds))) {
+            String variantPublicId = (String) row[0];
+            if (!Boolean.TRUE.equals(row[1])) {
+                result.put(variantPublicId, 0);
+            } else if (row[3] == null || ((Number) row[3]).intValue() <= 0) {
+                result.put(variantPublicId, Integer.MAX_VALUE);
+            } else {
+                result.put(variantPublicId, toQuantity(((Number) row[2]).longValue() + allotted.getOrDefault(variantPublicId, 0)));
+            }
         }
-        return levels.stream().mapToInt(InventoryLevel::getQuantityAvailable).sum();
+        return result;
+    }
+
+    /** Availability for up to {@link #MAX_AVAILABILITY_BATCH} variants of the store (storefront badges, cart); other variants are left out. */
+    @Transactional(readOnly = true)
+    public List<VariantAvailabilityResponse> getVariantAvailability(Long storeId, List<String> variantPublicIds) {
+        if (variantPublicIds == null || variantPublicIds.isEmpty()) return List.of();
+        if (variantPublicIds.size() > MAX_AVAILABILITY_BATCH) {
+            throw new BusinessRuleException("At most " + MAX_AVAILABILITY_BATCH + " variants per availability request");
+        }
+        List<VariantAvailabilityResponse> out = new ArrayList<>();
+        Map<String, Integer> allotted = unsoldFlashSaleStock(storeId, variantPublicIds);
+        for (Object[] row : inventoryItemRepository.findAvailabilityByVariantPublicIdIn(storeId, new LinkedHashSet<>(variantPublicIds))) {
+            if (!Boolean.TRUE.equals(row[1])) continue;
+            boolean tracked = row[3] != null && ((Number) row[3]).intValue() > 0;
+            int qty = tracked ? toQuantity(((Number) row[2]).longValue() + allotted.getOrDefault((String) row[0], 0)) : 0;
+            out.add(VariantAvailabilityResponse.builder()
+                    .variantPublicId((String) row[0])
+                    .tracked(tracked)
+                    .quantityAvailable(tracked ? qty : null)
+                    .inStock(!tracked || qty > 0)
+                    .build());
+        }
+        return out;
     }
 
     /** Deduct quantity from a specific (variant, location) level. Used when location is known (e.g. POS preferred location). */
     @Transactional
     public void deductAtLevel(Long storeId, String variantPublicId, String locationPublicId, int quantity, String referenceType, String referenceId) {
         if (quantity <= 0) return;
-        InventoryLevel level = getOrCreateLevel(storeId, variantPublicId, locationPublicId);
-        if (level.getQuantityAvailable() < quantity) {
-            throw new BusinessRuleException("Insufficient stock at this location for variant. Available: " + level.getQuantityAvailable());
-        }
-        level.setQuantityAvailable(level.getQuantityAvailable() - quantity);
-        inventoryLevelRepository.save(level);
-        InventoryMovement movement = new InventoryMovement();
-        movement.setInventoryItem(level.getInventoryItem());
-        movement.setInventoryLevel(level);
-        movement.setQuantityDelta(-quantity);
-        movement.setMovementType(InventoryMovement.MovementType.SALE.name());
-        movement.setReferenceType(referenceType);
-        movement.setReferenceId(referenceId);
-        inventoryMovementRepository.save(movement);
+        stockChanged(storeId, inventoryReservationEngine.applyAtLevels(InventoryReservationEngine.Operation.DEDUCT, storeId,
+                List.of(new InventoryReservationEngine.LevelLine(variantPublicId, locationPublicId, quantity)), referenceType, referenceId));
     }
 
     /** Deduct quantity for a variant from levels (allocates across locations). Used at order creation. */
     @Transactional
     public void deductVariantQuantity(Long storeId, String variantPublicId, int quantity, String referenceType, String referenceId) {
         if (quantity <= 0) return;
+        requireStoreVariant(storeId, variantPublicId);
+        stockChanged(storeId, inventoryReservationEngine.applyToVariants(InventoryReservationEngine.Operation.DEDUCT, storeId,
+                Map.of(variantPublicId, quantity), referenceType, referenceId));
+    }
+
+    private void requireStoreVariant(Long storeId, String variantPublicId) {
         var variant = productVariantRepository.findByPublicId(variantPublicId)
                 .orElseThrow(() -> new ResourceNotFoundException("ProductVariant", variantPublicId));
         if (!variant.getProduct().getStoreId().equals(storeId)) {
             throw new BusinessRuleException("Variant does not belong to this store");
         }
-        var levels = inventoryLevelRepository.findByStoreIdAndVariantIdForUpdate(storeId, variant.getId());
-        if (levels.isEmpty()) return;
-        int remaining = quantity;
-        for (InventoryLevel level : levels) {
-            if (remaining <= 0) break;
-            int take = Math.min(remaining, level.getQuantityAvailable());
-            if (take <= 0) continue;
-            level.setQuantityAvailable(level.getQuantityAvailable() - take);
-            inventoryLevelRepository.save(level);
-            InventoryMovement movement = new InventoryMovement();
-            movement.setInventoryItem(level.getInventoryItem());
-            movement.setInventoryLevel(level);
-            movement.setQuantityDelta(-take);
-            movement.setMovementType(InventoryMovement.MovementType.SALE.name());
-            movement.setReferenceType(referenceType);
-            movement.setReferenceId(referenceId);
-            inventoryMovementRepository.save(movement);
-            remaining -= take;
-        }
-        if (remaining > 0) {
-            throw new BusinessRuleException("Insufficient stock for variant " + variantPublicId + ". Requested: " + quantity);
-        }
+    }
+
+    /** Units allotted to flash-sale counters and not yet granted; the level rows count them as reserved. */
+    private Map<String, Integer> unsoldFlashSaleStock(Long storeId, Collection<String> variantPublicIds) {
+        if (!flashSaleReservations.hasFlashSale(storeId, variantPublicIds)) return Map.of();
+        return flashSaleAllotmentStore.unsoldByVariant(storeId, variantPublicIds);
+    }
+
+    /** Aggregate sum as an int below the untracked sentinel. */
+    private static int toQuantity(Object sum) {
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE - 1L, ((Number) sum).longValue()));
     }
 
     private void ensureStoreExists(Long storeId) {
@@ -429,4 +619,14 @@ public class InventoryService {
             throw new ResourceNotFoundException("Store", String.valueOf(storeId));
         }
     }
+
+    /**
+     * Public availability of the products changed (null: any product of the store): lets in-memory stock views apply
+     * the change, then moves the catalog ETag (both after commit, in that order). Nothing changed when empty.
+     */
+    private void stockChanged(Long storeId, Set<Long> productIds) {
+        if (productIds != null && productIds.isEmpty()) return;
+        eventPublisher.publishEvent(new InventoryChangedEvent(this, storeId, productIds));
+        catalogVersionService.bump(storeId);
+    }
 }
@@ -0,0 +1,188 @@
+package com.securemarts.domain.inventory.service;
+
+import com.securemarts.common.exception.BusinessRuleException;
+import com.securemarts.domain.inventory.dto.InventoryValuationResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Daily per-level stock snapshots and point-in-time queries on top of them. A snapshot copies the store's levels
+ * with stock (and each item's cost at that moment) in one INSERT ... SELECT. Stock at an instant is answered from the
+ * snapshot closest to it plus a replay of the ledger movements in between, forwards or backwards, so at most about
+ * a day of movements is read whatever the age of the store.
+ * <p>
+ * On hand is available + reserved: RESERVE and RELEASE movements only move stock between the two and are not replayed.
+ * Every other change to on hand has a movement: absolute sets (product forms, stock-take counts) and imported opening
+ * stock are recorded as an ADJUSTMENT of the difference, and adjustments cannot be typed RESERVE or RELEASE.
+ * <p>
+ * A movement is stamped with its transaction's start, so one stamped before the copy may commit after it. The copy
+ * therefore records which movements from its ledger horizon (the overlap before it) it already contains, in the same
+ * statement snapshot, and replay decides on those ids rather than on created_at alone; taken_at is read after the copy,
+ * so every contained movement is stamped before it.
+ */
+@Service
+@Slf4j
+public class InventorySnapshotService {
+
+    private static final String CONTAINED = "EXISTS (SELECT 1 FROM inventory_snapshot_movements sm "
+            + "WHERE sm.run_id = :runId AND sm.movement_id = m.id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final long ledgerOverlapSeconds;
+
+    public InventorySnapshotService(JdbcTemplate jdbcTemplate,
+                                    NamedParameterJdbcTemplate namedJdbcTemplate,
+                                    @Value("${app.inventory.snapshots.ledger-overlap-seconds:600}") long ledgerOverlapSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.ledgerOverlapSeconds = Math.max(0, ledgerOverlapSeconds);
+    }
+
+    /**
+     * Records the store's current levels as the snapshot for the given day (normally the day that just ended).
+     * Returns false when that day already has a snapshot.
+     */
+    @Transactional
+    public boolean takeSnapshot(Long storeId, LocalDate day) {
+        List<Long> runIds = jdbcTemplate.queryForList(
+                "INSERT INTO inventory_snapshot_runs (store_id, snapshot_date, taken_at, ledger_horizon) "
+                        + "VALUES (?, ?, clock_timestamp(), clock_timestamp() - make_interval(secs => ?)) "
+                        + "ON CONFLICT (store_id, snapshot_date) DO NOTHING RETURNING id",
+                Long.class, storeId, day, ledgerOverlapSeconds);
+        if (runIds.isEmpty()) return false;
+        Long runId = runIds.get(0);
+        // One statement, so the levels and the movement ids are read from the same snapshot
+        Integer levels = jdbcTemplate.queryForObject(
+                "WITH levels AS (INSERT INTO inventory_snapshots (run_id, inventory_level_id, inventory_item_id, location_id, "
+                        + "quantity_available, quantity_reserved, unit_cost) "
+                        + "SELECT ?, il.id, ii.id, il.location_id, il.quantity_available, il.quantity_reserved, ii.cost_amount "
+                        + "FROM inventory_levels il JOIN inventory_items ii ON ii.id = il.inventory_item_id "
+                        + "WHERE ii.store_id = ? AND (il.quantity_available <> 0 OR il.quantity_reserved <> 0) RETURNING 1), "
+                        + "contained AS (INSERT INTO inventory_snapshot_movements (run_id, movement_id) "
+                        + "SELECT r.id, m.id FROM inventory_snapshot_runs r JOIN inventory_movements m "
+                        + "ON m.store_id = r.store_id AND m.created_at >= r.ledger_horizon WHERE r.id = ?) "
+                        + "SELECT COUNT(*) FROM levels",
+                Integer.class, runId, storeId, runId);
+        jdbcTemplate.update("UPDATE inventory_snapshot_runs SET level_count = ?, taken_at = clock_timestamp() WHERE id = ?",
+                levels != null ? levels : 0, runId);
+        return true;
+    }
+
+    /** Stores that have inventory items (candidates for the daily snapshot). */
+    @Transactional(readOnly = true)
+    public List<Long> storesWithInventory() {
+        return jdbcTemplate.queryForList("SELECT DISTINCT store_id FROM inventory_items ORDER BY store_id", Long.class);
+    }
+
+    /**
+     * Stock on hand per variant and location at the instant, valued at unit cost. Optionally limited to one location.
+     */
+    @Transactional(readOnly = true)
+    public InventoryValuationResponse stockAt(Long storeId, Instant asOf, String locationPublicId) {
+        Run before = nearestRun(storeId, asOf, true);
+        Run after = nearestRun(storeId, asOf, false);
+        Run run = before;
+        if (run == null || (after != null && Duration.between(after.takenAt.toInstant(), asOf).abs()
+                .compareTo(Duration.between(before.takenAt.toInstant(), asOf)) < 0)) {
+            run = after;
+        }
+        if (run == null) {
+            throw new BusinessRuleException("No inventory snapshot exists for this store yet");
+        }
+        // Forwards: movements from the horizon on that the copy does not contain. Backwards: the ones since asOf it does.
+        boolean forward = !run.takenAt.toInstant().isAfter(asOf);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("runId", run.id)
+                .addValue("storeId", storeId)
+                .addValue("from", forward ? run.ledgerHorizon : Timestamp.from(asOf))
+                .addValue("to", forward ? Timestamp.from(asOf) : run.takenAt)
+                .addValue("horizon", run.ledgerHorizon)
+                .addValue("sign", forward ? 1 : -1)
+                .addValue("location", locationPublicId);
+        String replay = "m.store_id = :storeId AND m.created_at >= :from AND m.created_at < :to "
+                + "AND m.movement_type NOT IN ('RESERVE', 'RELEASE') AND "
+                + (forward ? "NOT " + CONTAINED : "(m.created_at < :horizon OR " + CONTAINED + ")");
+        Integer replayed = namedJdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM inventory_movements m WHERE " + replay, params, Integer.class);
+        String sql = "WITH base AS (SELECT s.inventory_level_id, s.inventory_item_id, s.location_id, "
+                + "s.quantity_available + s.quantity_reserved AS qty, s.unit_cost FROM inventory_snapshots s WHERE s.run_id = :runId), "
+                + "delta AS (SELECT m.inventory_level_id, MAX(m.inventory_item_id) AS inventory_item_id, SUM(m.quantity_delta) AS qty "
+                + "FROM inventory_movements m WHERE " + replay + " AND m.inventory_level_id IS NOT NULL GROUP BY m.inventory_level_id) "
+                + "SELECT pv.public_id, pv.sku, l.public_id, l.name, "
+                + "COALESCE(b.qty, 0) + :sign * COALESCE(d.qty, 0) AS qty, COALESCE(b.unit_cost, ii.cost_amount) AS unit_cost "
+                + "FROM base b FULL JOIN delta d ON d.inventory_level_id = b.inventory_level_id "
+                + "LEFT JOIN inventory_levels il ON il.id = COALESCE(b.inventory_level_id, d.inventory_level_id) "
+                + "LEFT JOIN inventory_items ii ON ii.id = COALESCE(b.inventory_item_id, d.inventory_item_id) "
+                + "LEFT JOIN product_variants pv ON pv.id = ii.product_variant_id "
+                + "LEFT JOIN locations l ON l.id = COALESCE(b.location_id, il.location_id) "
+                + "WHERE CAST(:location AS VARCHAR) IS NULL OR l.public_id = :location "
+                + "ORDER BY l.name, pv.sku";
+        List<InventoryValuationResponse.Line> lines = new ArrayList<>();
+        long[] totalQuantity = {0};
+        BigDecimal[] totalValue = {BigDecimal.ZERO};
+        namedJdbcTemplate.query(sql, params, rs -> {
+            int qty = rs.getInt(5);
+            if (qty == 0) return;
+            BigDecimal unitCost = rs.getBigDecimal(6);
+            BigDecimal value = unitCost != null ? unitCost.multiply(BigDecimal.valueOf(qty)) : null;
+            lines.add(InventoryValuationResponse.Line.builder()
+                    .productVariantId(rs.getString(1))
+                    .variantSku(rs.getString(2))
+                    .locationId(rs.getString(3))
+                    .locationName(rs.getString(4))
+                    .quantityOnHand(qty)
+                    .unitCost(unitCost)
+                    .value(value)
+                    .build());
+            totalQuantity[0] += qty;
+            if (value != null) totalValue[0] = totalValue[0].add(value);
+        });
+        return InventoryValuationResponse.builder()
+                .asOf(asOf)
+                .snapshotDate(run.snapshotDate)
+                .snapshotTakenAt(run.takenAt.toInstant())
+                .replayedMovements(replayed != null ? replayed : 0)
+                .totalQuantity(totalQuantity[0])
+                .totalValue(totalValue[0])
+                .lines(lines)
+                .build();
+    }
+
+    private Run nearestRun(Long storeId, Instant asOf, boolean atOrBefore) {
+        String sql = atOrBefore
+                ? "SELECT id, snapshot_date, taken_at, ledger_horizon FROM inventory_snapshot_runs WHERE store_id = ? AND taken_at <= ? ORDER BY taken_at DESC LIMIT 1"
+                : "SELECT id, snapshot_date, taken_at, ledger_horizon FROM inventory_snapshot_runs WHERE store_id = ? AND taken_at > ? ORDER BY taken_at ASC LIMIT 1";
+        List<Run> runs = jdbcTemplate.query(sql,
+                (rs, i) -> new Run(rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getTimestamp(3), rs.getTimestamp(4)),
+                storeId, Timestamp.from(asOf));
+        return runs.isEmpty() ? null : runs.get(0);
+    }
+
+    private static class Run {
+        private final long id;
+        private final LocalDate snapshotDate;
+        private final Timestamp takenAt;
+        private final Timestamp ledgerHorizon;
+
+        Run(long id, LocalDate snapshotDate, Timestamp takenAt, Timestamp ledgerHorizon) {
+            this.id = id;
+            this.snapshotDate = snapshotDate;
+            this.takenAt = takenAt;
+            this.ledgerHorizon = ledgerHorizon;
+        }
+    }
+}
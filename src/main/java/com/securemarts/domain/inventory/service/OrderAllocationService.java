@@ -0,0 +1,88 @@
+package com.securemarts.domain.inventory.service;
+
+import com.securemarts.common.util.GeoUtils;
+import com.securemarts.domain.inventory.allocation.AllocationStrategy;
+import com.securemarts.domain.inventory.entity.InventoryLevel;
+import com.securemarts.domain.inventory.entity.Location;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Plans which locations fulfil an order: reads the candidate levels of all its variants in one query and hands
+ * them, with each location's distance to the delivery point, to the configured {@link AllocationStrategy}. Stock a
+ * flash-sale variant holds in this instance's memory counts as available at its level, since this instance grants it.
+ */
+@Service
+public class OrderAllocationService {
+
+    /** Quantity of a variant to take from a location. */
+    @Getter
+    @RequiredArgsConstructor
+    public static class LocationAllocation {
+        private final String variantPublicId;
+        private final Location location;
+        private final int quantity;
+    }
+
+    private final InventoryService inventoryService;
+    private final FlashSaleReservations flashSaleReservations;
+    private final AllocationStrategy strategy;
+
+    public OrderAllocationService(InventoryService inventoryService,
+                                  FlashSaleReservations flashSaleReservations,
+                                  List<AllocationStrategy> strategies,
+                                  @Value("${app.inventory.allocation.strategy:CONSOLIDATE}") String strategyName) {
+        this.inventoryService = inventoryService;
+        this.flashSaleReservations = flashSaleReservations;
+        Map<String, AllocationStrategy> byName = strategies.stream()
+                .collect(Collectors.toMap(AllocationStrategy::name, Function.identity()));
+        this.strategy = byName.get(strategyName.toUpperCase());
+        if (this.strategy == null) {
+            throw new IllegalStateException("Unknown allocation strategy " + strategyName + "; expected one of " + byName.keySet());
+        }
+    }
+
+    /**
+     * Allocations for the quantities per variant. A variant that cannot be covered is allocated as far as stock goes
+     * (possibly not at all); the caller reports the shortage.
+     */
+    @Transactional(readOnly = true)
+    public List<LocationAllocation> allocate(Long storeId, Map<String, Integer> quantities, BigDecimal deliveryLat, BigDecimal deliveryLng) {
+        if (quantities.isEmpty()) return List.of();
+        boolean hasDestination = deliveryLat != null && deliveryLng != null;
+        Map<Long, Location> locations = new HashMap<>();
+        Map<String, List<AllocationStrategy.Candidate>> candidates = new LinkedHashMap<>();
+        for (InventoryLevel level : inventoryService.getAllocationCandidates(storeId, quantities.keySet())) {
+            String variantPublicId = level.getInventoryItem().getProductVariant().getPublicId();
+            Location location = level.getLocation();
+            int available = level.getQuantityAvailable();
+            if (flashSaleReservations.isFlashSale(storeId, variantPublicId)) {
+                available += flashSaleReservations.heldAt(storeId, variantPublicId, location.getPublicId());
+            }
+            if (available <= 0) continue;
+            Double distanceKm = hasDestination && location.getLatitude() != null && location.getLongitude() != null
+                    ? GeoUtils.distanceKm(deliveryLat, deliveryLng, location.getLatitude(), location.getLongitude())
+                    : null;
+            locations.put(location.getId(), location);
+            candidates.computeIfAbsent(variantPublicId, k -> new ArrayList<>())
+                    .add(new AllocationStrategy.Candidate(location.getId(), available, distanceKm));
+        }
+        List<LocationAllocation> out = new ArrayList<>();
+        for (AllocationStrategy.Allocation a : strategy.allocate(quantities, candidates)) {
+            out.add(new LocationAllocation(a.getVariantPublicId(), locations.get(a.getLocationId()), a.getQuantity()));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,101 @@
+package com.securemarts.domain.inventory.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Units of one flash-sale allotment held in memory, spread over a few stripes so concurrent checkouts mostly CAS
+ * different counters. A take starts at a random stripe and borrows from the others when it runs short; if the stripes
+ * together cannot cover it, whatever was taken is put back and the take fails. Never goes below zero.
+ */
+class StripedStockCounter {
+
+    private final AtomicInteger[] stripes;
+    /** Held while units move between this counter and the database (refill, return); takes never wait on it. */
+    private final ReentrantLock transferLock = new ReentrantLock();
+    private volatile long lastUsedNanos = System.nanoTime();
+    private volatile long levelId;
+    private volatile long itemId;
+
+    StripedStockCounter(int stripeCount) {
+        stripes = new AtomicInteger[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) stripes[i] = new AtomicInteger();
+    }
+
+    boolean tryTake(int quantity) {
+        lastUsedNanos = System.nanoTime();
+        int start = ThreadLocalRandom.current().nextInt(stripes.length);
+        int remaining = quantity;
+        int[] taken = new int[stripes.length];
+        for (int i = 0; i < stripes.length && remaining > 0; i++) {
+            int s = (start + i) % stripes.length;
+            AtomicInteger stripe = stripes[s];
+            while (true) {
+                int current = stripe.get();
+                if (current <= 0) break;
+                int take = Math.min(current, remaining);
+                if (stripe.compareAndSet(current, current - take)) {
+                    taken[s] = take;
+                    remaining -= take;
+                    break;
+                }
+            }
+        }
+        if (remaining == 0) return true;
+        for (int s = 0; s < stripes.length; s++) {
+            if (taken[s] > 0) stripes[s].addAndGet(taken[s]);
+        }
+        return false;
+    }
+
+    /** Adds units (a refill or a rolled-back grant), spread evenly over the stripes. */
+    void add(int quantity) {
+        if (quantity <= 0) return;
+        int share = quantity / stripes.length;
+        int rest = quantity % stripes.length;
+        for (int i = 0; i < stripes.length; i++) {
+            int units = share + (i < rest ? 1 : 0);
+            if (units > 0) stripes[i].addAndGet(units);
+        }
+    }
+
+    /** Takes every unit currently held (for returning the allotment); concurrent takes see an empty counter. */
+    int drain() {
+        int drained = 0;
+        for (AtomicInteger stripe : stripes) drained += stripe.getAndSet(0);
+        return drained;
+    }
+
+    int total() {
+        int total = 0;
+        for (AtomicInteger stripe : stripes) total += stripe.get();
+        return total;
+    }
+
+    long idleNanos() {
+        return System.nanoTime() - lastUsedNanos;
+    }
+
+    ReentrantLock transferLock() {
+        return transferLock;
+    }
+
+    /** True once a refill has tied the counter to its level. */
+    boolean isBound() {
+        return levelId != 0;
+    }
+
+    long levelId() {
+        return levelId;
+    }
+
+    long itemId() {
+        return itemId;
+    }
+
+    void bind(long levelId, long itemId) {
+        this.levelId = levelId;
+        this.itemId = itemId;
+    }
+}
@@ -35,4 +35,11 @@ public interface StoreRepository extends JpaRepository<Store, Long> {
 
     @Query("SELECT s FROM Store s JOIN s.profile p WHERE s.active = true AND p.latitude IS NOT NULL AND p.longitude IS NOT NULL")
     List<Store> findActiveWithGeo();
+
+    /**
+     * Serializes product-limit checks of the store until the caller's transaction ends. NO KEY UPDATE, so inserts
+     * referencing the store (which key-share lock it) are not blocked.
+     */
+    @Query(value = "SELECT id FROM stores WHERE id = :id FOR NO KEY UPDATE", nativeQuery = true)
+    Optional<Long> lockForProductLimit(@Param("id") Long id);
 }
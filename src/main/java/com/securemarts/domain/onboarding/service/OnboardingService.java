@@ -5,6 +5,7 @@ import com.securemarts.common.exception.ResourceNotFoundException;
 import com.securemarts.domain.auth.entity.Role;
 import com.securemarts.domain.auth.repository.RoleRepository;
 import com.securemarts.domain.auth.repository.UserRepository;
+import com.securemarts.domain.catalog.service.CatalogVersionService;
 import com.securemarts.domain.catalog.service.FileStorageService;
 import com.securemarts.mail.EmailService;
 import com.securemarts.domain.onboarding.dto.*;
@@ -43,6 +44,7 @@ public class OnboardingService {
     private final BusinessTypeRepository businessTypeRepository;
     private final FileStorageService fileStorageService;
     private final EmailService emailService;
+    private final CatalogVersionService catalogVersionService;
 
     @Transactional
     public BusinessResponse createBusiness(String userPublicId, CreateBusinessRequest request, MultipartFile logo) throws IOException {
@@ -216,6 +218,7 @@ public class OnboardingService {
         }
         store.setActive(true);
         storeRepository.save(store);
+        catalogVersionService.bump(store.getId());
     }
 
     @Transactional(readOnly = true)
@@ -1,6 +1,6 @@
 package com.securemarts.domain.order.controller;
 
-import com.securemarts.common.dto.PageResponse;
+import com.securemarts.common.util.CursorCodec;
 import com.securemarts.domain.order.dto.OrderResponse;
 import com.securemarts.domain.order.entity.Order;
 import com.securemarts.domain.order.service.OrderService;
@@ -33,16 +33,22 @@ public class OrderController {
     private final MerchantPermissionService merchantPermissionService;
 
     @GetMapping
-    @Operation(summary = "List orders", description = "Paginated, optional status filter")
+    @Operation(summary = "List orders", description = "Paginated, optional status filter. "
+            + "Pass limit (and after from meta.nextCursor) for count-free cursor pagination, newest first.")
     @PreAuthorize("hasRole('MERCHANT_OWNER') or hasRole('MERCHANT_STAFF')")
-    public ResponseEntity<PageResponse<OrderResponse>> list(
+    public ResponseEntity<?> list(
             @AuthenticationPrincipal String userPublicId,
             @PathVariable String storePublicId,
             @Parameter(description = "Filter by order status", schema = @Schema(allowableValues = {"PENDING", "CONFIRMED", "PAID", "PROCESSING", "SHIPPED", "DELIVERED", "CANCELLED", "REFUNDED"})) @RequestParam(required = false) String status,
+            @Parameter(description = "Cursor mode: opaque cursor from meta.nextCursor") @RequestParam(required = false) String after,
+            @Parameter(description = "Cursor mode: slice size (max 200)") @RequestParam(required = false) Integer limit,
             @PageableDefault(size = 20) Pageable pageable) {
         storeAccessService.ensureUserCanAccessStore(userPublicId, storePublicId);
         merchantPermissionService.ensureStorePermissionByPublicId(userPublicId, storePublicId, "orders:read");
         Long storeId = resolveStoreId(storePublicId);
+        if (CursorCodec.isCursorRequest(after, limit)) {
+            return ResponseEntity.ok(orderService.listOrdersSlice(storeId, status, after, limit));
+        }
         return ResponseEntity.ok(orderService.listOrders(storeId, status, pageable));
     }
 
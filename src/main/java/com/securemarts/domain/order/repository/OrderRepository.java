@@ -20,6 +20,11 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     Page<Order> findByStoreIdAndStatus(Long storeId, Order.OrderStatus status, Pageable pageable);
 
+    /** Keyset slice, newest first; pageable carries only the row limit (no count query). */
+    List<Order> findByStoreIdAndIdLessThanOrderByIdDesc(Long storeId, Long beforeId, Pageable pageable);
+
+    List<Order> findByStoreIdAndStatusAndIdLessThanOrderByIdDesc(Long storeId, Order.OrderStatus status, Long beforeId, Pageable pageable);
+
     Long countByStoreId(Long storeId);
 
     long countByStoreIdIn(Collection<Long> storeIds);
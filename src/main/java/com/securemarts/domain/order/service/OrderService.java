@@ -1,17 +1,22 @@
 package com.securemarts.domain.order.service;
 
 import com.securemarts.common.dto.PageResponse;
+import com.securemarts.common.dto.SliceResponse;
 import com.securemarts.common.exception.ResourceNotFoundException;
+import com.securemarts.common.util.CursorCodec;
 import com.securemarts.domain.order.dto.OrderResponse;
 import com.securemarts.domain.order.entity.Order;
 import com.securemarts.domain.order.repository.OrderRepository;
 import com.securemarts.domain.onboarding.repository.StoreRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class OrderService {
@@ -35,11 +40,27 @@ public class OrderService {
             throw new ResourceNotFoundException("Store", String.valueOf(storeId));
         }
         Page<Order> page = status != null && !status.isBlank()
-                ? orderRepository.findByStoreIdAndStatus(storeId, Order.OrderStatus.valueOf(status), pageable)
+                ? orderRepository.findByStoreIdAndStatus(storeId, Order.OrderStatus.valueOf(status.toUpperCase()), pageable)
                 : orderRepository.findByStoreId(storeId, pageable);
         return PageResponse.of(page.map(OrderResponse::from));
     }
 
+    /** Cursor mode for the order list: newest first, seeks on id, no count query. */
+    @Transactional(readOnly = true)
+    public SliceResponse<OrderResponse> listOrdersSlice(Long storeId, String status, String after, Integer limit) {
+        if (!storeRepository.existsById(storeId)) {
+            throw new ResourceNotFoundException("Store", String.valueOf(storeId));
+        }
+        int size = CursorCodec.clampLimit(limit);
+        Long beforeId = CursorCodec.decode(after);
+        long bound = beforeId != null ? beforeId : Long.MAX_VALUE;
+        Pageable window = PageRequest.of(0, size + 1);
+        List<Order> rows = status != null && !status.isBlank()
+                ? orderRepository.findByStoreIdAndStatusAndIdLessThanOrderByIdDesc(storeId, Order.OrderStatus.valueOf(status.toUpperCase()), bound, window)
+                : orderRepository.findByStoreIdAndIdLessThanOrderByIdDesc(storeId, bound, window);
+        return SliceResponse.of(rows, size, Order::getId, list -> list.stream().map(OrderResponse::from).toList());
+    }
+
     @Transactional
     public OrderResponse updateStatus(Long storeId, String orderPublicId, Order.OrderStatus newStatus) {
         Order order = orderRepository.findByPublicId(orderPublicId)
@@ -3,6 +3,7 @@ package com.securemarts.domain.rating.service;
 import com.securemarts.common.dto.PageResponse;
 import com.securemarts.common.exception.ResourceNotFoundException;
 import com.securemarts.domain.auth.repository.UserRepository;
+import com.securemarts.domain.catalog.service.CatalogVersionService;
 import com.securemarts.domain.onboarding.repository.StoreRepository;
 import com.securemarts.domain.rating.dto.StoreRatingResponse;
 import com.securemarts.domain.rating.dto.StoreReviewItemResponse;
@@ -26,6 +27,7 @@ public class StoreRatingService {
     private final StoreRatingRepository storeRatingRepository;
     private final UserRepository userRepository;
     private final StoreRepository storeRepository;
+    private final CatalogVersionService catalogVersionService;
 
     @Transactional
     public StoreRatingResponse upsert(String userPublicId, String storePublicId, SubmitRatingRequest request) {
@@ -44,6 +46,7 @@ public class StoreRatingService {
         rating.setScore(request.getScore().shortValue());
         rating.setComment(request.getComment());
         rating = storeRatingRepository.save(rating);
+        catalogVersionService.bump(store.getId());
         return toRatingResponse(rating);
     }
 
@@ -1,18 +1,27 @@
 package com.securemarts.domain.storefront.controller;
 
-import com.securemarts.common.dto.PageResponse;
+import com.securemarts.common.util.CursorCodec;
 import com.securemarts.domain.catalog.dto.ProductResponse;
+import com.securemarts.domain.inventory.dto.VariantAvailabilityResponse;
+import com.securemarts.domain.storefront.dto.StorefrontFacetFilter;
 import com.securemarts.domain.storefront.dto.StorefrontStoreDto;
+import com.securemarts.domain.storefront.service.CatalogHttpCaching;
 import com.securemarts.domain.storefront.service.StorefrontService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.math.BigDecimal;
+import java.util.List;
 
 @RestController
 @RequestMapping("/storefront")
@@ -21,28 +30,74 @@ import org.springframework.web.bind.annotation.*;
 public class StorefrontController {
 
     private final StorefrontService storefrontService;
+    private final CatalogHttpCaching catalogHttpCaching;
 
     @GetMapping("/{storeSlug}")
-    @Operation(summary = "Get store by slug", description = "Returns public store info. Use publicId for cart and checkout. Only active stores.")
+    @Operation(summary = "Get store by slug", description = "Returns public store info. Use publicId for cart and checkout. Only active stores. "
+            + "Supports If-None-Match / If-Modified-Since (304 when the store's catalog is unchanged).")
     public ResponseEntity<StorefrontStoreDto> getStore(
-            @Parameter(description = "Store URL slug (e.g. acme-main)", schema = @Schema(example = "acme-main")) @PathVariable String storeSlug) {
-        return ResponseEntity.ok(storefrontService.getStoreBySlug(storeSlug));
+            @Parameter(description = "Store URL slug (e.g. acme-main)", schema = @Schema(example = "acme-main")) @PathVariable String storeSlug,
+            WebRequest request) {
+        Long storeId = storefrontService.resolveActiveStoreId(storeSlug);
+        return catalogHttpCaching.respond(storeId, request, () -> storefrontService.getStoreBySlug(storeSlug));
     }
 
     @GetMapping("/{storeSlug}/products")
-    @Operation(summary = "List products", description = "Paginated list of active products. Optional search query.")
-    public ResponseEntity<PageResponse<ProductResponse>> listProducts(
+    @Operation(summary = "List products", description = "Paginated list of active products. Optional search query. "
+            + "Pass limit (and after from meta.nextCursor) for count-free cursor pagination. "
+            + "Filters (vendor, productType, tag, option, minPrice, maxPrice, inStock) and facets=true switch to faceted browse: "
+            + "newest first (or by relevance with q), page/size only, and with facets=true data holds products plus counts per facet value. "
+            + "Supports conditional GET.")
+    public ResponseEntity<?> listProducts(
             @Parameter(description = "Store URL slug (e.g. acme-main)", schema = @Schema(example = "acme-main")) @PathVariable String storeSlug,
-            @Parameter(description = "Search query (product title, vendor, type)", schema = @Schema(example = "cotton shirt")) @RequestParam(required = false) String q,
-            @PageableDefault(size = 20) Pageable pageable) {
-        return ResponseEntity.ok(storefrontService.listProducts(storeSlug, q, pageable));
+            @Parameter(description = "Search query (title, vendor, type, tags, SKU, barcode); prefix-aware, typo-tolerant, ranked by relevance", schema = @Schema(example = "cotton shirt")) @RequestParam(required = false) String q,
+            @Parameter(description = "Cursor mode: opaque cursor from meta.nextCursor") @RequestParam(required = false) String after,
+            @Parameter(description = "Cursor mode: slice size (max 200)") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Filter: vendor (repeat for any of several)") @RequestParam(required = false) List<String> vendor,
+            @Parameter(description = "Filter: product type (repeat for any of several)") @RequestParam(required = false) List<String> productType,
+            @Parameter(description = "Filter: tag (repeat for any of several)") @RequestParam(required = false) List<String> tag,
+            @Parameter(description = "Filter: option value as Name:Value, e.g. Color:Red (values of one option are alternatives)") @RequestParam(required = false) List<String> option,
+            @Parameter(description = "Filter: lowest variant price") @RequestParam(required = false) BigDecimal minPrice,
+            @Parameter(description = "Filter: highest variant price") @RequestParam(required = false) BigDecimal maxPrice,
+            @Parameter(description = "Filter: only products with a sellable variant") @RequestParam(required = false) Boolean inStock,
+            @Parameter(description = "Include facet counts (vendor, productType, tag, option) and the price range") @RequestParam(defaultValue = "false") boolean facets,
+            @PageableDefault(size = 20) Pageable pageable,
+            WebRequest request) {
+        Long storeId = storefrontService.resolveActiveStoreId(storeSlug);
+        StorefrontFacetFilter filter = StorefrontFacetFilter.builder()
+                .vendors(vendor).productTypes(productType).tags(tag).options(option)
+                .minPrice(minPrice).maxPrice(maxPrice).inStock(inStock)
+                .build();
+        if (facets || !filter.isEmpty()) {
+            return catalogHttpCaching.respond(storeId, request,
+                    version -> storefrontService.listProductsFaceted(storeSlug, version, q, filter, facets, pageable));
+        }
+        if (CursorCodec.isCursorRequest(after, limit)) {
+            return catalogHttpCaching.respond(storeId, request, version -> storefrontService.listProductsSlice(storeSlug, version.getProductsVersion(), q, after, limit));
+        }
+        return catalogHttpCaching.respond(storeId, request, version -> storefrontService.listProducts(storeSlug, version.getProductsVersion(), q, pageable));
     }
 
     @GetMapping("/{storeSlug}/products/{productPublicId}")
-    @Operation(summary = "Get product", description = "Product detail for storefront. Only active products.")
-    public ResponseEntity<ProductResponse> getProduct(
+    @Operation(summary = "Get product", description = "Product detail for storefront. Only active products. Supports conditional GET.")
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ProductResponse.class)))
+    public ResponseEntity<byte[]> getProduct(
+            @Parameter(description = "Store URL slug (e.g. acme-main)", schema = @Schema(example = "acme-main")) @PathVariable String storeSlug,
+            @Parameter(description = "Product public ID") @PathVariable String productPublicId,
+            WebRequest request) {
+        Long storeId = storefrontService.resolveActiveStoreId(storeSlug);
+        return catalogHttpCaching.respond(storeId, request, version -> storefrontService.getProduct(storeSlug, version.getProductsVersion(), productPublicId));
+    }
+
+    @GetMapping("/{storeSlug}/availability")
+    @Operation(summary = "Variant availability", description = "Available quantity (summed across locations) for up to 250 variants in one call, "
+            + "for in-stock badges and cart checks. Untracked variants are reported with tracked=false and inStock=true. Supports conditional GET.")
+    public ResponseEntity<List<VariantAvailabilityResponse>> getAvailability(
             @Parameter(description = "Store URL slug (e.g. acme-main)", schema = @Schema(example = "acme-main")) @PathVariable String storeSlug,
-            @Parameter(description = "Product public ID") @PathVariable String productPublicId) {
-        return ResponseEntity.ok(storefrontService.getProduct(storeSlug, productPublicId));
+            @Parameter(description = "Variant public ID (repeat for several)") @RequestParam List<String> variant,
+            WebRequest request) {
+        Long storeId = storefrontService.resolveActiveStoreId(storeSlug);
+        return catalogHttpCaching.respond(storeId, request, () -> storefrontService.getVariantAvailability(storeSlug, variant));
     }
 }
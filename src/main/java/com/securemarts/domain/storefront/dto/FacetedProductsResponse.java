@@ -0,0 +1,41 @@
+package com.securemarts.domain.storefront.dto;
+
+import com.securemarts.domain.catalog.dto.ProductResponse;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@Schema(description = "Storefront product page with facet counts for the current filters")
+public class FacetedProductsResponse {
+
+    private List<ProductResponse> products;
+
+    @Schema(description = "Facet name (vendor, productType, tag, option) to values with matching product counts. "
+            + "Each facet is counted with every filter applied except its own, so alternatives stay visible.")
+    private Map<String, List<FacetValue>> facets;
+
+    @Schema(description = "Lowest and highest variant price among products matching every filter except price")
+    private PriceRange priceRange;
+
+    @Data
+    @AllArgsConstructor
+    public static class FacetValue {
+        @Schema(description = "Value to pass back as a filter (options as Name:Value)")
+        private String value;
+        private long count;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class PriceRange {
+        private BigDecimal min;
+        private BigDecimal max;
+    }
+}
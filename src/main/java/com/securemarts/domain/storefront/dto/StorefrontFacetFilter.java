@@ -0,0 +1,43 @@
+package com.securemarts.domain.storefront.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Storefront listing filters. Several values of one attribute are alternatives (vendor=A&vendor=B); different
+ * attributes, and different option names, must all match.
+ */
+@Data
+@Builder
+@Schema(description = "Faceted filters for storefront product listings")
+public class StorefrontFacetFilter {
+
+    private List<String> vendors;
+    private List<String> productTypes;
+    private List<String> tags;
+
+    @Schema(description = "Option values as Name:Value (e.g. Color:Red)")
+    private List<String> options;
+
+    @Schema(description = "Lowest variant price to include")
+    private BigDecimal minPrice;
+
+    @Schema(description = "Highest variant price to include")
+    private BigDecimal maxPrice;
+
+    @Schema(description = "Only products with at least one sellable variant")
+    private Boolean inStock;
+
+    public boolean isEmpty() {
+        return isEmpty(vendors) && isEmpty(productTypes) && isEmpty(tags) && isEmpty(options)
+                && minPrice == null && maxPrice == null && !Boolean.TRUE.equals(inStock);
+    }
+
+    private static boolean isEmpty(List<String> values) {
+        return values == null || values.stream().allMatch(v -> v == null || v.isBlank());
+    }
+}
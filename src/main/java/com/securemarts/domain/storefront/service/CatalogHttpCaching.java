@@ -0,0 +1,73 @@
+package com.securemarts.domain.storefront.service;
+
+import com.securemarts.domain.catalog.service.CatalogVersionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET for public catalog endpoints (storefront and discovery). Validators come from the store's
+ * {@link CatalogVersionService catalog version}, which is read before the body is built: a request whose
+ * If-None-Match / If-Modified-Since still matches is answered 304 without reaching the service layer, and a body
+ * is never paired with a version newer than itself. Bodies served from the storefront read model are looked up
+ * under the very version the ETag names ({@link #respond(Long, WebRequest, Function)}), so an instance that has not
+ * seen a change yet keeps pairing the old ETag with the old body instead of a new ETag with a stale one.
+ */
+@Component
+public class CatalogHttpCaching {
+
+    private final CatalogVersionService catalogVersionService;
+    private final CacheControl cacheControl;
+
+    public CatalogHttpCaching(CatalogVersionService catalogVersionService,
+                              @Value("${app.storefront.http.shared-max-age-seconds:30}") long sharedMaxAgeSeconds) {
+        this.catalogVersionService = catalogVersionService;
+        this.cacheControl = CacheControl.maxAge(0, TimeUnit.SECONDS)
+                .sMaxAge(sharedMaxAgeSeconds, TimeUnit.SECONDS)
+                .cachePublic()
+                .mustRevalidate();
+    }
+
+    /**
+     * 200 with ETag, Last-Modified and Cache-Control, or null when the client's copy is current (Spring has then
+     * already committed the 304). byte[] bodies are pre-serialized JSON envelopes.
+     */
+    public <T> ResponseEntity<T> respond(Long storeId, WebRequest request, Supplier<T> body) {
+        return respond(storeId, request, version -> body.get());
+    }
+
+    /** Same as {@link #respond(Long, WebRequest, Supplier)}, building the body for the version the ETag names. */
+    public <T> ResponseEntity<T> respond(Long storeId, WebRequest request, Function<CatalogVersionService.CatalogVersion, T> body) {
+        CatalogVersionService.CatalogVersion version = catalogVersionService.current(storeId);
+        String etag = version.etag(storeId);
+        long lastModified = version.getUpdatedAt().toEpochMilli();
+        if (request.checkNotModified(etag, lastModified)) {
+            return null;
+        }
+        T payload = body.apply(version);
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                .eTag(etag)
+                .lastModified(lastModified)
+                .cacheControl(cacheControl);
+        if (payload instanceof byte[]) {
+            ok.contentType(MediaType.APPLICATION_JSON);
+        }
+        return ok.body(payload);
+    }
+
+    /** Same as {@link #respond(Long, WebRequest, Supplier)} for endpoints addressed by store public id. */
+    public <T> ResponseEntity<T> respondByStorePublicId(String storePublicId, WebRequest request, Supplier<T> body) {
+        Long storeId = catalogVersionService.storeIdByPublicId(storePublicId);
+        if (storeId == null) {
+            return ResponseEntity.ok(body.get());
+        }
+        return respond(storeId, request, body);
+    }
+}
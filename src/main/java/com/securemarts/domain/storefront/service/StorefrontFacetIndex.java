@@ -0,0 +1,517 @@
+package com.securemarts.domain.storefront.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.securemarts.domain.catalog.event.CatalogChangedEvent;
+import com.securemarts.domain.catalog.event.CatalogVersionBumpedEvent;
+import com.securemarts.domain.catalog.service.CatalogVersionService;
+import com.securemarts.domain.inventory.event.InventoryChangedEvent;
+import com.securemarts.domain.storefront.dto.FacetedProductsResponse;
+import com.securemarts.domain.storefront.dto.StorefrontFacetFilter;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory facet index for storefront browsing. Per store, every active product gets an ordinal (ascending by
+ * product id) and every facet value (vendor, product type, tag, option value) a bitmap of the ordinals that carry
+ * it, plus one bitmap of products with sellable stock. A filtered listing is a handful of bitmap ANDs and ORs and a
+ * facet count is a cardinality, so large stores are answered in milliseconds without a query per request.
+ * <p>
+ * Indexes are built on first use and then kept current in place: a {@link CatalogChangedEvent} for one product
+ * re-reads only that product, an {@link InventoryChangedEvent} re-reads the stock of only the products it names, and
+ * a store-wide change drops the index (products) or marks the stock bitmap stale; collection membership changes are
+ * ignored. Both listeners run before the
+ * catalog version bump, and each {@link CatalogVersionBumpedEvent} of this instance then advances the version the
+ * index records.
+ * <p>
+ * The recorded version is only a consistency backstop: every lookup passes the version its response's ETag names,
+ * and when the products version moved past the index (a product change on another instance) it is rebuilt, when only
+ * the catalog version moved the stock bitmap is recomputed with one aggregate query. Builds, refreshes and deltas of
+ * a store are serialized on its slot, never inside the cache's own locking.
+ */
+@Component
+public class StorefrontFacetIndex {
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum Facet {
+        VENDOR("vendor"),
+        PRODUCT_TYPE("productType"),
+        TAG("tag"),
+        OPTION("option");
+
+        private final String key;
+    }
+
+    private static final String ACTIVE = "p.store_id = ? AND p.status = 'ACTIVE' AND p.deleted_at IS NULL";
+    private static final String ONE_PRODUCT = ACTIVE + " AND p.id = ?";
+    private static final int MAX_VALUES_PER_FACET = 50;
+    /** Larger stock changes (bulk adjustments) mark the bitmap stale instead of binding every product id. */
+    private static final int MAX_STOCK_DELTA = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<Long, Slot> stores;
+
+    public StorefrontFacetIndex(JdbcTemplate jdbcTemplate,
+                                @Value("${app.storefront.facets.max-stores:500}") long maxStores,
+                                @Value("${app.storefront.facets.idle-minutes:60}") long idleMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stores = Caffeine.newBuilder()
+                .maximumSize(maxStores)
+                .expireAfterAccess(idleMinutes, TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * Products matching the filter, newest first, or in the given relevance order when rankedIds is not null
+     * (search results); facet counts and the price range are computed only when requested.
+     */
+    public Selection select(Long storeId, CatalogVersionService.CatalogVersion version, StorefrontFacetFilter filter,
+                            List<Long> rankedIds, boolean withFacets) {
+        StoreFacets index = current(storeId, version);
+        index.lock.readLock().lock();
+        try {
+            Map<String, BitSet> constraints = constraints(index, filter, rankedIds);
+            BitSet matches = index.allOf(constraints, null);
+            List<Long> productIds = new ArrayList<>(matches.cardinality());
+            if (rankedIds != null) {
+                for (Long id : rankedIds) {
+                    Integer ordinal = index.ordinals.get(id);
+                    if (ordinal != null && matches.get(ordinal)) productIds.add(id);
+                }
+            } else {
+                for (int i = matches.previousSetBit(matches.length() - 1); i >= 0; i = matches.previousSetBit(i - 1)) {
+                    productIds.add(index.productIds.get(i));
+                }
+            }
+            if (!withFacets) return new Selection(productIds, null, null);
+            return new Selection(productIds, counts(index, constraints), priceRange(index, constraints));
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    /** Runs before the catalog version bump, like the read model, so the next ETag reflects the updated index. */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.isMembershipOnly()) return;
+        Slot slot = stores.getIfPresent(event.getStoreId());
+        if (slot == null) return;
+        if (event.isStoreWide()) {
+            stores.invalidate(event.getStoreId());
+            return;
+        }
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM products WHERE public_id = ? AND store_id = ?", Long.class,
+                event.getProductPublicId(), event.getStoreId());
+        if (ids.isEmpty()) return;
+        Long productId = ids.get(0);
+        // Serialized per store so two reloads of one product cannot apply out of order
+        synchronized (slot) {
+            StoreFacets index = slot.index;
+            if (index == null) return;
+            Map<Long, Doc> docs = loadDocs(ONE_PRODUCT, event.getStoreId(), productId);
+            boolean inStock = !inStockIds(ONE_PRODUCT, event.getStoreId(), productId).isEmpty();
+            index.lock.writeLock().lock();
+            try {
+                Doc doc = docs.get(productId);
+                boolean consistent = doc == null ? index.remove(productId) : index.put(productId, doc);
+                if (!consistent) {
+                    slot.index = null;
+                    return;
+                }
+                Integer ordinal = index.ordinals.get(productId);
+                if (ordinal != null) index.inStock.set(ordinal, doc != null && inStock);
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        Slot slot = stores.getIfPresent(event.getStoreId());
+        if (slot == null) return;
+        synchronized (slot) {
+            StoreFacets index = slot.index;
+            if (index == null) return;
+            if (event.isStoreWide() || event.getProductIds().size() > MAX_STOCK_DELTA) {
+                index.stockStale = true;
+                return;
+            }
+            List<Object> args = new ArrayList<>();
+            args.add(event.getStoreId());
+            args.addAll(event.getProductIds());
+            Set<Long> inStock = new HashSet<>(inStockIds(ACTIVE + " AND p.id IN ("
+                    + String.join(", ", Collections.nCopies(event.getProductIds().size(), "?")) + ")", args.toArray()));
+            index.lock.writeLock().lock();
+            try {
+                for (Long productId : event.getProductIds()) {
+                    Integer ordinal = index.ordinals.get(productId);
+                    if (ordinal != null && index.live.get(ordinal)) index.inStock.set(ordinal, inStock.contains(productId));
+                }
+            } finally {
+                index.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * The bump that follows a change this instance applied: advances the recorded versions when they are exactly one
+     * behind, so the backstop in {@link #current} only fires for changes made elsewhere.
+     */
+    @EventListener
+    public void onVersionBumped(CatalogVersionBumpedEvent event) {
+        Slot slot = stores.getIfPresent(event.getStoreId());
+        if (slot == null) return;
+        CatalogVersionService.CatalogVersion bumped = event.getVersion();
+        synchronized (slot) {
+            StoreFacets index = slot.index;
+            if (index == null) return;
+            if (index.productsVersion == bumped.getProductsVersion() - 1) index.productsVersion = bumped.getProductsVersion();
+            if (index.version == bumped.getVersion() - 1 && !index.stockStale) index.version = bumped.getVersion();
+        }
+    }
+
+    /** The store's index, rebuilt or with stock re-read when it is behind the given version. */
+    private StoreFacets current(Long storeId, CatalogVersionService.CatalogVersion version) {
+        Slot slot = stores.get(storeId, id -> new Slot());
+        StoreFacets index = slot.index;
+        if (index != null && index.isCurrent(version)) return index;
+        synchronized (slot) {
+            index = slot.index;
+            if (index == null || index.productsVersion < version.getProductsVersion()) {
+                index = build(storeId, version);
+                slot.index = index;
+            } else if (!index.isCurrent(version)) {
+                refreshStock(storeId, index, version);
+            }
+            return index;
+        }
+    }
+
+    private StoreFacets build(Long storeId, CatalogVersionService.CatalogVersion version) {
+        StoreFacets index = new StoreFacets(version.getProductsVersion(), version.getVersion());
+        loadDocs(ACTIVE, storeId).forEach(index::put);
+        for (Long id : inStockIds(ACTIVE, storeId)) {
+            Integer ordinal = index.ordinals.get(id);
+            if (ordinal != null) index.inStock.set(ordinal);
+        }
+        return index;
+    }
+
+    /** Caller holds the slot's monitor; the query runs after the version was read, so the bitmap is at least that. */
+    private void refreshStock(Long storeId, StoreFacets index, CatalogVersionService.CatalogVersion version) {
+        List<Long> ids = inStockIds(ACTIVE, storeId);
+        index.lock.writeLock().lock();
+        try {
+            index.inStock.clear();
+            for (Long id : ids) {
+                Integer ordinal = index.ordinals.get(id);
+                if (ordinal != null && index.live.get(ordinal)) index.inStock.set(ordinal);
+            }
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+        index.version = Math.max(index.version, version.getVersion());
+        index.stockStale = false;
+    }
+
+    private Map<Long, Doc> loadDocs(String where, Object... args) {
+        Map<Long, Doc> docs = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT p.id, p.vendor, p.product_type FROM products p WHERE " + where + " ORDER BY p.id", rs -> {
+            docs.put(rs.getLong(1), new Doc(rs.getString(2), rs.getString(3)));
+        }, args);
+        if (docs.isEmpty()) return docs;
+        jdbcTemplate.query("SELECT pt.product_id, tg.name FROM product_tags pt JOIN tags tg ON tg.id = pt.tag_id "
+                + "JOIN products p ON p.id = pt.product_id WHERE " + where, rs -> {
+            Doc doc = docs.get(rs.getLong(1));
+            if (doc != null) doc.tags.add(rs.getString(2));
+        }, args);
+        jdbcTemplate.query("SELECT po.product_id, po.name, pov.value FROM product_option_values pov "
+                + "JOIN product_options po ON po.id = pov.option_id JOIN products p ON p.id = po.product_id WHERE " + where, rs -> {
+            Doc doc = docs.get(rs.getLong(1));
+            if (doc != null) doc.options.add(rs.getString(2) + ":" + rs.getString(3));
+        }, args);
+        jdbcTemplate.query("SELECT pv.product_id, pv.price_amount FROM product_variants pv "
+                + "JOIN products p ON p.id = pv.product_id WHERE " + where, rs -> {
+            Doc doc = docs.get(rs.getLong(1));
+            BigDecimal price = rs.getBigDecimal(2);
+            if (doc != null && price != null) doc.prices.add(price);
+        }, args);
+        return docs;
+    }
+
+    /** Products with a variant that can be sold: untracked, without inventory levels, or with quantity available. */
+    private List<Long> inStockIds(String where, Object... args) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT s.product_id FROM (SELECT pv.product_id FROM product_variants pv "
+                + "JOIN products p ON p.id = pv.product_id "
+                + "LEFT JOIN inventory_items ii ON ii.product_variant_id = pv.id "
+                + "LEFT JOIN inventory_levels il ON il.inventory_item_id = ii.id "
+                + "WHERE " + where + " GROUP BY pv.id, pv.product_id, pv.track_inventory "
+                + "HAVING NOT pv.track_inventory OR COUNT(il.id) = 0 OR SUM(il.quantity_available) > 0) s", Long.class, args);
+    }
+
+    /** One bitmap per independent constraint; values of one constraint are ORed, constraints are ANDed. */
+    private static Map<String, BitSet> constraints(StoreFacets index, StorefrontFacetFilter filter, List<Long> rankedIds) {
+        Map<String, BitSet> constraints = new LinkedHashMap<>();
+        anyOf(index, Facet.VENDOR, filter.getVendors(), Facet.VENDOR.getKey(), constraints);
+        anyOf(index, Facet.PRODUCT_TYPE, filter.getProductTypes(), Facet.PRODUCT_TYPE.getKey(), constraints);
+        anyOf(index, Facet.TAG, filter.getTags(), Facet.TAG.getKey(), constraints);
+        if (filter.getOptions() != null) {
+            Map<String, List<String>> byName = new LinkedHashMap<>();
+            for (String option : filter.getOptions()) {
+                if (option == null || option.isBlank()) continue;
+                byName.computeIfAbsent(optionGroup(key(option)), n -> new ArrayList<>()).add(option);
+            }
+            byName.forEach((group, values) -> anyOf(index, Facet.OPTION, values, group, constraints));
+        }
+        if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+            BitSet inRange = new BitSet();
+            for (int i = index.live.nextSetBit(0); i >= 0; i = index.live.nextSetBit(i + 1)) {
+                if (index.docs.get(i).hasPriceIn(filter.getMinPrice(), filter.getMaxPrice())) inRange.set(i);
+            }
+            constraints.put("price", inRange);
+        }
+        if (Boolean.TRUE.equals(filter.getInStock())) {
+            constraints.put("inStock", index.inStock);
+        }
+        if (rankedIds != null) {
+            BitSet found = new BitSet();
+            for (Long id : rankedIds) {
+                Integer ordinal = index.ordinals.get(id);
+                if (ordinal != null) found.set(ordinal);
+            }
+            constraints.put("q", found);
+        }
+        return constraints;
+    }
+
+    private static void anyOf(StoreFacets index, Facet facet, List<String> values, String constraint,
+                              Map<String, BitSet> constraints) {
+        if (values == null) return;
+        BitSet any = null;
+        for (String value : values) {
+            if (value == null || value.isBlank()) continue;
+            if (any == null) any = new BitSet();
+            BitSet bits = index.bitmaps.get(facet).get(key(value));
+            if (bits != null) any.or(bits);
+        }
+        if (any != null) constraints.put(constraint, any);
+    }
+
+    /**
+     * Disjunctive counts: each facet value is counted against every constraint except the one on its own facet
+     * (for options, its own option name), so picking "Red" still shows how many products are "Blue".
+     */
+    private static Map<String, List<FacetedProductsResponse.FacetValue>> counts(StoreFacets index, Map<String, BitSet> constraints) {
+        Map<String, List<FacetedProductsResponse.FacetValue>> facets = new LinkedHashMap<>();
+        Map<String, BitSet> bases = new HashMap<>();
+        BitSet scratch = new BitSet();
+        for (Facet facet : Facet.values()) {
+            List<FacetedProductsResponse.FacetValue> values = new ArrayList<>();
+            for (Map.Entry<String, BitSet> e : index.bitmaps.get(facet).entrySet()) {
+                String constraint = facet == Facet.OPTION ? optionGroup(e.getKey()) : facet.getKey();
+                BitSet base = bases.computeIfAbsent(constraint, c -> index.allOf(constraints, c));
+                scratch.clear();
+                scratch.or(e.getValue());
+                scratch.and(base);
+                int count = scratch.cardinality();
+                if (count > 0) {
+                    values.add(new FacetedProductsResponse.FacetValue(index.labels.get(facet).get(e.getKey()), count));
+                }
+            }
+            values.sort(Comparator.comparingLong(FacetedProductsResponse.FacetValue::getCount).reversed()
+                    .thenComparing(FacetedProductsResponse.FacetValue::getValue));
+            facets.put(facet.getKey(), values.size() > MAX_VALUES_PER_FACET ? values.subList(0, MAX_VALUES_PER_FACET) : values);
+        }
+        return facets;
+    }
+
+    private static FacetedProductsResponse.PriceRange priceRange(StoreFacets index, Map<String, BitSet> constraints) {
+        BitSet base = index.allOf(constraints, "price");
+        BigDecimal min = null;
+        BigDecimal max = null;
+        for (int i = base.nextSetBit(0); i >= 0; i = base.nextSetBit(i + 1)) {
+            for (BigDecimal price : index.docs.get(i).prices) {
+                if (min == null || price.compareTo(min) < 0) min = price;
+                if (max == null || price.compareTo(max) > 0) max = price;
+            }
+        }
+        return min == null ? null : new FacetedProductsResponse.PriceRange(min, max);
+    }
+
+    private static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String optionGroup(String optionKey) {
+        int colon = optionKey.indexOf(':');
+        return "option:" + (colon >= 0 ? optionKey.substring(0, colon).trim() : optionKey);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Selection {
+        private final List<Long> productIds;
+        private final Map<String, List<FacetedProductsResponse.FacetValue>> facets;
+        private final FacetedProductsResponse.PriceRange priceRange;
+    }
+
+    /** Facet attributes of one product. */
+    private static class Doc {
+        private final String vendor;
+        private final String productType;
+        private final Set<String> tags = new LinkedHashSet<>();
+        private final Set<String> options = new LinkedHashSet<>();
+        private final List<BigDecimal> prices = new ArrayList<>();
+
+        Doc(String vendor, String productType) {
+            this.vendor = vendor;
+            this.productType = productType;
+        }
+
+        Map<Facet, List<String>> values() {
+            Map<Facet, List<String>> values = new EnumMap<>(Facet.class);
+            values.put(Facet.VENDOR, vendor != null && !vendor.isBlank() ? List.of(vendor) : List.of());
+            values.put(Facet.PRODUCT_TYPE, productType != null && !productType.isBlank() ? List.of(productType) : List.of());
+            values.put(Facet.TAG, new ArrayList<>(tags));
+            values.put(Facet.OPTION, new ArrayList<>(options));
+            return values;
+        }
+
+        boolean hasPriceIn(BigDecimal min, BigDecimal max) {
+            for (BigDecimal price : prices) {
+                if ((min == null || price.compareTo(min) >= 0) && (max == null || price.compareTo(max) <= 0)) return true;
+            }
+            return false;
+        }
+    }
+
+    /** Cache entry for a store: cheap to create, so the index itself is built under the slot's monitor. */
+    private static class Slot {
+        private volatile StoreFacets index;
+    }
+
+    /**
+     * One store's index and the catalog versions it reflects. Ordinals are never reused while the index lives;
+     * removed products only clear their bits, and the index is dropped and rebuilt once too many ordinals are dead.
+     * Versions and the stale flag change under the slot's monitor.
+     */
+    private static class StoreFacets {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final List<Long> productIds = new ArrayList<>();
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private final List<Doc> docs = new ArrayList<>();
+        private final BitSet live = new BitSet();
+        private final BitSet inStock = new BitSet();
+        private final Map<Facet, Map<String, BitSet>> bitmaps = new EnumMap<>(Facet.class);
+        private final Map<Facet, Map<String, String>> labels = new EnumMap<>(Facet.class);
+        private volatile long productsVersion;
+        private volatile long version;
+        /** A store-wide stock change was not applied; the bitmap is re-read on the next lookup. */
+        private volatile boolean stockStale;
+        private int dead;
+
+        StoreFacets(long productsVersion, long version) {
+            this.productsVersion = productsVersion;
+            this.version = version;
+            for (Facet facet : Facet.values()) {
+                bitmaps.put(facet, new HashMap<>());
+                labels.put(facet, new HashMap<>());
+            }
+        }
+
+        boolean isCurrent(CatalogVersionService.CatalogVersion required) {
+            return productsVersion >= required.getProductsVersion() && version >= required.getVersion() && !stockStale;
+        }
+
+        /** False when the index can no longer stay ordered by product id and must be rebuilt. */
+        boolean put(Long productId, Doc doc) {
+            Integer ordinal = ordinals.get(productId);
+            if (ordinal == null) {
+                if (!productIds.isEmpty() && productId < productIds.get(productIds.size() - 1)) return false;
+                ordinal = productIds.size();
+                productIds.add(productId);
+                docs.add(null);
+                ordinals.put(productId, ordinal);
+            } else if (docs.get(ordinal) != null) {
+                clear(ordinal, docs.get(ordinal));
+            } else {
+                dead--;
+            }
+            int ord = ordinal;
+            docs.set(ord, doc);
+            live.set(ord);
+            doc.values().forEach((facet, values) -> {
+                for (String value : values) {
+                    String key = key(value);
+                    bitmaps.get(facet).computeIfAbsent(key, k -> new BitSet()).set(ord);
+                    labels.get(facet).putIfAbsent(key, value.trim());
+                }
+            });
+            return true;
+        }
+
+        boolean remove(Long productId) {
+            Integer ordinal = ordinals.get(productId);
+            if (ordinal == null || docs.get(ordinal) == null) return true;
+            clear(ordinal, docs.get(ordinal));
+            docs.set(ordinal, null);
+            live.clear(ordinal);
+            inStock.clear(ordinal);
+            dead++;
+            return dead < 1000 || dead < productIds.size() / 2;
+        }
+
+        private void clear(int ordinal, Doc doc) {
+            doc.values().forEach((facet, values) -> {
+                for (String value : values) {
+                    String key = key(value);
+                    BitSet bits = bitmaps.get(facet).get(key);
+                    if (bits == null) continue;
+                    bits.clear(ordinal);
+                    if (bits.isEmpty()) {
+                        bitmaps.get(facet).remove(key);
+                        labels.get(facet).remove(key);
+                    }
+                }
+            });
+        }
+
+        /** Live products passing every constraint except the one named (null applies all). */
+        BitSet allOf(Map<String, BitSet> constraints, String except) {
+            BitSet result = (BitSet) live.clone();
+            constraints.forEach((name, bits) -> {
+                if (!name.equals(except)) result.and(bits);
+            });
+            return result;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.securemarts.domain.storefront.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.securemarts.common.dto.ApiResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Storefront read model: fully serialized response envelopes (product detail and list pages) held in a
+ * byte-bounded cache so hot storefront traffic is served without rebuilding entity graphs or touching Postgres.
+ * <p>
+ * Entries are keyed by the store's products version (see {@link com.securemarts.domain.catalog.service.CatalogVersionService}),
+ * which lives in the database and is bumped after every committed product, media or collection change on any
+ * instance. The documents carry no stock, so checkouts and stock adjustments leave them in place; a product change
+ * retires the store's documents everywhere as soon as each instance reads the new version (within its version cache
+ * interval), with no cross-instance messaging; old keys simply age out.
+ */
+@Component
+public class StorefrontReadModel {
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, byte[]> documents;
+    private final Cache<String, Long> activeStoreIds;
+
+    public StorefrontReadModel(ObjectMapper objectMapper,
+                               @Value("${app.storefront.read-model.max-megabytes:64}") long maxMegabytes,
+                               @Value("${app.storefront.read-model.ttl-minutes:30}") long ttlMinutes) {
+        this.objectMapper = objectMapper;
+        this.documents = Caffeine.newBuilder()
+                .maximumWeight(maxMegabytes * 1024 * 1024)
+                .weigher((String key, byte[] json) -> json.length + key.length())
+                .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+                .build();
+        this.activeStoreIds = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(1, TimeUnit.MINUTES)
+                .build();
+    }
+
+    /** Active store id for a storefront slug; the lookup is cached briefly so hot paths skip the stores table. */
+    public Long activeStoreId(String storeSlug, Supplier<Long> loader) {
+        Long id = activeStoreIds.getIfPresent(storeSlug);
+        if (id == null) {
+            id = loader.get();
+            activeStoreIds.put(storeSlug, id);
+        }
+        return id;
+    }
+
+    /**
+     * Product detail as of {@code productsVersion}. The loader reads the database after that version was read, so
+     * what it builds is never older than the version it is cached under.
+     */
+    public byte[] product(Long storeId, long productsVersion, String productPublicId, Supplier<Object> loader) {
+        return get(storeId + ":" + productsVersion + ":p:" + productPublicId, loader);
+    }
+
+    /** One list page; pageKey identifies the query (search term, page/cursor, size, sort). */
+    public byte[] listPage(Long storeId, long productsVersion, String pageKey, Supplier<Object> loader) {
+        return get(storeId + ":" + productsVersion + ":l:" + pageKey, loader);
+    }
+
+    private byte[] get(String key, Supplier<Object> loader) {
+        byte[] cached = documents.getIfPresent(key);
+        if (cached != null) return cached;
+        byte[] json = serialize(loader.get());
+        documents.put(key, json);
+        return json;
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(ApiResponse.wrap(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize storefront response", e);
+        }
+    }
+}
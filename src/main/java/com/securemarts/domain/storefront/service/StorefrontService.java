@@ -1,10 +1,18 @@
 package com.securemarts.domain.storefront.service;
 
-import com.securemarts.common.dto.PageResponse;
+import com.securemarts.common.dto.ApiResponse;
+import com.securemarts.common.dto.Meta;
 import com.securemarts.common.exception.ResourceNotFoundException;
 import com.securemarts.domain.catalog.dto.ProductResponse;
+import com.securemarts.domain.catalog.entity.Product;
 import com.securemarts.domain.catalog.service.CatalogService;
+import com.securemarts.domain.catalog.service.CatalogVersionService;
+import com.securemarts.domain.catalog.service.ProductSearchService;
+import com.securemarts.domain.inventory.dto.VariantAvailabilityResponse;
+import com.securemarts.domain.inventory.service.InventoryService;
 import com.securemarts.domain.rating.service.StoreRatingService;
+import com.securemarts.domain.storefront.dto.FacetedProductsResponse;
+import com.securemarts.domain.storefront.dto.StorefrontFacetFilter;
 import com.securemarts.domain.storefront.dto.StorefrontStoreDto;
 import com.securemarts.domain.onboarding.entity.Store;
 import com.securemarts.domain.onboarding.repository.StoreRepository;
@@ -13,6 +21,9 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.Locale;
+
 @Service
 @RequiredArgsConstructor
 public class StorefrontService {
@@ -20,8 +31,14 @@ public class StorefrontService {
     private final StoreRepository storeRepository;
     private final CatalogService catalogService;
     private final StoreRatingService storeRatingService;
+    private final StorefrontReadModel storefrontReadModel;
+    private final StorefrontFacetIndex storefrontFacetIndex;
+    private final ProductSearchService productSearchService;
+    private final InventoryService inventoryService;
 
     private static final String ACTIVE_STATUS = "ACTIVE";
+    /** Search hits considered when a query is combined with facet filters. */
+    private static final int MAX_FACETED_SEARCH_HITS = 1000;
 
     @Transactional(readOnly = true)
     public StorefrontStoreDto getStoreBySlug(String storeSlug) {
@@ -42,20 +59,77 @@ public class StorefrontService {
                 .build();
     }
 
-    @Transactional(readOnly = true)
-    public PageResponse<ProductResponse> listProducts(String storeSlug, String q, Pageable pageable) {
-        Store store = resolveActiveStore(storeSlug);
-        return catalogService.listProducts(store.getId(), ACTIVE_STATUS, q, pageable);
+    /**
+     * Serialized list page from the storefront read model as of productsVersion (read with the version the response's
+     * ETag names); only misses reach the catalog. Not transactional so cache hits never borrow a connection.
+     */
+    public byte[] listProducts(String storeSlug, long productsVersion, String q, Pageable pageable) {
+        Long storeId = resolveActiveStoreId(storeSlug);
+        String key = "q=" + normalize(q) + "&page=" + pageable.getPageNumber() + "&size=" + pageable.getPageSize()
+                + "&sort=" + pageable.getSort();
+        return storefrontReadModel.listPage(storeId, productsVersion, key,
+                () -> catalogService.listProducts(storeId, ACTIVE_STATUS, q, pageable));
     }
 
-    @Transactional(readOnly = true)
-    public ProductResponse getProduct(String storeSlug, String productPublicId) {
-        Store store = resolveActiveStore(storeSlug);
-        ProductResponse product = catalogService.getProduct(store.getId(), productPublicId);
-        if (!ACTIVE_STATUS.equals(product.getStatus())) {
-            throw new ResourceNotFoundException("Product", productPublicId);
+    /**
+     * Filtered list page from the in-memory facet index: matching ids are paged in memory and only the page is
+     * loaded from the catalog. Newest first, or by relevance when q is given (the first
+     * {@value #MAX_FACETED_SEARCH_HITS} hits). With facets the payload also carries counts per facet value. The index
+     * is checked against catalogVersion, the version the response's ETag names.
+     */
+    public ApiResponse<?> listProductsFaceted(String storeSlug, CatalogVersionService.CatalogVersion catalogVersion, String q,
+                                              StorefrontFacetFilter filter, boolean facets, Pageable pageable) {
+        Long storeId = resolveActiveStoreId(storeSlug);
+        List<Long> rankedIds = q != null && !q.isBlank()
+                ? productSearchService.rankedIds(storeId, Product.ProductStatus.ACTIVE, q, MAX_FACETED_SEARCH_HITS)
+                : null;
+        StorefrontFacetIndex.Selection selection = storefrontFacetIndex.select(storeId, catalogVersion, filter, rankedIds, facets);
+        List<Long> ids = selection.getProductIds();
+        int size = pageable.getPageSize();
+        int from = (int) Math.min((long) pageable.getPageNumber() * size, ids.size());
+        List<ProductResponse> products = catalogService.getProductsInOrder(ids.subList(from, Math.min(from + size, ids.size())));
+        Meta meta = Meta.ofPage(pageable.getPageNumber(), size, ids.size(), (ids.size() + size - 1) / size);
+        if (!facets) {
+            return ApiResponse.paginated(products, meta);
         }
-        return product;
+        return ApiResponse.paginated(FacetedProductsResponse.builder()
+                .products(products)
+                .facets(selection.getFacets())
+                .priceRange(selection.getPriceRange())
+                .build(), meta);
+    }
+
+    public byte[] listProductsSlice(String storeSlug, long productsVersion, String q, String after, Integer limit) {
+        Long storeId = resolveActiveStoreId(storeSlug);
+        String key = "q=" + normalize(q) + "&after=" + (after != null ? after : "") + "&limit=" + limit;
+        return storefrontReadModel.listPage(storeId, productsVersion, key,
+                () -> catalogService.listProductsSlice(storeId, ACTIVE_STATUS, q, after, limit));
+    }
+
+    public byte[] getProduct(String storeSlug, long productsVersion, String productPublicId) {
+        Long storeId = resolveActiveStoreId(storeSlug);
+        return storefrontReadModel.product(storeId, productsVersion, productPublicId, () -> {
+            ProductResponse product = catalogService.getProduct(storeId, productPublicId);
+            if (!ACTIVE_STATUS.equals(product.getStatus())) {
+                throw new ResourceNotFoundException("Product", productPublicId);
+            }
+            return product;
+        });
+    }
+
+    /** In-stock state for the given variants of an active store; variants of other stores are left out. */
+    public List<VariantAvailabilityResponse> getVariantAvailability(String storeSlug, List<String> variantPublicIds) {
+        Long storeId = resolveActiveStoreId(storeSlug);
+        return inventoryService.getVariantAvailability(storeId, variantPublicIds);
+    }
+
+    /** Active store id for a slug from the read model's slug cache; 404 for unknown or inactive stores. */
+    public Long resolveActiveStoreId(String storeSlug) {
+        return storefrontReadModel.activeStoreId(storeSlug, () -> resolveActiveStore(storeSlug).getId());
+    }
+
+    private static String normalize(String q) {
+        return q != null ? q.trim().toLowerCase(Locale.ROOT) : "";
     }
 
     private Store resolveActiveStore(String storeSlug) {
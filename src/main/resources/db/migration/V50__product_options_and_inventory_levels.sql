@@ -72,6 +72,8 @@ ALTER TABLE products DROP COLUMN collection_id;
 -- Inventory restructure: inventory_items (store+variant metadata) + inventory_levels (per location quantities)
 -- 1. Rename current inventory_items to legacy
 ALTER TABLE inventory_items RENAME TO inventory_items_legacy;
+-- Index names do not follow the table; free the ones the new table reuses
+ALTER INDEX IF EXISTS idx_inventory_items_store_id RENAME TO idx_inventory_items_legacy_store_id;
 
 -- 2. Create new inventory_items (one row per store + variant)
 CREATE TABLE inventory_items (
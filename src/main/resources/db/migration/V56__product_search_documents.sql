@@ -0,0 +1,37 @@
+-- Ranked product search: one maintained search document per product (title, vendor, product_type, tags,
+-- variant SKUs/barcodes, body text) with a weighted tsvector for full-text/prefix matching and a trigram
+-- index for typo-tolerant and substring matching. Maintained by ProductSearchService on catalog writes.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE TABLE product_search_documents (
+    product_id    BIGINT PRIMARY KEY REFERENCES products(id) ON DELETE CASCADE,
+    store_id      BIGINT NOT NULL REFERENCES stores(id) ON DELETE CASCADE,
+    document      TEXT NOT NULL DEFAULT '',
+    search_vector TSVECTOR NOT NULL,
+    updated_at    TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+CREATE INDEX idx_product_search_documents_store_id ON product_search_documents(store_id);
+CREATE INDEX idx_product_search_documents_vector ON product_search_documents USING GIN (search_vector);
+CREATE INDEX idx_product_search_documents_trgm ON product_search_documents USING GIN (document gin_trgm_ops);
+
+-- Backfill existing products
+INSERT INTO product_search_documents (product_id, store_id, document, search_vector, updated_at)
+SELECT p.id, p.store_id,
+       lower(concat_ws(' ', p.title, p.vendor, p.product_type, t.names, v.codes)),
+       setweight(to_tsvector('simple', coalesce(p.title, '')), 'A')
+           || setweight(to_tsvector('simple', coalesce(v.codes, '')), 'A')
+           || setweight(to_tsvector('simple', concat_ws(' ', p.vendor, p.product_type, t.names)), 'B')
+           || setweight(to_tsvector('simple', coalesce(regexp_replace(p.body_html, '<[^>]*>', ' ', 'g'), '')), 'D'),
+       NOW()
+FROM products p
+LEFT JOIN LATERAL (
+    SELECT string_agg(tg.name, ' ') AS names
+    FROM product_tags pt JOIN tags tg ON tg.id = pt.tag_id
+    WHERE pt.product_id = p.id
+) t ON TRUE
+LEFT JOIN LATERAL (
+    SELECT string_agg(concat_ws(' ', pv.sku, pv.barcode), ' ') AS codes
+    FROM product_variants pv
+    WHERE pv.product_id = p.id
+) v ON TRUE;
@@ -0,0 +1,7 @@
+-- Keyset (cursor) pagination seeks on id within a store; composite indexes let the
+-- "WHERE store_id = ? [AND status = ?] AND id > ? ORDER BY id LIMIT n" shape stop after n rows.
+
+CREATE INDEX idx_products_store_id_id ON products(store_id, id);
+CREATE INDEX idx_products_store_status_id ON products(store_id, status, id);
+CREATE INDEX idx_orders_store_id_id ON orders(store_id, id);
+CREATE INDEX idx_orders_store_status_id ON orders(store_id, status, id);
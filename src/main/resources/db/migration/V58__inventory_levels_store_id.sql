@@ -0,0 +1,24 @@
+-- Store-scoped keyset pages over inventory levels ("WHERE store_id = ? AND id > ? ORDER BY id LIMIT n") need the
+-- store on the level row itself: filtering through inventory_items walks levels of every store in id order.
+-- store_id is copied from the level's inventory item on insert (an item never changes store).
+ALTER TABLE inventory_levels ADD COLUMN IF NOT EXISTS store_id BIGINT;
+
+UPDATE inventory_levels il SET store_id = ii.store_id
+FROM inventory_items ii
+WHERE ii.id = il.inventory_item_id AND il.store_id IS NULL;
+
+ALTER TABLE inventory_levels ALTER COLUMN store_id SET NOT NULL;
+
+CREATE OR REPLACE FUNCTION inventory_levels_set_store_id() RETURNS TRIGGER AS $$
+BEGIN
+    SELECT ii.store_id INTO NEW.store_id FROM inventory_items ii WHERE ii.id = NEW.inventory_item_id;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_inventory_levels_store_id ON inventory_levels;
+CREATE TRIGGER trg_inventory_levels_store_id
+    BEFORE INSERT OR UPDATE OF inventory_item_id ON inventory_levels
+    FOR EACH ROW EXECUTE FUNCTION inventory_levels_set_store_id();
+
+CREATE INDEX IF NOT EXISTS idx_inventory_levels_store_id_id ON inventory_levels(store_id, id);
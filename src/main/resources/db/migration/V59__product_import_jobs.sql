@@ -0,0 +1,31 @@
+-- Bulk product import jobs (CSV/JSONL) and their per-row errors
+CREATE TABLE product_import_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    public_id VARCHAR(36) NOT NULL UNIQUE,
+    store_id BIGINT NOT NULL REFERENCES stores(id) ON DELETE CASCADE,
+    format VARCHAR(10) NOT NULL,
+    file_name VARCHAR(255),
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    total_rows INT NOT NULL DEFAULT 0,
+    imported_products INT NOT NULL DEFAULT 0,
+    failed_rows INT NOT NULL DEFAULT 0,
+    error_message TEXT,
+    created_by VARCHAR(36),
+    started_at TIMESTAMPTZ,
+    finished_at TIMESTAMPTZ,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+CREATE INDEX idx_product_import_jobs_store_id ON product_import_jobs(store_id, id);
+
+CREATE TABLE product_import_row_errors (
+    id BIGSERIAL PRIMARY KEY,
+    public_id VARCHAR(36) NOT NULL UNIQUE,
+    job_id BIGINT NOT NULL REFERENCES product_import_jobs(id) ON DELETE CASCADE,
+    row_number INT NOT NULL,
+    handle VARCHAR(255),
+    message TEXT NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+CREATE INDEX idx_product_import_row_errors_job ON product_import_row_errors(job_id, row_number);
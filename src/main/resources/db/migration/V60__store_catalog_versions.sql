@@ -0,0 +1,10 @@
+-- Per-store catalog version behind storefront/discovery ETags; bumped after catalog, inventory and rating changes
+CREATE TABLE IF NOT EXISTS store_catalog_versions (
+    store_id BIGINT PRIMARY KEY REFERENCES stores(id) ON DELETE CASCADE,
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW()
+);
+
+INSERT INTO store_catalog_versions (store_id)
+SELECT id FROM stores
+ON CONFLICT (store_id) DO NOTHING;
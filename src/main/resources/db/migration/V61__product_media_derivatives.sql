@@ -0,0 +1,4 @@
+-- Resized, metadata-stripped copies of uploaded product images (null for external URLs and non-images)
+ALTER TABLE product_media ADD COLUMN IF NOT EXISTS thumbnail_url VARCHAR(500);
+ALTER TABLE product_media ADD COLUMN IF NOT EXISTS medium_url VARCHAR(500);
+ALTER TABLE product_media ADD COLUMN IF NOT EXISTS large_url VARCHAR(500);
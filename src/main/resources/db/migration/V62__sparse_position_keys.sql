@@ -0,0 +1,21 @@
+-- Positions of collection members, product media and variants become sparse BIGINT sort keys (multiples of 65536
+-- when renumbered), so an insert or move takes a key between its neighbours and updates a single row.
+ALTER TABLE collection_products ALTER COLUMN position TYPE BIGINT;
+ALTER TABLE product_media ALTER COLUMN position TYPE BIGINT;
+ALTER TABLE product_variants ALTER COLUMN position TYPE BIGINT;
+
+UPDATE collection_products cp SET position = r.rn * 65536
+FROM (SELECT collection_id, product_id, ROW_NUMBER() OVER (PARTITION BY collection_id ORDER BY position, product_id) AS rn
+      FROM collection_products) r
+WHERE cp.collection_id = r.collection_id AND cp.product_id = r.product_id;
+
+UPDATE product_media pm SET position = r.rn * 65536
+FROM (SELECT id, ROW_NUMBER() OVER (PARTITION BY product_id ORDER BY position, id) AS rn FROM product_media) r
+WHERE pm.id = r.id;
+
+UPDATE product_variants pv SET position = r.rn * 65536
+FROM (SELECT id, ROW_NUMBER() OVER (PARTITION BY product_id ORDER BY position, id) AS rn FROM product_variants) r
+WHERE pv.id = r.id;
+
+-- Neighbour lookups and ordered listing
+CREATE INDEX IF NOT EXISTS idx_collection_products_collection_position ON collection_products(collection_id, position, product_id);
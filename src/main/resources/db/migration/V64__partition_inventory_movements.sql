@@ -0,0 +1,65 @@
+-- Inventory movement ledger as an append-only table range-partitioned by month on created_at.
+-- store_id is denormalized so order-scoped lookups use one composite index without joining inventory_items.
+-- No foreign keys: ledger rows outlive the items/levels they refer to and are only removed by dropping partitions
+-- (see InventoryMovementPartitionJob, which also creates partitions ahead of time).
+
+ALTER SEQUENCE inventory_movements_id_seq OWNED BY NONE;
+ALTER TABLE inventory_movements RENAME TO inventory_movements_legacy;
+ALTER INDEX IF EXISTS idx_inventory_movements_item_id RENAME TO idx_inventory_movements_legacy_item_id;
+ALTER INDEX IF EXISTS idx_inventory_movements_level_id RENAME TO idx_inventory_movements_legacy_level_id;
+
+CREATE TABLE inventory_movements (
+    id BIGINT NOT NULL DEFAULT nextval('inventory_movements_id_seq'),
+    public_id VARCHAR(36) NOT NULL,
+    store_id BIGINT NOT NULL,
+    inventory_item_id BIGINT NOT NULL,
+    inventory_level_id BIGINT,
+    quantity_delta INT NOT NULL,
+    movement_type VARCHAR(30) NOT NULL,
+    reference_type VARCHAR(50),
+    reference_id VARCHAR(36),
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+ALTER SEQUENCE inventory_movements_id_seq OWNED BY inventory_movements.id;
+
+-- Monthly (UTC) partitions from the oldest legacy row through three months ahead; the default partition only catches
+-- rows outside that range if the maintenance job has not run.
+DO $$
+DECLARE
+    month_start DATE := date_trunc('month', COALESCE((SELECT MIN(created_at) FROM inventory_movements_legacy), NOW()) AT TIME ZONE 'UTC')::date;
+    last_month DATE := (date_trunc('month', NOW() AT TIME ZONE 'UTC') + INTERVAL '3 months')::date;
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF inventory_movements FOR VALUES FROM (%L) TO (%L)',
+                       'inventory_movements_p' || to_char(month_start, 'YYYYMM'),
+                       month_start::timestamp AT TIME ZONE 'UTC', (month_start + INTERVAL '1 month')::timestamp AT TIME ZONE 'UTC');
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+CREATE TABLE IF NOT EXISTS inventory_movements_default PARTITION OF inventory_movements DEFAULT;
+
+INSERT INTO inventory_movements (id, public_id, store_id, inventory_item_id, inventory_level_id, quantity_delta,
+                                 movement_type, reference_type, reference_id, created_at, updated_at)
+SELECT m.id, m.public_id, ii.store_id, m.inventory_item_id, m.inventory_level_id, m.quantity_delta,
+       m.movement_type, m.reference_type, m.reference_id, m.created_at, m.updated_at
+FROM inventory_movements_legacy m
+JOIN inventory_items ii ON ii.id = m.inventory_item_id;
+
+DROP TABLE inventory_movements_legacy;
+
+CREATE INDEX idx_inventory_movements_reference ON inventory_movements(store_id, reference_type, reference_id, movement_type);
+CREATE INDEX idx_inventory_movements_item_created ON inventory_movements(inventory_item_id, created_at);
+CREATE INDEX idx_inventory_movements_level_id ON inventory_movements(inventory_level_id);
+
+-- Append-only: rows are never changed or deleted one by one
+CREATE OR REPLACE FUNCTION inventory_movements_append_only() RETURNS TRIGGER AS $$
+BEGIN
+    RAISE EXCEPTION 'inventory_movements is append-only (% not allowed)', TG_OP;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_inventory_movements_append_only
+    BEFORE UPDATE OR DELETE ON inventory_movements
+    FOR EACH ROW EXECUTE FUNCTION inventory_movements_append_only();
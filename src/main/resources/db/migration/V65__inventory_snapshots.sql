@@ -0,0 +1,25 @@
+-- Daily per-level stock snapshots for point-in-time ("stock on hand at end of day X") and valuation queries.
+-- One run per store and day; rows only for levels with stock, unit_cost is the item's cost when the snapshot was taken.
+CREATE TABLE IF NOT EXISTS inventory_snapshot_runs (
+    id BIGSERIAL PRIMARY KEY,
+    store_id BIGINT NOT NULL REFERENCES stores(id) ON DELETE CASCADE,
+    snapshot_date DATE NOT NULL,
+    taken_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+    level_count INT NOT NULL DEFAULT 0,
+    UNIQUE (store_id, snapshot_date)
+);
+CREATE INDEX IF NOT EXISTS idx_inventory_snapshot_runs_store_taken ON inventory_snapshot_runs(store_id, taken_at);
+
+CREATE TABLE IF NOT EXISTS inventory_snapshots (
+    run_id BIGINT NOT NULL REFERENCES inventory_snapshot_runs(id) ON DELETE CASCADE,
+    inventory_level_id BIGINT NOT NULL,
+    inventory_item_id BIGINT NOT NULL,
+    location_id BIGINT NOT NULL,
+    quantity_available INT NOT NULL,
+    quantity_reserved INT NOT NULL,
+    unit_cost DECIMAL(12,2),
+    PRIMARY KEY (run_id, inventory_level_id)
+);
+
+-- Bounded replay between a snapshot and the requested instant (prunes to the partitions in range)
+CREATE INDEX IF NOT EXISTS idx_inventory_movements_store_created ON inventory_movements(store_id, created_at);
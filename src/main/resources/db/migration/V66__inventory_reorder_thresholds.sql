@@ -0,0 +1,60 @@
+-- Per-level reorder threshold: a level is low on stock when quantity_available <= reorder_threshold (0 keeps the old
+-- "out of stock" meaning). Crossings are detected by trigger, so every writer (JPA saves, guarded reservation updates,
+-- bulk adjustments, POS sync) feeds the same alert log, and inventory_low_stock holds the current low levels per store.
+ALTER TABLE inventory_levels ADD COLUMN IF NOT EXISTS reorder_threshold INT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS inventory_low_stock (
+    inventory_level_id BIGINT PRIMARY KEY REFERENCES inventory_levels(id) ON DELETE CASCADE,
+    store_id BIGINT NOT NULL,
+    since TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW()
+);
+CREATE INDEX IF NOT EXISTS idx_inventory_low_stock_store ON inventory_low_stock(store_id, inventory_level_id);
+
+CREATE TABLE IF NOT EXISTS inventory_stock_alerts (
+    id BIGSERIAL PRIMARY KEY,
+    store_id BIGINT NOT NULL REFERENCES stores(id) ON DELETE CASCADE,
+    inventory_level_id BIGINT NOT NULL,
+    alert_type VARCHAR(20) NOT NULL,
+    quantity_available INT NOT NULL,
+    reorder_threshold INT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW()
+);
+CREATE INDEX IF NOT EXISTS idx_inventory_stock_alerts_store_id ON inventory_stock_alerts(store_id, id);
+
+CREATE OR REPLACE FUNCTION inventory_low_stock_apply() RETURNS TRIGGER AS $$
+DECLARE
+    was_low BOOLEAN := TG_OP = 'UPDATE' AND OLD.quantity_available <= OLD.reorder_threshold;
+    is_low BOOLEAN := NEW.quantity_available <= NEW.reorder_threshold;
+    level_store_id BIGINT;
+BEGIN
+    IF was_low = is_low THEN
+        RETURN NULL;
+    END IF;
+    SELECT ii.store_id INTO level_store_id FROM inventory_items ii WHERE ii.id = NEW.inventory_item_id;
+    IF is_low THEN
+        INSERT INTO inventory_low_stock (inventory_level_id, store_id) VALUES (NEW.id, level_store_id)
+        ON CONFLICT (inventory_level_id) DO NOTHING;
+    ELSE
+        DELETE FROM inventory_low_stock WHERE inventory_level_id = NEW.id;
+    END IF;
+    -- New levels start out empty; only crossings of existing levels are alerts
+    IF TG_OP = 'UPDATE' THEN
+        INSERT INTO inventory_stock_alerts (store_id, inventory_level_id, alert_type, quantity_available, reorder_threshold)
+        VALUES (level_store_id, NEW.id, CASE WHEN is_low THEN 'LOW_STOCK' ELSE 'RESTOCKED' END,
+                NEW.quantity_available, NEW.reorder_threshold);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_inventory_levels_low_stock ON inventory_levels;
+CREATE TRIGGER trg_inventory_levels_low_stock
+    AFTER INSERT OR UPDATE OF quantity_available, reorder_threshold ON inventory_levels
+    FOR EACH ROW EXECUTE FUNCTION inventory_low_stock_apply();
+
+INSERT INTO inventory_low_stock (inventory_level_id, store_id)
+SELECT il.id, ii.store_id
+FROM inventory_levels il
+JOIN inventory_items ii ON ii.id = il.inventory_item_id
+WHERE il.quantity_available <= il.reorder_threshold
+ON CONFLICT (inventory_level_id) DO NOTHING;
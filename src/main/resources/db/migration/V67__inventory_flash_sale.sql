@@ -0,0 +1,32 @@
+-- Flash-sale mode for hot variants. Stock for flagged items is handed to application instances in blocks
+-- (allotments): a block moves from quantity_available to quantity_reserved of the level with a guarded update, and the
+-- instance grants reservations from it in memory. Each grant is an INSERT into inventory_flash_grants inside the
+-- checkout transaction (no row lock on the level), later folded into the ledger and the allotment in batches.
+-- Invariant per allotment: quantity = unsold units held by the instance + grants not yet flushed.
+ALTER TABLE inventory_items ADD COLUMN IF NOT EXISTS flash_sale BOOLEAN NOT NULL DEFAULT FALSE;
+CREATE INDEX IF NOT EXISTS idx_inventory_items_flash_sale ON inventory_items(store_id) WHERE flash_sale;
+
+CREATE TABLE IF NOT EXISTS inventory_flash_allotments (
+    inventory_level_id BIGINT NOT NULL REFERENCES inventory_levels(id) ON DELETE CASCADE,
+    instance_id VARCHAR(36) NOT NULL,
+    store_id BIGINT NOT NULL,
+    inventory_item_id BIGINT NOT NULL,
+    quantity INT NOT NULL CHECK (quantity >= 0),
+    heartbeat_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (inventory_level_id, instance_id)
+);
+CREATE INDEX IF NOT EXISTS idx_inventory_flash_allotments_instance ON inventory_flash_allotments(instance_id, heartbeat_at);
+
+CREATE TABLE IF NOT EXISTS inventory_flash_grants (
+    id BIGSERIAL PRIMARY KEY,
+    inventory_level_id BIGINT NOT NULL,
+    instance_id VARCHAR(36) NOT NULL,
+    store_id BIGINT NOT NULL,
+    inventory_item_id BIGINT NOT NULL,
+    quantity INT NOT NULL CHECK (quantity > 0),
+    reference_type VARCHAR(50),
+    reference_id VARCHAR(36),
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW()
+);
+CREATE INDEX IF NOT EXISTS idx_inventory_flash_grants_reference ON inventory_flash_grants(store_id, reference_type, reference_id);
+CREATE INDEX IF NOT EXISTS idx_inventory_flash_grants_allotment ON inventory_flash_grants(inventory_level_id, instance_id);
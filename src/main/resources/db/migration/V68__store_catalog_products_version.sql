@@ -0,0 +1,4 @@
+-- Second counter next to the store's catalog version: bumped only by product changes (attributes, tags, options,
+-- prices, status, membership), not by stock or rating changes. In-memory indexes derived from product data compare
+-- it to decide whether they must be rebuilt, so a change made on any instance reaches every instance's index.
+ALTER TABLE store_catalog_versions ADD COLUMN IF NOT EXISTS products_version BIGINT NOT NULL DEFAULT 0;
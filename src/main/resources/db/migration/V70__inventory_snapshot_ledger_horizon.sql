@@ -0,0 +1,12 @@
+-- A movement's created_at is its transaction's start, so one stamped before a snapshot can commit after the copy.
+-- Each run records the movements its copy already contains from ledger_horizon on (an overlap before the copy);
+-- replay skips those and applies the rest, instead of trusting created_at against taken_at.
+ALTER TABLE inventory_snapshot_runs ADD COLUMN IF NOT EXISTS ledger_horizon TIMESTAMP WITH TIME ZONE;
+UPDATE inventory_snapshot_runs SET ledger_horizon = taken_at WHERE ledger_horizon IS NULL;
+ALTER TABLE inventory_snapshot_runs ALTER COLUMN ledger_horizon SET NOT NULL;
+
+CREATE TABLE IF NOT EXISTS inventory_snapshot_movements (
+    run_id BIGINT NOT NULL REFERENCES inventory_snapshot_runs(id) ON DELETE CASCADE,
+    movement_id BIGINT NOT NULL,
+    PRIMARY KEY (run_id, movement_id)
+);
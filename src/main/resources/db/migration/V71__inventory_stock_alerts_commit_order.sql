@@ -0,0 +1,8 @@
+-- Alert ids come from a sequence at insert time, so a transaction can commit id 11 while id 10 is still in flight; a
+-- reader that already moved its cursor past 11 would never see 10. Each alert records its transaction id, and the feed
+-- lists an alert only once every transaction that could still write an earlier one has ended (xid below the snapshot
+-- xmin), ordered by (xid, id). Existing alerts are all committed and share this migration's xid, keeping id order.
+ALTER TABLE inventory_stock_alerts ADD COLUMN IF NOT EXISTS xid XID8 NOT NULL DEFAULT pg_current_xact_id();
+
+DROP INDEX IF EXISTS idx_inventory_stock_alerts_store_id;
+CREATE INDEX IF NOT EXISTS idx_inventory_stock_alerts_store_xid ON inventory_stock_alerts(store_id, xid, id);
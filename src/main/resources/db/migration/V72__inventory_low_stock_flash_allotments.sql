@@ -0,0 +1,97 @@
+-- Flash-sale allotments count as stock for reorder thresholds: a refill moves a block out of quantity_available into
+-- inventory_flash_allotments and returning idle stock moves it back, neither of which changes what the store can sell.
+-- A level is low when quantity_available plus its allotted units is at or below reorder_threshold; a flushed sale
+-- shrinks the allotment and can cross it.
+--
+-- Both halves of a transfer are separate statements, so the triggers are deferred to commit and compare the level's
+-- current stock with its recorded state in inventory_low_stock instead of OLD/NEW. A level written several times in one
+-- transaction alerts at most once. Level writers are serialized by the level row lock; a grant flush changes an
+-- allotment without it, so evaluations of levels that have allotments also take an advisory lock, and a checkout and a
+-- flush committing together do not both miss a crossing that only their sum makes. Levels without allotments take no
+-- advisory lock, which keeps transactions writing thousands of levels within the lock table.
+CREATE OR REPLACE FUNCTION inventory_low_stock_evaluate(level_id BIGINT, alert BOOLEAN, serialize BOOLEAN) RETURNS VOID AS $$
+DECLARE
+    lvl RECORD;
+    stock BIGINT;
+    was_low BOOLEAN;
+    is_low BOOLEAN;
+BEGIN
+    IF serialize OR EXISTS (SELECT 1 FROM inventory_flash_allotments a WHERE a.inventory_level_id = level_id) THEN
+        PERFORM pg_advisory_xact_lock(hashtext('inventory-low-stock:' || level_id));
+    END IF;
+    SELECT il.store_id, il.quantity_available, il.reorder_threshold INTO lvl FROM inventory_levels il WHERE il.id = level_id;
+    IF NOT FOUND THEN
+        RETURN;
+    END IF;
+    stock := lvl.quantity_available
+        + COALESCE((SELECT SUM(a.quantity) FROM inventory_flash_allotments a WHERE a.inventory_level_id = level_id), 0);
+    is_low := stock <= lvl.reorder_threshold;
+    was_low := EXISTS (SELECT 1 FROM inventory_low_stock ls WHERE ls.inventory_level_id = level_id);
+    IF was_low = is_low THEN
+        RETURN;
+    END IF;
+    IF is_low THEN
+        INSERT INTO inventory_low_stock (inventory_level_id, store_id) VALUES (level_id, lvl.store_id)
+        ON CONFLICT (inventory_level_id) DO NOTHING;
+    ELSE
+        DELETE FROM inventory_low_stock WHERE inventory_level_id = level_id;
+    END IF;
+    IF alert THEN
+        INSERT INTO inventory_stock_alerts (store_id, inventory_level_id, alert_type, quantity_available, reorder_threshold)
+        VALUES (lvl.store_id, level_id, CASE WHEN is_low THEN 'LOW_STOCK' ELSE 'RESTOCKED' END,
+                LEAST(stock, 2147483647), lvl.reorder_threshold);
+    END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+-- New levels start out empty; only crossings of existing levels are alerts
+CREATE OR REPLACE FUNCTION inventory_low_stock_apply() RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM inventory_low_stock_evaluate(NEW.id, TG_OP = 'UPDATE', FALSE);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION inventory_low_stock_allotment_apply() RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM inventory_low_stock_evaluate(CASE WHEN TG_OP = 'DELETE' THEN OLD.inventory_level_id ELSE NEW.inventory_level_id END, TRUE, TRUE);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_inventory_levels_low_stock ON inventory_levels;
+DROP TRIGGER IF EXISTS trg_inventory_levels_low_stock_insert ON inventory_levels;
+DROP TRIGGER IF EXISTS trg_inventory_levels_low_stock_update ON inventory_levels;
+DROP TRIGGER IF EXISTS trg_inventory_flash_allotments_low_stock ON inventory_flash_allotments;
+
+CREATE CONSTRAINT TRIGGER trg_inventory_levels_low_stock_insert
+    AFTER INSERT ON inventory_levels
+    DEFERRABLE INITIALLY DEFERRED
+    FOR EACH ROW EXECUTE FUNCTION inventory_low_stock_apply();
+
+CREATE CONSTRAINT TRIGGER trg_inventory_levels_low_stock_update
+    AFTER UPDATE OF quantity_available, reorder_threshold ON inventory_levels
+    DEFERRABLE INITIALLY DEFERRED
+    FOR EACH ROW
+    WHEN (OLD.quantity_available IS DISTINCT FROM NEW.quantity_available
+          OR OLD.reorder_threshold IS DISTINCT FROM NEW.reorder_threshold)
+    EXECUTE FUNCTION inventory_low_stock_apply();
+
+CREATE CONSTRAINT TRIGGER trg_inventory_flash_allotments_low_stock
+    AFTER INSERT OR DELETE OR UPDATE OF quantity ON inventory_flash_allotments
+    DEFERRABLE INITIALLY DEFERRED
+    FOR EACH ROW EXECUTE FUNCTION inventory_low_stock_allotment_apply();
+
+-- Re-derive the current set with allotted units counted
+DELETE FROM inventory_low_stock ls
+USING inventory_levels il
+WHERE il.id = ls.inventory_level_id
+  AND il.quantity_available + COALESCE((SELECT SUM(a.quantity) FROM inventory_flash_allotments a
+                                        WHERE a.inventory_level_id = il.id), 0) > il.reorder_threshold;
+
+INSERT INTO inventory_low_stock (inventory_level_id, store_id)
+SELECT il.id, il.store_id
+FROM inventory_levels il
+WHERE il.quantity_available + COALESCE((SELECT SUM(a.quantity) FROM inventory_flash_allotments a
+                                        WHERE a.inventory_level_id = il.id), 0) <= il.reorder_threshold
+ON CONFLICT (inventory_level_id) DO NOTHING;
@@ -0,0 +1,173 @@
+package com.securemarts.domain.catalog.service;
+
+import com.securemarts.domain.catalog.entity.Collection;
+import com.securemarts.domain.catalog.entity.CollectionRule;
+import com.securemarts.support.MigratedSchema;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Smart collection rule evaluation over one store, bitmap index vs compiled SQL, per rule shape, measured with JMH.
+ * Not part of the regular test run (the class name does not match the surefire includes); {@link #run()} migrates and
+ * seeds a scratch schema ({@link MigratedSchema}) once, then runs every (path, shape) pair in a forked JVM against it:
+ * <pre>
+ * TEST_DATABASE_URL=jdbc:postgresql://localhost:5432/scratch mvn test -Dtest=CollectionRuleIndexBenchmark
+ * </pre>
+ * Size: {@code -Dbenchmark.products=50000} (default). Each trial builds its index and checks it against SQL first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionRuleIndexBenchmark {
+
+    private static final String SCHEMA_PROPERTY = "benchmark.schema";
+    private static final String STORE_PROPERTY = "benchmark.store";
+
+    @Param({"vendorEquals", "tagContains", "priceGreaterThan", "stockLessThan", "titleContains", "allOfFour", "anyOfThree"})
+    public String shape;
+
+    private HikariDataSource dataSource;
+    private CollectionRuleIndex index;
+    private NamedParameterJdbcTemplate named;
+    private Collection collection;
+    private long store;
+    private String sql;
+    private MapSqlParameterSource params;
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = MigratedSchema.URL_VARIABLE, matches = ".+")
+    void run() throws Exception {
+        int products = Integer.getInteger("benchmark.products", 50_000);
+        try (MigratedSchema schema = MigratedSchema.create("rule_index_benchmark")) {
+            long store = seed(schema, products);
+            new Runner(new OptionsBuilder()
+                    .include(CollectionRuleIndexBenchmark.class.getName())
+                    .jvmArgsAppend("-D" + SCHEMA_PROPERTY + "=" + schema.name(), "-D" + STORE_PROPERTY + "=" + store)
+                    .build()).run();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void buildIndex() {
+        dataSource = MigratedSchema.existing(System.getProperty(SCHEMA_PROPERTY)).pool(2);
+        store = Long.getLong(STORE_PROPERTY);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        CatalogVersionService versions = new CatalogVersionService(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+                null, event -> { }, 2);
+        index = new CollectionRuleIndex(jdbcTemplate, versions, true, 10);
+        index.sync(store);
+        named = new NamedParameterJdbcTemplate(jdbcTemplate);
+        collection = shape(shape, store);
+        CollectionRuleCompiler.CompiledRules rules = new CollectionRuleCompiler().compile(collection);
+        params = new MapSqlParameterSource(rules.getParameters()).addValue("storeId", store);
+        sql = "SELECT p.id " + CollectionRuleCompiler.FROM_PRODUCTS + "AND " + rules.getPredicate() + " ORDER BY p.id";
+        if (!index.evaluate(collection, store).equals(sql())) {
+            throw new IllegalStateException("Index and SQL disagree on " + shape);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closePool() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<Long> index() {
+        return index.evaluate(collection, store);
+    }
+
+    @Benchmark
+    public List<Long> sql() {
+        return named.queryForList(sql, params, Long.class);
+    }
+
+    /** One store with {@code products} products, two tags, three variants and two levels each. Returns the store id. */
+    private static long seed(MigratedSchema schema, int products) {
+        JdbcTemplate jdbcTemplate = schema.jdbcTemplate();
+        long store = schema.insertStore("rule-index-benchmark");
+        jdbcTemplate.update("INSERT INTO locations (public_id, store_id, name) "
+                + "SELECT gen_random_uuid()::text, ?, 'Location ' || n FROM generate_series(1, 2) n", store);
+        jdbcTemplate.update("INSERT INTO products (public_id, store_id, title, vendor, product_type, status) "
+                + "SELECT gen_random_uuid()::text, ?, 'Product ' || g, 'Vendor ' || (g % 40), 'Type ' || (g % 12), 'ACTIVE' "
+                + "FROM generate_series(1, ?) g", store, products);
+        jdbcTemplate.update("INSERT INTO tags (public_id, business_id, name) "
+                + "SELECT gen_random_uuid()::text, s.business_id, 'tag-' || g FROM stores s CROSS JOIN generate_series(0, 199) g "
+                + "WHERE s.id = ?", store);
+        jdbcTemplate.update("WITH t AS (SELECT id, row_number() OVER (ORDER BY id) - 1 AS n FROM tags) "
+                + "INSERT INTO product_tags (product_id, tag_id) SELECT p.id, t.id FROM products p "
+                + "JOIN t ON t.n IN (p.id % 200, (p.id * 7) % 200) WHERE p.store_id = ?", store);
+        jdbcTemplate.update("INSERT INTO product_variants (public_id, product_id, title, price_amount, compare_at_amount, weight) "
+                + "SELECT gen_random_uuid()::text, p.id, 'Size ' || v, 5 + (p.id * v) % 500, CASE WHEN v = 1 THEN 600 END, "
+                + "(p.id % 30) / 10.0 FROM products p CROSS JOIN generate_series(1, 3) v WHERE p.store_id = ?", store);
+        jdbcTemplate.update("INSERT INTO inventory_items (public_id, store_id, product_variant_id) "
+                + "SELECT gen_random_uuid()::text, ?, pv.id FROM product_variants pv", store);
+        jdbcTemplate.update("INSERT INTO inventory_levels (public_id, inventory_item_id, location_id, quantity_available) "
+                + "SELECT gen_random_uuid()::text, ii.id, l.id, (ii.id * l.id) % 25 FROM inventory_items ii "
+                + "JOIN locations l ON l.store_id = ii.store_id WHERE ii.store_id = ?", store);
+        jdbcTemplate.execute("ANALYZE");
+        return store;
+    }
+
+    private static Collection shape(String shape, long store) {
+        return switch (shape) {
+            case "vendorEquals" -> collection(store, "all", rule("vendor", "equals", "vendor 7"));
+            case "tagContains" -> collection(store, "all", rule("tag", "contains", "tag-1"));
+            case "priceGreaterThan" -> collection(store, "all", rule("price", "greater_than", "250"));
+            case "stockLessThan" -> collection(store, "all", rule("inventory_stock", "less_than", "10"));
+            case "titleContains" -> collection(store, "all", rule("title", "contains", "99"));
+            case "allOfFour" -> collection(store, "all", rule("vendor", "starts_with", "vendor 1"),
+                    rule("product_type", "not_equals", "Type 3"), rule("price", "less_than", "300"), rule("inventory_stock", "greater_than", "5"));
+            case "anyOfThree" -> collection(store, "any", rule("tag", "equals", "tag-42"),
+                    rule("weight", "equals", "2.5"), rule("compare_at_price", "greater_than", "550"));
+            default -> throw new IllegalArgumentException("Unknown shape " + shape);
+        };
+    }
+
+    private static Collection collection(long store, String conditionsOperator, CollectionRule... rules) {
+        Collection collection = new Collection();
+        collection.setStoreId(store);
+        collection.setTitle("Benchmark");
+        collection.setCollectionType(Collection.CollectionType.SMART);
+        collection.setConditionsOperator(conditionsOperator);
+        for (CollectionRule rule : rules) {
+            rule.setCollection(collection);
+            rule.setPosition(collection.getRules().size());
+            collection.getRules().add(rule);
+        }
+        return collection;
+    }
+
+    private static CollectionRule rule(String field, String operator, String value) {
+        CollectionRule rule = new CollectionRule();
+        rule.setField(field);
+        rule.setOperator(operator);
+        rule.setValue(value);
+        return rule;
+    }
+}
@@ -0,0 +1,242 @@
+package com.securemarts.domain.catalog.service;
+
+import com.securemarts.domain.catalog.entity.Collection;
+import com.securemarts.domain.catalog.entity.CollectionRule;
+import com.securemarts.domain.catalog.event.CatalogChangedEvent;
+import com.securemarts.domain.catalog.event.CatalogVersionBumpedEvent;
+import com.securemarts.domain.inventory.event.InventoryChangedEvent;
+import com.securemarts.support.MigratedSchema;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The bitmap path of {@link CollectionRuleIndex} against the SQL path of {@link CollectionRuleCompiler} on the same
+ * rows: every field and operator, awkward values (case, blanks, NULLs, 10 vs 10.00, unparsable numbers), rule sets,
+ * and the index after product, stock and other-instance changes. Runs on the Flyway schema ({@code TEST_DATABASE_URL},
+ * see {@link MigratedSchema}).
+ */
+@EnabledIfEnvironmentVariable(named = MigratedSchema.URL_VARIABLE, matches = ".+")
+class CollectionRuleIndexTest {
+
+    private static MigratedSchema schema;
+    private static long store;
+    private static long otherStore;
+    private static JdbcTemplate jdbcTemplate;
+    private static NamedParameterJdbcTemplate named;
+
+    private final CollectionRuleCompiler compiler = new CollectionRuleCompiler();
+    private CatalogVersionService catalogVersionService;
+    private CollectionRuleIndex index;
+
+    @BeforeAll
+    static void migrate() {
+        schema = MigratedSchema.create("rule_index_test");
+        jdbcTemplate = schema.jdbcTemplate();
+        named = new NamedParameterJdbcTemplate(jdbcTemplate);
+        store = schema.insertStore("rule-index");
+        otherStore = schema.insertStore("rule-index-other");
+        jdbcTemplate.update("INSERT INTO locations (public_id, store_id, name) SELECT gen_random_uuid()::text, s, 'Location ' || n "
+                + "FROM unnest(ARRAY[?, ?]) s CROSS JOIN generate_series(1, 2) n", store, otherStore);
+        seed(new Random(42));
+    }
+
+    @AfterAll
+    static void dropSchema() {
+        if (schema != null) schema.close();
+    }
+
+    @BeforeEach
+    void createIndex() {
+        CollectionRuleIndex[] holder = new CollectionRuleIndex[1];
+        catalogVersionService = new CatalogVersionService(jdbcTemplate, new DataSourceTransactionManager(jdbcTemplate.getDataSource()),
+                null, event -> {
+                    if (event instanceof CatalogVersionBumpedEvent bumped && holder[0] != null) holder[0].onVersionBumped(bumped);
+                }, 2);
+        index = new CollectionRuleIndex(jdbcTemplate, catalogVersionService, true, 10);
+        holder[0] = index;
+        index.sync(store);
+    }
+
+    @Test
+    void everyFieldAndOperatorMatchesTheSqlPath() {
+        for (Collection collection : singleRules()) assertSamePaths(collection);
+    }
+
+    @Test
+    void ruleSetsMatchTheSqlPath() {
+        assertSamePaths(collection("all", rule("vendor", "contains", "acme"), rule("price", "greater_than", "10")));
+        assertSamePaths(collection("any", rule("tag", "equals", "summer"), rule("inventory_stock", "less_than", "3")));
+        assertSamePaths(collection("all", rule("product_type", "not_equals", "Shirt"), rule("weight", "less_than", "1.5"),
+                rule("variant_title", "starts_with", "s")));
+        assertSamePaths(collection("any", rule("title", "ends_with", "7"), rule("compare_at_price", "equals", "0"),
+                rule("unknown_field", "equals", "x")));
+        assertSamePaths(collection("all"));
+    }
+
+    @Test
+    void productAndStockDeltasKeepTheIndexEqualToSql() {
+        Long productId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM products WHERE store_id = ? AND deleted_at IS NULL", Long.class, store);
+        String publicId = jdbcTemplate.queryForObject("SELECT public_id FROM products WHERE id = ?", String.class, productId);
+
+        jdbcTemplate.update("UPDATE products SET vendor = 'Renamed', title = 'Moved 7' WHERE id = ?", productId);
+        jdbcTemplate.update("UPDATE product_variants SET price_amount = 12345 WHERE product_id = ?", productId);
+        CatalogChangedEvent changed = new CatalogChangedEvent(this, store, publicId);
+        index.onCatalogChanged(changed);
+        catalogVersionService.onCatalogChanged(changed);
+        assertAllSame();
+
+        jdbcTemplate.update("UPDATE inventory_levels SET quantity_available = quantity_available + 7 WHERE inventory_item_id IN "
+                + "(SELECT ii.id FROM inventory_items ii JOIN product_variants pv ON pv.id = ii.product_variant_id WHERE pv.product_id = ?)", productId);
+        index.onInventoryChanged(new InventoryChangedEvent(this, store, Set.of(productId)));
+        catalogVersionService.bump(store);
+        assertAllSame();
+
+        jdbcTemplate.update("UPDATE products SET deleted_at = NOW() WHERE id = ?", productId);
+        index.onCatalogChanged(changed);
+        catalogVersionService.onCatalogChanged(changed);
+        assertAllSame();
+
+        // Applied here, so the version recorded by the index followed every bump and sync has nothing to re-read
+        index.sync(store);
+        assertAllSame();
+    }
+
+    @Test
+    void changesMadeElsewhereAreCaughtBySync() {
+        jdbcTemplate.update("UPDATE products SET vendor = 'Elsewhere' WHERE id = (SELECT MAX(id) FROM products WHERE store_id = ?)", store);
+        jdbcTemplate.update("UPDATE inventory_levels SET quantity_available = 0");
+        // Another instance bumps the version; this instance sees neither the change nor the bump
+        jdbcTemplate.update("UPDATE store_catalog_versions SET version = version + 1, products_version = products_version + 1 WHERE store_id = ?", store);
+
+        index.sync(store);
+        assertAllSame();
+    }
+
+    private void assertAllSame() {
+        for (Collection collection : singleRules()) assertSamePaths(collection);
+    }
+
+    private void assertSamePaths(Collection collection) {
+        List<Long> expected = sql(collection);
+        List<Long> actual = index.evaluate(collection, store);
+        assertEquals(expected, actual, () -> describe(collection));
+        Set<Long> candidates = Set.copyOf(jdbcTemplate.queryForList("SELECT id FROM products", Long.class));
+        Set<Long> matching = index.matching(collection, store, candidates);
+        assertEquals(Set.copyOf(expected), matching, () -> describe(collection));
+    }
+
+    private List<Long> sql(Collection collection) {
+        if (collection.getRules().isEmpty()) return List.of();
+        CollectionRuleCompiler.CompiledRules rules = compiler.compile(collection);
+        MapSqlParameterSource params = new MapSqlParameterSource(rules.getParameters()).addValue("storeId", store);
+        return named.queryForList("SELECT p.id " + CollectionRuleCompiler.FROM_PRODUCTS + "AND " + rules.getPredicate()
+                + " ORDER BY p.id", params, Long.class);
+    }
+
+    private static List<Collection> singleRules() {
+        List<Collection> collections = new ArrayList<>();
+        List<String> stringOps = List.of("equals", "not_equals", "contains", "starts_with", "ends_with");
+        List<String> numberOps = List.of("equals", "not_equals", "greater_than", "less_than");
+        for (String field : List.of("title", "vendor", "product_type", "tag", "variant_title")) {
+            for (String op : stringOps) {
+                for (String value : new String[]{"acme", "Acme", "shirt", "summer", "Small", " hat ", "", null}) {
+                    collections.add(collection("all", rule(field, op, value)));
+                }
+            }
+        }
+        for (String field : List.of("price", "compare_at_price", "weight", "inventory_stock")) {
+            for (String op : numberOps) {
+                for (String value : new String[]{"0", "10", "10.00", "25.5", "99.99", "1.5", "3", "2.7", "abc", ""}) {
+                    collections.add(collection("all", rule(field, op, value)));
+                }
+            }
+        }
+        return collections;
+    }
+
+    private static Collection collection(String conditionsOperator, CollectionRule... rules) {
+        Collection collection = new Collection();
+        collection.setStoreId(store);
+        collection.setTitle("Test");
+        collection.setCollectionType(Collection.CollectionType.SMART);
+        collection.setConditionsOperator(conditionsOperator);
+        for (CollectionRule rule : rules) {
+            rule.setCollection(collection);
+            rule.setPosition(collection.getRules().size());
+            collection.getRules().add(rule);
+        }
+        return collection;
+    }
+
+    private static CollectionRule rule(String field, String operator, String value) {
+        CollectionRule rule = new CollectionRule();
+        rule.setField(field);
+        rule.setOperator(operator);
+        rule.setValue(value);
+        return rule;
+    }
+
+    private static String describe(Collection collection) {
+        StringBuilder out = new StringBuilder(String.valueOf(collection.getConditionsOperator()));
+        for (CollectionRule rule : collection.getRules()) {
+            out.append(" [").append(rule.getField()).append(' ').append(rule.getOperator()).append(" '").append(rule.getValue()).append("']");
+        }
+        return out.toString();
+    }
+
+    /** A few hundred products mixing every case the comparisons have to agree on, plus another store's products. */
+    private static void seed(Random random) {
+        String[] vendors = {"Acme", "acme", "ACME Corp", null, "Zeta", ""};
+        String[] types = {"Shirt", "shirts", null, "Hat", " hat "};
+        String[] tags = {"summer", "Summer", "sale", "new-in", ""};
+        String[] variantTitles = {"Small", "Large", null, "small / red"};
+        BigDecimal[] prices = {new BigDecimal("10"), new BigDecimal("10.00"), new BigDecimal("25.5"), new BigDecimal("99.99"), BigDecimal.ZERO};
+        BigDecimal[] weights = {null, new BigDecimal("1.5"), new BigDecimal("0.250"), BigDecimal.ZERO};
+        int[] quantities = {0, 3, 10};
+        for (int i = 0; i < 300; i++) {
+            long productStore = i % 10 == 9 ? otherStore : store;
+            Long businessId = jdbcTemplate.queryForObject("SELECT business_id FROM stores WHERE id = ?", Long.class, productStore);
+            String title = (i % 3 == 0 ? "Red Shirt " : i % 3 == 1 ? "blue hat " : "ACME mug ") + i;
+            Long productId = jdbcTemplate.queryForObject("INSERT INTO products (public_id, store_id, title, vendor, product_type, status, "
+                    + "deleted_at) VALUES (gen_random_uuid()::text, ?, ?, ?, ?, 'ACTIVE', CASE WHEN ? THEN NOW() END) RETURNING id", Long.class,
+                    productStore, title, vendors[random.nextInt(vendors.length)], types[random.nextInt(types.length)], random.nextInt(20) == 0);
+            for (int t = random.nextInt(4); t > 0; t--) {
+                Long tagId = jdbcTemplate.queryForObject("INSERT INTO tags (public_id, business_id, name) "
+                        + "VALUES (gen_random_uuid()::text, ?, ?) RETURNING id", Long.class, businessId, tags[random.nextInt(tags.length)]);
+                jdbcTemplate.update("INSERT INTO product_tags (product_id, tag_id) VALUES (?, ?)", productId, tagId);
+            }
+            for (int v = random.nextInt(4); v > 0; v--) {
+                Long variantId = jdbcTemplate.queryForObject("INSERT INTO product_variants (public_id, product_id, title, price_amount, "
+                        + "compare_at_amount, weight, track_inventory) VALUES (gen_random_uuid()::text, ?, ?, ?, ?, ?, ?) RETURNING id", Long.class,
+                        productId, variantTitles[random.nextInt(variantTitles.length)], prices[random.nextInt(prices.length)],
+                        random.nextBoolean() ? null : prices[random.nextInt(prices.length)], weights[random.nextInt(weights.length)],
+                        random.nextInt(5) > 0);
+                int levels = random.nextInt(3);
+                if (levels == 0) continue;
+                Long itemId = jdbcTemplate.queryForObject("INSERT INTO inventory_items (public_id, store_id, product_variant_id) "
+                        + "VALUES (gen_random_uuid()::text, ?, ?) RETURNING id", Long.class, productStore, variantId);
+                List<Long> locations = jdbcTemplate.queryForList("SELECT id FROM locations WHERE store_id = ? ORDER BY id LIMIT ?",
+                        Long.class, productStore, levels);
+                for (Long locationId : locations) {
+                    jdbcTemplate.update("INSERT INTO inventory_levels (public_id, inventory_item_id, location_id, quantity_available) "
+                            + "VALUES (gen_random_uuid()::text, ?, ?, ?)", itemId, locationId, quantities[random.nextInt(quantities.length)]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.securemarts.domain.catalog.service;
+
+import com.securemarts.domain.catalog.dto.ProductResponse;
+import com.securemarts.domain.catalog.entity.Collection;
+import com.securemarts.domain.catalog.entity.CollectionProduct;
+import com.securemarts.domain.catalog.entity.Product;
+import com.securemarts.domain.catalog.entity.ProductMedia;
+import com.securemarts.domain.catalog.entity.ProductOption;
+import com.securemarts.domain.catalog.entity.ProductOptionValue;
+import com.securemarts.domain.catalog.entity.ProductVariant;
+import com.securemarts.domain.catalog.entity.Tag;
+import com.securemarts.domain.catalog.entity.VariantOptionValue;
+import com.securemarts.support.MigratedSchema;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Query-count regression test: loading a page of products with every association must take one statement per
+ * association, whatever the page size. Runs against Postgres ({@code TEST_DATABASE_URL}) on a schema built by the
+ * Flyway migrations, which is dropped afterwards.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductGraphLoader.class)
+@EnabledIfEnvironmentVariable(named = MigratedSchema.URL_VARIABLE, matches = ".+")
+class ProductGraphLoaderTest {
+
+    /** Variants, media, options, option values, variant options, variant media, tags, collections. */
+    private static final int STATEMENTS_PER_PAGE = 8;
+
+    private static MigratedSchema schema;
+    private static long storeId;
+    private static long businessId;
+
+    @Autowired
+    private ProductGraphLoader productGraphLoader;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @DynamicPropertySource
+    static void migratedSchema(DynamicPropertyRegistry registry) {
+        schema = MigratedSchema.create("product_graph_loader_test");
+        schema.register(registry);
+        storeId = schema.insertStore("graph-loader");
+        businessId = schema.jdbcTemplate().queryForObject("SELECT business_id FROM stores WHERE id = ?", Long.class, storeId);
+    }
+
+    @AfterAll
+    static void dropSchema() {
+        if (schema != null) schema.close();
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithPageSize() {
+        List<Long> ids = seed(20);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (int pageSize : new int[]{1, 5, 20}) {
+            List<Product> page = products(ids.subList(0, pageSize));
+            statistics.clear();
+
+            List<ProductResponse> responses = productGraphLoader.load(page);
+
+            assertEquals(STATEMENTS_PER_PAGE, statistics.getPrepareStatementCount(), "statements for a page of " + pageSize);
+            assertEquals(pageSize, responses.size());
+            for (int i = 0; i < pageSize; i++) {
+                ProductResponse response = responses.get(i);
+                assertEquals(page.get(i).getPublicId(), response.getPublicId());
+                assertEquals(2, response.getTagNames().size());
+                assertEquals(1, response.getCollectionIds().size());
+                assertEquals(2, response.getMedia().size());
+                assertEquals(2, response.getOptions().size());
+                assertEquals(List.of("S", "M"), response.getOptions().get(0).getValues());
+                assertEquals(4, response.getVariants().size());
+                for (ProductResponse.VariantResponse variant : response.getVariants()) {
+                    assertEquals(2, variant.getOptions().size());
+                    assertEquals(1, variant.getMedia().size());
+                }
+            }
+        }
+    }
+
+    @Test
+    void emptyPageRunsNoStatements() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertEquals(List.of(), productGraphLoader.load(List.<Product>of()));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    /** Products with 2 options of 2 values, 4 variants (one per combination, each with one image), 2 tags, 1 collection. */
+    private List<Long> seed(int count) {
+        Tag sale = entityManager.persist(tag("sale"));
+        Tag summer = entityManager.persist(tag("summer"));
+        Collection collection = new Collection();
+        collection.setStoreId(storeId);
+        collection.setTitle("Featured");
+        entityManager.persist(collection);
+
+        List<Long> ids = new ArrayList<>();
+        for (int p = 0; p < count; p++) {
+            Product product = new Product();
+            product.setStoreId(storeId);
+            product.setTitle("Product " + p);
+            product.getTags().add(sale);
+            product.getTags().add(summer);
+            for (int m = 0; m < 2; m++) {
+                ProductMedia media = new ProductMedia();
+                media.setProduct(product);
+                media.setUrl("https://cdn.example.com/" + p + "/" + m + ".jpg");
+                media.setPosition(m);
+                product.getMedia().add(media);
+            }
+            List<List<ProductOptionValue>> values = new ArrayList<>();
+            for (Map.Entry<String, List<String>> o : List.of(Map.entry("Size", List.of("S", "M")), Map.entry("Color", List.of("Red", "Blue")))) {
+                ProductOption option = new ProductOption();
+                option.setProduct(product);
+                option.setName(o.getKey());
+                option.setPosition(product.getOptions().size());
+                List<ProductOptionValue> optionValues = new ArrayList<>();
+                for (String v : o.getValue()) {
+                    ProductOptionValue value = new ProductOptionValue();
+                    value.setOption(option);
+                    value.setValue(v);
+                    value.setPosition(option.getValues().size());
+                    option.getValues().add(value);
+                    optionValues.add(value);
+                }
+                product.getOptions().add(option);
+                values.add(optionValues);
+            }
+            for (int size = 0; size < 2; size++) {
+                for (int color = 0; color < 2; color++) {
+                    ProductVariant variant = new ProductVariant();
+                    variant.setProduct(product);
+                    variant.setTitle(values.get(0).get(size).getValue() + " / " + values.get(1).get(color).getValue());
+                    variant.setPriceAmount(new BigDecimal("10.00"));
+                    variant.setPosition(product.getVariants().size());
+                    variant.getOptionValues().add(variantOption(variant, values.get(0).get(size)));
+                    variant.getOptionValues().add(variantOption(variant, values.get(1).get(color)));
+                    variant.getMedia().add(product.getMedia().get(color));
+                    product.getVariants().add(variant);
+                }
+            }
+            entityManager.persist(product);
+            CollectionProduct membership = new CollectionProduct();
+            membership.setCollectionId(collection.getId());
+            membership.setProductId(product.getId());
+            membership.setPosition(p);
+            entityManager.persist(membership);
+            ids.add(product.getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return ids;
+    }
+
+    private List<Product> products(List<Long> ids) {
+        entityManager.clear();
+        List<Product> products = new ArrayList<>();
+        for (Long id : ids) products.add(entityManager.find(Product.class, id));
+        return products;
+    }
+
+    private static Tag tag(String name) {
+        Tag tag = new Tag();
+        tag.setBusinessId(businessId);
+        tag.setName(name);
+        return tag;
+    }
+
+    private static VariantOptionValue variantOption(ProductVariant variant, ProductOptionValue value) {
+        VariantOptionValue variantOption = new VariantOptionValue();
+        variantOption.setVariant(variant);
+        variantOption.setOptionValue(value);
+        return variantOption;
+    }
+}
@@ -0,0 +1,137 @@
+package com.securemarts.domain.inventory.allocation;
+
+import com.securemarts.domain.inventory.allocation.AllocationStrategy.Allocation;
+import com.securemarts.domain.inventory.allocation.AllocationStrategy.Candidate;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Shipments per order and allocation latency of ConsolidatingAllocationStrategy against
+ * AvailableFirstAllocationStrategy, on generated orders from a handful of locations up to past
+ * {@link ConsolidatingAllocationStrategy#MAX_SEARCH_LOCATIONS}, including orders that run the search into
+ * {@link ConsolidatingAllocationStrategy#MAX_SUBSETS}. Not part of the regular test run (the class name does not match
+ * the surefire includes):
+ * <pre>
+ * mvn test -Dtest=AllocationStrategyBenchmark
+ * </pre>
+ * Sizes: {@code -Dbenchmark.orders=2000} (default) per scenario.
+ */
+class AllocationStrategyBenchmark {
+
+    private static final int ORDERS = Integer.getInteger("benchmark.orders", 2_000);
+
+    private final List<AllocationStrategy> strategies = List.of(
+            new ConsolidatingAllocationStrategy(), new AvailableFirstAllocationStrategy());
+
+    @Test
+    void shipmentsAndLatency() {
+        System.out.printf("%-34s %-14s %10s %10s %10s %10s%n", "scenario", "strategy", "shipments", "mean us", "p99 us", "max us");
+        run("8 locations, 3 lines", 8, 3, 0.6);
+        run("24 locations, 5 lines", 24, 5, 0.4);
+        run("24 locations, 10 lines, sparse", 24, 10, 0.15);
+        run("60 locations, 10 lines, sparse", 60, 10, 0.15);
+        run("60 locations, 20 lines, sparse", 60, 20, 0.1);
+        runUncoverable();
+    }
+
+    /** Orders whose lines are each stocked at different locations, stock per location drawn with the given density. */
+    private void run(String scenario, int locations, int lines, double density) {
+        Random random = new Random(42);
+        List<Map<String, Integer>> orders = new ArrayList<>();
+        List<Map<String, List<Candidate>>> candidates = new ArrayList<>();
+        for (int o = 0; o < ORDERS; o++) {
+            double[] distances = new double[locations];
+            for (int l = 0; l < locations; l++) distances[l] = 1 + random.nextDouble() * 500;
+            Map<String, Integer> quantities = new LinkedHashMap<>();
+            Map<String, List<Candidate>> byVariant = new HashMap<>();
+            for (int v = 0; v < lines; v++) {
+                String variant = "v" + v;
+                int quantity = 1 + random.nextInt(4);
+                quantities.put(variant, quantity);
+                List<Candidate> stocked = new ArrayList<>();
+                for (int l = 0; l < locations; l++) {
+                    if (random.nextDouble() < density) {
+                        stocked.add(new Candidate((long) l + 1, 1 + random.nextInt(6), distances[l]));
+                    }
+                }
+                byVariant.put(variant, stocked);
+            }
+            orders.add(quantities);
+            candidates.add(byVariant);
+        }
+        report(scenario, orders, candidates);
+    }
+
+    /**
+     * Every line stocked at a single unit per location and no location holding two lines' worth: no small cover exists
+     * in the nearest {@link ConsolidatingAllocationStrategy#MAX_SEARCH_LOCATIONS}, so the search exhausts its bound
+     * before the greedy cover decides. The worst case for the consolidating strategy's latency.
+     */
+    private void runUncoverable() {
+        int lines = 6;
+        int locations = ConsolidatingAllocationStrategy.MAX_SEARCH_LOCATIONS + 12;
+        List<Map<String, Integer>> orders = new ArrayList<>();
+        List<Map<String, List<Candidate>>> candidates = new ArrayList<>();
+        for (int o = 0; o < Math.max(1, ORDERS / 10); o++) {
+            Map<String, Integer> quantities = new LinkedHashMap<>();
+            Map<String, List<Candidate>> byVariant = new HashMap<>();
+            for (int v = 0; v < lines; v++) {
+                String variant = "v" + v;
+                quantities.put(variant, locations / lines);
+                List<Candidate> stocked = new ArrayList<>();
+                for (int l = v; l < locations; l += lines) stocked.add(new Candidate((long) l + 1, 1, (double) l + 1));
+                byVariant.put(variant, stocked);
+            }
+            orders.add(quantities);
+            candidates.add(byVariant);
+        }
+        report("search bound, no small cover", orders, candidates);
+    }
+
+    private void report(String scenario, List<Map<String, Integer>> orders, List<Map<String, List<Candidate>>> candidates) {
+        for (AllocationStrategy strategy : strategies) {
+            // Warm-up pass, also checking both strategies allocate the same units
+            for (int o = 0; o < orders.size(); o++) {
+                List<Allocation> allocations = strategy.allocate(orders.get(o), candidates.get(o));
+                assertEquals(coverable(orders.get(o), candidates.get(o)), allocated(allocations));
+            }
+            long[] nanos = new long[orders.size()];
+            long shipments = 0;
+            for (int o = 0; o < orders.size(); o++) {
+                long start = System.nanoTime();
+                List<Allocation> allocations = strategy.allocate(orders.get(o), candidates.get(o));
+                nanos[o] = System.nanoTime() - start;
+                shipments += allocations.stream().map(Allocation::getLocationId).distinct().count();
+            }
+            Arrays.sort(nanos);
+            System.out.printf("%-34s %-14s %10.2f %10.1f %10.1f %10.1f%n", scenario, strategy.name(),
+                    (double) shipments / orders.size(), Arrays.stream(nanos).average().orElse(0) / 1e3,
+                    nanos[(int) Math.min(nanos.length - 1, Math.ceil(nanos.length * 0.99) - 1)] / 1e3,
+                    nanos[nanos.length - 1] / 1e3);
+            assertTrue(shipments > 0);
+        }
+    }
+
+    private static int coverable(Map<String, Integer> quantities, Map<String, List<Candidate>> candidates) {
+        int total = 0;
+        for (Map.Entry<String, Integer> line : quantities.entrySet()) {
+            int stocked = candidates.getOrDefault(line.getKey(), List.of()).stream().mapToInt(Candidate::getAvailable).sum();
+            total += Math.min(line.getValue(), stocked);
+        }
+        return total;
+    }
+
+    private static int allocated(List<Allocation> allocations) {
+        return allocations.stream().mapToInt(Allocation::getQuantity).sum();
+    }
+}
@@ -0,0 +1,150 @@
+package com.securemarts.domain.inventory.allocation;
+
+import com.securemarts.domain.inventory.allocation.AllocationStrategy.Allocation;
+import com.securemarts.domain.inventory.allocation.AllocationStrategy.Candidate;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsolidatingAllocationStrategyTest {
+
+    private final ConsolidatingAllocationStrategy strategy = new ConsolidatingAllocationStrategy();
+
+    @Test
+    void oneFarLocationBeatsTwoNearOnes() {
+        Map<String, List<Candidate>> candidates = Map.of(
+                "A", List.of(candidate(1, 5, 1.0), candidate(3, 5, 50.0)),
+                "B", List.of(candidate(2, 5, 2.0), candidate(3, 5, 50.0)));
+
+        List<Allocation> allocations = strategy.allocate(quantities("A", 2, "B", 2), candidates);
+
+        assertEquals(Set.of(3L), locations(allocations));
+        assertEquals(Map.of("A", 2, "B", 2), totals(allocations));
+    }
+
+    @Test
+    void splitTakesTheNearestPairAndTheNearestFirst() {
+        Map<String, List<Candidate>> candidates = Map.of(
+                "A", List.of(candidate(3, 6, 10.0), candidate(1, 6, 1.0), candidate(2, 6, 5.0)));
+
+        List<Allocation> allocations = strategy.allocate(quantities("A", 10), candidates);
+
+        assertEquals(2, allocations.size());
+        assertEquals(1L, allocations.get(0).getLocationId());
+        assertEquals(6, allocations.get(0).getQuantity());
+        assertEquals(2L, allocations.get(1).getLocationId());
+        assertEquals(4, allocations.get(1).getQuantity());
+    }
+
+    @Test
+    void insufficientStockIsAllocatedAsFarAsItGoes() {
+        Map<String, List<Candidate>> candidates = Map.of(
+                "A", List.of(candidate(1, 4, 1.0), candidate(2, 3, 2.0)),
+                "B", List.of());
+
+        List<Allocation> allocations = strategy.allocate(quantities("A", 10, "B", 1), candidates);
+
+        assertEquals(Map.of("A", 7), totals(allocations));
+        assertEquals(Set.of(1L, 2L), locations(allocations));
+    }
+
+    @Test
+    void noCandidatesAllocatesNothing() {
+        assertTrue(strategy.allocate(quantities("A", 1), Map.of()).isEmpty());
+    }
+
+    /**
+     * B is only stocked past the nearest {@link ConsolidatingAllocationStrategy#MAX_SEARCH_LOCATIONS}, so the bounded
+     * search runs into {@link ConsolidatingAllocationStrategy#MAX_SUBSETS} without a cover and the greedy cover decides.
+     */
+    @Test
+    void searchBeyondItsBoundsFallsBackToGreedyCover() {
+        int nearCount = ConsolidatingAllocationStrategy.MAX_SEARCH_LOCATIONS + 6;
+        long far = 1_000;
+        List<Candidate> a = new ArrayList<>();
+        for (int l = 1; l <= nearCount; l++) a.add(candidate(l, 1, (double) l));
+        a.add(candidate(far, nearCount, 1_000.0));
+        Map<String, List<Candidate>> candidates = Map.of(
+                "A", a,
+                "B", List.of(candidate(far, 1, 1_000.0)));
+
+        List<Allocation> allocations = strategy.allocate(quantities("A", nearCount, "B", 1), candidates);
+
+        assertEquals(Set.of(far), locations(allocations));
+        assertEquals(Map.of("A", nearCount, "B", 1), totals(allocations));
+    }
+
+    /** Same consumption as CheckoutService: order items of a variant take its planned allocations in turn. */
+    @Test
+    void itemsOfTheSameVariantConsumeThePlanInOrder() {
+        Map<String, List<Candidate>> candidates = Map.of(
+                "A", List.of(candidate(1, 4, 1.0), candidate(2, 5, 5.0)));
+        List<Allocation> allocations = strategy.allocate(quantities("A", 3 + 4), candidates);
+        Map<String, Deque<Allocation>> planned = new HashMap<>();
+        for (Allocation allocation : allocations) {
+            planned.computeIfAbsent(allocation.getVariantPublicId(), k -> new ArrayDeque<>()).add(allocation);
+        }
+
+        Deque<Allocation> plan = planned.get("A");
+        List<Allocation> first = consume(plan, 3);
+        List<Allocation> second = consume(plan, 4);
+
+        assertEquals(1, first.size());
+        assertEquals(1L, first.get(0).getLocationId());
+        assertEquals(3, first.get(0).getQuantity());
+        assertEquals(2, second.size());
+        assertEquals(1L, second.get(0).getLocationId());
+        assertEquals(1, second.get(0).getQuantity());
+        assertEquals(2L, second.get(1).getLocationId());
+        assertEquals(3, second.get(1).getQuantity());
+        assertTrue(plan.isEmpty());
+    }
+
+    private static List<Allocation> consume(Deque<Allocation> plan, int quantity) {
+        List<Allocation> taken = new ArrayList<>();
+        int remaining = quantity;
+        while (remaining > 0 && !plan.isEmpty()) {
+            Allocation head = plan.pop();
+            int take = Math.min(remaining, head.getQuantity());
+            if (take < head.getQuantity()) {
+                plan.push(new Allocation(head.getVariantPublicId(), head.getLocationId(), head.getQuantity() - take));
+            }
+            taken.add(new Allocation(head.getVariantPublicId(), head.getLocationId(), take));
+            remaining -= take;
+        }
+        assertEquals(0, remaining);
+        return taken;
+    }
+
+    private static Candidate candidate(long locationId, int available, Double distanceKm) {
+        return new Candidate(locationId, available, distanceKm);
+    }
+
+    private static Map<String, Integer> quantities(Object... variantAndQuantity) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (int i = 0; i < variantAndQuantity.length; i += 2) {
+            quantities.put((String) variantAndQuantity[i], (Integer) variantAndQuantity[i + 1]);
+        }
+        return quantities;
+    }
+
+    private static Set<Long> locations(List<Allocation> allocations) {
+        return allocations.stream().map(Allocation::getLocationId).collect(Collectors.toSet());
+    }
+
+    private static Map<String, Integer> totals(List<Allocation> allocations) {
+        return allocations.stream().collect(Collectors.groupingBy(Allocation::getVariantPublicId,
+                Collectors.summingInt(Allocation::getQuantity)));
+    }
+}
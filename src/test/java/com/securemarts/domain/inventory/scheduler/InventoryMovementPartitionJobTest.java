@@ -0,0 +1,77 @@
+package com.securemarts.domain.inventory.scheduler;
+
+import com.securemarts.support.MigratedSchema;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Partition maintenance on the Flyway schema ({@code TEST_DATABASE_URL}): a month whose movements already landed in
+ * the default partition gets its partition, with those movements moved into it.
+ */
+@EnabledIfEnvironmentVariable(named = MigratedSchema.URL_VARIABLE, matches = ".+")
+class InventoryMovementPartitionJobTest {
+
+    private static MigratedSchema schema;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transaction;
+
+    @BeforeAll
+    static void migrate() {
+        schema = MigratedSchema.create("movement_partition_test");
+        jdbcTemplate = schema.jdbcTemplate();
+        transaction = new TransactionTemplate(new DataSourceTransactionManager(schema.dataSource()));
+    }
+
+    @AfterAll
+    static void dropSchema() {
+        if (schema != null) schema.close();
+    }
+
+    @Test
+    void movementsInTheDefaultPartitionAreMovedIntoTheirMonth() {
+        YearMonth month = YearMonth.now(ZoneOffset.UTC).plusMonths(2);
+        String partition = "inventory_movements_p" + month.format(DateTimeFormatter.ofPattern("yyyyMM"));
+        jdbcTemplate.execute("DROP TABLE " + partition);
+        String inMonth = month.atDay(15).atStartOfDay().atOffset(ZoneOffset.UTC).toString();
+        String farAhead = month.plusYears(5).atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC).toString();
+        insertMovement(inMonth, "in-month-1");
+        insertMovement(inMonth, "in-month-2");
+        insertMovement(farAhead, "far-ahead");
+        assertEquals(3, countIn("inventory_movements_default"));
+
+        InventoryMovementPartitionJob job = new InventoryMovementPartitionJob(jdbcTemplate, 3, 0, false);
+        transaction.executeWithoutResult(status -> job.maintainPartitions());
+
+        assertEquals(2, countIn(partition));
+        assertEquals(1, countIn("inventory_movements_default"));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_movements "
+                + "WHERE reference_id IN ('in-month-1', 'in-month-2', 'far-ahead')", Integer.class));
+        // Reattached as the default, with the ledger's append-only trigger
+        insertMovement(month.plusYears(6).atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC).toString(), "after");
+        assertEquals(2, countIn("inventory_movements_default"));
+        assertThrows(DataAccessException.class, () -> jdbcTemplate.update("DELETE FROM inventory_movements_default"));
+    }
+
+    private static void insertMovement(String createdAt, String referenceId) {
+        jdbcTemplate.update("INSERT INTO inventory_movements (public_id, store_id, inventory_item_id, quantity_delta, "
+                + "movement_type, reference_type, reference_id, created_at) VALUES (gen_random_uuid()::text, 1, 1, 1, "
+                + "'ADJUSTMENT', 'TEST', ?, CAST(? AS TIMESTAMPTZ))", referenceId, createdAt);
+    }
+
+    private static int countIn(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
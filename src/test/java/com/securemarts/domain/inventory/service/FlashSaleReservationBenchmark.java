@@ -0,0 +1,181 @@
+package com.securemarts.domain.inventory.service;
+
+import com.securemarts.support.MigratedSchema;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Reservations per second on one hot level: guarded update on the level row (InventoryReservationEngine) against
+ * flash-sale counters (FlashSaleReservations), each reservation a one-line checkout in its own transaction, from
+ * {@code -Dbenchmark.threads=32} threads for {@code -Dbenchmark.seconds=10}. Not part of the regular test run (the
+ * class name does not match the surefire includes):
+ * <pre>
+ * mvn test -Dtest=FlashSaleReservationBenchmark
+ * TEST_DATABASE_URL=jdbc:postgresql://localhost:5432/scratch mvn test -Dtest=FlashSaleReservationBenchmark
+ * </pre>
+ * With a database both paths run on a migrated schema ({@link MigratedSchema}), so the ledger partitions and the
+ * low-stock triggers are part of every reservation. Without one only the in-memory ceiling of the counter path runs,
+ * with the allotment store stubbed out.
+ */
+class FlashSaleReservationBenchmark {
+
+    private static final long STORE = 1;
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 32);
+    private static final long SECONDS = Long.getLong("benchmark.seconds", 10);
+
+    @Test
+    void countersInMemory() throws Exception {
+        System.out.printf("%-34s %14s %10s %10s %10s%n", "path", "reservations/s", "failed", "mean us", "p99 us");
+        for (int stripes : new int[]{1, 8}) {
+            FlashSaleAllotmentStore store = new FlashSaleAllotmentStore(null, null, null, null) {
+                @Override
+                public Refill refill(String instanceId, Long storeId, String variantPublicId, String locationPublicId, int block, Long heldLevelId) {
+                    return new Refill(1, 1, block);
+                }
+
+                @Override
+                public Set<Long> recordGrants(String instanceId, Long storeId, List<Grant> grants, String referenceType, String referenceId) {
+                    return Set.of(1L);
+                }
+            };
+            // Refills are instant here; a long refill wait keeps a descheduled refilling thread from failing the others
+            FlashSaleReservations reservations = new FlashSaleReservations(store, 50, stripes, 10_000);
+            List<InventoryReservationEngine.LevelLine> line = List.of(new InventoryReservationEngine.LevelLine("hot-variant", "hot-location", 1));
+
+            Result result = run(() -> reservations.reserve(STORE, line, "ORDER", "order-1"));
+            result.print("counters in memory, " + stripes + " stripe(s)");
+            assertEquals(0, result.failed);
+        }
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = MigratedSchema.URL_VARIABLE, matches = ".+")
+    void guardedUpdateVersusFlashSale() throws Exception {
+        MigratedSchema schema = MigratedSchema.create("flash_sale_benchmark");
+        try (HikariDataSource dataSource = schema.pool(THREADS + 4)) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            // Stock the run cannot exhaust: one level for the guarded update, one flagged for flash sale
+            MigratedSchema.StockedLevel guardedLevel = schema.insertStockedLevel("guarded", Integer.MAX_VALUE / 2);
+            MigratedSchema.StockedLevel flashLevel = schema.insertStockedLevel("flash", Integer.MAX_VALUE / 2);
+            jdbcTemplate.update("UPDATE inventory_items SET flash_sale = TRUE WHERE id = ?", flashLevel.itemId);
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+            TransactionTemplate checkout = new TransactionTemplate(transactionManager);
+            InventoryMovementWriter movementWriter = new InventoryMovementWriter(jdbcTemplate);
+
+            InventoryReservationEngine engine = new InventoryReservationEngine(jdbcTemplate, movementWriter);
+            ReflectionTestUtils.setField(engine, "entityManager", mock(EntityManager.class));
+            List<InventoryReservationEngine.LevelLine> guardedLine = List.of(
+                    new InventoryReservationEngine.LevelLine(guardedLevel.variantPublicId, guardedLevel.locationPublicId, 1));
+            Result guarded = run(() -> checkout.executeWithoutResult(status ->
+                    engine.applyAtLevels(InventoryReservationEngine.Operation.RESERVE, guardedLevel.storeId, guardedLine, "ORDER", UUID.randomUUID().toString())));
+
+            FlashSaleReservations flash = new FlashSaleReservations(
+                    new FlashSaleAllotmentStore(jdbcTemplate, new NamedParameterJdbcTemplate(jdbcTemplate), movementWriter, transactionManager),
+                    50, 8, 500);
+            List<InventoryReservationEngine.LevelLine> flashLine = List.of(
+                    new InventoryReservationEngine.LevelLine(flashLevel.variantPublicId, flashLevel.locationPublicId, 1));
+            Result counters = run(() -> checkout.executeWithoutResult(status ->
+                    flash.reserve(flashLevel.storeId, flashLine, "ORDER", UUID.randomUUID().toString())));
+
+            System.out.printf("%-34s %14s %10s %10s %10s%n", "path", "reservations/s", "failed", "mean us", "p99 us");
+            guarded.print("guarded update");
+            counters.print("flash-sale counters");
+            assertEquals(guarded.warmUp + guarded.succeeded, (long) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_movements "
+                    + "WHERE inventory_level_id = ? AND reference_type = 'ORDER'", Long.class, guardedLevel.id));
+            assertEquals(counters.warmUp + counters.succeeded, (long) jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(SUM(quantity), 0) FROM inventory_flash_grants", Long.class));
+        } finally {
+            schema.close();
+        }
+    }
+
+    /** Runs the reservation from every thread for the configured time, after a warm-up of a fifth of it. */
+    private static Result run(Runnable reservation) throws Exception {
+        long warmUp = measure(reservation, TimeUnit.SECONDS.toNanos(SECONDS) / 5).succeeded;
+        Result result = measure(reservation, TimeUnit.SECONDS.toNanos(SECONDS));
+        result.warmUp = warmUp;
+        return result;
+    }
+
+    private static Result measure(Runnable reservation, long durationNanos) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Result>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    Result result = new Result();
+                    start.await();
+                    long end = System.nanoTime() + durationNanos;
+                    long now;
+                    while ((now = System.nanoTime()) < end) {
+                        try {
+                            reservation.run();
+                            result.record(System.nanoTime() - now);
+                        } catch (RuntimeException e) {
+                            result.failed++;
+                        }
+                    }
+                    return result;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            Result total = new Result();
+            for (Future<Result> future : futures) total.merge(future.get(durationNanos / 1_000_000 + 60_000, TimeUnit.MILLISECONDS));
+            total.elapsedNanos = System.nanoTime() - begin;
+            assertTrue(total.succeeded > 0);
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** Successful reservations with their latencies, and failed ones; warm-up successes are only counted. */
+    private static class Result {
+        private long[] latencies = new long[1 << 12];
+        private long warmUp;
+        private long succeeded;
+        private long failed;
+        private long elapsedNanos;
+
+        void record(long nanos) {
+            if (succeeded == latencies.length) latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            latencies[(int) succeeded++] = nanos;
+        }
+
+        void merge(Result other) {
+            for (int i = 0; i < other.succeeded; i++) record(other.latencies[i]);
+            failed += other.failed;
+        }
+
+        void print(String path) {
+            long[] sorted = Arrays.copyOf(latencies, (int) succeeded);
+            Arrays.sort(sorted);
+            System.out.printf("%-34s %,14.0f %,10d %10.1f %10.1f%n", path, succeeded / (elapsedNanos / 1e9), failed,
+                    Arrays.stream(sorted).average().orElse(0) / 1e3, sorted[(int) Math.ceil(sorted.length * 0.99) - 1] / 1e3);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.securemarts.domain.inventory.service;
+
+import com.securemarts.common.exception.BusinessRuleException;
+import com.securemarts.support.MigratedSchema;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Flash-sale reservations with the real allotment store on the Flyway schema ({@code TEST_DATABASE_URL}): concurrent
+ * checkouts on two instances never grant more than the level had, a rolled-back checkout puts its units back, and an
+ * allotment recovered from an instance that stopped heart-beating goes back to the level and is not granted from again.
+ */
+@EnabledIfEnvironmentVariable(named = MigratedSchema.URL_VARIABLE, matches = ".+")
+class FlashSaleReservationsTest {
+
+    private static MigratedSchema schema;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate checkout;
+    private static FlashSaleAllotmentStore allotments;
+
+    @BeforeAll
+    static void migrate() {
+        schema = MigratedSchema.create("flash_sale_test");
+        jdbcTemplate = schema.jdbcTemplate();
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(schema.dataSource());
+        checkout = new TransactionTemplate(transactionManager);
+        allotments = new FlashSaleAllotmentStore(jdbcTemplate, new NamedParameterJdbcTemplate(jdbcTemplate),
+                new InventoryMovementWriter(jdbcTemplate), transactionManager);
+    }
+
+    @AfterAll
+    static void dropSchema() {
+        if (schema != null) schema.close();
+    }
+
+    @Test
+    void concurrentCheckoutsNeverGrantMoreThanWasAvailable() throws Exception {
+        MigratedSchema.StockedLevel level = schema.insertStockedLevel("concurrent", 100);
+        List<FlashSaleReservations> instances = List.of(new FlashSaleReservations(allotments, 7, 4, 2000),
+                new FlashSaleReservations(allotments, 7, 4, 2000));
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<Integer>> threads = new ArrayList<>();
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            for (int t = 0; t < 16; t++) {
+                FlashSaleReservations instance = instances.get(t % 2);
+                int thread = t;
+                threads.add(pool.submit(() -> {
+                    start.await();
+                    int committed = 0;
+                    for (int i = 0; i < 20; i++) {
+                        int quantity = 1 + (thread + i) % 3;
+                        boolean rollBack = i % 4 == 3;
+                        try {
+                            checkout.executeWithoutResult(status -> {
+                                reserve(instance, level, quantity, UUID.randomUUID().toString());
+                                if (rollBack) status.setRollbackOnly();
+                            });
+                            if (!rollBack) committed += quantity;
+                        } catch (BusinessRuleException e) {
+                            // Sold out or busy refilling
+                        }
+                    }
+                    return committed;
+                }));
+            }
+            start.countDown();
+        } finally {
+            pool.shutdown();
+        }
+        int committed = 0;
+        for (Future<Integer> thread : threads) committed += thread.get();
+
+        assertTrue(committed > 0 && committed <= 100, "committed " + committed);
+        assertEquals(committed, jdbcTemplate.queryForObject("SELECT COALESCE(SUM(quantity), 0) FROM inventory_flash_grants "
+                + "WHERE inventory_level_id = ?", Integer.class, level.id));
+
+        while (!allotments.flushPending(500).isEmpty()) {
+            // drain the write-behind queue
+        }
+        for (FlashSaleReservations instance : instances) instance.returnAll();
+        assertArrayEquals(new int[]{100 - committed, committed}, schema.quantities(level.id));
+        assertEquals(0, allotmentRows(level));
+    }
+
+    @Test
+    void rolledBackCheckoutPutsItsUnitsBack() {
+        MigratedSchema.StockedLevel level = schema.insertStockedLevel("rolled-back", 20);
+        FlashSaleReservations instance = new FlashSaleReservations(allotments, 10, 4, 500);
+
+        checkout.executeWithoutResult(status -> {
+            reserve(instance, level, 4, "order-rolled-back");
+            status.setRollbackOnly();
+        });
+        assertEquals(10, instance.heldAt(level.storeId, level.variantPublicId, level.locationPublicId));
+        assertEquals(0, grantRows(level));
+
+        checkout.executeWithoutResult(status -> reserve(instance, level, 4, "order-committed"));
+        assertEquals(6, instance.heldAt(level.storeId, level.variantPublicId, level.locationPublicId));
+        assertEquals(1, grantRows(level));
+        assertArrayEquals(new int[]{10, 10}, schema.quantities(level.id));
+    }
+
+    @Test
+    void expiredAllotmentGoesBackOnceItsGrantsAreFlushed() {
+        MigratedSchema.StockedLevel level = schema.insertStockedLevel("recover", 20);
+        FlashSaleReservations instance = new FlashSaleReservations(allotments, 10, 4, 500);
+        checkout.executeWithoutResult(status -> reserve(instance, level, 3, "order-1"));
+        expireLease(level);
+
+        // Pending grants keep the allotment until they reach the ledger
+        assertEquals(0, allotments.recoverExpired(60));
+        allotments.flushPending(100);
+        assertEquals(1, allotments.recoverExpired(60));
+
+        assertArrayEquals(new int[]{17, 3}, schema.quantities(level.id));
+        assertEquals(0, allotmentRows(level));
+        assertEquals(0, allotments.recoverExpired(60));
+    }
+
+    @Test
+    void grantsFromARecoveredAllotmentAreRefused() {
+        MigratedSchema.StockedLevel level = schema.insertStockedLevel("rebalanced", 20);
+        FlashSaleReservations instance = new FlashSaleReservations(allotments, 10, 4, 500);
+        checkout.executeWithoutResult(status -> reserve(instance, level, 1, "order-1"));
+        allotments.flushPending(100);
+        // The instance looked dead for a while: its allotment went back to the level, its counter still holds 9
+        expireLease(level);
+        assertEquals(1, allotments.recoverExpired(60));
+        assertEquals(9, instance.heldAt(level.storeId, level.variantPublicId, level.locationPublicId));
+
+        assertThrows(BusinessRuleException.class,
+                () -> checkout.executeWithoutResult(status -> reserve(instance, level, 2, "order-2")));
+        assertEquals(0, instance.heldAt(level.storeId, level.variantPublicId, level.locationPublicId));
+        assertEquals(0, grantRows(level));
+        assertArrayEquals(new int[]{19, 1}, schema.quantities(level.id));
+
+        // The next checkout starts a fresh allotment
+        checkout.executeWithoutResult(status -> reserve(instance, level, 2, "order-3"));
+        assertEquals(1, grantRows(level));
+        assertArrayEquals(new int[]{9, 11}, schema.quantities(level.id));
+    }
+
+    private static void reserve(FlashSaleReservations instance, MigratedSchema.StockedLevel level, int quantity, String orderId) {
+        instance.reserve(level.storeId, List.of(new InventoryReservationEngine.LevelLine(level.variantPublicId, level.locationPublicId, quantity)),
+                "ORDER", orderId);
+    }
+
+    private static void expireLease(MigratedSchema.StockedLevel level) {
+        jdbcTemplate.update("UPDATE inventory_flash_allotments SET heartbeat_at = NOW() - INTERVAL '1 hour' WHERE inventory_level_id = ?", level.id);
+    }
+
+    private static int allotmentRows(MigratedSchema.StockedLevel level) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_flash_allotments WHERE inventory_level_id = ?", Integer.class, level.id);
+    }
+
+    private static int grantRows(MigratedSchema.StockedLevel level) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_flash_grants WHERE inventory_level_id = ?", Integer.class, level.id);
+    }
+}
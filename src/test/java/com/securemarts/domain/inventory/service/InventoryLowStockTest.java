@@ -0,0 +1,130 @@
+package com.securemarts.domain.inventory.service;
+
+import com.securemarts.support.MigratedSchema;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Low-stock state and alerts kept by the inventory_levels / inventory_flash_allotments triggers, on the Flyway schema
+ * ({@code TEST_DATABASE_URL}): moving stock into and out of a flash-sale allotment is not a crossing, a flushed sale
+ * is, a level written several times in one transaction alerts on where it ends up, and one transaction can write
+ * more levels than the lock table holds locks.
+ */
+@EnabledIfEnvironmentVariable(named = MigratedSchema.URL_VARIABLE, matches = ".+")
+class InventoryLowStockTest {
+
+    private static final String INSTANCE = "instance-a";
+
+    private static MigratedSchema schema;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transaction;
+    private static FlashSaleAllotmentStore allotments;
+
+    @BeforeAll
+    static void migrate() {
+        schema = MigratedSchema.create("inventory_low_stock_test");
+        jdbcTemplate = schema.jdbcTemplate();
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(schema.dataSource());
+        transaction = new TransactionTemplate(transactionManager);
+        allotments = new FlashSaleAllotmentStore(jdbcTemplate, new NamedParameterJdbcTemplate(jdbcTemplate),
+                new InventoryMovementWriter(jdbcTemplate), transactionManager);
+    }
+
+    @AfterAll
+    static void dropSchema() {
+        if (schema != null) schema.close();
+    }
+
+    @Test
+    void allotmentTransfersAreNotCrossings() {
+        MigratedSchema.StockedLevel level = levelWithThreshold("transfers", 20, 5);
+
+        FlashSaleAllotmentStore.Refill refill = allotments.refill(INSTANCE, level.storeId, level.variantPublicId, level.locationPublicId, 18, null);
+        assertEquals(18, refill.getTaken());
+        assertEquals(2, schema.quantities(level.id)[0]);
+        allotments.returnToLevel(INSTANCE, level.id, 18);
+
+        assertEquals(20, schema.quantities(level.id)[0]);
+        assertEquals(List.of(), alerts(level));
+        assertEquals(0, lowStockRows(level));
+    }
+
+    @Test
+    void flushedSalesCrossTheThreshold() {
+        MigratedSchema.StockedLevel level = levelWithThreshold("flushed", 10, 5);
+        allotments.refill(INSTANCE, level.storeId, level.variantPublicId, level.locationPublicId, 10, null);
+        assertEquals(List.of(), alerts(level));
+
+        allotments.recordGrants(INSTANCE, level.storeId, List.of(new FlashSaleAllotmentStore.Grant(level.id, level.itemId, 6)),
+                "ORDER", "order-1");
+        allotments.flushPending(100);
+
+        assertEquals(List.of("LOW_STOCK 4"), alerts(level));
+        assertEquals(1, lowStockRows(level));
+    }
+
+    @Test
+    void oneTransactionAlertsOnWhereTheLevelEndsUp() {
+        MigratedSchema.StockedLevel level = levelWithThreshold("one-transaction", 10, 5);
+
+        transaction.executeWithoutResult(status -> {
+            setAvailable(level, 3);
+            setAvailable(level, 8);
+            setAvailable(level, 2);
+        });
+        transaction.executeWithoutResult(status -> {
+            setAvailable(level, 1);
+            setAvailable(level, 4);
+        });
+        setAvailable(level, 12);
+
+        assertEquals(List.of("LOW_STOCK 2", "RESTOCKED 12"), alerts(level));
+        assertEquals(0, lowStockRows(level));
+    }
+
+    @Test
+    void oneTransactionCanWriteThousandsOfLevels() {
+        MigratedSchema.StockedLevel level = schema.insertStockedLevel("thousands", 10);
+        jdbcTemplate.update("INSERT INTO locations (public_id, store_id, name) "
+                + "SELECT gen_random_uuid()::text, ?, 'Shelf ' || n FROM generate_series(1, 20000) n", level.storeId);
+        jdbcTemplate.update("INSERT INTO inventory_levels (public_id, inventory_item_id, location_id, quantity_available, reorder_threshold) "
+                + "SELECT gen_random_uuid()::text, ?, l.id, 10, 5 FROM locations l WHERE l.store_id = ? AND l.id <> ?",
+                level.itemId, level.storeId, level.locationId);
+
+        int updated = jdbcTemplate.update("UPDATE inventory_levels SET quantity_available = 2 WHERE inventory_item_id = ? AND id <> ?",
+                level.itemId, level.id);
+
+        assertEquals(20000, updated);
+        assertEquals(20000, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_stock_alerts WHERE store_id = ? "
+                + "AND alert_type = 'LOW_STOCK'", Integer.class, level.storeId));
+    }
+
+    private static MigratedSchema.StockedLevel levelWithThreshold(String slug, int available, int threshold) {
+        MigratedSchema.StockedLevel level = schema.insertStockedLevel(slug, available);
+        jdbcTemplate.update("UPDATE inventory_levels SET reorder_threshold = ? WHERE id = ?", threshold, level.id);
+        return level;
+    }
+
+    private static void setAvailable(MigratedSchema.StockedLevel level, int available) {
+        jdbcTemplate.update("UPDATE inventory_levels SET quantity_available = ? WHERE id = ?", available, level.id);
+    }
+
+    private static List<String> alerts(MigratedSchema.StockedLevel level) {
+        return jdbcTemplate.queryForList("SELECT alert_type || ' ' || quantity_available FROM inventory_stock_alerts "
+                + "WHERE inventory_level_id = ? ORDER BY id", String.class, level.id);
+    }
+
+    private static int lowStockRows(MigratedSchema.StockedLevel level) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_low_stock WHERE inventory_level_id = ?", Integer.class, level.id);
+    }
+}
@@ -0,0 +1,110 @@
+package com.securemarts.domain.inventory.service;
+
+import com.securemarts.support.MigratedSchema;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Settling a reservation on the Flyway schema ({@code TEST_DATABASE_URL}): a reference is settled once however often
+ * and however concurrently it is released or sold, and never takes units other references still hold. Each engine
+ * call commits on its own, as in the application.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({InventoryReservationEngine.class, InventoryMovementWriter.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfEnvironmentVariable(named = MigratedSchema.URL_VARIABLE, matches = ".+")
+class InventoryReservationEngineTest {
+
+    private static MigratedSchema schema;
+
+    @Autowired
+    private InventoryReservationEngine engine;
+
+    @DynamicPropertySource
+    static void migratedSchema(DynamicPropertyRegistry registry) {
+        schema = MigratedSchema.create("reservation_engine_test");
+        schema.register(registry);
+    }
+
+    @AfterAll
+    static void dropSchema() {
+        if (schema != null) schema.close();
+    }
+
+    @Test
+    void settlingAgainLeavesOtherReservationsAlone() {
+        MigratedSchema.StockedLevel level = schema.insertStockedLevel("settle-again", 10);
+        reserve(level, "order-a", 2);
+        reserve(level, "order-b", 3);
+
+        engine.settleReservation(level.storeId, "ORDER", "order-a", true);
+        engine.settleReservation(level.storeId, "ORDER", "order-a", true);
+        engine.settleReservation(level.storeId, "ORDER", "order-a", false);
+        assertArrayEquals(new int[]{5, 3}, schema.quantities(level.id));
+
+        engine.settleReservation(level.storeId, "ORDER", "order-b", false);
+        engine.settleReservation(level.storeId, "ORDER", "order-b", true);
+        assertArrayEquals(new int[]{8, 0}, schema.quantities(level.id));
+        assertEquals(1, movements(level, "order-a"));
+        assertEquals(1, movements(level, "order-b"));
+    }
+
+    @Test
+    void concurrentSettlesOfOneReferenceSettleOnce() throws Exception {
+        MigratedSchema.StockedLevel level = schema.insertStockedLevel("settle-concurrently", 10);
+        reserve(level, "order-a", 4);
+        reserve(level, "order-b", 3);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> settles = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                boolean toSale = i % 2 == 0;
+                settles.add(pool.submit(() -> {
+                    start.await();
+                    return engine.settleReservation(level.storeId, "ORDER", "order-a", toSale);
+                }));
+            }
+            start.countDown();
+            for (Future<?> settle : settles) settle.get();
+        } finally {
+            pool.shutdown();
+        }
+
+        int[] quantities = schema.quantities(level.id);
+        assertEquals(3, quantities[1]);
+        assertEquals(1, movements(level, "order-a"));
+    }
+
+    private void reserve(MigratedSchema.StockedLevel level, String orderId, int quantity) {
+        engine.applyAtLevels(InventoryReservationEngine.Operation.RESERVE, level.storeId,
+                List.of(new InventoryReservationEngine.LevelLine(level.variantPublicId, level.locationPublicId, quantity)), "ORDER", orderId);
+    }
+
+    /** RELEASE and SALE movements written for the reference. */
+    private static int movements(MigratedSchema.StockedLevel level, String orderId) {
+        return schema.jdbcTemplate().queryForObject("SELECT COUNT(*) FROM inventory_movements WHERE inventory_level_id = ? "
+                + "AND reference_id = ? AND movement_type IN ('RELEASE', 'SALE')", Integer.class, level.id, orderId);
+    }
+}
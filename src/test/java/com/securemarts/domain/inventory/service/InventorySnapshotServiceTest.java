@@ -0,0 +1,91 @@
+package com.securemarts.domain.inventory.service;
+
+import com.securemarts.domain.inventory.dto.InventoryValuationResponse;
+import com.securemarts.support.MigratedSchema;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Point-in-time stock from a snapshot plus the ledger, on the Flyway schema ({@code TEST_DATABASE_URL}): absolute
+ * counts are replayed whatever movement type the request named, and moves between available and reserved are not.
+ */
+@EnabledIfEnvironmentVariable(named = MigratedSchema.URL_VARIABLE, matches = ".+")
+class InventorySnapshotServiceTest {
+
+    private static MigratedSchema schema;
+    private static JdbcTemplate jdbcTemplate;
+    private static InventorySnapshotService snapshots;
+    private static InventoryAdjustmentWriter adjustments;
+    private static InventoryMovementWriter movements;
+
+    @BeforeAll
+    static void migrate() {
+        schema = MigratedSchema.create("inventory_snapshot_test");
+        jdbcTemplate = schema.jdbcTemplate();
+        snapshots = new InventorySnapshotService(jdbcTemplate, new NamedParameterJdbcTemplate(jdbcTemplate), 600);
+        movements = new InventoryMovementWriter(jdbcTemplate);
+        adjustments = new InventoryAdjustmentWriter(jdbcTemplate, movements);
+    }
+
+    @AfterAll
+    static void dropSchema() {
+        if (schema != null) schema.close();
+    }
+
+    @Test
+    void absoluteCountIsReplayedAsAnAdjustment() {
+        MigratedSchema.StockedLevel level = schema.insertStockedLevel("count", 10);
+        assertTrue(snapshots.takeSnapshot(level.storeId, LocalDate.now()));
+
+        // A stock-take count sent with a type that used to be skipped by the replay
+        adjustments.applyChunk(level.storeId, List.of(new InventoryAdjustmentWriter.Line(0, level.publicId, null, null, null, 4)),
+                "RELEASE", "STOCK_TAKE", "count-1");
+
+        assertEquals("ADJUSTMENT", jdbcTemplate.queryForObject(
+                "SELECT movement_type FROM inventory_movements WHERE inventory_level_id = ? AND reference_id = 'count-1'",
+                String.class, level.id));
+        assertEquals(4, onHand(level.storeId, Instant.now()));
+    }
+
+    @Test
+    void deltaKeepsTheRequestedTypeAndIsReplayed() {
+        MigratedSchema.StockedLevel level = schema.insertStockedLevel("delta", 10);
+        assertTrue(snapshots.takeSnapshot(level.storeId, LocalDate.now()));
+
+        adjustments.applyChunk(level.storeId, List.of(new InventoryAdjustmentWriter.Line(0, level.publicId, null, null, 5, null)),
+                "RESTOCK", "PURCHASE_ORDER", "po-1");
+
+        assertEquals("RESTOCK", jdbcTemplate.queryForObject(
+                "SELECT movement_type FROM inventory_movements WHERE inventory_level_id = ? AND reference_id = 'po-1'",
+                String.class, level.id));
+        assertEquals(15, onHand(level.storeId, Instant.now()));
+    }
+
+    @Test
+    void reservationsDoNotChangeStockOnHand() {
+        MigratedSchema.StockedLevel level = schema.insertStockedLevel("reserve", 10);
+        assertTrue(snapshots.takeSnapshot(level.storeId, LocalDate.now()));
+
+        jdbcTemplate.update("UPDATE inventory_levels SET quantity_available = 7, quantity_reserved = 3 WHERE id = ?", level.id);
+        movements.append(List.of(new InventoryMovementWriter.Movement(level.storeId, level.itemId, level.id, -3,
+                "RESERVE", "ORDER", "order-1")));
+
+        assertEquals(10, onHand(level.storeId, Instant.now()));
+    }
+
+    private static int onHand(long storeId, Instant asOf) {
+        InventoryValuationResponse valuation = snapshots.stockAt(storeId, asOf, null);
+        return (int) valuation.getTotalQuantity();
+    }
+}
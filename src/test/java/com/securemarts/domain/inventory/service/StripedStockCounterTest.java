@@ -0,0 +1,146 @@
+package com.securemarts.domain.inventory.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedStockCounterTest {
+
+    private static final int THREADS = 16;
+
+    @Test
+    void concurrentTakesNeverGrantMoreThanHeld() throws Exception {
+        StripedStockCounter counter = new StripedStockCounter(8);
+        counter.add(1_000);
+        AtomicInteger granted = new AtomicInteger();
+
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 2_000; i++) {
+                int quantity = 1 + random.nextInt(5);
+                if (counter.tryTake(quantity)) granted.addAndGet(quantity);
+            }
+        });
+
+        assertTrue(granted.get() <= 1_000);
+        assertEquals(1_000, granted.get() + counter.total());
+        assertTrue(counter.total() >= 0);
+        assertEquals(counter.total(), counter.drain());
+        assertEquals(0, counter.total());
+        assertFalse(counter.tryTake(1));
+    }
+
+    @Test
+    void singleUnitTakesGrantExactlyTheHeldUnits() throws Exception {
+        StripedStockCounter counter = new StripedStockCounter(8);
+        counter.add(500);
+        AtomicInteger successes = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (int i = 0; i < 100; i++) {
+                if (counter.tryTake(1)) successes.incrementAndGet();
+            }
+        });
+
+        assertEquals(500, successes.get());
+        assertEquals(0, counter.total());
+    }
+
+    @Test
+    void takeBorrowsFromOtherStripes() {
+        StripedStockCounter counter = new StripedStockCounter(4);
+        counter.add(4);
+
+        // One unit per stripe: whichever stripe the take starts at, it needs all four
+        assertTrue(counter.tryTake(4));
+        assertEquals(0, counter.total());
+    }
+
+    @Test
+    void failedTakePutsBorrowedUnitsBack() {
+        StripedStockCounter counter = new StripedStockCounter(4);
+        counter.add(3);
+
+        assertFalse(counter.tryTake(4));
+        assertEquals(3, counter.total());
+        assertTrue(counter.tryTake(3));
+        assertEquals(0, counter.total());
+    }
+
+    @Test
+    void everyAddedUnitCanBeTakenAndNonPositiveAddsAreIgnored() {
+        StripedStockCounter counter = new StripedStockCounter(4);
+        counter.add(10);
+
+        for (int i = 0; i < 10; i++) assertTrue(counter.tryTake(1));
+        assertFalse(counter.tryTake(1));
+        counter.add(0);
+        counter.add(-3);
+        assertEquals(0, counter.total());
+    }
+
+    /**
+     * What FlashSaleReservations relies on: units allotted from the level are always either still in memory or
+     * granted and not yet flushed, under concurrent grants, rolled-back checkouts and refills.
+     */
+    @Test
+    void allottedStockIsHeldOrGranted() throws Exception {
+        StripedStockCounter counter = new StripedStockCounter(8);
+        AtomicInteger allotted = new AtomicInteger();
+        AtomicInteger unflushedGrants = new AtomicInteger();
+        counter.add(200);
+        allotted.addAndGet(200);
+
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 2_000; i++) {
+                int quantity = 1 + random.nextInt(4);
+                if (counter.tryTake(quantity)) {
+                    unflushedGrants.addAndGet(quantity);
+                    if (random.nextInt(4) == 0) {
+                        // Checkout rolled back: the grant is not recorded and its units go back to the counter
+                        unflushedGrants.addAndGet(-quantity);
+                        counter.add(quantity);
+                    }
+                } else if (random.nextInt(8) == 0) {
+                    // Refill from the level: the allotment grows before the units reach the counter
+                    allotted.addAndGet(50);
+                    counter.add(50);
+                }
+            }
+        });
+
+        assertEquals(allotted.get(), counter.total() + unflushedGrants.get());
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) future.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.securemarts.support;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import javax.sql.DataSource;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * A schema of its own on the Postgres named by {@code TEST_DATABASE_URL} ({@code TEST_DATABASE_USERNAME},
+ * {@code TEST_DATABASE_PASSWORD}), with the application's Flyway migrations applied, so database tests run against
+ * the real tables, indexes and triggers. Point the variables at a scratch database. Extensions the migrations need are
+ * installed in {@code public} first and the search path is {@code <schema>, public}, so {@link #close()} can drop the
+ * schema with everything in it while other test schemas keep using the extensions.
+ */
+public final class MigratedSchema implements AutoCloseable {
+
+    public static final String URL_VARIABLE = "TEST_DATABASE_URL";
+
+    private final String name;
+    private final DriverManagerDataSource dataSource;
+
+    private MigratedSchema(String name) {
+        this.name = name;
+        this.dataSource = dataSource(name);
+    }
+
+    /** Creates {@code prefix_<nanos>} and migrates it. */
+    public static MigratedSchema create(String prefix) {
+        MigratedSchema schema = new MigratedSchema(prefix + "_" + System.nanoTime());
+        new JdbcTemplate(dataSource(null)).execute("CREATE EXTENSION IF NOT EXISTS pg_trgm SCHEMA public");
+        Flyway.configure()
+                .dataSource(url(), username(), password())
+                .schemas(schema.name)
+                .createSchemas(true)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+        return schema;
+    }
+
+    /** A schema already created and migrated by {@link #create}, e.g. in the process that forked this one. */
+    public static MigratedSchema existing(String name) {
+        return new MigratedSchema(name);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /** Connections with the search path set to this schema, then public. */
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    public JdbcTemplate jdbcTemplate() {
+        return new JdbcTemplate(dataSource);
+    }
+
+    /** A connection pool on this schema, for measurements that should not open a connection per statement. */
+    public HikariDataSource pool(int size) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl(url());
+        pool.setUsername(username());
+        pool.setPassword(password());
+        pool.setMaximumPoolSize(size);
+        pool.addDataSourceProperty("currentSchema", name + ",public");
+        return pool;
+    }
+
+    /** Points a Spring test context at this schema, already migrated, and has Hibernate validate the entities against it. */
+    public void register(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MigratedSchema::url);
+        registry.add("spring.datasource.username", MigratedSchema::username);
+        registry.add("spring.datasource.password", MigratedSchema::password);
+        registry.add("spring.datasource.hikari.data-source-properties.currentSchema", () -> name + ",public");
+        registry.add("spring.jpa.properties.hibernate.default_schema", () -> name);
+        registry.add("spring.flyway.enabled", () -> "false");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+
+    /** Inserts a business and an active store and returns the store id. */
+    public long insertStore(String slug) {
+        JdbcTemplate jdbcTemplate = jdbcTemplate();
+        Long businessId = jdbcTemplate.queryForObject("INSERT INTO businesses (public_id, legal_name) "
+                + "VALUES (gen_random_uuid()::text, ?) RETURNING id", Long.class, slug);
+        return jdbcTemplate.queryForObject("INSERT INTO stores (public_id, business_id, name, domain_slug, active) "
+                + "VALUES (gen_random_uuid()::text, ?, ?, ?, TRUE) RETURNING id", Long.class, businessId, slug, slug);
+    }
+
+    /**
+     * Inserts a store with one location and one product whose single variant has {@code available} units there. The
+     * opening stock is recorded as an ADJUSTMENT movement, as the application's writers do.
+     */
+    public StockedLevel insertStockedLevel(String slug, int available) {
+        JdbcTemplate jdbcTemplate = jdbcTemplate();
+        StockedLevel level = new StockedLevel();
+        level.storeId = insertStore(slug);
+        level.locationPublicId = UUID.randomUUID().toString();
+        level.locationId = jdbcTemplate.queryForObject("INSERT INTO locations (public_id, store_id, name) VALUES (?, ?, 'Main') "
+                + "RETURNING id", Long.class, level.locationPublicId, level.storeId);
+        level.productId = jdbcTemplate.queryForObject("INSERT INTO products (public_id, store_id, title, status) "
+                + "VALUES (gen_random_uuid()::text, ?, ?, 'ACTIVE') RETURNING id", Long.class, level.storeId, slug);
+        level.variantPublicId = UUID.randomUUID().toString();
+        level.variantId = jdbcTemplate.queryForObject("INSERT INTO product_variants (public_id, product_id, sku, price_amount) "
+                + "VALUES (?, ?, ?, 10) RETURNING id", Long.class, level.variantPublicId, level.productId, slug);
+        level.itemId = jdbcTemplate.queryForObject("INSERT INTO inventory_items (public_id, store_id, product_variant_id, cost_amount) "
+                + "VALUES (gen_random_uuid()::text, ?, ?, 2.50) RETURNING id", Long.class, level.storeId, level.variantId);
+        level.publicId = UUID.randomUUID().toString();
+        level.id = jdbcTemplate.queryForObject("INSERT INTO inventory_levels (public_id, inventory_item_id, location_id, "
+                + "quantity_available) VALUES (?, ?, ?, ?) RETURNING id", Long.class, level.publicId, level.itemId, level.locationId, available);
+        jdbcTemplate.update("INSERT INTO inventory_movements (public_id, store_id, inventory_item_id, inventory_level_id, "
+                + "quantity_delta, movement_type) VALUES (gen_random_uuid()::text, ?, ?, ?, ?, 'ADJUSTMENT')",
+                level.storeId, level.itemId, level.id, available);
+        return level;
+    }
+
+    /** Quantities of a level: {available, reserved}. */
+    public int[] quantities(long levelId) {
+        return jdbcTemplate().queryForObject("SELECT quantity_available, quantity_reserved FROM inventory_levels WHERE id = ?",
+                (rs, i) -> new int[]{rs.getInt(1), rs.getInt(2)}, levelId);
+    }
+
+    @Override
+    public void close() {
+        new JdbcTemplate(dataSource(null)).execute("DROP SCHEMA IF EXISTS " + name + " CASCADE");
+    }
+
+    /** Ids of a level inserted by {@link #insertStockedLevel}. */
+    public static class StockedLevel {
+        public long storeId;
+        public long locationId;
+        public String locationPublicId;
+        public long productId;
+        public long variantId;
+        public String variantPublicId;
+        public long itemId;
+        public long id;
+        public String publicId;
+    }
+
+    private static DriverManagerDataSource dataSource(String schema) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url(), username(), password());
+        if (schema != null) {
+            Properties properties = new Properties();
+            properties.setProperty("currentSchema", schema + ",public");
+            dataSource.setConnectionProperties(properties);
+        }
+        return dataSource;
+    }
+
+    private static String url() {
+        return System.getenv(URL_VARIABLE);
+    }
+
+    private static String username() {
+        return System.getenv().getOrDefault("TEST_DATABASE_USERNAME", "securemarts");
+    }
+
+    private static String password() {
+        return System.getenv().getOrDefault("TEST_DATABASE_PASSWORD", "securemarts");
+    }
+}